@@ -68,6 +68,31 @@ public final class CodedInputStream {
     return new CodedInputStream(raf);
   }
 
+  /**
+   * Listener of physical file access, only notified for streams created from RandomAccessFile.
+   */
+  public interface ReadListener {
+
+    /**
+     * @param inBuffer true if position was changed inside current buffer without file access
+     */
+    void onSeek(long from, long to, boolean inBuffer);
+
+    void onRead(long filePointer, int bytes, boolean refill);
+
+    void onSkip(long filePointer, int bytes);
+  }
+
+  private ReadListener readListener;
+
+  public void setReadListener(ReadListener readListener) {
+    this.readListener = readListener;
+  }
+
+  public ReadListener getReadListener() {
+    return readListener;
+  }
+
   /**
    * Create a new CodedInputStream wrapping the given byte array slice.
    */
@@ -758,6 +783,9 @@ public final class CodedInputStream {
     	bufferSize = (int) Math.min(remain, buffer.length);
     	if(bufferSize > 0) {
     		raf.readFully(buffer, 0, bufferSize);
+    		if (readListener != null) {
+    			readListener.onRead(totalBytesRetired, bufferSize, true);
+    		}
     	} else {
     		bufferSize = -1;
     	}
@@ -882,6 +910,9 @@ public final class CodedInputStream {
         	if(raf != null) {
         		raf.readFully(chunk, pos, chunk.length - pos);
         		n = chunk.length - pos;
+        		if (readListener != null) {
+        			readListener.onRead(raf.getFilePointer() - n, n, false);
+        		}
         	} else {
         		n = (input == null) ? -1 :
         	    input.read(chunk, pos, chunk.length - pos);
@@ -944,6 +975,9 @@ public final class CodedInputStream {
       if(raf != null) {
          bufferPos = 0;
          bufferSize = 0;
+         if (readListener != null) {
+            readListener.onSkip(raf.getFilePointer(), size - pos);
+         }
       	 int n = raf.skipBytes(size - pos);
         totalBytesRetired = (int) raf.getFilePointer();
       	 if (n <= 0) {
@@ -971,8 +1005,14 @@ public final class CodedInputStream {
 		  // Then fail.
 			  throw InvalidProtocolBufferException.truncatedMessage();
 		  }
+		  if (readListener != null) {
+			  readListener.onSeek(totalBytesRetired + bufferPos, pointer, true);
+		  }
 		  bufferPos = (int) (pointer - totalBytesRetired);
 	  } else {
+		  if (readListener != null) {
+			  readListener.onSeek(totalBytesRetired + bufferPos, pointer, false);
+		  }
 		  totalBytesRetired = (int) pointer;
 		  bufferSizeAfterLimit = 0;
 		  raf.seek(pointer);
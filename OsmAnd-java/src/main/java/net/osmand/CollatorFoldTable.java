@@ -0,0 +1,159 @@
+package net.osmand;
+
+import java.text.CollationElementIterator;
+import java.text.Normalizer;
+import java.text.RuleBasedCollator;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Precomputed primary collation keys of single characters (latin, greek and cyrillic), so collator equality
+ * of strings could be checked by comparing characters: lower case without diacritics when collator doesn't
+ * distinguish them. Character gets 0 key if it is ignorable, expands to several primary collation elements,
+ * takes part in contraction or is not covered by the table, then collator has to be used.
+ * Table is built once per collator rules.
+ */
+public class CollatorFoldTable {
+
+	public static final char UNKNOWN = 0;
+	private static final char TABLE_SIZE = 0x500;
+	private static final Map<String, CollatorFoldTable> CACHE = new HashMap<String, CollatorFoldTable>();
+
+	private final char[] keys = new char[TABLE_SIZE];
+
+	private CollatorFoldTable(RuleBasedCollator collator) {
+		CollationElementIterator it = collator.getCollationElementIterator("");
+		// candidate key: lower case base letter
+		for (char c = 1; c < TABLE_SIZE; c++) {
+			if (!Character.isDefined(c) || Character.isISOControl(c) || Character.isSurrogate(c)) {
+				continue;
+			}
+			String s = String.valueOf(c);
+			if (primaryElements(it, s) != 1) {
+				continue;
+			}
+			String decomposed = Normalizer.normalize(s, Normalizer.Form.NFD);
+			char base = Character.toLowerCase(decomposed.charAt(0));
+			if (base < TABLE_SIZE && collator.equals(s, String.valueOf(base))) {
+				keys[c] = base;
+			} else {
+				keys[c] = c;
+			}
+		}
+		Set<Character> unknownKeys = new HashSet<Character>();
+		// different keys equal by collator (like 'v' and 'w' in some locales) can't be folded
+		Map<String, Character> keysByCollation = new HashMap<String, Character>();
+		for (char c = 1; c < TABLE_SIZE; c++) {
+			if (keys[c] != c) {
+				continue;
+			}
+			String collationKey = Arrays.toString(collator.getCollationKey(String.valueOf(c)).toByteArray());
+			Character other = keysByCollation.put(collationKey, c);
+			if (other != null) {
+				unknownKeys.add(other);
+				unknownKeys.add(c);
+			}
+		}
+		// contractions (like danish 'aa') make several characters one collation element,
+		// they could be only found in rules as sequence of letters
+		String rules = collator.getRules();
+		int start = -1;
+		for (int i = 0; i <= rules.length(); i++) {
+			if (i < rules.length() && Character.isLetter(rules.charAt(i))) {
+				if (start == -1) {
+					start = i;
+				}
+				continue;
+			}
+			if (start != -1 && i - start > 1) {
+				String letters = rules.substring(start, i).toLowerCase();
+				int elements = 0;
+				for (int k = 0; k < letters.length(); k++) {
+					elements += primaryElements(it, letters.substring(k, k + 1));
+				}
+				if (primaryElements(it, letters) != elements) {
+					for (int k = 0; k < letters.length(); k++) {
+						unknownKeys.add(letters.charAt(k));
+					}
+				}
+			}
+			start = -1;
+		}
+		for (char c = 1; c < TABLE_SIZE; c++) {
+			if (keys[c] != UNKNOWN && (unknownKeys.contains(keys[c]) || unknownKeys.contains(c))) {
+				keys[c] = UNKNOWN;
+			}
+		}
+	}
+
+	private static int primaryElements(CollationElementIterator it, String s) {
+		it.setText(s);
+		int count = 0;
+		int e;
+		while ((e = it.next()) != CollationElementIterator.NULLORDER) {
+			// secondary or tertiary only elements (accents) are ignorable for primary strength
+			if (CollationElementIterator.primaryOrder(e) != 0) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @return table for collator with primary strength or null if characters of the collator can't be folded
+	 */
+	public static CollatorFoldTable getTable(java.text.Collator collator) {
+		if (!(collator instanceof RuleBasedCollator) || collator.getStrength() != java.text.Collator.PRIMARY) {
+			return null;
+		}
+		RuleBasedCollator rbc = (RuleBasedCollator) collator;
+		String rules = rbc.getRules();
+		synchronized (CACHE) {
+			CollatorFoldTable table = CACHE.get(rules);
+			if (table == null) {
+				table = new CollatorFoldTable(rbc);
+				CACHE.put(rules, table);
+			}
+			return table;
+		}
+	}
+
+	public char fold(char c) {
+		return c < TABLE_SIZE ? keys[c] : UNKNOWN;
+	}
+
+	/**
+	 * Folds whole string, returns null if any of characters couldn't be folded
+	 */
+	public String fold(String s) {
+		char[] res = new char[s.length()];
+		for (int i = 0; i < res.length; i++) {
+			res[i] = fold(s.charAt(i));
+			if (res[i] == UNKNOWN) {
+				return null;
+			}
+		}
+		return new String(res);
+	}
+
+	/**
+	 * Compares region of text with already folded string.
+	 * @return 1 if equal, 0 if not equal, -1 if collator should be used
+	 */
+	public int regionEquals(String text, int offset, String foldedPart) {
+		int res = 1;
+		for (int i = 0; i < foldedPart.length(); i++) {
+			char c = fold(text.charAt(offset + i));
+			if (c == UNKNOWN) {
+				return -1;
+			}
+			if (c != foldedPart.charAt(i)) {
+				res = 0;
+			}
+		}
+		return res;
+	}
+}
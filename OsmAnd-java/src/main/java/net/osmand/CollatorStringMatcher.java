@@ -15,6 +15,8 @@ public class CollatorStringMatcher implements StringMatcher {
 	private final Collator collator;
 	private final StringMatcherMode mode;
 	private final String part;
+	// part folded by collator table, null if collator should be used
+	private final String foldedPart;
 	
 	public static enum StringMatcherMode {
 		// tests only first word as base starts with part
@@ -44,7 +46,8 @@ public class CollatorStringMatcher implements StringMatcher {
 		}
 		this.part = part;
 		this.mode = mode;
-		
+		CollatorFoldTable table = OsmAndCollator.getFoldTable(collator);
+		this.foldedPart = table == null ? null : table.fold(alignChars(part));
 	}
 
 	public Collator getCollator() {
@@ -53,24 +56,30 @@ public class CollatorStringMatcher implements StringMatcher {
 	
 	@Override
 	public boolean matches(String name) {
-		return cmatches(collator, name, part, mode);
+		return cmatches(collator, name, part, foldedPart, mode);
 	}
 	
 	
 	public static boolean cmatches(Collator collator, String fullName, String part, StringMatcherMode mode){
+		CollatorFoldTable table = OsmAndCollator.getFoldTable(collator);
+		return cmatches(collator, fullName, part, table == null ? null : table.fold(alignChars(part)), mode);
+	}
+
+	private static boolean cmatches(Collator collator, String fullName, String part, String foldedPart,
+									StringMatcherMode mode) {
 		switch (mode) {
 		case CHECK_CONTAINS:
-			return ccontains(collator, fullName, part); 
+			return ccontains(collator, fullName, part, foldedPart);
 		case CHECK_EQUALS_FROM_SPACE:
-			return cstartsWith(collator, fullName, part, true, true, true);
+			return cstartsWith(collator, fullName, part, foldedPart, true, true, true);
 		case CHECK_STARTS_FROM_SPACE:
-			return cstartsWith(collator, fullName, part, true, true, false);
+			return cstartsWith(collator, fullName, part, foldedPart, true, true, false);
 		case CHECK_STARTS_FROM_SPACE_NOT_BEGINNING:
-			return cstartsWith(collator, fullName, part, false, true, false);
+			return cstartsWith(collator, fullName, part, foldedPart, false, true, false);
 		case CHECK_ONLY_STARTS_WITH:
-			return cstartsWith(collator, fullName, part, true, false, false);
+			return cstartsWith(collator, fullName, part, foldedPart, true, false, false);
 		case CHECK_EQUALS:
-			return cstartsWith(collator, fullName, part, false, false, true);
+			return cstartsWith(collator, fullName, part, foldedPart, false, false, true);
 		}
 		return false;
 	}
@@ -85,6 +94,18 @@ public class CollatorStringMatcher implements StringMatcher {
 	 * @return true if part is contained in base
 	 */
 	public static boolean ccontains(Collator collator, String base, String part) {
+		CollatorFoldTable table = OsmAndCollator.getFoldTable(collator);
+		return ccontains(collator, base, part, table == null ? null : table.fold(part));
+	}
+
+	private static boolean ccontains(Collator collator, String base, String part, String foldedPart) {
+		if (foldedPart != null) {
+			// every character is one collation element, so substring of the same length should match
+			String foldedBase = OsmAndCollator.getFoldTable(collator).fold(base);
+			if (foldedBase != null) {
+				return base.length() <= part.length() ? foldedBase.equals(foldedPart) : foldedBase.contains(foldedPart);
+			}
+		}
 //		int pos = 0;
 //		if (part.length() > 3) {
 //			// improve searching by searching first 3 characters
@@ -133,8 +154,14 @@ public class CollatorStringMatcher implements StringMatcher {
 	 */
 	public static boolean cstartsWith(Collator collator, String fullTextP, String theStart, 
 			boolean checkBeginning, boolean checkSpaces, boolean equals) {
-		// FUTURE: This is not effective code, it runs on each comparision
-		// It would be more efficient to normalize all strings in file and normalize search string before collator  
+		CollatorFoldTable table = OsmAndCollator.getFoldTable(collator);
+		String foldedStart = table == null ? null : table.fold(alignChars(theStart));
+		return cstartsWith(collator, fullTextP, theStart, foldedStart, checkBeginning, checkSpaces, equals);
+	}
+
+	private static boolean cstartsWith(Collator collator, String fullTextP, String theStart, String foldedStart,
+			boolean checkBeginning, boolean checkSpaces, boolean equals) {
+		// collator is used only for characters which are not in fold table of collator (see CollatorFoldTable)
 		theStart = alignChars(theStart);
 		String searchIn = simplifyStringAndAlignChars(fullTextP);
 		int searchInLength = searchIn.length();
@@ -148,7 +175,7 @@ public class CollatorStringMatcher implements StringMatcher {
 		}
 		// simulate starts with for collator
 		if (checkBeginning) {
-			boolean starts = collator.equals(searchIn.substring(0, startLength), theStart);
+			boolean starts = cequals(collator, searchIn, 0, theStart, foldedStart);
 			if (starts) {
 				if (equals) {
 					if (startLength == searchInLength || isSpace(searchIn.charAt(startLength))) {
@@ -162,7 +189,7 @@ public class CollatorStringMatcher implements StringMatcher {
 		if (checkSpaces) {
 			for (int i = 1; i <= searchInLength - startLength; i++) {
 				if (isSpace(searchIn.charAt(i - 1)) && !isSpace(searchIn.charAt(i))) {
-					if (collator.equals(searchIn.substring(i, i + startLength), theStart)) {
+					if (cequals(collator, searchIn, i, theStart, foldedStart)) {
 						if(equals) {
 							if(i + startLength == searchInLength || 
 									isSpace(searchIn.charAt(i + startLength))) {
@@ -176,10 +203,23 @@ public class CollatorStringMatcher implements StringMatcher {
 			}
 		}
 		if (!checkBeginning && !checkSpaces && equals) {
+			if (startLength == searchInLength) {
+				return cequals(collator, searchIn, 0, theStart, foldedStart);
+			}
 			return collator.equals(searchIn, theStart);
 		}
 		return false;
 	}
+
+	private static boolean cequals(Collator collator, String searchIn, int offset, String theStart, String foldedStart) {
+		if (foldedStart != null) {
+			int res = OsmAndCollator.getFoldTable(collator).regionEquals(searchIn, offset, foldedStart);
+			if (res != -1) {
+				return res == 1;
+			}
+		}
+		return collator.equals(searchIn.substring(offset, offset + theStart.length()), theStart);
+	}
 	
 	private static String simplifyStringAndAlignChars(String fullText) {
 		fullText = fullText.toLowerCase(Locale.getDefault());
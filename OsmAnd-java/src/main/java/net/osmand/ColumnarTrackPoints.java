@@ -0,0 +1,386 @@
+package net.osmand;
+
+import net.osmand.GPXUtilities.GPXExtensionsWriter;
+import net.osmand.GPXUtilities.WptPt;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.RandomAccess;
+
+import gnu.trove.map.hash.TIntObjectHashMap;
+
+/**
+ * Track points stored as primitive columns instead of {@link WptPt} objects. Names, descriptions and
+ * extensions are kept in sparse table only for points which have them.
+ * <p>
+ * {@link #get(int)} creates new {@link WptPt} view of the point, changes of its fields are not stored
+ * (except extensions map which is shared), use {@link #set(int, WptPt)} or column setters to change points.
+ * So it could be used only for segments which are not modified in place (loaded or recorded tracks),
+ * see {@link GPXUtilities.TrkSegment#compactPoints()}.
+ */
+public class ColumnarTrackPoints extends AbstractList<WptPt> implements RandomAccess {
+
+	private static final int DEFAULT_CAPACITY = 16;
+
+	private static final byte FIRST_POINT = 1;
+	private static final byte LAST_POINT = 2;
+	private static final byte DELETED = 4;
+
+	private static class PointDetails {
+		String name;
+		String link;
+		String category;
+		String desc;
+		String comment;
+		Map<String, String> extensions;
+		GPXExtensionsWriter extensionsWriter;
+	}
+
+	private int size;
+	private double[] lat;
+	private double[] lon;
+	private long[] time;
+	private double[] ele;
+	private double[] speed;
+	private double[] hdop;
+	private float[] heading;
+	private double[] distance;
+	private byte[] flags;
+	// allocated with first non zero color
+	private int[] speedColor;
+	private int[] altitudeColor;
+	private int[] slopeColor;
+	private int[] colourARGB;
+	private TIntObjectHashMap<PointDetails> details = new TIntObjectHashMap<>();
+
+	public ColumnarTrackPoints() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public ColumnarTrackPoints(int capacity) {
+		capacity = Math.max(1, capacity);
+		lat = new double[capacity];
+		lon = new double[capacity];
+		time = new long[capacity];
+		ele = new double[capacity];
+		speed = new double[capacity];
+		hdop = new double[capacity];
+		heading = new float[capacity];
+		distance = new double[capacity];
+		flags = new byte[capacity];
+	}
+
+	public ColumnarTrackPoints(Collection<? extends WptPt> points) {
+		this(points.size());
+		addAll(points);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public WptPt get(int index) {
+		checkIndex(index);
+		WptPt p = new WptPt(lat[index], lon[index], time[index], ele[index], speed[index], hdop[index], heading[index]);
+		p.distance = distance[index];
+		byte f = flags[index];
+		p.firstPoint = (f & FIRST_POINT) != 0;
+		p.lastPoint = (f & LAST_POINT) != 0;
+		p.deleted = (f & DELETED) != 0;
+		p.speedColor = speedColor == null ? 0 : speedColor[index];
+		p.altitudeColor = altitudeColor == null ? 0 : altitudeColor[index];
+		p.slopeColor = slopeColor == null ? 0 : slopeColor[index];
+		p.colourARGB = colourARGB == null ? 0 : colourARGB[index];
+		PointDetails d = details.get(index);
+		if (d != null) {
+			p.name = d.name;
+			p.link = d.link;
+			p.category = d.category;
+			p.desc = d.desc;
+			p.comment = d.comment;
+			p.extensions = d.extensions;
+			p.extensionsWriter = d.extensionsWriter;
+		}
+		return p;
+	}
+
+	@Override
+	public WptPt set(int index, WptPt point) {
+		WptPt old = get(index);
+		write(index, point);
+		return old;
+	}
+
+	@Override
+	public boolean add(WptPt point) {
+		ensureCapacity(size + 1);
+		write(size++, point);
+		modCount++;
+		return true;
+	}
+
+	@Override
+	public void add(int index, WptPt point) {
+		if (index < 0 || index > size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		ensureCapacity(size + 1);
+		move(index, index + 1, size - index);
+		shiftDetails(index, 1);
+		size++;
+		write(index, point);
+		modCount++;
+	}
+
+	@Override
+	public boolean addAll(Collection<? extends WptPt> points) {
+		if (!(points instanceof ColumnarTrackPoints)) {
+			ensureCapacity(size + points.size());
+			for (WptPt p : points) {
+				add(p);
+			}
+			return !points.isEmpty();
+		}
+		ColumnarTrackPoints src = (ColumnarTrackPoints) points;
+		int count = src.size;
+		ensureCapacity(size + count);
+		System.arraycopy(src.lat, 0, lat, size, count);
+		System.arraycopy(src.lon, 0, lon, size, count);
+		System.arraycopy(src.time, 0, time, size, count);
+		System.arraycopy(src.ele, 0, ele, size, count);
+		System.arraycopy(src.speed, 0, speed, size, count);
+		System.arraycopy(src.hdop, 0, hdop, size, count);
+		System.arraycopy(src.heading, 0, heading, size, count);
+		System.arraycopy(src.distance, 0, distance, size, count);
+		System.arraycopy(src.flags, 0, flags, size, count);
+		speedColor = appendColors(speedColor, src.speedColor, count);
+		altitudeColor = appendColors(altitudeColor, src.altitudeColor, count);
+		slopeColor = appendColors(slopeColor, src.slopeColor, count);
+		colourARGB = appendColors(colourARGB, src.colourARGB, count);
+		for (int key : src.details.keys()) {
+			details.put(key + size, src.details.get(key));
+		}
+		size += count;
+		modCount++;
+		return count > 0;
+	}
+
+	@Override
+	public WptPt remove(int index) {
+		WptPt old = get(index);
+		details.remove(index);
+		move(index + 1, index, size - index - 1);
+		shiftDetails(index + 1, -1);
+		size--;
+		modCount++;
+		return old;
+	}
+
+	@Override
+	public void clear() {
+		size = 0;
+		speedColor = null;
+		altitudeColor = null;
+		slopeColor = null;
+		colourARGB = null;
+		details.clear();
+		modCount++;
+	}
+
+	public void trimToSize() {
+		if (size < lat.length) {
+			resize(Math.max(1, size));
+		}
+	}
+
+	public double getLatitude(int index) {
+		checkIndex(index);
+		return lat[index];
+	}
+
+	public double getLongitude(int index) {
+		checkIndex(index);
+		return lon[index];
+	}
+
+	public long getTime(int index) {
+		checkIndex(index);
+		return time[index];
+	}
+
+	public double getElevation(int index) {
+		checkIndex(index);
+		return ele[index];
+	}
+
+	public void setElevation(int index, double elevation) {
+		checkIndex(index);
+		ele[index] = elevation;
+	}
+
+	public double getSpeed(int index) {
+		checkIndex(index);
+		return speed[index];
+	}
+
+	public double getHdop(int index) {
+		checkIndex(index);
+		return hdop[index];
+	}
+
+	public float getHeading(int index) {
+		checkIndex(index);
+		return heading[index];
+	}
+
+	public double getDistance(int index) {
+		checkIndex(index);
+		return distance[index];
+	}
+
+	public void setDistance(int index, double dist) {
+		checkIndex(index);
+		distance[index] = dist;
+	}
+
+	public boolean isFirstPoint(int index) {
+		checkIndex(index);
+		return (flags[index] & FIRST_POINT) != 0;
+	}
+
+	public void setFirstPoint(int index, boolean firstPoint) {
+		setFlag(index, FIRST_POINT, firstPoint);
+	}
+
+	public boolean isLastPoint(int index) {
+		checkIndex(index);
+		return (flags[index] & LAST_POINT) != 0;
+	}
+
+	public void setLastPoint(int index, boolean lastPoint) {
+		setFlag(index, LAST_POINT, lastPoint);
+	}
+
+	private void setFlag(int index, byte flag, boolean value) {
+		checkIndex(index);
+		flags[index] = (byte) (value ? flags[index] | flag : flags[index] & ~flag);
+	}
+
+	private void write(int index, WptPt p) {
+		lat[index] = p.lat;
+		lon[index] = p.lon;
+		time[index] = p.time;
+		ele[index] = p.ele;
+		speed[index] = p.speed;
+		hdop[index] = p.hdop;
+		heading[index] = p.heading;
+		distance[index] = p.distance;
+		flags[index] = (byte) ((p.firstPoint ? FIRST_POINT : 0) | (p.lastPoint ? LAST_POINT : 0)
+				| (p.deleted ? DELETED : 0));
+		speedColor = writeColor(speedColor, index, p.speedColor);
+		altitudeColor = writeColor(altitudeColor, index, p.altitudeColor);
+		slopeColor = writeColor(slopeColor, index, p.slopeColor);
+		colourARGB = writeColor(colourARGB, index, p.colourARGB);
+		if (p.name != null || p.link != null || p.category != null || p.desc != null || p.comment != null
+				|| p.extensions != null || p.extensionsWriter != null) {
+			PointDetails d = new PointDetails();
+			d.name = p.name;
+			d.link = p.link;
+			d.category = p.category;
+			d.desc = p.desc;
+			d.comment = p.comment;
+			d.extensions = p.extensions;
+			d.extensionsWriter = p.extensionsWriter;
+			details.put(index, d);
+		} else {
+			details.remove(index);
+		}
+	}
+
+	private int[] writeColor(int[] colors, int index, int color) {
+		if (colors == null && color != 0) {
+			colors = new int[lat.length];
+		}
+		if (colors != null) {
+			colors[index] = color;
+		}
+		return colors;
+	}
+
+	private int[] appendColors(int[] colors, int[] srcColors, int count) {
+		if (srcColors == null) {
+			if (colors != null) {
+				Arrays.fill(colors, size, size + count, 0);
+			}
+			return colors;
+		}
+		if (colors == null) {
+			colors = new int[lat.length];
+		}
+		System.arraycopy(srcColors, 0, colors, size, count);
+		return colors;
+	}
+
+	private void move(int from, int to, int count) {
+		if (count <= 0) {
+			return;
+		}
+		System.arraycopy(lat, from, lat, to, count);
+		System.arraycopy(lon, from, lon, to, count);
+		System.arraycopy(time, from, time, to, count);
+		System.arraycopy(ele, from, ele, to, count);
+		System.arraycopy(speed, from, speed, to, count);
+		System.arraycopy(hdop, from, hdop, to, count);
+		System.arraycopy(heading, from, heading, to, count);
+		System.arraycopy(distance, from, distance, to, count);
+		System.arraycopy(flags, from, flags, to, count);
+		for (int[] colors : new int[][] {speedColor, altitudeColor, slopeColor, colourARGB}) {
+			if (colors != null) {
+				System.arraycopy(colors, from, colors, to, count);
+			}
+		}
+	}
+
+	private void shiftDetails(int from, int delta) {
+		if (from >= size || details.isEmpty()) {
+			return;
+		}
+		TIntObjectHashMap<PointDetails> shifted = new TIntObjectHashMap<>(details.size());
+		for (int key : details.keys()) {
+			shifted.put(key >= from ? key + delta : key, details.get(key));
+		}
+		details = shifted;
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity > lat.length) {
+			resize(Math.max(capacity, lat.length + (lat.length >> 1)));
+		}
+	}
+
+	private void resize(int capacity) {
+		lat = Arrays.copyOf(lat, capacity);
+		lon = Arrays.copyOf(lon, capacity);
+		time = Arrays.copyOf(time, capacity);
+		ele = Arrays.copyOf(ele, capacity);
+		speed = Arrays.copyOf(speed, capacity);
+		hdop = Arrays.copyOf(hdop, capacity);
+		heading = Arrays.copyOf(heading, capacity);
+		distance = Arrays.copyOf(distance, capacity);
+		flags = Arrays.copyOf(flags, capacity);
+		speedColor = speedColor == null ? null : Arrays.copyOf(speedColor, capacity);
+		altitudeColor = altitudeColor == null ? null : Arrays.copyOf(altitudeColor, capacity);
+		slopeColor = slopeColor == null ? null : Arrays.copyOf(slopeColor, capacity);
+		colourARGB = colourARGB == null ? null : Arrays.copyOf(colourARGB, capacity);
+	}
+
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+	}
+}
@@ -0,0 +1,312 @@
+package net.osmand;
+
+import net.osmand.GPXUtilities.GPXFile;
+import net.osmand.GPXUtilities.Track;
+import net.osmand.GPXUtilities.TrkSegment;
+import net.osmand.GPXUtilities.WptPt;
+
+import org.apache.commons.logging.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import gnu.trove.map.hash.TIntObjectHashMap;
+
+/**
+ * Elevations of many points from local height tiles in SRTM hgt format: 1x1 degree tile named by its
+ * south west corner (N52E004.hgt), square grid of big endian shorts from north west corner.
+ * <p>
+ * Points are processed in batch: they are grouped by tile, so every tile is memory mapped and read once,
+ * elevation is bilinear interpolation of 4 nearest heights (void heights are skipped).
+ * Heights of tiles are above sea level (EGM96 geoid) as altitudes recorded with geoid correction.
+ * If geoid correction is set, geoid height is added in the same pass to get heights above WGS84 ellipsoid
+ * as raw gps altitudes have.
+ */
+public class ElevationService {
+
+	private static final Log log = PlatformUtil.getLog(ElevationService.class);
+
+	public static final String HGT_EXTENSION = ".hgt";
+	private static final short VOID_HEIGHT = Short.MIN_VALUE;
+
+	private final TIntObjectHashMap<File> tiles = new TIntObjectHashMap<>();
+	private final GeoidAltitudeCorrection geoid;
+
+	public ElevationService(File dir) {
+		this(dir, null);
+	}
+
+	/**
+	 * @param geoid correction to return heights above WGS84 ellipsoid or null to return heights above sea level
+	 */
+	public ElevationService(File dir, GeoidAltitudeCorrection geoid) {
+		this.geoid = geoid != null && geoid.isGeoidInformationAvailable() ? geoid : null;
+		File[] files = dir.listFiles();
+		if (files != null) {
+			for (File f : files) {
+				int key = getTileKey(f.getName());
+				if (key != -1) {
+					tiles.put(key, f);
+				}
+			}
+		}
+	}
+
+	public boolean isEmpty() {
+		return tiles.isEmpty();
+	}
+
+	public static String getTileName(double lat, double lon) {
+		int latFloor = (int) Math.floor(lat);
+		int lonFloor = (int) Math.floor(lon);
+		return String.format(Locale.US, "%s%02d%s%03d", latFloor < 0 ? "S" : "N", Math.abs(latFloor),
+				lonFloor < 0 ? "W" : "E", Math.abs(lonFloor)) + HGT_EXTENSION;
+	}
+
+	private static int getTileKey(double lat, double lon) {
+		if (!(lat >= -90 && lat < 90 && lon >= -180 && lon < 180)) {
+			return -1;
+		}
+		return getTileKey((int) Math.floor(lat), (int) Math.floor(lon));
+	}
+
+	private static int getTileKey(int latFloor, int lonFloor) {
+		return (latFloor + 90) * 360 + lonFloor + 180;
+	}
+
+	private static int getTileKey(String name) {
+		String n = name.toUpperCase(Locale.US);
+		if (n.length() != 7 + HGT_EXTENSION.length() || !n.endsWith(HGT_EXTENSION.toUpperCase(Locale.US))) {
+			return -1;
+		}
+		char ns = n.charAt(0);
+		char ew = n.charAt(3);
+		if ((ns != 'N' && ns != 'S') || (ew != 'E' && ew != 'W')) {
+			return -1;
+		}
+		try {
+			int lat = Integer.parseInt(n.substring(1, 3));
+			int lon = Integer.parseInt(n.substring(4, 7));
+			lat = ns == 'S' ? -lat : lat;
+			lon = ew == 'W' ? -lon : lon;
+			if (lat < -90 || lat >= 90 || lon < -180 || lon >= 180) {
+				return -1;
+			}
+			return getTileKey(lat, lon);
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * @return elevation of point or NaN if there is no height data
+	 */
+	public double getElevation(double lat, double lon) {
+		double[] ele = new double[1];
+		getElevations(new double[] {lat}, new double[] {lon}, ele);
+		return ele[0];
+	}
+
+	/**
+	 * Fills elevations of points, NaN is set for points without height data.
+	 *
+	 * @return number of points with elevation
+	 */
+	public int getElevations(double[] lats, double[] lons, double[] elevations) {
+		int count = lats.length;
+		// tile key in high bits and point index in low bits to group points by tiles
+		long[] order = new long[count];
+		for (int i = 0; i < count; i++) {
+			int key = getTileKey(lats[i], lons[i]);
+			order[i] = ((long) key << 32) | i;
+		}
+		Arrays.sort(order);
+		int found = 0;
+		int start = 0;
+		while (start < count) {
+			int key = (int) (order[start] >> 32);
+			int end = start + 1;
+			while (end < count && (int) (order[end] >> 32) == key) {
+				end++;
+			}
+			HeightTile tile = key == -1 ? null : openTile(key);
+			for (int k = start; k < end; k++) {
+				int i = (int) order[k];
+				double ele = tile == null ? Double.NaN : tile.getElevation(lats[i], lons[i]);
+				if (!Double.isNaN(ele)) {
+					if (geoid != null) {
+						ele += geoid.getGeoidHeight(lats[i], lons[i]);
+					}
+					found++;
+				}
+				elevations[i] = ele;
+			}
+			start = end;
+		}
+		return found;
+	}
+
+	/**
+	 * Sets elevations of points (columns are used for {@link ColumnarTrackPoints}).
+	 *
+	 * @param onlyMissing set elevation only for points without it
+	 * @return number of changed points
+	 */
+	public int augmentElevations(List<WptPt> points, boolean onlyMissing) {
+		return augmentSegments(Collections.singletonList(points), onlyMissing);
+	}
+
+	/**
+	 * Sets elevations of track points of all segments in one batch.
+	 *
+	 * @return number of changed points
+	 */
+	public int augmentElevations(GPXFile gpx, boolean onlyMissing) {
+		List<List<WptPt>> segments = new ArrayList<>();
+		for (Track track : gpx.tracks) {
+			if (!track.generalTrack) {
+				for (TrkSegment segment : track.segments) {
+					segments.add(segment.points);
+				}
+			}
+		}
+		int changed = augmentSegments(segments, onlyMissing);
+		if (changed > 0) {
+			gpx.modifiedTime = System.currentTimeMillis();
+		}
+		return changed;
+	}
+
+	private int augmentSegments(List<List<WptPt>> lists, boolean onlyMissing) {
+		int size = 0;
+		for (List<WptPt> points : lists) {
+			size += points.size();
+		}
+		double[] lats = new double[size];
+		double[] lons = new double[size];
+		double[] elevations = new double[size];
+		int count = 0;
+		for (List<WptPt> points : lists) {
+			ColumnarTrackPoints columns = points instanceof ColumnarTrackPoints ? (ColumnarTrackPoints) points : null;
+			for (int i = 0; i < points.size(); i++) {
+				if (columns != null) {
+					if (!onlyMissing || Double.isNaN(columns.getElevation(i))) {
+						lats[count] = columns.getLatitude(i);
+						lons[count++] = columns.getLongitude(i);
+					}
+				} else {
+					WptPt p = points.get(i);
+					if (!onlyMissing || Double.isNaN(p.ele)) {
+						lats[count] = p.lat;
+						lons[count++] = p.lon;
+					}
+				}
+			}
+		}
+		if (count < size) {
+			lats = Arrays.copyOf(lats, count);
+			lons = Arrays.copyOf(lons, count);
+		}
+		getElevations(lats, lons, elevations);
+		// points are visited in the same order as they were collected
+		int changed = 0;
+		int k = 0;
+		for (List<WptPt> points : lists) {
+			ColumnarTrackPoints columns = points instanceof ColumnarTrackPoints ? (ColumnarTrackPoints) points : null;
+			for (int i = 0; i < points.size(); i++) {
+				if (columns != null) {
+					if (!onlyMissing || Double.isNaN(columns.getElevation(i))) {
+						double ele = elevations[k++];
+						if (!Double.isNaN(ele)) {
+							columns.setElevation(i, ele);
+							changed++;
+						}
+					}
+				} else {
+					WptPt p = points.get(i);
+					if (!onlyMissing || Double.isNaN(p.ele)) {
+						double ele = elevations[k++];
+						if (!Double.isNaN(ele)) {
+							p.ele = ele;
+							changed++;
+						}
+					}
+				}
+			}
+		}
+		return changed;
+	}
+
+	private HeightTile openTile(int key) {
+		File file = tiles.get(key);
+		if (file == null) {
+			return null;
+		}
+		try {
+			RandomAccessFile raf = new RandomAccessFile(file, "r");
+			try {
+				long length = raf.length();
+				int size = (int) Math.round(Math.sqrt(length / 2.0));
+				if (size < 2 || (long) size * size * 2 != length) {
+					log.error("Unsupported height tile " + file.getName());
+					return null;
+				}
+				// mapping stays valid after file is closed
+				ByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, length);
+				int latFloor = key / 360 - 90;
+				int lonFloor = key % 360 - 180;
+				return new HeightTile(buffer, size, latFloor, lonFloor);
+			} finally {
+				raf.close();
+			}
+		} catch (IOException e) {
+			log.error("Error reading height tile " + file.getName(), e);
+			return null;
+		}
+	}
+
+	private static class HeightTile {
+		private final ByteBuffer buffer;
+		private final int size;
+		private final int latFloor;
+		private final int lonFloor;
+
+		HeightTile(ByteBuffer buffer, int size, int latFloor, int lonFloor) {
+			this.buffer = buffer;
+			this.size = size;
+			this.latFloor = latFloor;
+			this.lonFloor = lonFloor;
+		}
+
+		double getElevation(double lat, double lon) {
+			int cells = size - 1;
+			double y = (latFloor + 1 - lat) * cells;
+			double x = (lon - lonFloor) * cells;
+			int row = Math.max(0, Math.min(cells - 1, (int) Math.floor(y)));
+			int col = Math.max(0, Math.min(cells - 1, (int) Math.floor(x)));
+			double dy = y - row;
+			double dx = x - col;
+			double sum = 0;
+			double weights = 0;
+			for (int i = 0; i < 4; i++) {
+				int r = row + (i >> 1);
+				int c = col + (i & 1);
+				short h = buffer.getShort((r * size + c) * 2);
+				if (h != VOID_HEIGHT) {
+					double w = ((i >> 1) == 0 ? 1 - dy : dy) * ((i & 1) == 0 ? 1 - dx : dx);
+					sum += w * h;
+					weights += w;
+				}
+			}
+			return weights > 0 ? sum / weights : Double.NaN;
+		}
+	}
+}
@@ -0,0 +1,729 @@
+package net.osmand;
+
+import net.osmand.GPXUtilities.Author;
+import net.osmand.GPXUtilities.Bounds;
+import net.osmand.GPXUtilities.Copyright;
+import net.osmand.GPXUtilities.GPXExtensions;
+import net.osmand.GPXUtilities.GPXFile;
+import net.osmand.GPXUtilities.Metadata;
+import net.osmand.GPXUtilities.PointsGroup;
+import net.osmand.GPXUtilities.Route;
+import net.osmand.GPXUtilities.RouteSegment;
+import net.osmand.GPXUtilities.RouteType;
+import net.osmand.GPXUtilities.Track;
+import net.osmand.GPXUtilities.TrkSegment;
+import net.osmand.GPXUtilities.WptPt;
+import net.osmand.util.Algorithms;
+
+import org.apache.commons.logging.Log;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Binary copy of loaded {@link GPXFile} to reopen large tracks without xml parsing. Cache file is written
+ * on first load and memory mapped afterwards, it is used only for the same length and modification time of gpx.
+ * <p>
+ * Strings are stored once in dictionary. Track points of segments are stored by columns: coordinates
+ * (fixed point 1e-7 when it's exact) and times are delta encoded varints, elevations are delta encoded
+ * decimeters or raw floats, names and extensions of points are kept in sparse table.
+ * General track is not stored, it is built again after reading.
+ */
+public class GPXBinaryCache {
+
+	private static final Log log = PlatformUtil.getLog(GPXBinaryCache.class);
+
+	public static final String EXTENSION = ".gpxbin";
+	private static final int MAGIC = 0x4f475058;
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 4 + 4 + 8 + 8;
+
+	private static final double COORDINATES_PRECISION = 1e7;
+	private static final double ELEVATION_PRECISION = 10;
+
+	private static final int COLUMN_DEFAULT = 0;
+	private static final int COLUMN_FLOAT = 1;
+	private static final int COLUMN_DOUBLE = 2;
+	private static final int COLUMN_DELTA = 3;
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	public static File getCacheFile(File gpx, File cacheDir) {
+		String name = gpx.getName() + "_" + Integer.toHexString(gpx.getAbsolutePath().hashCode()) + EXTENSION;
+		return new File(cacheDir, name);
+	}
+
+	/**
+	 * Loads gpx from cache in cacheDir, if cache is missing or outdated gpx is parsed and cache is written.
+	 */
+	public static GPXFile loadGPXFile(File gpx, File cacheDir) {
+		File cacheFile = getCacheFile(gpx, cacheDir);
+		GPXFile gpxFile = null;
+		try {
+			gpxFile = read(cacheFile, gpx.length(), gpx.lastModified());
+		} catch (IOException | RuntimeException e) {
+			log.error("Error reading gpx cache " + cacheFile.getName(), e);
+		}
+		if (gpxFile != null) {
+			gpxFile.path = gpx.getAbsolutePath();
+			gpxFile.modifiedTime = gpx.lastModified();
+			gpxFile.pointsModifiedTime = gpxFile.modifiedTime;
+			return gpxFile;
+		}
+		gpxFile = GPXUtilities.loadGPXFile(gpx);
+		if (gpxFile.error == null) {
+			try {
+				cacheDir.mkdirs();
+				write(gpxFile, cacheFile, gpx.length(), gpx.lastModified());
+			} catch (IOException e) {
+				log.error("Error writing gpx cache " + cacheFile.getName(), e);
+				cacheFile.delete();
+			}
+		}
+		return gpxFile;
+	}
+
+	/**
+	 * @return null if cache doesn't exist or was written for another version of gpx
+	 */
+	public static GPXFile read(File cacheFile, long gpxLength, long gpxModified) throws IOException {
+		if (!cacheFile.exists()) {
+			return null;
+		}
+		RandomAccessFile raf = new RandomAccessFile(cacheFile, "r");
+		try {
+			ByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+			if (raf.length() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION
+					|| buffer.getLong(8) != gpxLength || buffer.getLong(16) != gpxModified) {
+				log.info("Gpx cache is outdated " + cacheFile.getName());
+				return null;
+			}
+			buffer.position(HEADER_SIZE);
+			return new CacheReader(buffer).readFile();
+		} finally {
+			raf.close();
+		}
+	}
+
+	public static void write(GPXFile gpxFile, File cacheFile, long gpxLength, long gpxModified) throws IOException {
+		CacheWriter body = new CacheWriter();
+		body.writeFile(gpxFile);
+		CacheWriter dictionary = new CacheWriter();
+		dictionary.writeVarInt(body.strings.size());
+		for (String s : body.strings) {
+			byte[] bytes = s.getBytes(UTF8);
+			dictionary.writeVarInt(bytes.length);
+			dictionary.out.write(bytes);
+		}
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		header.putInt(MAGIC).putInt(VERSION).putLong(gpxLength).putLong(gpxModified);
+		// cache is written to temporary file and renamed, so readers never see partially written cache
+		File tmp = new File(cacheFile.getParentFile(), cacheFile.getName() + ".tmp");
+		boolean written = false;
+		FileOutputStream fout = new FileOutputStream(tmp);
+		try {
+			fout.write(header.array());
+			dictionary.out.writeTo(fout);
+			body.out.writeTo(fout);
+			written = true;
+		} finally {
+			fout.close();
+			if (!written) {
+				tmp.delete();
+			}
+		}
+		if (!tmp.renameTo(cacheFile)) {
+			cacheFile.delete();
+			if (!tmp.renameTo(cacheFile)) {
+				tmp.delete();
+				throw new IOException("Can't replace gpx cache " + cacheFile.getName());
+			}
+		}
+	}
+
+	private static class CacheWriter {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final List<String> strings = new ArrayList<>();
+		final Map<String, Integer> stringIds = new HashMap<>();
+
+		void writeFile(GPXFile gpxFile) {
+			writeString(gpxFile.author);
+			writeExtensions(gpxFile);
+			writeMetadata(gpxFile.metadata);
+
+			List<WptPt> points = gpxFile.getPoints();
+			writeVarInt(points.size());
+			Map<WptPt, Integer> pointIndexes = new IdentityHashMap<>();
+			for (WptPt p : points) {
+				pointIndexes.put(p, pointIndexes.size());
+				writePoint(p);
+			}
+			Map<String, PointsGroup> groups = gpxFile.getPointsGroups();
+			writeVarInt(groups.size());
+			for (PointsGroup group : groups.values()) {
+				writeString(group.name);
+				writeString(group.iconName);
+				writeString(group.backgroundType);
+				writeInt(group.color);
+				writeVarInt(group.points.size());
+				for (WptPt p : group.points) {
+					Integer ind = pointIndexes.get(p);
+					writeVarInt(ind == null ? 0 : ind + 1);
+					if (ind == null) {
+						writePoint(p);
+					}
+				}
+			}
+
+			writeVarInt(gpxFile.routes.size());
+			for (Route route : gpxFile.routes) {
+				writeString(route.name);
+				writeString(route.desc);
+				writeExtensions(route);
+				writeVarInt(route.points.size());
+				for (WptPt p : route.points) {
+					writePoint(p);
+				}
+			}
+
+			List<Track> tracks = new ArrayList<>();
+			for (Track track : gpxFile.tracks) {
+				if (!track.generalTrack) {
+					tracks.add(track);
+				}
+			}
+			writeVarInt(tracks.size());
+			for (Track track : tracks) {
+				writeString(track.name);
+				writeString(track.desc);
+				writeExtensions(track);
+				writeVarInt(track.segments.size());
+				for (TrkSegment segment : track.segments) {
+					writeSegment(segment);
+				}
+			}
+		}
+
+		void writeMetadata(Metadata metadata) {
+			writeVarInt(metadata == null ? 0 : 1);
+			if (metadata == null) {
+				return;
+			}
+			writeString(metadata.name);
+			writeString(metadata.desc);
+			writeString(metadata.link);
+			writeString(metadata.keywords);
+			writeZigZag(metadata.time);
+			writeExtensions(metadata);
+			Author author = metadata.author;
+			writeVarInt(author == null ? 0 : 1);
+			if (author != null) {
+				writeString(author.name);
+				writeString(author.email);
+				writeString(author.link);
+				writeExtensions(author);
+			}
+			Copyright copyright = metadata.copyright;
+			writeVarInt(copyright == null ? 0 : 1);
+			if (copyright != null) {
+				writeString(copyright.author);
+				writeString(copyright.year);
+				writeString(copyright.license);
+				writeExtensions(copyright);
+			}
+			Bounds bounds = metadata.bounds;
+			writeVarInt(bounds == null ? 0 : 1);
+			if (bounds != null) {
+				writeDouble(bounds.minlat);
+				writeDouble(bounds.minlon);
+				writeDouble(bounds.maxlat);
+				writeDouble(bounds.maxlon);
+				writeExtensions(bounds);
+			}
+		}
+
+		void writeSegment(TrkSegment segment) {
+			writeString(segment.name);
+			writeExtensions(segment);
+			writeVarInt(segment.routeSegments.size());
+			for (RouteSegment s : segment.routeSegments) {
+				writeString(s.id);
+				writeString(s.length);
+				writeString(s.segmentTime);
+				writeString(s.speed);
+				writeString(s.turnType);
+				writeString(s.turnAngle);
+				writeString(s.skipTurn);
+				writeString(s.types);
+				writeString(s.pointTypes);
+				writeString(s.names);
+			}
+			writeVarInt(segment.routeTypes.size());
+			for (RouteType t : segment.routeTypes) {
+				writeString(t.tag);
+				writeString(t.value);
+			}
+
+			List<WptPt> points = segment.points;
+			int n = points.size();
+			writeVarInt(n);
+			double[] lat = new double[n];
+			double[] lon = new double[n];
+			double[] ele = new double[n];
+			double[] speed = new double[n];
+			double[] hdop = new double[n];
+			double[] heading = new double[n];
+			for (int i = 0; i < n; i++) {
+				WptPt p = points.get(i);
+				lat[i] = p.lat;
+				lon[i] = p.lon;
+				ele[i] = p.ele;
+				speed[i] = p.speed;
+				hdop[i] = p.hdop;
+				heading[i] = p.heading;
+			}
+			boolean fixedPoint = isFixedPoint(lat, COORDINATES_PRECISION) && isFixedPoint(lon, COORDINATES_PRECISION);
+			writeVarInt(fixedPoint ? COLUMN_DELTA : COLUMN_DOUBLE);
+			long prevLat = 0;
+			long prevLon = 0;
+			for (int i = 0; i < n; i++) {
+				if (fixedPoint) {
+					long x = Math.round(lat[i] * COORDINATES_PRECISION);
+					long y = Math.round(lon[i] * COORDINATES_PRECISION);
+					writeZigZag(x - prevLat);
+					writeZigZag(y - prevLon);
+					prevLat = x;
+					prevLon = y;
+				} else {
+					writeDouble(lat[i]);
+					writeDouble(lon[i]);
+				}
+			}
+			long prevTime = 0;
+			for (int i = 0; i < n; i++) {
+				long time = points.get(i).time;
+				writeZigZag(time - prevTime);
+				prevTime = time;
+			}
+			writeColumn(ele, Double.NaN, ELEVATION_PRECISION);
+			writeColumn(speed, 0, 0);
+			writeColumn(hdop, Double.NaN, 0);
+			writeColumn(heading, Double.NaN, 0);
+
+			int details = 0;
+			for (WptPt p : points) {
+				if (hasDetails(p)) {
+					details++;
+				}
+			}
+			writeVarInt(details);
+			int prevIndex = 0;
+			for (int i = 0; i < n; i++) {
+				WptPt p = points.get(i);
+				if (hasDetails(p)) {
+					writeVarInt(i - prevIndex);
+					prevIndex = i;
+					writePointDetails(p);
+				}
+			}
+		}
+
+		boolean hasDetails(WptPt p) {
+			return p.name != null || p.link != null || p.category != null || p.desc != null || p.comment != null
+					|| p.extensions != null;
+		}
+
+		boolean isFixedPoint(double[] values, double precision) {
+			for (double v : values) {
+				if (Double.isNaN(v) || Math.round(v * precision) / precision != v) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		void writeColumn(double[] values, double defValue, double deltaPrecision) {
+			boolean defaults = true;
+			boolean floats = true;
+			boolean delta = deltaPrecision > 0;
+			for (double v : values) {
+				defaults &= Double.doubleToLongBits(v) == Double.doubleToLongBits(defValue);
+				floats &= Double.doubleToLongBits(v) == Double.doubleToLongBits((float) v);
+				delta &= !Double.isNaN(v) && (float) (Math.round(v * deltaPrecision) / deltaPrecision) == v;
+			}
+			if (defaults) {
+				writeVarInt(COLUMN_DEFAULT);
+			} else if (delta && floats) {
+				// parsed as floats, decimals are restored with float precision
+				writeVarInt(COLUMN_DELTA);
+				long prev = 0;
+				for (double v : values) {
+					long l = Math.round(v * deltaPrecision);
+					writeZigZag(l - prev);
+					prev = l;
+				}
+			} else if (floats) {
+				writeVarInt(COLUMN_FLOAT);
+				for (double v : values) {
+					writeInt(Float.floatToRawIntBits((float) v));
+				}
+			} else {
+				writeVarInt(COLUMN_DOUBLE);
+				for (double v : values) {
+					writeDouble(v);
+				}
+			}
+		}
+
+		void writePoint(WptPt p) {
+			writeDouble(p.lat);
+			writeDouble(p.lon);
+			writeZigZag(p.time);
+			writeDouble(p.ele);
+			writeDouble(p.speed);
+			writeDouble(p.hdop);
+			writeInt(Float.floatToRawIntBits(p.heading));
+			writePointDetails(p);
+		}
+
+		void writePointDetails(WptPt p) {
+			writeString(p.name);
+			writeString(p.link);
+			writeString(p.category);
+			writeString(p.desc);
+			writeString(p.comment);
+			writeExtensions(p);
+		}
+
+		void writeExtensions(GPXExtensions e) {
+			if (e.extensions == null) {
+				writeVarInt(0);
+				return;
+			}
+			writeVarInt(e.extensions.size() + 1);
+			for (Entry<String, String> entry : e.extensions.entrySet()) {
+				writeString(entry.getKey());
+				writeString(entry.getValue());
+			}
+		}
+
+		void writeString(String s) {
+			if (s == null) {
+				writeVarInt(0);
+				return;
+			}
+			Integer id = stringIds.get(s);
+			if (id == null) {
+				id = strings.size();
+				strings.add(s);
+				stringIds.put(s, id);
+			}
+			writeVarInt(id + 1);
+		}
+
+		void writeInt(int v) {
+			out.write(v >>> 24);
+			out.write(v >>> 16);
+			out.write(v >>> 8);
+			out.write(v);
+		}
+
+		void writeDouble(double v) {
+			long l = Double.doubleToRawLongBits(v);
+			writeInt((int) (l >>> 32));
+			writeInt((int) l);
+		}
+
+		void writeZigZag(long v) {
+			writeVarLong((v << 1) ^ (v >> 63));
+		}
+
+		void writeVarInt(int v) {
+			writeVarLong(v & 0xffffffffL);
+		}
+
+		void writeVarLong(long v) {
+			while ((v & ~0x7fL) != 0) {
+				out.write((int) ((v & 0x7f) | 0x80));
+				v >>>= 7;
+			}
+			out.write((int) v);
+		}
+	}
+
+	private static class CacheReader {
+		final ByteBuffer buffer;
+		String[] strings;
+
+		CacheReader(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		GPXFile readFile() {
+			strings = new String[readVarInt()];
+			for (int i = 0; i < strings.length; i++) {
+				byte[] bytes = new byte[readVarInt()];
+				buffer.get(bytes);
+				strings[i] = new String(bytes, UTF8);
+			}
+			GPXFile gpxFile = new GPXFile(readString());
+			readExtensions(gpxFile);
+			gpxFile.metadata = readMetadata();
+
+			int pointsCount = readVarInt();
+			List<WptPt> points = new ArrayList<>(pointsCount);
+			for (int i = 0; i < pointsCount; i++) {
+				points.add(readPoint());
+			}
+			int groupsCount = readVarInt();
+			Map<String, PointsGroup> groups = new LinkedHashMap<>();
+			for (int i = 0; i < groupsCount; i++) {
+				PointsGroup group = new PointsGroup(readString(), readString(), readString(), buffer.getInt());
+				int count = readVarInt();
+				for (int k = 0; k < count; k++) {
+					int ind = readVarInt();
+					group.points.add(ind == 0 ? readPoint() : points.get(ind - 1));
+				}
+				groups.put(group.name, group);
+			}
+			gpxFile.restorePoints(points, groups);
+
+			int routesCount = readVarInt();
+			for (int i = 0; i < routesCount; i++) {
+				Route route = new Route();
+				route.name = readString();
+				route.desc = readString();
+				readExtensions(route);
+				int count = readVarInt();
+				for (int k = 0; k < count; k++) {
+					route.points.add(readPoint());
+				}
+				gpxFile.routes.add(route);
+			}
+
+			int tracksCount = readVarInt();
+			for (int i = 0; i < tracksCount; i++) {
+				Track track = new Track();
+				track.name = readString();
+				track.desc = readString();
+				readExtensions(track);
+				int count = readVarInt();
+				for (int k = 0; k < count; k++) {
+					track.segments.add(readSegment());
+				}
+				gpxFile.tracks.add(track);
+			}
+			gpxFile.addGeneralTrack();
+			return gpxFile;
+		}
+
+		Metadata readMetadata() {
+			if (readVarInt() == 0) {
+				return null;
+			}
+			Metadata metadata = new Metadata();
+			metadata.name = readString();
+			metadata.desc = readString();
+			metadata.link = readString();
+			metadata.keywords = readString();
+			metadata.time = readZigZag();
+			readExtensions(metadata);
+			if (readVarInt() != 0) {
+				Author author = new Author();
+				author.name = readString();
+				author.email = readString();
+				author.link = readString();
+				readExtensions(author);
+				metadata.author = author;
+			}
+			if (readVarInt() != 0) {
+				Copyright copyright = new Copyright();
+				copyright.author = readString();
+				copyright.year = readString();
+				copyright.license = readString();
+				readExtensions(copyright);
+				metadata.copyright = copyright;
+			}
+			if (readVarInt() != 0) {
+				Bounds bounds = new Bounds();
+				bounds.minlat = buffer.getDouble();
+				bounds.minlon = buffer.getDouble();
+				bounds.maxlat = buffer.getDouble();
+				bounds.maxlon = buffer.getDouble();
+				readExtensions(bounds);
+				metadata.bounds = bounds;
+			}
+			return metadata;
+		}
+
+		TrkSegment readSegment() {
+			TrkSegment segment = new TrkSegment();
+			segment.name = readString();
+			readExtensions(segment);
+			int routeSegments = readVarInt();
+			for (int i = 0; i < routeSegments; i++) {
+				RouteSegment s = new RouteSegment();
+				s.id = readString();
+				s.length = readString();
+				s.segmentTime = readString();
+				s.speed = readString();
+				s.turnType = readString();
+				s.turnAngle = readString();
+				s.skipTurn = readString();
+				s.types = readString();
+				s.pointTypes = readString();
+				s.names = readString();
+				segment.routeSegments.add(s);
+			}
+			int routeTypes = readVarInt();
+			for (int i = 0; i < routeTypes; i++) {
+				RouteType t = new RouteType();
+				t.tag = readString();
+				t.value = readString();
+				segment.routeTypes.add(t);
+			}
+
+			int n = readVarInt();
+			List<WptPt> points = new ArrayList<>(n);
+			boolean fixedPoint = readVarInt() == COLUMN_DELTA;
+			long lat = 0;
+			long lon = 0;
+			for (int i = 0; i < n; i++) {
+				WptPt p = new WptPt();
+				if (fixedPoint) {
+					lat += readZigZag();
+					lon += readZigZag();
+					p.lat = lat / COORDINATES_PRECISION;
+					p.lon = lon / COORDINATES_PRECISION;
+				} else {
+					p.lat = buffer.getDouble();
+					p.lon = buffer.getDouble();
+				}
+				points.add(p);
+			}
+			long time = 0;
+			for (WptPt p : points) {
+				time += readZigZag();
+				p.time = time;
+			}
+			double[] values = readColumn(n, Double.NaN, ELEVATION_PRECISION);
+			for (int i = 0; i < n; i++) {
+				points.get(i).ele = values[i];
+			}
+			values = readColumn(n, 0, 0);
+			for (int i = 0; i < n; i++) {
+				points.get(i).speed = values[i];
+			}
+			values = readColumn(n, Double.NaN, 0);
+			for (int i = 0; i < n; i++) {
+				points.get(i).hdop = values[i];
+			}
+			values = readColumn(n, Double.NaN, 0);
+			for (int i = 0; i < n; i++) {
+				points.get(i).heading = (float) values[i];
+			}
+			int details = readVarInt();
+			int index = 0;
+			for (int i = 0; i < details; i++) {
+				index += readVarInt();
+				readPointDetails(points.get(index));
+			}
+			segment.points = points;
+			return segment;
+		}
+
+		double[] readColumn(int n, double defValue, double deltaPrecision) {
+			double[] values = new double[n];
+			int type = readVarInt();
+			long prev = 0;
+			for (int i = 0; i < n; i++) {
+				if (type == COLUMN_DEFAULT) {
+					values[i] = defValue;
+				} else if (type == COLUMN_DELTA) {
+					prev += readZigZag();
+					values[i] = (float) (prev / deltaPrecision);
+				} else if (type == COLUMN_FLOAT) {
+					values[i] = Float.intBitsToFloat(buffer.getInt());
+				} else {
+					values[i] = buffer.getDouble();
+				}
+			}
+			return values;
+		}
+
+		WptPt readPoint() {
+			WptPt p = new WptPt();
+			p.lat = buffer.getDouble();
+			p.lon = buffer.getDouble();
+			p.time = readZigZag();
+			p.ele = buffer.getDouble();
+			p.speed = buffer.getDouble();
+			p.hdop = buffer.getDouble();
+			p.heading = Float.intBitsToFloat(buffer.getInt());
+			readPointDetails(p);
+			return p;
+		}
+
+		void readPointDetails(WptPt p) {
+			p.name = readString();
+			p.link = readString();
+			p.category = readString();
+			p.desc = readString();
+			p.comment = readString();
+			readExtensions(p);
+		}
+
+		void readExtensions(GPXExtensions e) {
+			int size = readVarInt();
+			if (size == 0) {
+				e.extensions = null;
+				return;
+			}
+			Map<String, String> extensions = new LinkedHashMap<>();
+			for (int i = 1; i < size; i++) {
+				extensions.put(readString(), readString());
+			}
+			e.extensions = extensions;
+		}
+
+		String readString() {
+			int id = readVarInt();
+			return id == 0 ? null : strings[id - 1];
+		}
+
+		long readZigZag() {
+			long v = readVarLong();
+			return (v >>> 1) ^ -(v & 1);
+		}
+
+		int readVarInt() {
+			return (int) readVarLong();
+		}
+
+		long readVarLong() {
+			long v = 0;
+			int shift = 0;
+			while (true) {
+				byte b = buffer.get();
+				v |= (long) (b & 0x7f) << shift;
+				if ((b & 0x80) == 0) {
+					return v;
+				}
+				shift += 7;
+			}
+		}
+	}
+}
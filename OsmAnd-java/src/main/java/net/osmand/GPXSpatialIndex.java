@@ -0,0 +1,569 @@
+package net.osmand;
+
+import net.osmand.GPXStreamParser.GPXVisitor;
+import net.osmand.GPXUtilities.GPXFile;
+import net.osmand.GPXUtilities.TrkSegment;
+import net.osmand.GPXUtilities.WptPt;
+import net.osmand.data.QuadRect;
+import net.osmand.util.MapUtils;
+
+import org.apache.commons.logging.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.list.array.TLongArrayList;
+import gnu.trove.map.hash.TIntObjectHashMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+
+/**
+ * Persistent spatial index of gpx files to find tracks near location without opening all files.
+ * <p>
+ * Tracks are indexed by quadtree cells of {@link #CELL_ZOOM} zoom: cell keys are Morton codes of tiles,
+ * so any quadtree cell of lower zoom is continuous range of keys. Cell maps to ranges of points
+ * (file, segment, first point, last point, 31 tile coordinates of first point) where track is inside of the cell,
+ * range includes previous point to keep lines entering the cell. Segment is index in
+ * {@link GPXFile#getNonEmptyTrkSegments(boolean)}. Lines crossing 180 meridian are split at it.
+ * <p>
+ * Index is updated by files: file is indexed again only if its length or modification time was changed,
+ * points of files are read with {@link GPXStreamParser}.
+ */
+public class GPXSpatialIndex {
+
+	private static final Log log = PlatformUtil.getLog(GPXSpatialIndex.class);
+
+	public static final String FILE_NAME = "gpx_spatial.idx";
+	public static final int CELL_ZOOM = 15;
+	private static final int MAGIC = 0x4f475349;
+	private static final int VERSION = 3;
+	// file id, segment, start point, end point, x31 and y31 of start point
+	private static final int ENTRY_SIZE = 6;
+
+	private final TreeMap<Long, TIntArrayList> cells = new TreeMap<>();
+	private final Map<String, IndexedFile> files = new HashMap<>();
+	private final TIntObjectHashMap<IndexedFile> filesById = new TIntObjectHashMap<>();
+	private int nextFileId;
+
+	public static class TrackRange {
+		public final String path;
+		public final int segment;
+		public final int startPoint;
+		public final int endPoint;
+		public final int startX31;
+		public final int startY31;
+
+		public TrackRange(String path, int segment, int startPoint, int endPoint, int startX31, int startY31) {
+			this.path = path;
+			this.segment = segment;
+			this.startPoint = startPoint;
+			this.endPoint = endPoint;
+			this.startX31 = startX31;
+			this.startY31 = startY31;
+		}
+
+		@Override
+		public String toString() {
+			return path + " " + segment + " [" + startPoint + ", " + endPoint + "]";
+		}
+	}
+
+	private static class IndexedFile {
+		final int id;
+		final String path;
+		long length;
+		long modified;
+		final TLongArrayList cells = new TLongArrayList();
+
+		IndexedFile(int id, String path) {
+			this.id = id;
+			this.path = path;
+		}
+	}
+
+	public static long getCellKey(int x31, int y31) {
+		int shift = 31 - CELL_ZOOM;
+		return interleave(x31 >>> shift, y31 >>> shift);
+	}
+
+	private static long interleave(int x, int y) {
+		long key = 0;
+		for (int i = 0; i < CELL_ZOOM; i++) {
+			key |= ((long) (x >> i & 1) << (2 * i + 1)) | ((long) (y >> i & 1) << (2 * i));
+		}
+		return key;
+	}
+
+	public synchronized boolean isEmpty() {
+		return files.isEmpty();
+	}
+
+	public synchronized Set<String> getIndexedFiles() {
+		return new HashSet<>(files.keySet());
+	}
+
+	public synchronized boolean isIndexed(File file) {
+		IndexedFile f = files.get(file.getAbsolutePath());
+		return f != null && f.length == file.length() && f.modified == file.lastModified();
+	}
+
+	/**
+	 * Indexes files which are not indexed or were modified and removes files which are not in the list.
+	 *
+	 * @return true if index was changed
+	 */
+	public boolean update(Collection<File> gpxFiles) {
+		Set<String> paths = new HashSet<>();
+		boolean changed = false;
+		for (File file : gpxFiles) {
+			paths.add(file.getAbsolutePath());
+			if (!isIndexed(file)) {
+				if (updateFile(file)) {
+					changed = true;
+				} else {
+					changed |= removeFile(file.getAbsolutePath());
+				}
+			}
+		}
+		for (String path : getIndexedFiles()) {
+			if (!paths.contains(path)) {
+				changed |= removeFile(path);
+			}
+		}
+		return changed;
+	}
+
+	/**
+	 * Indexes track points of file read by streaming parser instead of previous version of file.
+	 *
+	 * @return false if file couldn't be read
+	 */
+	public boolean updateFile(File file) {
+		long length = file.length();
+		long modified = file.lastModified();
+		final TLongObjectHashMap<TIntArrayList> fileCells = new TLongObjectHashMap<>();
+		try {
+			GPXStreamParser.parse(file, new GPXVisitor() {
+				private int segment;
+				private SegmentCells segmentCells;
+
+				@Override
+				public void startSegment() {
+					segmentCells = new SegmentCells(segment, fileCells);
+				}
+
+				@Override
+				public void visitTrackPoint(WptPt point) {
+					segmentCells.addPoint(point.lat, point.lon);
+				}
+
+				@Override
+				public void endSegment() {
+					// only non empty segments are counted as in GPXFile.getNonEmptyTrkSegments()
+					if (segmentCells.finish()) {
+						segment++;
+					}
+				}
+			});
+		} catch (IOException e) {
+			log.error("Error reading gpx " + file.getName(), e);
+			return false;
+		}
+		putFile(file, length, modified, fileCells);
+		return true;
+	}
+
+	/**
+	 * Indexes already loaded gpx of file instead of previous version of file.
+	 */
+	public void updateFile(File file, GPXFile gpx) {
+		long length = file.length();
+		long modified = file.lastModified();
+		TLongObjectHashMap<TIntArrayList> fileCells = new TLongObjectHashMap<>();
+		List<TrkSegment> segments = gpx.getNonEmptyTrkSegments(false);
+		for (int s = 0; s < segments.size(); s++) {
+			SegmentCells segmentCells = new SegmentCells(s, fileCells);
+			for (WptPt p : segments.get(s).points) {
+				segmentCells.addPoint(p.lat, p.lon);
+			}
+			segmentCells.finish();
+		}
+		putFile(file, length, modified, fileCells);
+	}
+
+	// ranges are collected before lock, only cells are changed under lock
+	private synchronized void putFile(File file, long length, long modified,
+	                                  TLongObjectHashMap<TIntArrayList> fileCells) {
+		String path = file.getAbsolutePath();
+		removeFile(path);
+		IndexedFile f = new IndexedFile(nextFileId++, path);
+		f.length = length;
+		f.modified = modified;
+		for (long key : fileCells.keys()) {
+			TIntArrayList ranges = fileCells.get(key);
+			TIntArrayList entries = getCell(key);
+			for (int i = 0; i < ranges.size(); i += ENTRY_SIZE - 1) {
+				entries.add(f.id);
+				for (int k = 0; k < ENTRY_SIZE - 1; k++) {
+					entries.add(ranges.getQuick(i + k));
+				}
+			}
+			f.cells.add(key);
+		}
+		files.put(path, f);
+		filesById.put(f.id, f);
+	}
+
+	private TIntArrayList getCell(long key) {
+		TIntArrayList entries = cells.get(key);
+		if (entries == null) {
+			entries = new TIntArrayList();
+			cells.put(key, entries);
+		}
+		return entries;
+	}
+
+	/**
+	 * Collects ranges of points of one segment by cells.
+	 */
+	private static class SegmentCells {
+		private static final long WORLD_WIDTH_31 = 1L << 31;
+
+		private final int segment;
+		private final TLongObjectHashMap<TIntArrayList> fileCells;
+		// open range of segment in cell: start and end indexes, x31 and y31 of start point
+		private final TLongObjectHashMap<int[]> openRanges = new TLongObjectHashMap<>();
+		private int points;
+		private int prevX;
+		private int prevY;
+
+		SegmentCells(int segment, TLongObjectHashMap<TIntArrayList> fileCells) {
+			this.segment = segment;
+			this.fileCells = fileCells;
+		}
+
+		void addPoint(double lat, double lon) {
+			int x = MapUtils.get31TileNumberX(lon);
+			int y = MapUtils.get31TileNumberY(lat);
+			int index = points++;
+			if (index == 0) {
+				addToRange(getCellKey(x, y), 0, x, y);
+			} else if (Math.abs((long) x - prevX) > WORLD_WIDTH_31 / 2) {
+				// line crosses 180 meridian, it's split at crossing with the east and the west border of map
+				boolean toWest = x < prevX;
+				long unwrappedX = toWest ? x + WORLD_WIDTH_31 : x - WORLD_WIDTH_31;
+				long borderX = toWest ? WORLD_WIDTH_31 : 0;
+				int borderY = (int) (prevY + (y - (long) prevY) * (borderX - prevX) / (unwrappedX - prevX));
+				addLine(prevX, prevY, toWest ? Integer.MAX_VALUE : 0, borderY, index);
+				addLine(toWest ? 0 : Integer.MAX_VALUE, borderY, x, y, index);
+			} else {
+				addLine(prevX, prevY, x, y, index);
+			}
+			prevX = x;
+			prevY = y;
+		}
+
+		/**
+		 * @return false if segment has no points
+		 */
+		boolean finish() {
+			for (long key : openRanges.keys()) {
+				closeRange(key, openRanges.get(key));
+			}
+			openRanges.clear();
+			return points > 0;
+		}
+
+		/**
+		 * Adds line ending with point index to all cells it passes through: walks cells along the line choosing
+		 * next cell by which border (first 31 tile coordinate of the next cell) is reached first.
+		 * If line goes through corner of cells, both cells next to the corner are added.
+		 */
+		private void addLine(int x0, int y0, int x1, int y1, int index) {
+			int shift = 31 - CELL_ZOOM;
+			int cx = x0 >>> shift;
+			int cy = y0 >>> shift;
+			int endX = x1 >>> shift;
+			int endY = y1 >>> shift;
+			int stepX = Integer.signum(endX - cx);
+			int stepY = Integer.signum(endY - cy);
+			long dx = Math.abs((long) x1 - x0);
+			long dy = Math.abs((long) y1 - y0);
+			addToRange(interleave(cx, cy), index, prevX, prevY);
+			while (cx != endX || cy != endY) {
+				// distances to borders are compared as fractions of line: distX / dx and distY / dy
+				long distX = stepX > 0 ? ((long) (cx + 1) << shift) - x0 : x0 - (((long) cx << shift) - 1);
+				long distY = stepY > 0 ? ((long) (cy + 1) << shift) - y0 : y0 - (((long) cy << shift) - 1);
+				long cmp = stepX == 0 ? 1 : (stepY == 0 ? -1 : Long.signum(distX * dy - distY * dx));
+				if (cmp == 0) {
+					addToRange(interleave(cx + stepX, cy), index, prevX, prevY);
+					addToRange(interleave(cx, cy + stepY), index, prevX, prevY);
+					cx += stepX;
+					cy += stepY;
+				} else if (cmp < 0) {
+					cx += stepX;
+				} else {
+					cy += stepY;
+				}
+				addToRange(interleave(cx, cy), index, prevX, prevY);
+			}
+		}
+
+		// startX and startY are coordinates of previous point which starts new range
+		private void addToRange(long key, int index, int startX, int startY) {
+			int start = Math.max(0, index - 1);
+			int[] range = openRanges.get(key);
+			if (range != null && range[1] >= start) {
+				range[1] = index;
+				return;
+			}
+			if (range != null) {
+				closeRange(key, range);
+			}
+			openRanges.put(key, new int[] {start, index, startX, startY});
+		}
+
+		private void closeRange(long key, int[] range) {
+			TIntArrayList ranges = fileCells.get(key);
+			if (ranges == null) {
+				ranges = new TIntArrayList();
+				fileCells.put(key, ranges);
+			}
+			ranges.add(segment);
+			ranges.add(range);
+		}
+	}
+
+	public synchronized boolean removeFile(String path) {
+		IndexedFile f = files.remove(path);
+		if (f == null) {
+			return false;
+		}
+		filesById.remove(f.id);
+		for (int c = 0; c < f.cells.size(); c++) {
+			long key = f.cells.getQuick(c);
+			TIntArrayList entries = cells.get(key);
+			if (entries == null) {
+				continue;
+			}
+			TIntArrayList left = new TIntArrayList(entries.size());
+			for (int i = 0; i < entries.size(); i += ENTRY_SIZE) {
+				if (entries.getQuick(i) != f.id) {
+					for (int k = 0; k < ENTRY_SIZE; k++) {
+						left.add(entries.getQuick(i + k));
+					}
+				}
+			}
+			if (left.isEmpty()) {
+				cells.remove(key);
+			} else {
+				cells.put(key, left);
+			}
+		}
+		return true;
+	}
+
+	public List<TrackRange> searchNearby(double lat, double lon, int radiusMeters) {
+		QuadRect rect = MapUtils.calculateLatLonBbox(lat, lon, radiusMeters);
+		return search(MapUtils.get31TileNumberX(rect.left), MapUtils.get31TileNumberY(rect.top),
+				MapUtils.get31TileNumberX(rect.right), MapUtils.get31TileNumberY(rect.bottom));
+	}
+
+	public Set<String> searchFiles(int left31, int top31, int right31, int bottom31) {
+		Set<String> result = new LinkedHashSet<>();
+		for (TrackRange range : search(left31, top31, right31, bottom31)) {
+			result.add(range.path);
+		}
+		return result;
+	}
+
+	/**
+	 * @return merged ranges of track points in cells intersecting rect, sorted by file, segment and point
+	 */
+	public synchronized List<TrackRange> search(int left31, int top31, int right31, int bottom31) {
+		int shift = 31 - CELL_ZOOM;
+		TIntArrayList found = new TIntArrayList();
+		searchCells(0, 0, 0, left31 >>> shift, top31 >>> shift, right31 >>> shift, bottom31 >>> shift, found);
+		List<TrackRange> result = new ArrayList<>();
+		if (found.isEmpty()) {
+			return result;
+		}
+		// sort found ranges of all cells to merge the same points of neighbour cells
+		Integer[] order = new Integer[found.size() / ENTRY_SIZE];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i * ENTRY_SIZE;
+		}
+		final int[] entries = found.toArray();
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer o1, Integer o2) {
+				for (int k = 0; k < 3; k++) {
+					int c = Integer.compare(entries[o1 + k], entries[o2 + k]);
+					if (c != 0) {
+						return c;
+					}
+				}
+				return 0;
+			}
+		});
+		int fileId = -1;
+		int segment = -1;
+		int start = -1;
+		int end = -1;
+		int startX = 0;
+		int startY = 0;
+		for (int o : order) {
+			if (entries[o] == fileId && entries[o + 1] == segment && entries[o + 2] <= end) {
+				end = Math.max(end, entries[o + 3]);
+				continue;
+			}
+			if (fileId != -1) {
+				result.add(new TrackRange(filesById.get(fileId).path, segment, start, end, startX, startY));
+			}
+			fileId = entries[o];
+			segment = entries[o + 1];
+			start = entries[o + 2];
+			end = entries[o + 3];
+			startX = entries[o + 4];
+			startY = entries[o + 5];
+		}
+		result.add(new TrackRange(filesById.get(fileId).path, segment, start, end, startX, startY));
+		return result;
+	}
+
+	private void searchCells(int zoom, int x, int y, int left, int top, int right, int bottom, TIntArrayList found) {
+		int shift = CELL_ZOOM - zoom;
+		int cellLeft = x << shift;
+		int cellTop = y << shift;
+		int cellRight = ((x + 1) << shift) - 1;
+		int cellBottom = ((y + 1) << shift) - 1;
+		if (cellLeft > right || cellRight < left || cellTop > bottom || cellBottom < top) {
+			return;
+		}
+		long from = interleave(cellLeft, cellTop);
+		long to = from + (1L << (2 * shift));
+		SortedMap<Long, TIntArrayList> subCells = cells.subMap(from, to);
+		if (subCells.isEmpty()) {
+			return;
+		}
+		boolean inside = cellLeft >= left && cellRight <= right && cellTop >= top && cellBottom <= bottom;
+		if (inside || zoom == CELL_ZOOM) {
+			for (TIntArrayList entries : subCells.values()) {
+				found.addAll(entries);
+			}
+			return;
+		}
+		for (int i = 0; i < 4; i++) {
+			searchCells(zoom + 1, (x << 1) + (i & 1), (y << 1) + (i >> 1), left, top, right, bottom, found);
+		}
+	}
+
+	public static GPXSpatialIndex load(File indexFile) {
+		GPXSpatialIndex index = new GPXSpatialIndex();
+		if (!indexFile.exists()) {
+			return index;
+		}
+		try {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)));
+			try {
+				if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readInt() != CELL_ZOOM) {
+					log.info("Gpx spatial index is outdated " + indexFile.getName());
+					return index;
+				}
+				index.read(in);
+			} finally {
+				in.close();
+			}
+		} catch (IOException | RuntimeException e) {
+			log.error("Error reading gpx spatial index " + indexFile.getName(), e);
+			return new GPXSpatialIndex();
+		}
+		return index;
+	}
+
+	private void read(DataInputStream in) throws IOException {
+		nextFileId = in.readInt();
+		int filesCount = in.readInt();
+		for (int i = 0; i < filesCount; i++) {
+			IndexedFile f = new IndexedFile(in.readInt(), in.readUTF());
+			f.length = in.readLong();
+			f.modified = in.readLong();
+			files.put(f.path, f);
+			filesById.put(f.id, f);
+		}
+		int cellsCount = in.readInt();
+		for (int i = 0; i < cellsCount; i++) {
+			long key = in.readLong();
+			int size = in.readInt();
+			TIntArrayList entries = new TIntArrayList(size);
+			for (int k = 0; k < size; k++) {
+				entries.add(in.readInt());
+			}
+			for (int k = 0; k < size; k += ENTRY_SIZE) {
+				IndexedFile f = filesById.get(entries.getQuick(k));
+				if (f.cells.isEmpty() || f.cells.get(f.cells.size() - 1) != key) {
+					f.cells.add(key);
+				}
+			}
+			cells.put(key, entries);
+		}
+	}
+
+	/**
+	 * Writes index to temporary file which replaces indexFile, so index file is never partially written.
+	 */
+	public synchronized void save(File indexFile) throws IOException {
+		File tmp = new File(indexFile.getParentFile(), indexFile.getName() + ".tmp");
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(CELL_ZOOM);
+			out.writeInt(nextFileId);
+			out.writeInt(files.size());
+			for (IndexedFile f : files.values()) {
+				out.writeInt(f.id);
+				out.writeUTF(f.path);
+				out.writeLong(f.length);
+				out.writeLong(f.modified);
+			}
+			out.writeInt(cells.size());
+			for (Entry<Long, TIntArrayList> e : cells.entrySet()) {
+				TIntArrayList entries = e.getValue();
+				out.writeLong(e.getKey());
+				out.writeInt(entries.size());
+				for (int i = 0; i < entries.size(); i++) {
+					out.writeInt(entries.getQuick(i));
+				}
+			}
+		} finally {
+			out.close();
+		}
+		if (!tmp.renameTo(indexFile)) {
+			indexFile.delete();
+			if (!tmp.renameTo(indexFile)) {
+				tmp.delete();
+				throw new IOException("Can't replace gpx spatial index " + indexFile.getName());
+			}
+		}
+	}
+}
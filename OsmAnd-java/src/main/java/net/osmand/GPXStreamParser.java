@@ -0,0 +1,434 @@
+package net.osmand;
+
+import net.osmand.GPXUtilities.WptPt;
+import net.osmand.util.Algorithms;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Streaming gpx parser which passes points to {@link GPXVisitor} without building {@link GPXUtilities.GPXFile},
+ * useful to index many files or to calculate statistics. Only standard point fields (location, ele, time,
+ * speed, hdop, name, desc, cmt, type) are read, other extensions and osmand route extension are skipped.
+ */
+public class GPXStreamParser {
+
+	public static final long UNPARSED_TIME = Long.MIN_VALUE;
+
+	private static final double[] POWERS_OF_TEN = {
+			1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+			1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+	private static final float[] FLOAT_POWERS_OF_TEN = {
+			1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f};
+	// mantissa and power of ten are exact, so single division is correctly rounded
+	private static final long MAX_EXACT_MANTISSA = 999999999999999L;
+	private static final long MAX_EXACT_FLOAT_MANTISSA = 9999999L;
+
+	private static final int POINT_NONE = 0;
+	private static final int POINT_WPT = 1;
+	private static final int POINT_TRKPT = 2;
+	private static final int POINT_RTEPT = 3;
+
+	/**
+	 * Point passed to visitor is reused for next points, copy it if it should be kept.
+	 */
+	public abstract static class GPXVisitor {
+
+		public void visitWaypoint(WptPt point) {
+		}
+
+		public void startTrack() {
+		}
+
+		public void startSegment() {
+		}
+
+		public void visitTrackPoint(WptPt point) {
+		}
+
+		public void endSegment() {
+		}
+
+		public void endTrack() {
+		}
+
+		public void startRoute() {
+		}
+
+		public void visitRoutePoint(WptPt point) {
+		}
+
+		public void endRoute() {
+		}
+
+		public boolean isCancelled() {
+			return false;
+		}
+	}
+
+	public static void parse(File file, GPXVisitor visitor) throws IOException {
+		FileInputStream fis = new FileInputStream(file);
+		try {
+			parse(fis, visitor);
+		} finally {
+			Algorithms.closeStream(fis);
+		}
+	}
+
+	public static void parse(InputStream stream, GPXVisitor visitor) throws IOException {
+		try {
+			XmlPullParser parser = PlatformUtil.newXMLPullParser();
+			parser.setInput(GPXUtilities.getUTF8Reader(stream));
+			parse(parser, visitor);
+		} catch (XmlPullParserException e) {
+			throw new IOException(e);
+		}
+	}
+
+	private static void parse(XmlPullParser parser, GPXVisitor visitor) throws XmlPullParserException, IOException {
+		WptPt point = new WptPt();
+		int pointType = POINT_NONE;
+		int extensionsDepth = 0;
+		boolean track = false;
+		boolean segment = false;
+		int tok;
+		while ((tok = parser.next()) != XmlPullParser.END_DOCUMENT) {
+			if (tok == XmlPullParser.START_TAG) {
+				String tag = parser.getName();
+				if (extensionsDepth > 0) {
+					if (tag.equals("extensions")) {
+						extensionsDepth++;
+					} else if (pointType != POINT_NONE && tag.equals("speed")) {
+						String text = readText(parser, tag);
+						if (!Algorithms.isEmpty(text)) {
+							try {
+								point.speed = parseFloat(text);
+							} catch (NumberFormatException e) {
+								// ignore
+							}
+						}
+					}
+				} else if (tag.equals("extensions")) {
+					extensionsDepth = 1;
+				} else if (pointType != POINT_NONE) {
+					readPointTag(parser, tag, point);
+				} else if ((tag.equals("trkpt") || tag.equals("rpt")) && track) {
+					if (!segment) {
+						segment = true;
+						visitor.startSegment();
+					}
+					pointType = POINT_TRKPT;
+					readPointAttributes(parser, point);
+				} else if (tag.equals("rtept")) {
+					pointType = POINT_RTEPT;
+					readPointAttributes(parser, point);
+				} else if (tag.equals("wpt")) {
+					pointType = POINT_WPT;
+					readPointAttributes(parser, point);
+				} else if (tag.equals("trkseg")) {
+					if (segment) {
+						visitor.endSegment();
+					}
+					segment = true;
+					visitor.startSegment();
+				} else if (tag.equals("trk")) {
+					track = true;
+					visitor.startTrack();
+				} else if (tag.equals("rte")) {
+					visitor.startRoute();
+				}
+			} else if (tok == XmlPullParser.END_TAG) {
+				String tag = parser.getName();
+				if (extensionsDepth > 0) {
+					if (tag.equals("extensions")) {
+						extensionsDepth--;
+					}
+				} else if (pointType != POINT_NONE && (tag.equals("trkpt") || tag.equals("rpt")
+						|| tag.equals("rtept") || tag.equals("wpt"))) {
+					if (pointType == POINT_TRKPT) {
+						visitor.visitTrackPoint(point);
+					} else if (pointType == POINT_RTEPT) {
+						visitor.visitRoutePoint(point);
+					} else {
+						visitor.visitWaypoint(point);
+					}
+					pointType = POINT_NONE;
+					if (visitor.isCancelled()) {
+						return;
+					}
+				} else if (tag.equals("trkseg")) {
+					if (segment) {
+						segment = false;
+						visitor.endSegment();
+					}
+				} else if (tag.equals("trk")) {
+					if (segment) {
+						segment = false;
+						visitor.endSegment();
+					}
+					track = false;
+					visitor.endTrack();
+				} else if (tag.equals("rte")) {
+					visitor.endRoute();
+				}
+			}
+		}
+	}
+
+	private static void readPointAttributes(XmlPullParser parser, WptPt point) {
+		point.lat = 0;
+		point.lon = 0;
+		point.time = 0;
+		point.ele = Double.NaN;
+		point.speed = 0;
+		point.hdop = Double.NaN;
+		point.name = null;
+		point.desc = null;
+		point.comment = null;
+		point.category = null;
+		try {
+			point.lat = parseDouble(parser.getAttributeValue("", "lat"));
+			point.lon = parseDouble(parser.getAttributeValue("", "lon"));
+		} catch (RuntimeException e) {
+			// ignore
+		}
+	}
+
+	private static void readPointTag(XmlPullParser parser, String tag, WptPt point)
+			throws XmlPullParserException, IOException {
+		switch (tag) {
+			case "ele":
+				point.ele = parseFloat(readText(parser, tag), point.ele);
+				break;
+			case "time":
+				point.time = parseTime(readText(parser, tag));
+				break;
+			case "hdop":
+				point.hdop = parseFloat(readText(parser, tag), point.hdop);
+				break;
+			case "speed":
+				point.speed = parseFloat(readText(parser, tag), point.speed);
+				break;
+			case "name":
+				point.name = readText(parser, tag);
+				break;
+			case "desc":
+				point.desc = readText(parser, tag);
+				break;
+			case "cmt":
+				point.comment = readText(parser, tag);
+				break;
+			case "category":
+				point.category = readText(parser, tag);
+				break;
+			case "type":
+				String type = readText(parser, tag);
+				if (point.category == null) {
+					point.category = type;
+				}
+				break;
+		}
+	}
+
+	private static double parseFloat(String text, double defValue) {
+		if (Algorithms.isEmpty(text)) {
+			return defValue;
+		}
+		try {
+			return parseFloat(text);
+		} catch (NumberFormatException e) {
+			return defValue;
+		}
+	}
+
+	private static String readText(XmlPullParser parser, String key) throws XmlPullParserException, IOException {
+		int tok;
+		String text = null;
+		StringBuilder builder = null;
+		while ((tok = parser.next()) != XmlPullParser.END_DOCUMENT) {
+			if (tok == XmlPullParser.END_TAG && parser.getName().equals(key)) {
+				break;
+			} else if (tok == XmlPullParser.TEXT) {
+				if (text == null) {
+					text = parser.getText();
+				} else {
+					if (builder == null) {
+						builder = new StringBuilder(text);
+					}
+					builder.append(parser.getText());
+				}
+			}
+		}
+		return builder != null ? builder.toString() : text;
+	}
+
+	/**
+	 * Same as {@link Double#parseDouble(String)}, plain decimal numbers are parsed without allocations.
+	 */
+	public static double parseDouble(String s) {
+		int len = s.length();
+		int i = 0;
+		boolean negative = false;
+		if (len > 0 && (s.charAt(0) == '-' || s.charAt(0) == '+')) {
+			negative = s.charAt(0) == '-';
+			i++;
+		}
+		long mantissa = 0;
+		int digits = 0;
+		int scale = -1;
+		for (; i < len; i++) {
+			char c = s.charAt(i);
+			if (c >= '0' && c <= '9') {
+				mantissa = mantissa * 10 + (c - '0');
+				digits++;
+				if (scale >= 0) {
+					scale++;
+				}
+				if (mantissa > MAX_EXACT_MANTISSA) {
+					return Double.parseDouble(s);
+				}
+			} else if (c == '.' && scale < 0) {
+				scale = 0;
+			} else {
+				return Double.parseDouble(s);
+			}
+		}
+		if (digits == 0 || scale >= POWERS_OF_TEN.length) {
+			return Double.parseDouble(s);
+		}
+		double value = scale > 0 ? mantissa / POWERS_OF_TEN[scale] : mantissa;
+		return negative ? -value : value;
+	}
+
+	/**
+	 * Same as {@link Float#parseFloat(String)}, plain decimal numbers are parsed without allocations.
+	 */
+	public static float parseFloat(String s) {
+		int len = s.length();
+		int i = 0;
+		boolean negative = false;
+		if (len > 0 && (s.charAt(0) == '-' || s.charAt(0) == '+')) {
+			negative = s.charAt(0) == '-';
+			i++;
+		}
+		long mantissa = 0;
+		int digits = 0;
+		int scale = -1;
+		for (; i < len; i++) {
+			char c = s.charAt(i);
+			if (c >= '0' && c <= '9') {
+				mantissa = mantissa * 10 + (c - '0');
+				digits++;
+				if (scale >= 0) {
+					scale++;
+				}
+				if (mantissa > MAX_EXACT_FLOAT_MANTISSA) {
+					return Float.parseFloat(s);
+				}
+			} else if (c == '.' && scale < 0) {
+				scale = 0;
+			} else {
+				return Float.parseFloat(s);
+			}
+		}
+		if (digits == 0 || scale >= FLOAT_POWERS_OF_TEN.length) {
+			return Float.parseFloat(s);
+		}
+		float value = scale > 0 ? (float) mantissa / FLOAT_POWERS_OF_TEN[scale] : (float) mantissa;
+		return negative ? -value : value;
+	}
+
+	/**
+	 * Same as {@link GPXUtilities#parseTime(String)}
+	 */
+	public static long parseTime(String text) {
+		long time = parseIsoTime(text);
+		return time != UNPARSED_TIME ? time : GPXUtilities.parseTime(text);
+	}
+
+	/**
+	 * Parses usual gpx time yyyy-MM-ddTHH:mm:ss[.SSS](Z|+HH:mm) without date formats.
+	 *
+	 * @return {@link #UNPARSED_TIME} if text has other format
+	 */
+	static long parseIsoTime(String text) {
+		if (text == null) {
+			return UNPARSED_TIME;
+		}
+		int len = text.length();
+		if (len < 20 || text.charAt(4) != '-' || text.charAt(7) != '-' || text.charAt(10) != 'T'
+				|| text.charAt(13) != ':' || text.charAt(16) != ':') {
+			return UNPARSED_TIME;
+		}
+		int year = digits(text, 0, 4);
+		int month = digits(text, 5, 2);
+		int day = digits(text, 8, 2);
+		int hour = digits(text, 11, 2);
+		int minute = digits(text, 14, 2);
+		int second = digits(text, 17, 2);
+		// julian calendar is used by date format for old dates
+		if (year < 1900 || month < 1 || month > 12 || day < 1 || day > 31 || hour < 0 || hour > 23
+				|| minute < 0 || minute > 59 || second < 0 || second > 59) {
+			return UNPARSED_TIME;
+		}
+		int pos = 19;
+		int millis = 0;
+		if (text.charAt(pos) == '.') {
+			if (len < pos + 5) {
+				return UNPARSED_TIME;
+			}
+			millis = digits(text, pos + 1, 3);
+			if (millis < 0) {
+				return UNPARSED_TIME;
+			}
+			pos += 4;
+		}
+		int offset;
+		if (text.charAt(pos) == 'Z' && len == pos + 1) {
+			offset = 0;
+		} else if ((text.charAt(pos) == '+' || text.charAt(pos) == '-') && len == pos + 6 && text.charAt(pos + 3) == ':') {
+			int offsetHours = digits(text, pos + 1, 2);
+			int offsetMinutes = digits(text, pos + 4, 2);
+			if (offsetHours < 0 || offsetHours > 23 || offsetMinutes < 0 || offsetMinutes > 59) {
+				return UNPARSED_TIME;
+			}
+			offset = (offsetHours * 60 + offsetMinutes) * 60 * 1000;
+			if (text.charAt(pos) == '-') {
+				offset = -offset;
+			}
+		} else {
+			return UNPARSED_TIME;
+		}
+		long seconds = daysFromCivil(year, month, day) * 86400L + hour * 3600 + minute * 60 + second;
+		return seconds * 1000 + millis - offset;
+	}
+
+	private static int digits(String text, int start, int count) {
+		int value = 0;
+		for (int i = start; i < start + count; i++) {
+			char c = text.charAt(i);
+			if (c < '0' || c > '9') {
+				return -1;
+			}
+			value = value * 10 + (c - '0');
+		}
+		return value;
+	}
+
+	// days since 1970-01-01 in proleptic gregorian calendar
+	private static long daysFromCivil(int year, int month, int day) {
+		if (month <= 2) {
+			year--;
+		}
+		int era = year / 400;
+		int yearOfEra = year - era * 400;
+		int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+		int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+		return era * 146097L + dayOfEra - 719468;
+	}
+}
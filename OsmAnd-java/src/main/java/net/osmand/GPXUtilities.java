@@ -2,6 +2,7 @@
 package net.osmand;
 
 
+import net.osmand.GPXXmlWriter.DecimalPattern;
 import net.osmand.binary.StringBundle;
 import net.osmand.binary.StringBundleWriter;
 import net.osmand.binary.StringBundleXmlWriter;
@@ -22,13 +23,9 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.StringWriter;
 import java.io.Writer;
-import java.text.DecimalFormat;
-import java.text.DecimalFormatSymbols;
-import java.text.NumberFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -38,6 +35,7 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
@@ -46,6 +44,8 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.Stack;
 import java.util.TimeZone;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class GPXUtilities {
 
@@ -75,13 +75,17 @@ public class GPXUtilities {
 	public static final int TRAVEL_GPX_CONVERT_MULT_1 = 2;
 	public static final int TRAVEL_GPX_CONVERT_MULT_2 = 5;
 
+	// number of track points to calculate distances in parallel
+	static final int PARALLEL_POINTS_THRESHOLD = 4096;
+	private static ForkJoinPool analysisPool;
+
 	private static final String GPX_TIME_PATTERN = "yyyy-MM-dd'T'HH:mm:ss'Z'";
 	private static final String GPX_TIME_PATTERN_TZ = "yyyy-MM-dd'T'HH:mm:ssXXX";
 	private static final String GPX_TIME_MILLIS_PATTERN = "yyyy-MM-dd'T'HH:mm:ss.SSSXXX";
 
-	private static final NumberFormat LAT_LON_FORMAT = new DecimalFormat("0.00#####", new DecimalFormatSymbols(Locale.US));
+	private static final DecimalPattern LAT_LON_PATTERN = new DecimalPattern("0.00#####");
 	// speed, ele, hdop
-	private static final NumberFormat DECIMAL_FORMAT = new DecimalFormat("#.#", new DecimalFormatSymbols(Locale.US));
+	private static final DecimalPattern DECIMAL_PATTERN = new DecimalPattern("#.#");
 
 	public static final int RADIUS_DIVIDER = 5000;
 	public static final double PRIME_MERIDIAN = 179.999991234;
@@ -462,8 +466,8 @@ public class GPXUtilities {
 		                                        String name, String category, int color,
 		                                        String iconName, String backgroundType,
 		                                        String amenityOriginName, Map<String, String> amenityExtensions) {
-			double latAdjusted = Double.parseDouble(LAT_LON_FORMAT.format(lat));
-			double lonAdjusted = Double.parseDouble(LAT_LON_FORMAT.format(lon));
+			double latAdjusted = Double.parseDouble(LAT_LON_PATTERN.format(lat));
+			double lonAdjusted = Double.parseDouble(LAT_LON_PATTERN.format(lon));
 			WptPt point = new WptPt(latAdjusted, lonAdjusted, System.currentTimeMillis(), Double.NaN, 0, Double.NaN);
 			point.name = name;
 			point.category = category;
@@ -489,8 +493,8 @@ public class GPXUtilities {
 
 		private void updatePoint(double lat, double lon, String description, String name,
 		                         String category, int color, String iconName, String backgroundType) {
-			this.lat = Double.parseDouble(LAT_LON_FORMAT.format(lat));
-			this.lon = Double.parseDouble(LAT_LON_FORMAT.format(lon));
+			this.lat = Double.parseDouble(LAT_LON_PATTERN.format(lat));
+			this.lon = Double.parseDouble(LAT_LON_PATTERN.format(lon));
 			this.time = System.currentTimeMillis();
 			this.desc = description;
 			this.name = name;
@@ -522,17 +526,33 @@ public class GPXUtilities {
 			return !routeSegments.isEmpty() && !routeTypes.isEmpty();
 		}
 
+		/**
+		 * Moves points to primitive columns, after that points returned by list are views
+		 * and changes of their fields are not stored (see {@link ColumnarTrackPoints})
+		 */
+		public void compactPoints() {
+			if (!(points instanceof ColumnarTrackPoints)) {
+				points = new ColumnarTrackPoints(points);
+			}
+		}
+
 		public List<GPXTrackAnalysis> splitByDistance(double meters, boolean joinSegments) {
-			return split(getDistanceMetric(), getTimeSplit(), meters, joinSegments);
+			float[] distances = calculateDistances(Collections.singletonList(this)).get(0);
+			return split(getDistanceMetric(distances), getTimeSplit(), meters, joinSegments, distances);
 		}
 
 		public List<GPXTrackAnalysis> splitByTime(int seconds, boolean joinSegments) {
-			return split(getTimeSplit(), getDistanceMetric(), seconds, joinSegments);
+			float[] distances = calculateDistances(Collections.singletonList(this)).get(0);
+			return split(getTimeSplit(), getDistanceMetric(distances), seconds, joinSegments, distances);
 		}
 
-		private List<GPXTrackAnalysis> split(SplitMetric metric, SplitMetric secondaryMetric, double metricLimit, boolean joinSegments) {
+		private List<GPXTrackAnalysis> split(SplitMetric metric, SplitMetric secondaryMetric, double metricLimit,
+		                                     boolean joinSegments, float[] distances) {
 			List<SplitSegment> splitSegments = new ArrayList<>();
 			splitSegment(metric, secondaryMetric, metricLimit, splitSegments, this, joinSegments);
+			for (SplitSegment s : splitSegments) {
+				s.segmentDistances = distances;
+			}
 			return convert(splitSegments);
 		}
 	}
@@ -903,6 +923,7 @@ public class GPXUtilities {
 			elevationData = new ArrayList<>();
 			speedData = new ArrayList<>();
 
+			calculateSegmentDistances(splitSegments);
 			for (final SplitSegment s : splitSegments) {
 				final int numberOfPoints = s.getNumberOfPoints();
 				float segmentDistance = 0f;
@@ -910,20 +931,23 @@ public class GPXUtilities {
 				secondaryMetricEnd += s.secondaryMetricEnd;
 				points += numberOfPoints;
 				for (int j = 0; j < numberOfPoints; j++) {
-					WptPt point = s.get(j);
 					if (j == 0 && locationStart == null) {
-						locationStart = point;
+						locationStart = s.get(j);
 					}
 					if (j == numberOfPoints - 1) {
-						locationEnd = point;
+						locationEnd = s.get(j);
 					}
-					long time = point.time;
+					double lat = s.getLatitude(j);
+					double lon = s.getLongitude(j);
+					boolean firstPoint = s.isFirstPoint(j);
+					boolean lastPoint = s.isLastPoint(j);
+					long time = s.getTime(j);
 					if (time != 0) {
 						if (s.metricEnd == 0) {
 							if (s.segment.generalSegment) {
-								if (point.firstPoint) {
+								if (firstPoint) {
 									startTimeOfSingleSegment = time;
-								} else if (point.lastPoint) {
+								} else if (lastPoint) {
 									endTimeOfSingleSegment = time;
 								}
 								if (startTimeOfSingleSegment != 0 && endTimeOfSingleSegment != 0) {
@@ -938,18 +962,18 @@ public class GPXUtilities {
 					}
 
 					if (left == 0 && right == 0) {
-						left = point.getLongitude();
-						right = point.getLongitude();
-						top = point.getLatitude();
-						bottom = point.getLatitude();
+						left = lon;
+						right = lon;
+						top = lat;
+						bottom = lat;
 					} else {
-						left = Math.min(left, point.getLongitude());
-						right = Math.max(right, point.getLongitude());
-						top = Math.max(top, point.getLatitude());
-						bottom = Math.min(bottom, point.getLatitude());
+						left = Math.min(left, lon);
+						right = Math.max(right, lon);
+						top = Math.max(top, lat);
+						bottom = Math.min(bottom, lat);
 					}
 
-					double elevation = point.ele;
+					double elevation = s.getElevation(j);
 					Elevation elevation1 = new Elevation();
 					if (!Double.isNaN(elevation)) {
 						totalElevation += elevation;
@@ -962,12 +986,12 @@ public class GPXUtilities {
 						elevation1.elevation = Float.NaN;
 					}
 
-					float speed = (float) point.speed;
+					float speed = (float) s.getSpeed(j);
 					if (speed > 0) {
 						hasSpeedInTrack = true;
 					}
 
-					double hdop = point.hdop;
+					double hdop = s.getHdop(j);
 					if (hdop > 0) {
 						if (Double.isNaN(minHdop) || hdop < minHdop) {
 							minHdop = hdop;
@@ -978,7 +1002,9 @@ public class GPXUtilities {
 					}
 
 					if (j > 0) {
-						WptPt prev = s.get(j - 1);
+						double prevLat = s.getLatitude(j - 1);
+						double prevLon = s.getLongitude(j - 1);
+						long prevTime = s.getTime(j - 1);
 
 						// Old complete summation approach for elevation gain/loss
 						//if (!Double.isNaN(point.ele) && !Double.isNaN(prev.ele)) {
@@ -993,13 +1019,13 @@ public class GPXUtilities {
 						// totalDistance += MapUtils.getDistance(prev.lat, prev.lon, point.lat, point.lon);
 						// using ellipsoidal 'distanceBetween' instead of spherical haversine (MapUtils.getDistance) is
 						// a little more exact, also seems slightly faster:
-						net.osmand.Location.distanceBetween(prev.lat, prev.lon, point.lat, point.lon, calculations);
+						s.calculateDistance(j, prevLat, prevLon, lat, lon, calculations);
 						totalDistance += calculations[0];
 						segmentDistance += calculations[0];
-						point.distance = segmentDistance;
+						s.setDistance(j, segmentDistance);
 
 						// In case points are reversed and => time is decreasing
-						long timeDiffMillis = Math.max(0, point.time - prev.time);
+						long timeDiffMillis = Math.max(0, time - prevTime);
 						timeDiff = (int) ((timeDiffMillis) / 1000);
 
 						//Last resort: Derive speed values from displacement if track does not originally contain speed
@@ -1010,11 +1036,11 @@ public class GPXUtilities {
 						// Motion detection:
 						//   speed > 0  uses GPS chipset's motion detection
 						//   calculations[0] > minDisplacment * time  is heuristic needed because tracks may be filtered at recording time, so points at rest may not be present in file at all
-						boolean timeSpecified = point.time != 0 && prev.time != 0;
+						boolean timeSpecified = time != 0 && prevTime != 0;
 						if (speed > 0 && timeSpecified && calculations[0] > timeDiffMillis / 10000f) {
 							timeMoving = timeMoving + timeDiffMillis;
 							totalDistanceMoving += calculations[0];
-							if (s.segment.generalSegment && !point.firstPoint) {
+							if (s.segment.generalSegment && !firstPoint) {
 								timeMovingOfSingleSegment += timeDiffMillis;
 								distanceMovingOfSingleSegment += calculations[0];
 							}
@@ -1051,7 +1077,7 @@ public class GPXUtilities {
 					}
 					if (s.segment.generalSegment) {
 						distanceOfSingleSegment += calculations[0];
-						if (point.firstPoint) {
+						if (firstPoint) {
 							distanceOfSingleSegment = 0;
 							timeMovingOfSingleSegment = 0;
 							distanceMovingOfSingleSegment = 0;
@@ -1060,7 +1086,7 @@ public class GPXUtilities {
 								speed1.firstPoint = true;
 							}
 						}
-						if (point.lastPoint) {
+						if (lastPoint) {
 							totalDistanceWithoutGaps += distanceOfSingleSegment;
 							timeMovingWithoutGaps += timeMovingOfSingleSegment;
 							totalDistanceMovingWithoutGaps += distanceMovingOfSingleSegment;
@@ -1077,6 +1103,21 @@ public class GPXUtilities {
 					public WptPt getPoint(int index) {
 						return s.get(index);
 					}
+
+					@Override
+					public long getPointTime(int index) {
+						return s.getTime(index);
+					}
+
+					@Override
+					public double getPointElevation(int index) {
+						return s.getElevation(index);
+					}
+
+					@Override
+					public double getPointDistance(int index) {
+						return s.getDistance(index);
+					}
 				};
 				elevationDiffsCalc.calculateElevationDiffs();
 				diffElevationUp += elevationDiffsCalc.diffElevationUp;
@@ -1133,8 +1174,9 @@ public class GPXUtilities {
 			public ElevationDiffsCalculator(int startIndex, int numberOfPoints) {
 				this.startIndex = startIndex;
 				this.numberOfPoints = numberOfPoints;
-				WptPt lastPoint = getPoint(startIndex + numberOfPoints - 1);
-				this.windowLength = lastPoint.time == 0 ? CALCULATED_GPX_WINDOW_LENGTH : Math.max(20d, lastPoint.distance / numberOfPoints * 4);
+				int lastPointIndex = startIndex + numberOfPoints - 1;
+				this.windowLength = getPointTime(lastPointIndex) == 0 ? CALCULATED_GPX_WINDOW_LENGTH
+						: Math.max(20d, getPointDistance(lastPointIndex) / numberOfPoints * 4);
 			}
 
 			public ElevationDiffsCalculator(double windowLength, int startIndex, int numberOfPoints) {
@@ -1144,6 +1186,18 @@ public class GPXUtilities {
 
 			public abstract WptPt getPoint(int index);
 
+			public long getPointTime(int index) {
+				return getPoint(index).time;
+			}
+
+			public double getPointElevation(int index) {
+				return getPoint(index).ele;
+			}
+
+			public double getPointDistance(int index) {
+				return getPoint(index).distance;
+			}
+
 			public double getDiffElevationUp() {
 				return diffElevationUp;
 			}
@@ -1153,20 +1207,20 @@ public class GPXUtilities {
 			}
 
 			public void calculateElevationDiffs() {
-				WptPt initialPoint = getPoint(startIndex);
-				double eleSumm = initialPoint.ele;
-				double prevEle = initialPoint.ele;
+				double eleSumm = getPointElevation(startIndex);
+				double prevEle = eleSumm;
 				int pointsCount = Double.isNaN(eleSumm) ? 0 : 1;
 				double eleAvg = Double.NaN;
-				double nextWindowPos = initialPoint.distance + windowLength;
+				double nextWindowPos = getPointDistance(startIndex) + windowLength;
 				int pointIndex = startIndex + 1;
 				while (pointIndex < numberOfPoints + startIndex) {
-					WptPt point = getPoint(pointIndex);
-					if (point.distance > nextWindowPos) {
+					double ele = getPointElevation(pointIndex);
+					double distance = getPointDistance(pointIndex);
+					if (distance > nextWindowPos) {
 						eleAvg = calcAvg(eleSumm, pointsCount, eleAvg);
-						if (!Double.isNaN(point.ele)) {
-							eleSumm = point.ele;
-							prevEle = point.ele;
+						if (!Double.isNaN(ele)) {
+							eleSumm = ele;
+							prevEle = ele;
 							pointsCount = 1;
 						} else if (!Double.isNaN(prevEle)) {
 							eleSumm = prevEle;
@@ -1175,13 +1229,13 @@ public class GPXUtilities {
 							eleSumm = Double.NaN;
 							pointsCount = 0;
 						}
-						while (nextWindowPos < point.distance) {
+						while (nextWindowPos < distance) {
 							nextWindowPos += windowLength;
 						}
 					} else {
-						if (!Double.isNaN(point.ele)) {
-							eleSumm += point.ele;
-							prevEle = point.ele;
+						if (!Double.isNaN(ele)) {
+							eleSumm += ele;
+							prevEle = ele;
 							pointsCount++;
 						} else if (!Double.isNaN(prevEle)) {
 							eleSumm += prevEle;
@@ -1222,6 +1276,8 @@ public class GPXUtilities {
 		int endPointInd;
 		double metricEnd;
 		double secondaryMetricEnd;
+		// distances between neighbour points of segment, see calculateDistances()
+		float[] segmentDistances;
 
 		public SplitSegment(TrkSegment s) {
 			startPointInd = 0;
@@ -1250,6 +1306,81 @@ public class GPXUtilities {
 			return endPointInd - startPointInd + 2;
 		}
 
+		private boolean isApproximated(int j) {
+			return (j == 0 && startCoeff != 0) || (j == getNumberOfPoints() - 1 && endCoeff != 1);
+		}
+
+		private ColumnarTrackPoints getColumns(int j) {
+			if (segment.points instanceof ColumnarTrackPoints && !isApproximated(j)) {
+				return (ColumnarTrackPoints) segment.points;
+			}
+			return null;
+		}
+
+		// distance from previous point, it's calculated only for approximated start and end of split
+		public void calculateDistance(int j, double prevLat, double prevLon, double lat, double lon,
+		                              float[] calculations) {
+			if (segmentDistances != null && !isApproximated(j - 1) && !isApproximated(j)) {
+				calculations[0] = segmentDistances[j + startPointInd];
+			} else {
+				net.osmand.Location.distanceBetween(prevLat, prevLon, lat, lon, calculations);
+			}
+		}
+
+		public double getLatitude(int j) {
+			ColumnarTrackPoints columns = getColumns(j);
+			return columns != null ? columns.getLatitude(j + startPointInd) : get(j).lat;
+		}
+
+		public double getLongitude(int j) {
+			ColumnarTrackPoints columns = getColumns(j);
+			return columns != null ? columns.getLongitude(j + startPointInd) : get(j).lon;
+		}
+
+		public long getTime(int j) {
+			ColumnarTrackPoints columns = getColumns(j);
+			return columns != null ? columns.getTime(j + startPointInd) : get(j).time;
+		}
+
+		public double getElevation(int j) {
+			ColumnarTrackPoints columns = getColumns(j);
+			return columns != null ? columns.getElevation(j + startPointInd) : get(j).ele;
+		}
+
+		public double getSpeed(int j) {
+			ColumnarTrackPoints columns = getColumns(j);
+			return columns != null ? columns.getSpeed(j + startPointInd) : get(j).speed;
+		}
+
+		public double getHdop(int j) {
+			ColumnarTrackPoints columns = getColumns(j);
+			return columns != null ? columns.getHdop(j + startPointInd) : get(j).hdop;
+		}
+
+		public double getDistance(int j) {
+			ColumnarTrackPoints columns = getColumns(j);
+			return columns != null ? columns.getDistance(j + startPointInd) : get(j).distance;
+		}
+
+		public void setDistance(int j, double distance) {
+			ColumnarTrackPoints columns = getColumns(j);
+			if (columns != null) {
+				columns.setDistance(j + startPointInd, distance);
+			} else {
+				get(j).distance = distance;
+			}
+		}
+
+		public boolean isFirstPoint(int j) {
+			ColumnarTrackPoints columns = getColumns(j);
+			return columns != null ? columns.isFirstPoint(j + startPointInd) : get(j).firstPoint;
+		}
+
+		public boolean isLastPoint(int j) {
+			ColumnarTrackPoints columns = getColumns(j);
+			return columns != null ? columns.isLastPoint(j + startPointInd) : get(j).lastPoint;
+		}
+
 		public WptPt get(int j) {
 			final int ind = j + startPointInd;
 			if (j == 0) {
@@ -1305,15 +1436,12 @@ public class GPXUtilities {
 
 	}
 
-	private static SplitMetric getDistanceMetric() {
+	private static SplitMetric getDistanceMetric(final float[] distances) {
 		return new SplitMetric() {
 
-			private final float[] calculations = new float[1];
-
 			@Override
-			public double metric(WptPt p1, WptPt p2) {
-				net.osmand.Location.distanceBetween(p1.lat, p1.lon, p2.lat, p2.lon, calculations);
-				return calculations[0];
+			public double metric(int index, WptPt p1, WptPt p2) {
+				return distances[index];
 			}
 		};
 	}
@@ -1322,7 +1450,7 @@ public class GPXUtilities {
 		return new SplitMetric() {
 
 			@Override
-			public double metric(WptPt p1, WptPt p2) {
+			public double metric(int index, WptPt p1, WptPt p2) {
 				if (p1.time != 0 && p2.time != 0) {
 					return (int) Math.abs((p2.time - p1.time) / 1000l);
 				}
@@ -1333,7 +1461,8 @@ public class GPXUtilities {
 
 	private abstract static class SplitMetric {
 
-		public abstract double metric(WptPt p1, WptPt p2);
+		// metric between points index - 1 and index of segment
+		public abstract double metric(int index, WptPt p1, WptPt p2);
 
 	}
 
@@ -1350,8 +1479,8 @@ public class GPXUtilities {
 			if (k > 0) {
 				double currentSegment = 0;
 				if (!(segment.generalSegment && !joinSegments && point.firstPoint)) {
-					currentSegment = metric.metric(prev, point);
-					secondaryMetricEnd += secondaryMetric.metric(prev, point);
+					currentSegment = metric.metric(k, prev, point);
+					secondaryMetricEnd += secondaryMetric.metric(k, prev, point);
 				}
 				while (total + currentSegment > currentMetricEnd) {
 					double p = currentMetricEnd - total;
@@ -1377,6 +1506,129 @@ public class GPXUtilities {
 		}
 	}
 
+	private static void calculateSegmentDistances(SplitSegment[] splitSegments) {
+		int points = 0;
+		for (SplitSegment s : splitSegments) {
+			if (s.segmentDistances == null) {
+				points += s.getNumberOfPoints();
+			}
+		}
+		if (points < PARALLEL_POINTS_THRESHOLD) {
+			return;
+		}
+		Map<TrkSegment, float[]> distances = new IdentityHashMap<>();
+		for (SplitSegment s : splitSegments) {
+			if (s.segmentDistances == null) {
+				distances.put(s.segment, null);
+			}
+		}
+		List<TrkSegment> segments = new ArrayList<>(distances.keySet());
+		List<float[]> calculated = calculateDistances(segments);
+		for (int i = 0; i < segments.size(); i++) {
+			distances.put(segments.get(i), calculated.get(i));
+		}
+		for (SplitSegment s : splitSegments) {
+			if (s.segmentDistances == null) {
+				s.segmentDistances = distances.get(s.segment);
+			}
+		}
+	}
+
+	/**
+	 * Calculates distances between neighbour points of segments (distances[k] is from point k - 1 to point k).
+	 * Long segments are calculated in parallel by parts, results are the same as of sequential calculation.
+	 */
+	static List<float[]> calculateDistances(List<TrkSegment> segments) {
+		return calculateDistances(segments, PARALLEL_POINTS_THRESHOLD);
+	}
+
+	/**
+	 * @param parallelPointsThreshold segments with more points are calculated in parallel by parts of such size
+	 */
+	static List<float[]> calculateDistances(List<TrkSegment> segments, int parallelPointsThreshold) {
+		final List<DistancesTask> tasks = new ArrayList<>();
+		List<float[]> result = new ArrayList<>();
+		int points = 0;
+		for (TrkSegment segment : segments) {
+			float[] distances = new float[segment.points.size()];
+			tasks.add(new DistancesTask(segment.points, distances, 0, distances.length, parallelPointsThreshold));
+			result.add(distances);
+			points += distances.length;
+		}
+		if (points < parallelPointsThreshold) {
+			for (DistancesTask task : tasks) {
+				task.calculate();
+			}
+		} else {
+			getAnalysisPool().invoke(new RecursiveAction() {
+				@Override
+				protected void compute() {
+					invokeAll(tasks);
+				}
+			});
+		}
+		return result;
+	}
+
+	private static synchronized ForkJoinPool getAnalysisPool() {
+		if (analysisPool == null) {
+			analysisPool = new ForkJoinPool();
+		}
+		return analysisPool;
+	}
+
+	private static class DistancesTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final List<WptPt> points;
+		private final float[] distances;
+		private final int start;
+		private final int end;
+		private final int threshold;
+
+		DistancesTask(List<WptPt> points, float[] distances, int start, int end, int threshold) {
+			this.points = points;
+			this.distances = distances;
+			this.start = start;
+			this.end = end;
+			this.threshold = threshold;
+		}
+
+		@Override
+		protected void compute() {
+			if (end - start > threshold) {
+				int middle = (start + end) >>> 1;
+				invokeAll(new DistancesTask(points, distances, start, middle, threshold),
+						new DistancesTask(points, distances, middle, end, threshold));
+			} else {
+				calculate();
+			}
+		}
+
+		void calculate() {
+			float[] calculations = new float[1];
+			if (points instanceof ColumnarTrackPoints) {
+				ColumnarTrackPoints columns = (ColumnarTrackPoints) points;
+				for (int k = Math.max(1, start); k < end; k++) {
+					net.osmand.Location.distanceBetween(columns.getLatitude(k - 1), columns.getLongitude(k - 1),
+							columns.getLatitude(k), columns.getLongitude(k), calculations);
+					distances[k] = calculations[0];
+				}
+			} else {
+				WptPt prev = start > 0 ? points.get(start - 1) : null;
+				for (int k = start; k < end; k++) {
+					WptPt point = points.get(k);
+					if (prev != null) {
+						net.osmand.Location.distanceBetween(prev.lat, prev.lon, point.lat, point.lon, calculations);
+						distances[k] = calculations[0];
+					}
+					prev = point;
+				}
+			}
+		}
+	}
+
 	private static List<GPXTrackAnalysis> convert(List<SplitSegment> splitSegments) {
 		List<GPXTrackAnalysis> ls = new ArrayList<>();
 		for (SplitSegment s : splitSegments) {
@@ -1527,6 +1779,12 @@ public class GPXUtilities {
 			pointsModifiedTime = modifiedTime;
 		}
 
+		// restores points of the file with their groups, used by GPXBinaryCache
+		void restorePoints(List<WptPt> points, Map<String, PointsGroup> pointsGroups) {
+			this.points.addAll(points);
+			this.pointsGroups.putAll(pointsGroups);
+		}
+
 		private void addPointsToGroups(Collection<? extends WptPt> collection) {
 			for (WptPt point : collection) {
 				PointsGroup pointsGroup = getOrCreateGroup(point);
@@ -1626,11 +1884,30 @@ public class GPXUtilities {
 			return generalSegment;
 		}
 
+		public void compactTrackPoints() {
+			for (Track track : tracks) {
+				for (TrkSegment segment : track.segments) {
+					segment.compactPoints();
+				}
+			}
+		}
+
 		private void buildGeneralSegment() {
 			TrkSegment segment = new TrkSegment();
 			for (Track track : tracks) {
 				for (TrkSegment s : track.segments) {
-					if (s.points.size() > 0) {
+					if (s.points instanceof ColumnarTrackPoints) {
+						if (!(segment.points instanceof ColumnarTrackPoints)) {
+							segment.compactPoints();
+						}
+						ColumnarTrackPoints points = (ColumnarTrackPoints) segment.points;
+						int start = points.size();
+						points.addAll(s.points);
+						if (points.size() > start) {
+							points.setFirstPoint(start, true);
+							points.setLastPoint(points.size() - 1, true);
+						}
+					} else if (s.points.size() > 0) {
 						List<WptPt> waypoints = new ArrayList<>(s.points.size());
 						for (WptPt wptPt : s.points) {
 							waypoints.add(new WptPt(wptPt));
@@ -2183,16 +2460,16 @@ public class GPXUtilities {
 	}
 
 	public static Exception writeGpxFile(File fout, GPXFile file) {
-		Writer output = null;
+		FileOutputStream output = null;
 		try {
 			if (fout.getParentFile() != null) {
 				fout.getParentFile().mkdirs();
 			}
-			output = new OutputStreamWriter(new FileOutputStream(fout), "UTF-8"); //$NON-NLS-1$
+			output = new FileOutputStream(fout);
 			if (Algorithms.isEmpty(file.path)) {
 				file.path = fout.getAbsolutePath();
 			}
-			return writeGpx(output, file, null);
+			return writeGpx(new GPXXmlWriter(output.getChannel()), file, null);
 		} catch (Exception e) {
 			log.error("Error saving gpx", e); //$NON-NLS-1$
 			return e;
@@ -2202,13 +2479,15 @@ public class GPXUtilities {
 	}
 
 	public static Exception writeGpx(Writer output, GPXFile file, IProgress progress) {
+		return writeGpx(new GPXXmlWriter(output), file, progress);
+	}
+
+	private static Exception writeGpx(GPXXmlWriter serializer, GPXFile file, IProgress progress) {
 		if (progress != null) {
 			progress.startWork(file.getItemsToWriteSize());
 		}
 		try {
-			XmlSerializer serializer = PlatformUtil.newSerializer();
-			serializer.setOutput(output);
-			serializer.setFeature("http://xmlpull.org/v1/doc/features.html#indent-output", true); //$NON-NLS-1$
+			serializer.setFeature(GPXXmlWriter.FEATURE_INDENT_OUTPUT, true);
 			serializer.startDocument("UTF-8", true); //$NON-NLS-1$
 			serializer.startTag(null, "gpx"); //$NON-NLS-1$
 			serializer.attribute(null, "version", "1.1"); //$NON-NLS-1$ //$NON-NLS-2$
@@ -2230,10 +2509,11 @@ public class GPXUtilities {
 
 			serializer.endTag(null, "gpx"); //$NON-NLS-1$
 			serializer.endDocument();
-			serializer.flush();
 		} catch (Exception e) {
 			log.error("Error saving gpx", e); //$NON-NLS-1$
 			return e;
+		} finally {
+			serializer.release();
 		}
 		return null;
 	}
@@ -2257,7 +2537,7 @@ public class GPXUtilities {
 		}
 	}
 
-	private static void writeMetadata(XmlSerializer serializer, GPXFile file, IProgress progress) throws IOException {
+	private static void writeMetadata(GPXXmlWriter serializer, GPXFile file, IProgress progress) throws IOException {
 		String defName = file.metadata.name;
 		String trackName = !Algorithms.isEmpty(defName) ? defName : getFilename(file.path);
 		serializer.startTag(null, "metadata");
@@ -2275,7 +2555,7 @@ public class GPXUtilities {
 		}
 		writeNotNullTextWithAttribute(serializer, "link", "href", file.metadata.link);
 		if (file.metadata.time != 0) {
-			writeNotNullText(serializer, "time", formatTime(file.metadata.time));
+			serializer.startTag(null, "time").timeText(file.metadata.time).endTag(null, "time");
 		}
 		writeNotNullText(serializer, "keywords", file.metadata.keywords);
 		if (file.metadata.bounds != null) {
@@ -2288,7 +2568,7 @@ public class GPXUtilities {
 		serializer.endTag(null, "metadata");
 	}
 
-	private static void writePoints(XmlSerializer serializer, GPXFile file, IProgress progress) throws IOException {
+	private static void writePoints(GPXXmlWriter serializer, GPXFile file, IProgress progress) throws IOException {
 		for (WptPt l : file.points) {
 			serializer.startTag(null, "wpt"); //$NON-NLS-1$
 			writeWpt(serializer, l, progress);
@@ -2296,7 +2576,7 @@ public class GPXUtilities {
 		}
 	}
 
-	private static void writeRoutes(XmlSerializer serializer, GPXFile file, IProgress progress) throws IOException {
+	private static void writeRoutes(GPXXmlWriter serializer, GPXFile file, IProgress progress) throws IOException {
 		for (Route route : file.routes) {
 			serializer.startTag(null, "rte"); //$NON-NLS-1$
 			writeNotNullText(serializer, "name", route.name);
@@ -2315,7 +2595,7 @@ public class GPXUtilities {
 		}
 	}
 
-	private static void writeTracks(XmlSerializer serializer, GPXFile file, IProgress progress) throws IOException {
+	private static void writeTracks(GPXXmlWriter serializer, GPXFile file, IProgress progress) throws IOException {
 		for (Track track : file.tracks) {
 			if (!track.generalTrack) {
 				serializer.startTag(null, "trk"); //$NON-NLS-1$
@@ -2423,15 +2703,15 @@ public class GPXUtilities {
 		}
 	}
 
-	private static void writeWpt(XmlSerializer serializer, WptPt p, IProgress progress) throws IOException {
-		serializer.attribute(null, "lat", LAT_LON_FORMAT.format(p.lat)); //$NON-NLS-1$ //$NON-NLS-2$
-		serializer.attribute(null, "lon", LAT_LON_FORMAT.format(p.lon)); //$NON-NLS-1$ //$NON-NLS-2$
+	private static void writeWpt(GPXXmlWriter serializer, WptPt p, IProgress progress) throws IOException {
+		serializer.attribute("lat", p.lat, LAT_LON_PATTERN); //$NON-NLS-1$
+		serializer.attribute("lon", p.lon, LAT_LON_PATTERN); //$NON-NLS-1$
 
 		if (!Double.isNaN(p.ele)) {
-			writeNotNullText(serializer, "ele", DECIMAL_FORMAT.format(p.ele));
+			serializer.startTag(null, "ele").text(p.ele, DECIMAL_PATTERN).endTag(null, "ele");
 		}
 		if (p.time != 0) {
-			writeNotNullText(serializer, "time", formatTime(p.time));
+			serializer.startTag(null, "time").timeText(p.time).endTag(null, "time");
 		}
 		writeNotNullText(serializer, "name", p.name);
 		writeNotNullText(serializer, "desc", p.desc);
@@ -2440,10 +2720,10 @@ public class GPXUtilities {
 		writeNotNullText(serializer, "cmt", p.comment);
 
 		if (!Double.isNaN(p.hdop)) {
-			writeNotNullText(serializer, "hdop", DECIMAL_FORMAT.format(p.hdop));
+			serializer.startTag(null, "hdop").text(p.hdop, DECIMAL_PATTERN).endTag(null, "hdop");
 		}
 		if (p.speed > 0) {
-			p.getExtensionsToWrite().put("speed", DECIMAL_FORMAT.format(p.speed));
+			p.getExtensionsToWrite().put("speed", DECIMAL_PATTERN.format(p.speed));
 		}
 		if (!Float.isNaN(p.heading)) {
 			p.getExtensionsToWrite().put("heading", String.valueOf(Math.round(p.heading)));
@@ -2467,7 +2747,7 @@ public class GPXUtilities {
 		}
 	}
 
-	private static void writeAuthor(XmlSerializer serializer, Author author) throws IOException {
+	private static void writeAuthor(GPXXmlWriter serializer, Author author) throws IOException {
 		writeNotNullText(serializer, "name", author.name);
 		if (author.email != null && author.email.contains("@")) {
 			String[] idAndDomain = author.email.split("@");
@@ -2481,18 +2761,18 @@ public class GPXUtilities {
 		writeNotNullTextWithAttribute(serializer, "link", "href", author.link);
 	}
 
-	private static void writeCopyright(XmlSerializer serializer, Copyright copyright) throws IOException {
+	private static void writeCopyright(GPXXmlWriter serializer, Copyright copyright) throws IOException {
 		serializer.attribute(null, "author", copyright.author);
 		writeNotNullText(serializer, "year", copyright.year);
 		writeNotNullText(serializer, "license", copyright.license);
 	}
 
-	private static void writeBounds(XmlSerializer serializer, Bounds bounds) throws IOException {
+	private static void writeBounds(GPXXmlWriter serializer, Bounds bounds) throws IOException {
 		serializer.startTag(null, "bounds");
-		serializer.attribute(null, "minlat", LAT_LON_FORMAT.format(bounds.minlat));
-		serializer.attribute(null, "minlon", LAT_LON_FORMAT.format(bounds.minlon));
-		serializer.attribute(null, "maxlat", LAT_LON_FORMAT.format(bounds.maxlat));
-		serializer.attribute(null, "maxlon", LAT_LON_FORMAT.format(bounds.maxlon));
+		serializer.attribute("minlat", bounds.minlat, LAT_LON_PATTERN);
+		serializer.attribute("minlon", bounds.minlon, LAT_LON_PATTERN);
+		serializer.attribute("maxlat", bounds.maxlat, LAT_LON_PATTERN);
+		serializer.attribute("maxlon", bounds.maxlon, LAT_LON_PATTERN);
 		serializer.endTag(null, "bounds");
 	}
 
@@ -2568,6 +2848,10 @@ public class GPXUtilities {
 	}
 
 	public static long parseTime(String text) {
+		long time = GPXStreamParser.parseIsoTime(text);
+		if (time != GPXStreamParser.UNPARSED_TIME) {
+			return time;
+		}
 		return parseTime(text, getTimeFormatterTZ(), getTimeFormatterMills());
 	}
 
@@ -2698,7 +2982,7 @@ public class GPXUtilities {
 											parse.getExtensionsToWrite().put(t, value);
 											if (tag.equals("speed") && parse instanceof WptPt) {
 												try {
-													((WptPt) parse).speed = Float.parseFloat(value);
+													((WptPt) parse).speed = GPXStreamParser.parseFloat(value);
 												} catch (NumberFormatException e) {
 													log.debug(e.getMessage(), e);
 												}
@@ -2868,7 +3152,7 @@ public class GPXUtilities {
 								try {
 									String value = readText(parser, "speed");
 									if (!Algorithms.isEmpty(value)) {
-										((WptPt) parse).speed = Float.parseFloat(value);
+										((WptPt) parse).speed = GPXStreamParser.parseFloat(value);
 										parse.getExtensionsToWrite().put("speed", value);
 									}
 								} catch (NumberFormatException e) {
@@ -2885,7 +3169,7 @@ public class GPXUtilities {
 								String text = readText(parser, "ele");
 								if (text != null) {
 									try {
-										((WptPt) parse).ele = Float.parseFloat(text);
+										((WptPt) parse).ele = GPXStreamParser.parseFloat(text);
 									} catch (NumberFormatException e) {
 									}
 								}
@@ -2893,7 +3177,7 @@ public class GPXUtilities {
 								String text = readText(parser, "hdop");
 								if (text != null) {
 									try {
-										((WptPt) parse).hdop = Float.parseFloat(text);
+										((WptPt) parse).hdop = GPXStreamParser.parseFloat(text);
 									} catch (NumberFormatException e) {
 									}
 								}
@@ -3024,7 +3308,7 @@ public class GPXUtilities {
 		return pointsGroups;
 	}
 
-	private static Reader getUTF8Reader(InputStream f) throws IOException {
+	static Reader getUTF8Reader(InputStream f) throws IOException {
 		BufferedInputStream bis = new BufferedInputStream(f);
 		assert bis.markSupported();
 		bis.mark(3);
@@ -3043,8 +3327,8 @@ public class GPXUtilities {
 	private static WptPt parseWptAttributes(XmlPullParser parser) {
 		WptPt wpt = new WptPt();
 		try {
-			wpt.lat = Double.parseDouble(parser.getAttributeValue("", "lat")); //$NON-NLS-1$ //$NON-NLS-2$
-			wpt.lon = Double.parseDouble(parser.getAttributeValue("", "lon")); //$NON-NLS-1$ //$NON-NLS-2$
+			wpt.lat = GPXStreamParser.parseDouble(parser.getAttributeValue("", "lat")); //$NON-NLS-1$ //$NON-NLS-2$
+			wpt.lon = GPXStreamParser.parseDouble(parser.getAttributeValue("", "lon")); //$NON-NLS-1$ //$NON-NLS-2$
 		} catch (NumberFormatException e) {
 			// ignore
 		}
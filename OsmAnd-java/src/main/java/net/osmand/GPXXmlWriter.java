@@ -0,0 +1,781 @@
+package net.osmand;
+
+import org.xmlpull.v1.XmlSerializer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Xml serializer for gpx writing. Output is the same as output of kxml serializer (namespace prefixes are
+ * declared and generated the same way), but it is written to char buffer reused by thread and encoded directly
+ * to channel. Numbers of fixed precision ({@link DecimalPattern}) and gpx times are formatted into
+ * the buffer without strings, so writing of track points doesn't allocate objects.
+ * Buffer is returned to thread by {@link #endDocument()} or {@link #release()}, which should be called
+ * in finally block if document is not finished.
+ */
+public class GPXXmlWriter implements XmlSerializer {
+
+	public static final String FEATURE_INDENT_OUTPUT = "http://xmlpull.org/v1/doc/features.html#indent-output";
+
+	private static final int BUFFER_SIZE = 16 * 1024;
+	private static final String NEW_LINE = "\r\n";
+	private static final String INDENT = "  ";
+	private static final String XML_NAMESPACE = "http://www.w3.org/XML/1998/namespace";
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private static final long[] POWERS_OF_TEN = {
+			1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L, 1000000000L};
+	// scaled numbers are exact enough to round them without decimal expansion
+	private static final double MAX_FAST_SCALED = 1L << 40;
+	private static final double TIE_PRECISION = 1e-3;
+	// date format uses julian calendar before 1582, fast formatting is used from 1900 to 9999 year
+	private static final long MIN_FAST_TIME = -2208988800000L;
+	private static final long MAX_FAST_TIME = 253402300800000L;
+	private static final long MILLIS_IN_DAY = 24 * 60 * 60 * 1000L;
+
+	private static final ThreadLocal<Buffers> BUFFERS = new ThreadLocal<>();
+
+	private Writer writer;
+	private OutputStream stream;
+	private WritableByteChannel channel;
+	private CharsetEncoder encoder;
+	// encoding of output stream is declared by document without encoding
+	private String encoding;
+	private Buffers buffers;
+	private char[] chars;
+	private int length;
+	// chars which are not ascii are written as character references if encoding is not unicode
+	private boolean unicode;
+
+	private final char[] digits = new char[DecimalPattern.MAX_DIGITS];
+	// namespace, prefix and name of open elements
+	private String[] elements = new String[48];
+	private boolean[] indent = new boolean[16];
+	private int depth;
+	private boolean pending;
+	// prefix and namespace pairs, count of pairs declared before element of depth
+	private String[] namespaces = new String[16];
+	private int[] namespaceCounts = new int[8];
+	private int autoPrefix;
+	private Map<String, Boolean> features;
+	private Map<String, Object> properties;
+
+	/**
+	 * Format of number with fixed precision as {@link DecimalFormat} pattern without grouping,
+	 * for example "0.00#####". Formatting is the same as formatting by {@link DecimalFormat} (half even
+	 * rounding of exact double value), numbers which are close to tie or too large are formatted by it.
+	 */
+	public static class DecimalPattern {
+
+		private static final int MAX_DIGITS = 40;
+
+		private final DecimalFormat format;
+		private final int minIntegerDigits;
+		private final int minFractionDigits;
+		private final int maxFractionDigits;
+
+		public DecimalPattern(String pattern) {
+			format = new DecimalFormat(pattern, new DecimalFormatSymbols(Locale.US));
+			minIntegerDigits = format.getMinimumIntegerDigits();
+			minFractionDigits = format.getMinimumFractionDigits();
+			maxFractionDigits = format.getMaximumFractionDigits();
+			if (format.isGroupingUsed() || format.getMultiplier() != 1 || maxFractionDigits >= POWERS_OF_TEN.length
+					|| minIntegerDigits > MAX_DIGITS / 2) {
+				throw new IllegalArgumentException("Unsupported pattern " + pattern);
+			}
+		}
+
+		public String format(double value) {
+			char[] chars = new char[MAX_DIGITS];
+			int length = format(value, chars);
+			if (length >= 0) {
+				return new String(chars, 0, length);
+			}
+			synchronized (format) {
+				return format.format(value);
+			}
+		}
+
+		/**
+		 * @return length of formatted number in chars or -1 if number should be formatted by {@link DecimalFormat}
+		 */
+		private int format(double value, char[] chars) {
+			long unit = POWERS_OF_TEN[maxFractionDigits];
+			double scaled = Math.abs(value) * unit;
+			double floor = Math.floor(scaled);
+			double fraction = scaled - floor;
+			if (!(scaled < MAX_FAST_SCALED) || Math.abs(fraction - 0.5) < TIE_PRECISION) {
+				return -1;
+			}
+			long rounded = (long) floor + (fraction > 0.5 ? 1 : 0);
+			long fractionDigits = rounded % unit;
+			int fractionCount = maxFractionDigits;
+			while (fractionCount > minFractionDigits && fractionDigits % 10 == 0) {
+				fractionDigits /= 10;
+				fractionCount--;
+			}
+			// digits are written from the end
+			int pos = chars.length;
+			if (fractionCount > 0) {
+				pos = writeDigits(fractionDigits, fractionCount, chars, pos);
+				chars[--pos] = '.';
+			}
+			pos = writeDigits(rounded / unit, minIntegerDigits, chars, pos);
+			if (value < 0 || (value == 0 && 1 / value < 0)) {
+				chars[--pos] = '-';
+			}
+			int length = chars.length - pos;
+			System.arraycopy(chars, pos, chars, 0, length);
+			return length;
+		}
+	}
+
+	private static int writeDigits(long value, int minDigits, char[] chars, int end) {
+		int pos = end;
+		do {
+			chars[--pos] = (char) ('0' + value % 10);
+			value /= 10;
+		} while (value > 0);
+		while (end - pos < minDigits) {
+			chars[--pos] = '0';
+		}
+		return pos;
+	}
+
+	private static class Buffers {
+		final char[] chars = new char[BUFFER_SIZE];
+		final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE * 3);
+	}
+
+	public GPXXmlWriter(Writer writer) {
+		this(writer, null);
+	}
+
+	/**
+	 * Writes utf-8 xml to channel, output stream could be wrapped by {@link java.nio.channels.Channels#newChannel(OutputStream)}.
+	 */
+	public GPXXmlWriter(WritableByteChannel channel) {
+		this(null, channel);
+	}
+
+	private GPXXmlWriter(Writer writer, WritableByteChannel channel) {
+		setOutput(writer, null, channel, UTF8);
+		unicode = channel != null;
+	}
+
+	private void setOutput(Writer writer, OutputStream stream, WritableByteChannel channel, Charset charset) {
+		this.writer = writer;
+		this.stream = stream;
+		this.channel = channel;
+		if (channel != null) {
+			// the same replacement of malformed chars as in OutputStreamWriter
+			encoder = charset.newEncoder().onMalformedInput(CodingErrorAction.REPLACE)
+					.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		} else {
+			encoder = null;
+		}
+		if (buffers == null) {
+			buffers = BUFFERS.get();
+			if (buffers != null) {
+				BUFFERS.set(null);
+			} else {
+				buffers = new Buffers();
+			}
+			chars = buffers.chars;
+		}
+		length = 0;
+		depth = 0;
+		pending = false;
+		unicode = false;
+		encoding = null;
+		autoPrefix = 0;
+		namespaceCounts[0] = 2;
+		namespaceCounts[1] = 2;
+		namespaces[0] = "";
+		namespaces[1] = "";
+		namespaces[2] = "xml";
+		namespaces[3] = XML_NAMESPACE;
+	}
+
+	private void write(char c) throws IOException {
+		if (length == chars.length) {
+			flushBuffer(false);
+		}
+		chars[length++] = c;
+	}
+
+	private void write(String s) throws IOException {
+		int len = s.length();
+		int start = 0;
+		while (start < len) {
+			if (length == chars.length) {
+				flushBuffer(false);
+			}
+			int count = Math.min(len - start, chars.length - length);
+			s.getChars(start, start + count, chars, length);
+			length += count;
+			start += count;
+		}
+	}
+
+	private void writeEscaped(String s, char quote) throws IOException {
+		int len = s.length();
+		for (int i = 0; i < len; i++) {
+			char c = s.charAt(i);
+			switch (c) {
+				case '&':
+					write("&amp;");
+					break;
+				case '>':
+					write("&gt;");
+					break;
+				case '<':
+					write("&lt;");
+					break;
+				case '"':
+				case '\'':
+					if (c == quote) {
+						write(c == '"' ? "&quot;" : "&apos;");
+					} else {
+						write(c);
+					}
+					break;
+				default:
+					if (c < 127 || unicode) {
+						write(c);
+					} else {
+						write("&#");
+						writeDigits(c, 1);
+						write(';');
+					}
+			}
+		}
+	}
+
+	private void flushBuffer(boolean endOfInput) throws IOException {
+		if (buffers == null) {
+			throw new IllegalStateException("Writer is released");
+		}
+		if (writer != null) {
+			writer.write(chars, 0, length);
+			length = 0;
+			return;
+		}
+		CharBuffer in = CharBuffer.wrap(chars, 0, length);
+		ByteBuffer out = buffers.bytes;
+		while (true) {
+			CoderResult result = encoder.encode(in, out, endOfInput);
+			if (result.isOverflow()) {
+				writeBytes(out);
+			} else {
+				break;
+			}
+		}
+		if (endOfInput) {
+			while (encoder.flush(out).isOverflow()) {
+				writeBytes(out);
+			}
+		}
+		writeBytes(out);
+		// high surrogate at the end of buffer is encoded with next chars
+		int remaining = in.remaining();
+		System.arraycopy(chars, in.position(), chars, 0, remaining);
+		length = remaining;
+	}
+
+	private void writeBytes(ByteBuffer out) throws IOException {
+		out.flip();
+		while (out.hasRemaining()) {
+			channel.write(out);
+		}
+		out.clear();
+	}
+
+	private void check(boolean close) throws IOException {
+		if (!pending) {
+			return;
+		}
+		depth++;
+		pending = false;
+		if (indent.length <= depth) {
+			indent = Arrays.copyOf(indent, depth + 4);
+		}
+		indent[depth] = indent[depth - 1];
+		for (int i = namespaceCounts[depth - 1]; i < namespaceCounts[depth]; i++) {
+			write(" xmlns");
+			String prefix = namespaces[i * 2];
+			if (prefix.length() > 0) {
+				write(':');
+				write(prefix);
+			} else if ("".equals(getNamespace()) && namespaces[i * 2 + 1].length() > 0) {
+				throw new IllegalStateException("Cannot set default namespace for elements in no namespace");
+			}
+			write("=\"");
+			writeEscaped(namespaces[i * 2 + 1], '"');
+			write('"');
+		}
+		if (namespaceCounts.length <= depth + 1) {
+			namespaceCounts = Arrays.copyOf(namespaceCounts, depth + 8);
+		}
+		namespaceCounts[depth + 1] = namespaceCounts[depth];
+		write(close ? " />" : ">");
+	}
+
+	private void writeIndent(int depth) throws IOException {
+		write(NEW_LINE);
+		for (int i = 0; i < depth; i++) {
+			write(INDENT);
+		}
+	}
+
+	/**
+	 * Features and properties other than indent output don't change output, they are kept for extension writers.
+	 */
+	@Override
+	public void setFeature(String name, boolean state) {
+		if (FEATURE_INDENT_OUTPUT.equals(name)) {
+			indent[depth] = state;
+		} else {
+			if (features == null) {
+				features = new HashMap<>();
+			}
+			features.put(name, state);
+		}
+	}
+
+	@Override
+	public boolean getFeature(String name) {
+		if (FEATURE_INDENT_OUTPUT.equals(name)) {
+			return indent[depth];
+		}
+		return features != null && Boolean.TRUE.equals(features.get(name));
+	}
+
+	@Override
+	public void setProperty(String name, Object value) {
+		if (properties == null) {
+			properties = new HashMap<>();
+		}
+		properties.put(name, value);
+	}
+
+	@Override
+	public Object getProperty(String name) {
+		return properties == null ? null : properties.get(name);
+	}
+
+	/**
+	 * Flushes written xml to previous output and starts new document.
+	 */
+	@Override
+	public void setOutput(OutputStream os, String encoding) throws IOException {
+		if (os == null) {
+			throw new IllegalArgumentException("Output stream is null");
+		}
+		flushOutput();
+		setOutput(null, os, Channels.newChannel(os), encoding == null ? UTF8 : Charset.forName(encoding));
+		this.encoding = encoding;
+		unicode = encoding != null && encoding.toLowerCase().startsWith("utf");
+	}
+
+	/**
+	 * Flushes written xml to previous output and starts new document.
+	 */
+	@Override
+	public void setOutput(Writer writer) throws IOException {
+		flushOutput();
+		setOutput(writer, null, null, null);
+	}
+
+	private void flushOutput() throws IOException {
+		if (buffers != null) {
+			flushBuffer(true);
+			flushStreams();
+		}
+	}
+
+	private void flushStreams() throws IOException {
+		if (writer != null) {
+			writer.flush();
+		}
+		if (stream != null) {
+			stream.flush();
+		}
+	}
+
+	@Override
+	public void startDocument(String encoding, Boolean standalone) throws IOException {
+		write("<?xml version='1.0' ");
+		if (encoding != null) {
+			this.encoding = encoding;
+			if (encoding.toLowerCase().startsWith("utf")) {
+				unicode = true;
+			}
+		}
+		if (this.encoding != null) {
+			write("encoding='");
+			write(this.encoding);
+			write("' ");
+		}
+		if (standalone != null) {
+			write("standalone='");
+			write(standalone ? "yes" : "no");
+			write("' ");
+		}
+		write("?>");
+	}
+
+	@Override
+	public void endDocument() throws IOException {
+		while (depth > 0) {
+			endTag(elements[depth * 3 - 3], elements[depth * 3 - 1]);
+		}
+		check(false);
+		flushBuffer(true);
+		flushStreams();
+		release();
+	}
+
+	/**
+	 * Returns buffer to thread for next writer, written but not flushed xml is dropped.
+	 * Output is not closed.
+	 */
+	public void release() {
+		if (buffers != null) {
+			buffers.bytes.clear();
+			BUFFERS.set(buffers);
+			buffers = null;
+			chars = new char[0];
+			length = 0;
+		}
+	}
+
+	@Override
+	public void setPrefix(String prefix, String namespace) throws IOException {
+		check(false);
+		if (prefix == null) {
+			prefix = "";
+		}
+		if (namespace == null) {
+			namespace = "";
+		}
+		if (prefix.equals(getPrefix(namespace, true, false))) {
+			return;
+		}
+		// declaration is written by next start tag
+		int pos = namespaceCounts[depth + 1]++ * 2;
+		if (namespaces.length < pos + 2) {
+			namespaces = Arrays.copyOf(namespaces, namespaces.length + 16);
+		}
+		namespaces[pos] = prefix;
+		namespaces[pos + 1] = namespace;
+	}
+
+	@Override
+	public String getPrefix(String namespace, boolean generatePrefix) {
+		try {
+			return getPrefix(namespace, false, generatePrefix);
+		} catch (IOException e) {
+			throw new RuntimeException(e.toString());
+		}
+	}
+
+	private String getPrefix(String namespace, boolean includeDefault, boolean create) throws IOException {
+		int count = namespaceCounts[depth + 1] * 2;
+		for (int i = count - 2; i >= 0; i -= 2) {
+			if (namespaces[i + 1].equals(namespace) && (includeDefault || namespaces[i].length() > 0)) {
+				String prefix = namespaces[i];
+				// prefix could be redeclared for other namespace
+				for (int j = i + 2; j < count && prefix != null; j += 2) {
+					if (namespaces[j].equals(prefix)) {
+						prefix = null;
+					}
+				}
+				if (prefix != null) {
+					return prefix;
+				}
+			}
+		}
+		if (!create) {
+			return null;
+		}
+		String prefix;
+		if (namespace.length() == 0) {
+			prefix = "";
+		} else {
+			do {
+				prefix = "n" + (autoPrefix++);
+				for (int i = count - 2; i >= 0 && prefix != null; i -= 2) {
+					if (prefix.equals(namespaces[i])) {
+						prefix = null;
+					}
+				}
+			} while (prefix == null);
+		}
+		boolean p = pending;
+		pending = false;
+		setPrefix(prefix, namespace);
+		pending = p;
+		return prefix;
+	}
+
+	@Override
+	public int getDepth() {
+		return pending ? depth + 1 : depth;
+	}
+
+	@Override
+	public String getNamespace() {
+		return getDepth() == 0 ? null : elements[getDepth() * 3 - 3];
+	}
+
+	@Override
+	public String getName() {
+		return getDepth() == 0 ? null : elements[getDepth() * 3 - 1];
+	}
+
+	@Override
+	public GPXXmlWriter startTag(String namespace, String name) throws IOException {
+		check(false);
+		if (indent[depth]) {
+			writeIndent(depth);
+		}
+		int pos = depth * 3;
+		if (elements.length < pos + 3) {
+			elements = Arrays.copyOf(elements, pos + 48);
+		}
+		String prefix = namespace == null ? "" : getPrefix(namespace, true, true);
+		if ("".equals(namespace)) {
+			for (int i = namespaceCounts[depth]; i < namespaceCounts[depth + 1]; i++) {
+				if (namespaces[i * 2].length() == 0 && namespaces[i * 2 + 1].length() > 0) {
+					throw new IllegalStateException("Cannot set default namespace for elements in no namespace");
+				}
+			}
+		}
+		elements[pos] = namespace;
+		elements[pos + 1] = prefix;
+		elements[pos + 2] = name;
+		write('<');
+		writePrefix(prefix);
+		write(name);
+		pending = true;
+		return this;
+	}
+
+	@Override
+	public GPXXmlWriter attribute(String namespace, String name, String value) throws IOException {
+		if (!pending) {
+			throw new IllegalStateException("illegal position for attribute");
+		}
+		String prefix = namespace == null || namespace.length() == 0 ? "" : getPrefix(namespace, false, true);
+		write(' ');
+		writePrefix(prefix);
+		write(name);
+		write('=');
+		char quote = value.indexOf('"') == -1 ? '"' : '\'';
+		write(quote);
+		writeEscaped(value, quote);
+		write(quote);
+		return this;
+	}
+
+	private void startAttribute(String name) throws IOException {
+		if (!pending) {
+			throw new IllegalStateException("illegal position for attribute");
+		}
+		write(' ');
+		write(name);
+		write('=');
+	}
+
+	private void writePrefix(String prefix) throws IOException {
+		if (prefix.length() > 0) {
+			write(prefix);
+			write(':');
+		}
+	}
+
+	/**
+	 * Writes attribute as {@link DecimalFormat} of pattern would format it.
+	 */
+	public GPXXmlWriter attribute(String name, double value, DecimalPattern pattern) throws IOException {
+		startAttribute(name);
+		write('"');
+		writeNumber(value, pattern);
+		write('"');
+		return this;
+	}
+
+	@Override
+	public GPXXmlWriter endTag(String namespace, String name) throws IOException {
+		if (!pending) {
+			depth--;
+		}
+		if (depth < 0 || (namespace == null ? elements[depth * 3] != null : !namespace.equals(elements[depth * 3]))
+				|| !elements[depth * 3 + 2].equals(name)) {
+			throw new IllegalArgumentException("</{" + namespace + "}" + name + "> does not match start");
+		}
+		if (pending) {
+			check(true);
+			depth--;
+		} else {
+			if (indent[depth + 1]) {
+				writeIndent(depth);
+			}
+			write("</");
+			writePrefix(elements[depth * 3 + 1]);
+			write(name);
+			write('>');
+		}
+		namespaceCounts[depth + 1] = namespaceCounts[depth];
+		return this;
+	}
+
+	@Override
+	public GPXXmlWriter text(String text) throws IOException {
+		startText();
+		writeEscaped(text, (char) 0);
+		return this;
+	}
+
+	@Override
+	public GPXXmlWriter text(char[] buf, int start, int len) throws IOException {
+		return text(new String(buf, start, len));
+	}
+
+	private void startText() throws IOException {
+		check(false);
+		indent[depth] = false;
+	}
+
+	/**
+	 * Writes text as {@link DecimalFormat} of pattern would format it.
+	 */
+	public GPXXmlWriter text(double value, DecimalPattern pattern) throws IOException {
+		startText();
+		writeNumber(value, pattern);
+		return this;
+	}
+
+	/**
+	 * Writes time as {@link GPXUtilities#formatTime(long)}.
+	 */
+	public GPXXmlWriter timeText(long time) throws IOException {
+		startText();
+		if (time < MIN_FAST_TIME || time >= MAX_FAST_TIME) {
+			write(GPXUtilities.formatTime(time));
+			return this;
+		}
+		// time from 1900 year is positive, so division is rounded down
+		long fromMinTime = time - MIN_FAST_TIME;
+		long days = fromMinTime / MILLIS_IN_DAY + MIN_FAST_TIME / MILLIS_IN_DAY;
+		int secondOfDay = (int) (fromMinTime % MILLIS_IN_DAY / 1000);
+		// civil date from days since epoch
+		long z = days + 719468;
+		long era = z / 146097;
+		long dayOfEra = z - era * 146097;
+		long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+		long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+		long mp = (5 * dayOfYear + 2) / 153;
+		int day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+		int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+		int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+		writeDigits(year, 4);
+		write('-');
+		writeDigits(month, 2);
+		write('-');
+		writeDigits(day, 2);
+		write('T');
+		writeDigits(secondOfDay / 3600, 2);
+		write(':');
+		writeDigits(secondOfDay / 60 % 60, 2);
+		write(':');
+		writeDigits(secondOfDay % 60, 2);
+		write('Z');
+		return this;
+	}
+
+	private void writeDigits(long value, int minDigits) throws IOException {
+		int pos = writeDigits(value, minDigits, digits, digits.length);
+		for (int i = pos; i < digits.length; i++) {
+			write(digits[i]);
+		}
+	}
+
+	private void writeNumber(double value, DecimalPattern pattern) throws IOException {
+		int len = pattern.format(value, digits);
+		if (len < 0) {
+			write(pattern.format(value));
+			return;
+		}
+		for (int i = 0; i < len; i++) {
+			write(digits[i]);
+		}
+	}
+
+	@Override
+	public void cdsect(String text) throws IOException {
+		check(false);
+		write("<![CDATA[");
+		write(text);
+		write("]]>");
+	}
+
+	@Override
+	public void entityRef(String text) throws IOException {
+		check(false);
+		write('&');
+		write(text);
+		write(';');
+	}
+
+	@Override
+	public void processingInstruction(String text) throws IOException {
+		check(false);
+		write("<?");
+		write(text);
+		write("?>");
+	}
+
+	@Override
+	public void comment(String text) throws IOException {
+		check(false);
+		write("<!--");
+		write(text);
+		write("-->");
+	}
+
+	@Override
+	public void docdecl(String text) throws IOException {
+		write("<!DOCTYPE");
+		write(text);
+		write(">");
+	}
+
+	@Override
+	public void ignorableWhitespace(String text) throws IOException {
+		text(text);
+	}
+
+	@Override
+	public void flush() throws IOException {
+		check(false);
+		flushBuffer(false);
+		flushStreams();
+	}
+}
@@ -1,9 +1,10 @@
 package net.osmand;
 
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 import org.apache.commons.logging.Log;
 
@@ -11,10 +12,8 @@ public class GeoidAltitudeCorrection {
 
 	private final Log log = PlatformUtil.getLog(GeoidAltitudeCorrection.class);
 	private File f;
-	private RandomAccessFile rf;
-	
-	private int cachedPointer = -1;
-	private short cachedValue = 0;
+	// file is memory mapped, so heights could be read by many threads (batch elevation of tracks)
+	private ByteBuffer heights;
 
 	public GeoidAltitudeCorrection(File dir) {
 		String[] fnames = dir.list();
@@ -30,8 +29,13 @@ public class GeoidAltitudeCorrection {
 				this.f = new File(dir, fn);
 				if (f.exists()) {
 					try {
-						rf = new RandomAccessFile(f.getPath(), "r");
-					} catch (FileNotFoundException e) {
+						RandomAccessFile rf = new RandomAccessFile(f.getPath(), "r");
+						try {
+							heights = rf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, rf.length());
+						} finally {
+							rf.close();
+						}
+					} catch (IOException e) {
 						log.error("Error", e);
 					}
 				}
@@ -41,7 +45,7 @@ public class GeoidAltitudeCorrection {
 	}
 	
 	public boolean isGeoidInformationAvailable(){
-		return rf != null;
+		return heights != null;
 	}
 	
 	public float getGeoidHeight(double lat, double lon) {
@@ -51,26 +55,10 @@ public class GeoidAltitudeCorrection {
 		int shy = (int) Math.floor((90 - lat) * 4);
 		int shx = (int) Math.floor((lon >= 0 ? lon : lon + 360) * 4);
 		int pointer = ((shy * 1440) + shx) * 2;
-		short res = 0;
-		if (pointer != cachedPointer) {
-			try {
-				rf.seek(pointer);
-				// read short
-				cachedValue = readShort();
-				cachedPointer = pointer;
-			} catch (IOException e) {
-				log.error("Geoid info error", e);
-			}
+		if (pointer < 0 || pointer + 2 > heights.limit()) {
+			log.error("Geoid info error " + lat + " " + lon);
+			return 0;
 		}
-		res = cachedValue;
-		return res / 100f;
-	}
-
-	private short readShort() throws IOException {
-		byte[] b = new byte[2];
-		rf.read(b);
-		int ch1 = b[0] < 0 ? b[0] + 256 : b[0];
-		int ch2 = b[1] < 0 ? b[1] + 256 : b[1];
-		return (short)((ch1 << 8) + ch2);
+		return heights.getShort(pointer) / 100f;
 	}
 }
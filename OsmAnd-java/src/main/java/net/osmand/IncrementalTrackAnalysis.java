@@ -0,0 +1,409 @@
+package net.osmand;
+
+import net.osmand.GPXUtilities.Elevation;
+import net.osmand.GPXUtilities.GPXTrackAnalysis;
+import net.osmand.GPXUtilities.GPXTrackAnalysis.ElevationDiffsCalculator;
+import net.osmand.GPXUtilities.Speed;
+import net.osmand.GPXUtilities.WptPt;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Analysis of growing track (for example during recording) with same results as
+ * {@link GPXUtilities.GPXFile#getAnalysis(long)} of file with the same segments, but points are processed
+ * only once when they are added.
+ * <p>
+ * Elevation diffs are calculated with windows of {@link ElevationDiffsCalculator} which length depends
+ * on average distance between points of timed segment (points are more than 5 m apart). New points are added
+ * to the windows of current segment, they are rebuilt from stored elevations and distances only when analysis
+ * is requested and window length differs from the one used, so diffs are the same as of the file analysis.
+ * Elevation and speed data of analysis are views of stored data and are not copied.
+ */
+public class IncrementalTrackAnalysis {
+
+	private final float[] calculations = new float[1];
+
+	private int totalTracks;
+	private int points;
+	private float totalDistance;
+	private long startTime = Long.MAX_VALUE;
+	private long endTime = Long.MIN_VALUE;
+	private long timeMoving;
+	private float totalDistanceMoving;
+	private float totalElevation;
+	private int elevationPoints;
+	private double minElevation = 99999;
+	private double maxElevation = -100;
+	private float minSpeed = Float.MAX_VALUE;
+	private float maxSpeed;
+	private int speedCount;
+	private double totalSpeedSum;
+	private int timeDiff;
+	private double minHdop = Double.NaN;
+	private double maxHdop = Double.NaN;
+	private WptPt locationStart;
+	private WptPt locationEnd;
+	private double left;
+	private double right;
+	private double top;
+	private double bottom;
+	private boolean hasElevationData;
+	private boolean hasSpeedData;
+	private boolean hasSpeedInTrack;
+	private final PointsData<Elevation> elevationData = new PointsData<>();
+	private final PointsData<Speed> speedData = new PointsData<>();
+	private double diffElevationUp;
+	private double diffElevationDown;
+
+	// current segment, its first point is analysed only with the second one as single point segments are skipped
+	private int segmentPoints;
+	private WptPt firstSegmentPoint;
+	private WptPt prevPoint;
+	private float segmentDistance;
+	private double[] segmentElevations = new double[256];
+	private double[] segmentDistances = new double[256];
+	private ElevationDiffs elevationDiffs;
+	private long recalculatedPoints;
+
+	// append only data, views of added items stay valid when new items are added
+	private static class PointsData<T> {
+		private Object[] items = new Object[256];
+		private int size;
+
+		void add(T item) {
+			if (size == items.length) {
+				items = Arrays.copyOf(items, size * 2);
+			}
+			items[size++] = item;
+		}
+
+		List<T> view() {
+			return new View<>(items, size);
+		}
+	}
+
+	private static class View<T> extends AbstractList<T> implements RandomAccess {
+		private final Object[] items;
+		private final int size;
+
+		View(Object[] items, int size) {
+			this.items = items;
+			this.size = size;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public T get(int index) {
+			if (index >= size) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+			}
+			return (T) items[index];
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+
+	private static class ElevationDiffs {
+		final double windowLength;
+		double eleSumm;
+		double prevEle;
+		int pointsCount;
+		double eleAvg = Double.NaN;
+		double nextWindowPos;
+		double diffElevationUp;
+		double diffElevationDown;
+
+		// same as ElevationDiffsCalculator.calculateElevationDiffs() point by point
+		ElevationDiffs(double windowLength, double ele, double distance) {
+			this.windowLength = windowLength;
+			eleSumm = ele;
+			prevEle = ele;
+			pointsCount = Double.isNaN(ele) ? 0 : 1;
+			nextWindowPos = distance + windowLength;
+		}
+
+		void addPoint(double ele, double distance) {
+			if (distance > nextWindowPos) {
+				eleAvg = calcAvg(eleSumm, pointsCount, eleAvg);
+				if (!Double.isNaN(ele)) {
+					eleSumm = ele;
+					prevEle = ele;
+					pointsCount = 1;
+				} else if (!Double.isNaN(prevEle)) {
+					eleSumm = prevEle;
+					pointsCount = 1;
+				} else {
+					eleSumm = Double.NaN;
+					pointsCount = 0;
+				}
+				while (nextWindowPos < distance) {
+					nextWindowPos += windowLength;
+				}
+			} else {
+				if (!Double.isNaN(ele)) {
+					eleSumm += ele;
+					prevEle = ele;
+					pointsCount++;
+				} else if (!Double.isNaN(prevEle)) {
+					eleSumm += prevEle;
+					pointsCount++;
+				}
+			}
+		}
+
+		private double calcAvg(double eleSumm, int pointsCount, double eleAvg) {
+			if (Double.isNaN(eleSumm) || pointsCount == 0) {
+				return Double.NaN;
+			}
+			double avg = eleSumm / pointsCount;
+			if (!Double.isNaN(eleAvg)) {
+				double diff = avg - eleAvg;
+				if (diff > 0) {
+					diffElevationUp += diff;
+				} else {
+					diffElevationDown -= diff;
+				}
+			}
+			return avg;
+		}
+
+		double[] getDiffs() {
+			double up = diffElevationUp;
+			double down = diffElevationDown;
+			if (pointsCount > 1) {
+				calcAvg(eleSumm, pointsCount, eleAvg);
+			}
+			double[] diffs = {Math.round(diffElevationUp + 0.3f), diffElevationDown};
+			diffElevationUp = up;
+			diffElevationDown = down;
+			return diffs;
+		}
+	}
+
+	public void startSegment() {
+		finishSegment();
+		totalTracks++;
+	}
+
+	public void addPoint(WptPt point) {
+		if (totalTracks == 0) {
+			totalTracks++;
+		}
+		if (segmentPoints == 0) {
+			firstSegmentPoint = point;
+		} else {
+			if (segmentPoints == 1) {
+				analysePoint(firstSegmentPoint, 0);
+			}
+			analysePoint(point, segmentPoints);
+		}
+		segmentPoints++;
+	}
+
+	public int getPointsCount() {
+		return points;
+	}
+
+	/**
+	 * @return number of points added again to elevation windows when window length changed
+	 */
+	long getRecalculatedPoints() {
+		return recalculatedPoints;
+	}
+
+	public GPXTrackAnalysis getAnalysis(long fileTimestamp) {
+		GPXTrackAnalysis analysis = new GPXTrackAnalysis();
+		analysis.totalTracks = totalTracks;
+		analysis.points = points;
+		analysis.totalDistance = totalDistance;
+		analysis.startTime = startTime;
+		analysis.endTime = endTime;
+		analysis.timeMoving = timeMoving;
+		analysis.totalDistanceMoving = totalDistanceMoving;
+		analysis.minElevation = minElevation;
+		analysis.maxElevation = maxElevation;
+		analysis.minSpeed = minSpeed;
+		analysis.maxSpeed = maxSpeed;
+		analysis.minHdop = minHdop;
+		analysis.maxHdop = maxHdop;
+		analysis.locationStart = locationStart;
+		analysis.locationEnd = locationEnd;
+		analysis.left = left;
+		analysis.right = right;
+		analysis.top = top;
+		analysis.bottom = bottom;
+		analysis.hasElevationData = hasElevationData;
+		analysis.hasSpeedData = hasSpeedData;
+		analysis.hasSpeedInTrack = hasSpeedInTrack;
+		analysis.elevationData = elevationData.view();
+		analysis.speedData = speedData.view();
+		analysis.diffElevationUp = diffElevationUp;
+		analysis.diffElevationDown = diffElevationDown;
+		if (segmentPoints > 1) {
+			double[] diffs = getSegmentElevationDiffs().getDiffs();
+			analysis.diffElevationUp += diffs[0];
+			analysis.diffElevationDown += diffs[1];
+		}
+		// same as end of GPXTrackAnalysis.prepareInformation()
+		if (totalDistance < 0) {
+			analysis.hasElevationData = false;
+			analysis.hasSpeedData = false;
+		}
+		if (!analysis.isTimeSpecified()) {
+			analysis.startTime = fileTimestamp;
+			analysis.endTime = fileTimestamp;
+		}
+		analysis.timeSpan = analysis.endTime - analysis.startTime;
+		if (elevationPoints > 0) {
+			analysis.avgElevation = totalElevation / elevationPoints;
+		}
+		if (speedCount > 0) {
+			if (timeMoving > 0) {
+				analysis.avgSpeed = totalDistanceMoving / (float) timeMoving * 1000f;
+			} else {
+				analysis.avgSpeed = (float) totalSpeedSum / (float) speedCount;
+			}
+		} else {
+			analysis.avgSpeed = -1;
+		}
+		return analysis;
+	}
+
+	private void finishSegment() {
+		if (segmentPoints > 1) {
+			double[] diffs = getSegmentElevationDiffs().getDiffs();
+			diffElevationUp += diffs[0];
+			diffElevationDown += diffs[1];
+		}
+		segmentPoints = 0;
+		firstSegmentPoint = null;
+		prevPoint = null;
+		segmentDistance = 0;
+		elevationDiffs = null;
+	}
+
+	private ElevationDiffs getSegmentElevationDiffs() {
+		int count = segmentPoints;
+		double windowLength = prevPoint.time == 0 ? ElevationDiffsCalculator.CALCULATED_GPX_WINDOW_LENGTH
+				: Math.max(20d, prevPoint.distance / count * 4);
+		if (elevationDiffs == null || elevationDiffs.windowLength != windowLength) {
+			elevationDiffs = new ElevationDiffs(windowLength, segmentElevations[0], segmentDistances[0]);
+			for (int i = 1; i < count; i++) {
+				elevationDiffs.addPoint(segmentElevations[i], segmentDistances[i]);
+			}
+			recalculatedPoints += count;
+		}
+		return elevationDiffs;
+	}
+
+	// same as loop of GPXTrackAnalysis.prepareInformation() for not general segment
+	private void analysePoint(WptPt point, int j) {
+		if (j == 0 && locationStart == null) {
+			locationStart = point;
+		}
+		locationEnd = point;
+		long time = point.time;
+		if (time != 0) {
+			startTime = Math.min(startTime, time);
+			endTime = Math.max(endTime, time);
+		}
+		if (left == 0 && right == 0) {
+			left = point.getLongitude();
+			right = point.getLongitude();
+			top = point.getLatitude();
+			bottom = point.getLatitude();
+		} else {
+			left = Math.min(left, point.getLongitude());
+			right = Math.max(right, point.getLongitude());
+			top = Math.max(top, point.getLatitude());
+			bottom = Math.min(bottom, point.getLatitude());
+		}
+
+		double elevation = point.ele;
+		Elevation elevation1 = new Elevation();
+		if (!Double.isNaN(elevation)) {
+			totalElevation += elevation;
+			elevationPoints++;
+			minElevation = Math.min(elevation, minElevation);
+			maxElevation = Math.max(elevation, maxElevation);
+			elevation1.elevation = (float) elevation;
+		} else {
+			elevation1.elevation = Float.NaN;
+		}
+
+		float speed = (float) point.speed;
+		if (speed > 0) {
+			hasSpeedInTrack = true;
+		}
+
+		double hdop = point.hdop;
+		if (hdop > 0) {
+			if (Double.isNaN(minHdop) || hdop < minHdop) {
+				minHdop = hdop;
+			}
+			if (Double.isNaN(maxHdop) || hdop > maxHdop) {
+				maxHdop = hdop;
+			}
+		}
+
+		if (j > 0) {
+			WptPt prev = prevPoint;
+			Location.distanceBetween(prev.lat, prev.lon, point.lat, point.lon, calculations);
+			totalDistance += calculations[0];
+			segmentDistance += calculations[0];
+			point.distance = segmentDistance;
+
+			long timeDiffMillis = Math.max(0, point.time - prev.time);
+			timeDiff = (int) ((timeDiffMillis) / 1000);
+			if (!hasSpeedInTrack && speed == 0 && timeDiff > 0) {
+				speed = calculations[0] / timeDiff;
+			}
+			boolean timeSpecified = point.time != 0 && prev.time != 0;
+			if (speed > 0 && timeSpecified && calculations[0] > timeDiffMillis / 10000f) {
+				timeMoving = timeMoving + timeDiffMillis;
+				totalDistanceMoving += calculations[0];
+			}
+		}
+
+		elevation1.time = timeDiff;
+		elevation1.distance = (j > 0) ? calculations[0] : 0;
+		elevationData.add(elevation1);
+		if (!hasElevationData && !Float.isNaN(elevation1.elevation) && totalDistance > 0) {
+			hasElevationData = true;
+		}
+
+		minSpeed = Math.min(speed, minSpeed);
+		if (speed > 0) {
+			totalSpeedSum += speed;
+			maxSpeed = Math.max(speed, maxSpeed);
+			speedCount++;
+		}
+
+		Speed speed1 = new Speed();
+		speed1.speed = speed;
+		speed1.time = timeDiff;
+		speed1.distance = elevation1.distance;
+		speedData.add(speed1);
+		if (!hasSpeedData && speed1.speed > 0 && totalDistance > 0) {
+			hasSpeedData = true;
+		}
+
+		points++;
+		prevPoint = point;
+		if (j == segmentElevations.length) {
+			segmentElevations = Arrays.copyOf(segmentElevations, j * 2);
+			segmentDistances = Arrays.copyOf(segmentDistances, j * 2);
+		}
+		segmentElevations[j] = point.ele;
+		segmentDistances[j] = point.distance;
+		if (elevationDiffs != null) {
+			elevationDiffs.addPoint(point.ele, point.distance);
+		}
+	}
+}
@@ -0,0 +1,124 @@
+package net.osmand;
+
+/**
+ * Levenshtein automaton accepting strings which start with the query with up to maxEdits
+ * insertions, deletions or substitutions. State is the row of edit distances between query prefixes and
+ * consumed text, so automaton could be run over trie (name index) and pruned as soon as state can't match.
+ * Characters are compared by primary collation keys of the collator (see {@link CollatorFoldTable}) or lower case,
+ * so collator of search phrase should be passed to match the same as {@link CollatorStringMatcher}.
+ */
+public class LevenshteinAutomaton implements StringMatcher {
+
+	private static final int MIN_LENGTH_ONE_EDIT = 4;
+	private static final int MIN_LENGTH_TWO_EDITS = 8;
+
+	private final char[] query;
+	private final int maxEdits;
+	private final CollatorFoldTable table;
+
+	public LevenshteinAutomaton(String query, int maxEdits) {
+		this(query, maxEdits, OsmAndCollator.primaryCollator());
+	}
+
+	public LevenshteinAutomaton(String query, int maxEdits, Collator collator) {
+		this.table = OsmAndCollator.getFoldTable(collator);
+		this.maxEdits = maxEdits;
+		this.query = new char[query.length()];
+		for (int i = 0; i < query.length(); i++) {
+			this.query[i] = key(query.charAt(i));
+		}
+	}
+
+	/**
+	 * @return number of typos allowed for the query of such length
+	 */
+	public static int getMaxEdits(String query) {
+		if (query.length() >= MIN_LENGTH_TWO_EDITS) {
+			return 2;
+		} else if (query.length() >= MIN_LENGTH_ONE_EDIT) {
+			return 1;
+		}
+		return 0;
+	}
+
+	public int getMaxEdits() {
+		return maxEdits;
+	}
+
+	private char key(char c) {
+		char k = table == null ? CollatorFoldTable.UNKNOWN : table.fold(c);
+		return k == CollatorFoldTable.UNKNOWN ? Character.toLowerCase(c) : k;
+	}
+
+	public int[] start() {
+		int[] state = new int[query.length + 1];
+		for (int i = 0; i < state.length; i++) {
+			state[i] = i;
+		}
+		return state;
+	}
+
+	public int[] step(int[] state, char c) {
+		char k = key(c);
+		int[] next = new int[state.length];
+		next[0] = state[0] + 1;
+		for (int i = 1; i < state.length; i++) {
+			int cost = query[i - 1] == k ? 0 : 1;
+			next[i] = Math.min(Math.min(next[i - 1] + 1, state[i] + 1), state[i - 1] + cost);
+		}
+		return next;
+	}
+
+	/**
+	 * @return true if consumed text starts with query
+	 */
+	public boolean isMatch(int[] state) {
+		return state[state.length - 1] <= maxEdits;
+	}
+
+	/**
+	 * @return true if consumed text could be continued to match query
+	 */
+	public boolean canMatch(int[] state) {
+		for (int d : state) {
+			if (d <= maxEdits) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public boolean matchesPrefix(String text, int offset) {
+		int[] state = start();
+		if (isMatch(state)) {
+			return true;
+		}
+		for (int i = offset; i < text.length(); i++) {
+			state = step(state, text.charAt(i));
+			if (isMatch(state)) {
+				return true;
+			}
+			if (!canMatch(state)) {
+				return false;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Same as {@link CollatorStringMatcher.StringMatcherMode#CHECK_STARTS_FROM_SPACE} but tolerant to typos
+	 */
+	@Override
+	public boolean matches(String name) {
+		if (name == null) {
+			return false;
+		}
+		for (int i = 0; i < name.length(); i++) {
+			if ((i == 0 || !Character.isLetterOrDigit(name.charAt(i - 1))) && Character.isLetterOrDigit(name.charAt(i))
+					&& matchesPrefix(name, i)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
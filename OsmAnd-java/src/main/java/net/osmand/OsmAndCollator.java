@@ -15,28 +15,55 @@ public class OsmAndCollator {
 	}
 	
 	public static net.osmand.Collator wrapCollator(final java.text.Collator instance) {
-		return new net.osmand.Collator() {
-			
-			@Override
-			public int compare(Object o1, Object o2) {
-				return instance.compare(o1, o2);
-			}
-			
-			@Override
-			public boolean equals(Object obj) {
-				return instance.equals(obj);
-			}
+		return new JavaCollator(instance);
+	}
 
-			@Override
-			public boolean equals(String source, String target) {
-				return instance.equals(source, target);
-			}
+	static CollatorFoldTable getFoldTable(net.osmand.Collator collator) {
+		return collator instanceof JavaCollator ? ((JavaCollator) collator).getFoldTable() : null;
+	}
+
+	private static class JavaCollator implements net.osmand.Collator {
+
+		private final java.text.Collator instance;
+		private CollatorFoldTable foldTable;
+		private boolean foldTableInitialized;
+
+		JavaCollator(java.text.Collator instance) {
+			this.instance = instance;
+		}
 
-			@Override
-			public int compare(String source, String target) {
-				return instance.compare(source, target);
+		CollatorFoldTable getFoldTable() {
+			if (!foldTableInitialized) {
+				foldTable = CollatorFoldTable.getTable(instance);
+				foldTableInitialized = true;
 			}
-		};
+			return foldTable;
+		}
+
+		@Override
+		public int compare(Object o1, Object o2) {
+			return instance.compare(o1, o2);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return instance.equals(obj);
+		}
+
+		@Override
+		public int hashCode() {
+			return instance.hashCode();
+		}
+
+		@Override
+		public boolean equals(String source, String target) {
+			return instance.equals(source, target);
+		}
+
+		@Override
+		public int compare(String source, String target) {
+			return instance.compare(source, target);
+		}
 	}
-	
+
 }
@@ -0,0 +1,187 @@
+package net.osmand.binary;
+
+import net.osmand.binary.GeocodingUtilities.GeocodingResult;
+import net.osmand.router.RoutingContext;
+import net.osmand.util.MapUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reverse geocoding of many points (for example gps fixes of tracks). Points are sorted along Hilbert curve
+ * and split into partitions of close points, every worker thread processes partitions with its own
+ * routing context and {@link GeocodingUtilities} with streets cache, so routing tiles and address data loaded
+ * for one point are reused by the next ones. Results are published as soon as point is processed.
+ */
+public class BatchReverseGeocoding {
+
+	public static final int DEFAULT_PARTITION_SIZE = 256;
+
+	public interface RoutingContextFactory {
+		/**
+		 * Creates context for one worker, its readers are used only by that worker
+		 */
+		RoutingContext createRoutingContext() throws IOException;
+
+		/**
+		 * Called when worker is finished with context created by {@link #createRoutingContext()},
+		 * should close its readers
+		 */
+		void releaseRoutingContext(RoutingContext ctx) throws IOException;
+	}
+
+	public interface BatchGeocodingListener {
+		/**
+		 * Called for every point in order of processing, calls are synchronized.
+		 * @param index index of point in input arrays
+		 * @param results sorted results, empty if nothing is found
+		 */
+		void onResult(int index, double lat, double lon, List<GeocodingResult> results);
+
+		boolean isCancelled();
+	}
+
+	private final RoutingContextFactory factory;
+	private int threads = 1;
+	private int partitionSize = DEFAULT_PARTITION_SIZE;
+	private boolean allowEmptyNames;
+
+	public BatchReverseGeocoding(RoutingContextFactory factory) {
+		this.factory = factory;
+	}
+
+	public void setThreads(int threads) {
+		this.threads = Math.max(1, threads);
+	}
+
+	public void setPartitionSize(int partitionSize) {
+		this.partitionSize = Math.max(1, partitionSize);
+	}
+
+	public void setAllowEmptyNames(boolean allowEmptyNames) {
+		this.allowEmptyNames = allowEmptyNames;
+	}
+
+	/**
+	 * @return indexes of points sorted along Hilbert curve
+	 */
+	static int[] sortAlongCurve(double[] lats, double[] lons) {
+		long[] keys = new long[lats.length];
+		for (int i = 0; i < keys.length; i++) {
+			// 16 bits per coordinate
+			int x = MapUtils.get31TileNumberX(lons[i]) >> 15;
+			int y = MapUtils.get31TileNumberY(lats[i]) >> 15;
+			// sign bit is flipped to sort unsigned 32 bits curve index
+			keys[i] = ((PackedMapTreeIndex.hilbertIndex(x, y) << 32) | i) ^ Long.MIN_VALUE;
+		}
+		Arrays.sort(keys);
+		int[] order = new int[keys.length];
+		for (int i = 0; i < keys.length; i++) {
+			order[i] = (int) keys[i];
+		}
+		return order;
+	}
+
+	public void reverseGeocoding(final double[] lats, final double[] lons, final BatchGeocodingListener listener)
+			throws IOException {
+		if (lats.length != lons.length) {
+			throw new IllegalArgumentException("Different number of latitudes and longitudes");
+		}
+		final int[] order = sortAlongCurve(lats, lons);
+		final AtomicInteger nextPartition = new AtomicInteger();
+		if (threads == 1) {
+			processPartitions(order, lats, lons, nextPartition, listener);
+			return;
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<?>> futures = new ArrayList<Future<?>>();
+			for (int i = 0; i < threads; i++) {
+				futures.add(executor.submit(new Callable<Void>() {
+					@Override
+					public Void call() throws IOException {
+						processPartitions(order, lats, lons, nextPartition, listener);
+						return null;
+					}
+				}));
+			}
+			for (Future<?> f : futures) {
+				f.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IOException(e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private void processPartitions(int[] order, double[] lats, double[] lons, AtomicInteger nextPartition,
+			BatchGeocodingListener listener) throws IOException {
+		Worker worker = null;
+		try {
+			while (!listener.isCancelled()) {
+				int start = nextPartition.getAndIncrement() * partitionSize;
+				if (start >= order.length || start < 0) {
+					break;
+				}
+				if (worker == null) {
+					worker = createWorker();
+				}
+				int end = Math.min(order.length, start + partitionSize);
+				for (int i = start; i < end && !listener.isCancelled(); i++) {
+					int ind = order[i];
+					List<GeocodingResult> results = geocode(worker, lats[ind], lons[ind]);
+					synchronized (listener) {
+						listener.onResult(ind, lats[ind], lons[ind], results);
+					}
+				}
+			}
+		} finally {
+			if (worker != null) {
+				releaseWorker(worker);
+			}
+		}
+	}
+
+	protected Worker createWorker() throws IOException {
+		return new Worker(factory.createRoutingContext());
+	}
+
+	protected void releaseWorker(Worker worker) throws IOException {
+		worker.utilities.clearStreetsCache();
+		factory.releaseRoutingContext(worker.ctx);
+	}
+
+	protected List<GeocodingResult> geocode(Worker worker, double lat, double lon) throws IOException {
+		List<GeocodingResult> res = worker.utilities.reverseGeocodingSearch(worker.ctx, lat, lon, allowEmptyNames);
+		if (res.isEmpty()) {
+			return res;
+		}
+		return worker.utilities.sortGeocodingResults(worker.readers, res);
+	}
+
+	protected static class Worker {
+		final RoutingContext ctx;
+		final List<BinaryMapIndexReader> readers;
+		final GeocodingUtilities utilities = new GeocodingUtilities(true);
+
+		Worker(RoutingContext ctx) {
+			this.ctx = ctx;
+			this.readers = ctx == null ? new ArrayList<BinaryMapIndexReader>() : Arrays.asList(ctx.getMaps());
+		}
+	}
+}
@@ -13,6 +13,7 @@ import java.util.LinkedList;
 import java.util.List;
 
 import net.osmand.CollatorStringMatcher;
+import net.osmand.LevenshteinAutomaton;
 import net.osmand.PlatformUtil;
 import net.osmand.StringMatcher;
 import net.osmand.binary.BinaryMapIndexReader.SearchRequest;
@@ -602,7 +603,10 @@ public class BinaryMapAddressReaderAdapter {
 
 	public void searchAddressDataByName(AddressRegion reg, SearchRequest<MapObject> req, List<Integer> typeFilter) throws IOException {
 		TIntArrayList loffsets = new TIntArrayList();
-		CollatorStringMatcher stringMatcher = new CollatorStringMatcher(req.nameQuery, req.matcherMode);
+		CollatorStringMatcher collatorMatcher = new CollatorStringMatcher(req.nameQuery, req.matcherMode);
+		LevenshteinAutomaton fuzzyMatcher = req.isFuzzyNameSearch() ? new LevenshteinAutomaton(req.nameQuery, req.nameMaxEdits,
+				collatorMatcher.getCollator()) : null;
+		StringMatcher stringMatcher = fuzzyMatcher != null ? fuzzyMatcher : collatorMatcher;
 		String postcode = Postcode.normalize(req.nameQuery, map.getCountryName());
 		final CityMatcher postcodeMatcher = new DefaultCityMatcher(new CollatorStringMatcher(postcode, req.matcherMode));
 		final CityMatcher cityMatcher = new DefaultCityMatcher(stringMatcher);
@@ -630,7 +634,11 @@ public class BinaryMapAddressReaderAdapter {
 				// here offsets are sorted by distance
 				TIntArrayList charsList = new TIntArrayList();
 				charsList.add(0);
-				map.readIndexedStringTable(stringMatcher.getCollator(), Collections.singletonList(req.nameQuery), "", Collections.singletonList(loffsets), charsList);
+				if (fuzzyMatcher != null) {
+					map.searchIndexedStringTableFuzzy(Collections.singletonList(fuzzyMatcher), Collections.singletonList(loffsets), req.fuzzyCandidatesLimit);
+				} else {
+					map.searchIndexedStringTable(collatorMatcher.getCollator(), Collections.singletonList(req.nameQuery), Collections.singletonList(loffsets), charsList);
+				}
 				codedIS.popLimit(oldLimit);
 				break;
 			case OsmAndAddressNameIndexData.ATOM_FIELD_NUMBER:
@@ -24,8 +24,10 @@ public class BinaryMapDataObject {
 	protected int labelY;
 	private static final int SHIFT_ID = 7;
 	
+	// decoded names, null while names are kept in block string table (unresolvedNames), use getObjectNames()
 	protected TIntObjectHashMap<String> objectNames = null;
 	protected TIntArrayList namesOrder = null;
+	private volatile BinaryStringTable.Names unresolvedNames = null;
 	protected long id = 0;
 	
 	protected MapIndex mapIndex = null;
@@ -51,7 +53,64 @@ public class BinaryMapDataObject {
 	}
 	
 	
+	void setObjectNames(TIntObjectHashMap<String> objectNames) {
+		synchronized (this) {
+			this.unresolvedNames = null;
+			this.objectNames = objectNames;
+		}
+	}
+
+	void setStringTable(BinaryStringTable stringTable) {
+		if (objectNames != null) {
+			unresolvedNames = new BinaryStringTable.Names(stringTable, objectNames);
+			objectNames = null;
+		}
+	}
+
+	private void resolveNames() {
+		if (unresolvedNames != null) {
+			synchronized (this) {
+				BinaryStringTable.Names names = unresolvedNames;
+				if (names != null) {
+					objectNames = names.resolve();
+					unresolvedNames = null;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Name filters compare UTF-8 bytes without decoding names from string table
+	 */
+	public boolean nameEquals(int type, byte[] utf8) {
+		BinaryStringTable.Names names = unresolvedNames;
+		if (names != null) {
+			return names.equals(type, utf8);
+		}
+		String name = getNameByType(type);
+		return name != null && name.equals(BinaryStringTable.decode(utf8));
+	}
+
+	public boolean nameStartsWith(int type, byte[] utf8Prefix) {
+		BinaryStringTable.Names names = unresolvedNames;
+		if (names != null) {
+			return names.startsWith(type, utf8Prefix);
+		}
+		String name = getNameByType(type);
+		return name != null && name.startsWith(BinaryStringTable.decode(utf8Prefix));
+	}
+
+	public boolean nameContains(int type, byte[] utf8Part) {
+		BinaryStringTable.Names names = unresolvedNames;
+		if (names != null) {
+			return names.contains(type, utf8Part);
+		}
+		String name = getNameByType(type);
+		return name != null && name.contains(BinaryStringTable.decode(utf8Part));
+	}
+
 	public String getName() {
+		resolveNames();
 		if(objectNames == null){
 			return "";
 		}
@@ -63,6 +122,7 @@ public class BinaryMapDataObject {
 	}
 
 	public TIntObjectHashMap<String> getObjectNames() {
+		resolveNames();
 		return objectNames;
 	}
 	
@@ -70,6 +130,7 @@ public class BinaryMapDataObject {
 		if (namesOrder == null) {
 			return null;
 		}
+		resolveNames();
 		LinkedHashMap<Integer, String> lm = new LinkedHashMap<Integer, String> ();
 		for (int i = 0; i < namesOrder.size(); i++) {
 			int nm = namesOrder.get(i);
@@ -79,6 +140,7 @@ public class BinaryMapDataObject {
 	}
 	
 	public void putObjectName(int type, String name){
+		resolveNames();
 		if(objectNames == null){
 			objectNames = new TIntObjectHashMap<String>();
 			namesOrder = new TIntArrayList();
@@ -118,6 +180,7 @@ public class BinaryMapDataObject {
 	}
 	
 	public String getNameByType(int type) {
+		resolveNames();
 		if(type != -1 && objectNames != null) {
 			return objectNames.get(type);
 		}
@@ -272,15 +335,24 @@ public class BinaryMapDataObject {
 			}
 			if (equals) {
 				// here we know that name indexes are equal & it is enough to check the value sets
-				if (objectNames == null || thatObj.objectNames == null) {
-					equals = objectNames == thatObj.objectNames;
-				} else if (objectNames.size() != thatObj.objectNames.size()) {
+				BinaryStringTable.Names names = unresolvedNames;
+				BinaryStringTable.Names thatNames = thatObj.unresolvedNames;
+				int size = getNamesCount(names);
+				int thatSize = thatObj.getNamesCount(thatNames);
+				if (size == -1 || thatSize == -1) {
+					equals = size == thatSize;
+				} else if (size != thatSize) {
 					equals = false;
 				} else {
 					for (int i = 0; i < namesOrder.size() && equals; i++) {
-						String o = objectNames.get(namesOrder.get(i));
-						String s = thatObj.objectNames.get(thatObj.namesOrder.get(i));
-						equals = Algorithms.objectEquals(o, s);
+						if (names != null && thatNames != null) {
+							// compare UTF-8 bytes without decoding
+							equals = names.equals(namesOrder.get(i), thatNames, thatObj.namesOrder.get(i));
+						} else {
+							String o = getNameByType(namesOrder.get(i));
+							String s = thatObj.getNameByType(thatObj.namesOrder.get(i));
+							equals = Algorithms.objectEquals(o, s);
+						}
 					}
 				}
 			}
@@ -293,6 +365,15 @@ public class BinaryMapDataObject {
 	}
 
 
+	// count of names or -1 if object has no names
+	private int getNamesCount(BinaryStringTable.Names unresolved) {
+		if (unresolved != null) {
+			return unresolved.size();
+		}
+		TIntObjectHashMap<String> names = objectNames;
+		return names == null ? -1 : names.size();
+	}
+
 	private static boolean compareCoordinates(int[] coordinates, int[] coordinates2, int precision) {
 		if(precision == 0) {
 			return Arrays.equals(coordinates, coordinates2);
@@ -402,6 +483,7 @@ public class BinaryMapDataObject {
 		if (mapIndex == null) {
 			return "";
 		}
+		resolveNames();
 		TIntObjectIterator<String> it = objectNames.iterator();
 		while (it.hasNext()) {
 			it.advance();
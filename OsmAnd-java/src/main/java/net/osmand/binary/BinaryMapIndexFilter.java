@@ -5,7 +5,6 @@ import gnu.trove.set.hash.TIntHashSet;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
@@ -26,7 +25,7 @@ public class BinaryMapIndexFilter {
 	private final BinaryMapIndexReader reader;
 
 	public BinaryMapIndexFilter(File file) throws IOException{
-		reader = new BinaryMapIndexReader(new RandomAccessFile(file.getPath(), "r"), file);
+		reader = new BinaryMapIndexReader(BlockCompressedRandomAccessFile.open(file), file);
 	}
 	
 	
@@ -9,6 +9,7 @@ import com.google.protobuf.WireFormat;
 import net.osmand.Collator;
 import net.osmand.CollatorStringMatcher;
 import net.osmand.CollatorStringMatcher.StringMatcherMode;
+import net.osmand.LevenshteinAutomaton;
 import net.osmand.Location;
 import net.osmand.OsmAndCollator;
 import net.osmand.PlatformUtil;
@@ -79,6 +80,7 @@ import gnu.trove.map.TIntObjectMap;
 import gnu.trove.map.hash.TIntObjectHashMap;
 import gnu.trove.map.hash.TLongObjectHashMap;
 import gnu.trove.set.hash.TIntHashSet;
+import gnu.trove.set.hash.TLongHashSet;
 
 public class BinaryMapIndexReader {
 
@@ -116,6 +118,9 @@ public class BinaryMapIndexReader {
 	TLongObjectHashMap<IncompleteTransportRoute> incompleteTransportRoutes = null;
 	
 	protected CodedInputStream codedIS;
+	private BinaryMapReaderIOProfiler ioProfiler;
+	private NameIndexCache nameIndexCache;
+	private PoiTileCache poiTileCache;
 
 	private final BinaryMapTransportReaderAdapter transportAdapter;
 	private final BinaryMapPoiReaderAdapter poiAdapter;
@@ -169,6 +174,8 @@ public class BinaryMapIndexReader {
 		routingIndexes = new ArrayList<RouteRegion>(referenceToSameFile.routingIndexes);
 		indexes = new ArrayList<BinaryIndexPart>(referenceToSameFile.indexes);
 		basemap = referenceToSameFile.basemap;
+		nameIndexCache = referenceToSameFile.nameIndexCache;
+		poiTileCache = referenceToSameFile.poiTileCache;
 		calculateCenterPointForRegions();
 	}
 
@@ -299,6 +306,48 @@ public class BinaryMapIndexReader {
 		return indexes;
 	}
 
+	/**
+	 * Enables (or disables with null) profiling of file access, reader should be initialized
+	 */
+	public void setIOProfiler(BinaryMapReaderIOProfiler ioProfiler) {
+		this.ioProfiler = ioProfiler;
+		codedIS.setReadListener(ioProfiler);
+	}
+
+	public BinaryMapReaderIOProfiler getIOProfiler() {
+		return ioProfiler;
+	}
+
+	/**
+	 * Keep poi and address name indexes in memory after first search by name,
+	 * so following searches don't read them from file. Cache could be shared by all readers, null to disable.
+	 */
+	public void setNameIndexCache(NameIndexCache nameIndexCache) {
+		this.nameIndexCache = nameIndexCache;
+	}
+
+	public NameIndexCache getNameIndexCache() {
+		return nameIndexCache;
+	}
+
+	/**
+	 * Cache of decoded amenities used by search of poi in bbox, so search with growing radius reads
+	 * only new tiles. Cache could be shared by all readers, null to disable.
+	 */
+	public void setPoiTileCache(PoiTileCache poiTileCache) {
+		this.poiTileCache = poiTileCache;
+	}
+
+	public PoiTileCache getPoiTileCache() {
+		return poiTileCache;
+	}
+
+	private void beginProfiledRequest(String name) {
+		if (ioProfiler != null) {
+			ioProfiler.beginRequest(name);
+		}
+	}
+
 	public List<MapIndex> getMapIndexes() {
 		return mapIndexes;
 	}
@@ -394,6 +443,13 @@ public class BinaryMapIndexReader {
 		return raf;
 	}
 
+	/**
+	 * Block compressed files are readable only by java readers, native library reads file by path.
+	 */
+	public boolean isBlockCompressed() {
+		return raf instanceof BlockCompressedRandomAccessFile;
+	}
+
 	public File getFile() {
 		return file;
 	}
@@ -569,6 +625,7 @@ public class BinaryMapIndexReader {
 				|| index.bottom < req.top) {
 			return req.getSearchResults();
 		}
+		beginProfiledRequest("searchTransportIndex");
 		codedIS.seek(index.stopsFileOffset);
 		int oldLimit = codedIS.pushLimit(index.stopsFileLength);
 		int offset = req.searchResults.size();
@@ -871,6 +928,7 @@ public class BinaryMapIndexReader {
 	}
 	
 	public List<BinaryMapDataObject> searchMapIndex(SearchRequest<BinaryMapDataObject> req, MapIndex filterMapIndex) throws IOException {
+		beginProfiledRequest("searchMapIndex");
 		req.numberOfVisitedObjects = 0;
 		req.numberOfAcceptedObjects = 0;
 		req.numberOfAcceptedSubtrees = 0;
@@ -893,25 +951,14 @@ public class BinaryMapIndexReader {
 						continue;
 					}
 
-
-
-					// lazy initializing trees
-					if (index.trees == null) {
-						index.trees = new ArrayList<MapTree>();
-						codedIS.seek(index.filePointer);
-						int oldLimit = codedIS.pushLimit(index.length);
-						readMapLevel(index);
-						codedIS.popLimit(oldLimit);
+					if (index.packedTrees == null && index.packedTreesData != null) {
+						index.packedTrees = PackedMapTreeIndex.parseFrom(index.packedTreesData);
+						index.packedTreesData = null;
 					}
-
-					for (MapTree tree : index.trees) {
-						if (tree.right < req.left || tree.left > req.right || tree.top > req.bottom || tree.bottom < req.top) {
-							continue;
-						}
-						codedIS.seek(tree.filePointer);
-						int oldLimit = codedIS.pushLimit(tree.length);
-						searchMapTreeBounds(tree, index, req, foundSubtrees);
-						codedIS.popLimit(oldLimit);
+					if (index.packedTrees != null) {
+						searchPackedMapTree(index, req, foundSubtrees);
+					} else {
+						searchMapTrees(index, req, foundSubtrees);
 					}
 
 					Collections.sort(foundSubtrees, new Comparator<MapTree>() {
@@ -941,7 +988,122 @@ public class BinaryMapIndexReader {
 		return req.getSearchResults();
 	}
 
-	
+	private void searchMapTrees(MapRoot index, SearchRequest<BinaryMapDataObject> req, List<MapTree> foundSubtrees) throws IOException {
+		// lazy initializing trees
+		if (index.trees == null) {
+			index.trees = new ArrayList<MapTree>();
+			codedIS.seek(index.filePointer);
+			int oldLimit = codedIS.pushLimit(index.length);
+			readMapLevel(index);
+			codedIS.popLimit(oldLimit);
+		}
+		for (MapTree tree : index.trees) {
+			if (tree.right < req.left || tree.left > req.right || tree.top > req.bottom || tree.bottom < req.top) {
+				continue;
+			}
+			codedIS.seek(tree.filePointer);
+			int oldLimit = codedIS.pushLimit(tree.length);
+			searchMapTreeBounds(tree, index, req, foundSubtrees);
+			codedIS.popLimit(oldLimit);
+		}
+	}
+
+	private void searchPackedMapTree(MapRoot index, SearchRequest<BinaryMapDataObject> req, List<MapTree> foundSubtrees) {
+		TIntArrayList found = index.packedTrees.search(req.left, req.top, req.right, req.bottom, new TIntArrayList());
+		for (int i = 0; i < found.size(); i++) {
+			int ind = found.getQuick(i);
+			req.numberOfAcceptedSubtrees++;
+			Boolean ocean = index.packedTrees.getOcean(ind);
+			if (ocean != null) {
+				req.publishOceanTile(ocean);
+			}
+			long dataBlock = index.packedTrees.getDataBlock(ind);
+			if (dataBlock != 0) {
+				MapTree tree = new MapTree();
+				tree.left = index.packedTrees.getLeft(ind);
+				tree.right = index.packedTrees.getRight(ind);
+				tree.top = index.packedTrees.getTop(ind);
+				tree.bottom = index.packedTrees.getBottom(ind);
+				tree.mapDataBlock = dataBlock;
+				tree.ocean = ocean;
+				foundSubtrees.add(tree);
+			}
+		}
+	}
+
+	/**
+	 * Walks the whole box tree of map level once and flattens boxes with data into {@link PackedMapTreeIndex}
+	 */
+	PackedMapTreeIndex buildPackedMapTree(MapRoot index) throws IOException {
+		if (index.packedTrees != null) {
+			return index.packedTrees;
+		}
+		if (index.trees == null) {
+			index.trees = new ArrayList<MapTree>();
+			codedIS.seek(index.filePointer);
+			int oldLimit = codedIS.pushLimit(index.length);
+			readMapLevel(index);
+			codedIS.popLimit(oldLimit);
+		}
+		PackedMapTreeIndex.Builder builder = new PackedMapTreeIndex.Builder();
+		for (MapTree tree : index.trees) {
+			codedIS.seek(tree.filePointer);
+			int oldLimit = codedIS.pushLimit(tree.length);
+			readPackedMapTreeBounds(tree, index, builder);
+			codedIS.popLimit(oldLimit);
+		}
+		index.packedTrees = builder.build();
+		return index.packedTrees;
+	}
+
+	private void readPackedMapTreeBounds(MapTree current, MapTree parent, PackedMapTreeIndex.Builder builder) throws IOException {
+		boolean hasOcean = false;
+		long mapDataBlock = 0;
+		while (true) {
+			int t = codedIS.readTag();
+			int tag = WireFormat.getTagFieldNumber(t);
+			switch (tag) {
+			case 0:
+				// ocean flag is inherited from parent box as in searchMapTreeBounds
+				if (mapDataBlock != 0 || hasOcean) {
+					builder.addBox(current.left, current.right, current.top, current.bottom, mapDataBlock, current.ocean);
+				}
+				return;
+			case MapDataBox.BOTTOM_FIELD_NUMBER :
+				current.bottom = codedIS.readSInt32() + parent.bottom;
+				break;
+			case MapDataBox.LEFT_FIELD_NUMBER :
+				current.left = codedIS.readSInt32() + parent.left;
+				break;
+			case MapDataBox.RIGHT_FIELD_NUMBER :
+				current.right = codedIS.readSInt32() + parent.right;
+				break;
+			case MapDataBox.TOP_FIELD_NUMBER :
+				current.top = codedIS.readSInt32() + parent.top;
+				break;
+			case MapDataBox.SHIFTTOMAPDATA_FIELD_NUMBER :
+				mapDataBlock = readInt() + current.filePointer;
+				break;
+			case MapDataBox.OCEAN_FIELD_NUMBER :
+				current.ocean = codedIS.readBool();
+				hasOcean = true;
+				break;
+			case MapDataBox.BOXES_FIELD_NUMBER :
+				MapTree child = new MapTree();
+				child.length = readInt();
+				child.filePointer = codedIS.getTotalBytesRead();
+				int oldLimit = codedIS.pushLimit(child.length);
+				child.ocean = current.ocean;
+				readPackedMapTreeBounds(child, current, builder);
+				codedIS.popLimit(oldLimit);
+				codedIS.seek(child.filePointer + child.length);
+				break;
+			default:
+				skipUnknownField(t);
+				break;
+			}
+		}
+	}
 
 	protected void readMapDataBlocks(SearchRequest<BinaryMapDataObject> req, MapTree tree, MapIndex root) throws IOException {
 		List<BinaryMapDataObject> tempResults = null;
@@ -994,15 +1156,10 @@ public class BinaryMapIndexReader {
 					req.stat.lastBlockStringTableSize += length;
 				}
 				if (tempResults != null) {
-					List<String> stringTable = readStringTable();
+					// names are decoded lazily on first access
+					BinaryStringTable stringTable = BinaryStringTable.read(codedIS);
 					for (int i = 0; i < tempResults.size(); i++) {
-						BinaryMapDataObject rs = tempResults.get(i);
-						if (rs.objectNames != null) {
-							int[] keys = rs.objectNames.keys();
-							for (int j = 0; j < keys.length; j++) {
-								rs.objectNames.put(keys[j], stringTable.get(rs.objectNames.get(keys[j]).charAt(0)));
-							}
-						}
+						tempResults.get(i).setStringTable(stringTable);
 					}
 				} else {
 					codedIS.skipRawBytes(codedIS.getBytesUntilLimit());
@@ -1273,7 +1430,7 @@ public class BinaryMapIndexReader {
 		BinaryMapDataObject dataObject = new BinaryMapDataObject();
 		dataObject.area = area;
 		dataObject.coordinates = req.cacheCoordinates.toArray();
-		dataObject.objectNames = stringNames;
+		dataObject.setObjectNames(stringNames);
 		dataObject.namesOrder = stringOrder;
 		if (innercoordinates == null) {
 			dataObject.polygonInnerCoordinates = new int[0][0];
@@ -1299,6 +1456,7 @@ public class BinaryMapIndexReader {
 	}
 
 	public List<MapObject> searchAddressDataByName(SearchRequest<MapObject> req, List<Integer> typeFilter) throws IOException {
+		beginProfiledRequest("searchAddressDataByName");
 		for (AddressRegion reg : addressIndexes) {
 			if (reg.indexNameOffset != -1) {
 				codedIS.seek(reg.indexNameOffset);
@@ -1329,6 +1487,7 @@ public class BinaryMapIndexReader {
 		if (req.nameQuery == null || req.nameQuery.length() == 0) {
 			throw new IllegalArgumentException();
 		}
+		beginProfiledRequest("searchPoiByName");
 		for (PoiRegion poiIndex : poiIndexes) {
 			poiAdapter.initCategories(poiIndex);
 			codedIS.seek(poiIndex.filePointer);
@@ -1388,16 +1547,13 @@ public class BinaryMapIndexReader {
 	}
 
 	public List<Amenity> searchPoi(SearchRequest<Amenity> req) throws IOException {
+		beginProfiledRequest("searchPoi");
 		req.numberOfVisitedObjects = 0;
 		req.numberOfAcceptedObjects = 0;
 		req.numberOfAcceptedSubtrees = 0;
 		req.numberOfReadSubtrees = 0;
 		for (PoiRegion poiIndex : poiIndexes) {
-			poiAdapter.initCategories(poiIndex);
-			codedIS.seek(poiIndex.filePointer);
-			int old = codedIS.pushLimit(poiIndex.length);
-			poiAdapter.searchPoiIndex(req.left, req.right, req.top, req.bottom, req, poiIndex);
-			codedIS.popLimit(old);
+			searchPoiIndex(poiIndex, req);
 		}
 		log.info("Read " + req.numberOfReadSubtrees + " subtrees. Go through " + req.numberOfAcceptedSubtrees + " subtrees.");   //$NON-NLS-1$//$NON-NLS-2$//$NON-NLS-3$
 		log.info("Search poi is done. Visit " + req.numberOfVisitedObjects + " objects. Read " + req.numberOfAcceptedObjects + " objects."); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
@@ -1406,16 +1562,13 @@ public class BinaryMapIndexReader {
 	}
 
 	public List<Amenity> searchPoi(PoiRegion poiIndex, SearchRequest<Amenity> req) throws IOException {
+		beginProfiledRequest("searchPoi");
 		req.numberOfVisitedObjects = 0;
 		req.numberOfAcceptedObjects = 0;
 		req.numberOfAcceptedSubtrees = 0;
 		req.numberOfReadSubtrees = 0;
 
-		poiAdapter.initCategories(poiIndex);
-		codedIS.seek(poiIndex.filePointer);
-		int old = codedIS.pushLimit(poiIndex.length);
-		poiAdapter.searchPoiIndex(req.left, req.right, req.top, req.bottom, req, poiIndex);
-		codedIS.popLimit(old);
+		searchPoiIndex(poiIndex, req);
 
 		log.info("Search poi is done. Visit " + req.numberOfVisitedObjects + " objects. Read " + req.numberOfAcceptedObjects + " objects."); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 		log.info("Read " + req.numberOfReadSubtrees + " subtrees. Go through " + req.numberOfAcceptedSubtrees + " subtrees.");   //$NON-NLS-1$//$NON-NLS-2$//$NON-NLS-3$
@@ -1423,6 +1576,19 @@ public class BinaryMapIndexReader {
 		return req.getSearchResults();
 	}
 
+	private void searchPoiIndex(PoiRegion poiIndex, SearchRequest<Amenity> req) throws IOException {
+		poiAdapter.initCategories(poiIndex);
+		codedIS.seek(poiIndex.filePointer);
+		int old = codedIS.pushLimit(poiIndex.length);
+		PoiTileCache cache = poiTileCache;
+		if (cache != null && req.isPoiTileCacheable()) {
+			poiAdapter.searchPoiIndexCached(req, poiIndex, cache);
+		} else {
+			poiAdapter.searchPoiIndex(req.left, req.right, req.top, req.bottom, req, poiIndex);
+		}
+		codedIS.popLimit(old);
+	}
+
 	protected List<String> readStringTable() throws IOException {
 		List<String> list = new ArrayList<String>();
 		while (true) {
@@ -1678,6 +1844,7 @@ public class BinaryMapIndexReader {
 
 	public static class SearchRequest<T> {
 		public final static int ZOOM_TO_SEARCH_POI = 16;
+		public final static int DEFAULT_FUZZY_CANDIDATES_LIMIT = 256;
 		private List<T> searchResults = new ArrayList<T>();
 		private boolean land = false;
 		private boolean ocean = false;
@@ -1705,9 +1872,15 @@ public class BinaryMapIndexReader {
 
 		String nameQuery = null;
 		StringMatcherMode matcherMode = StringMatcherMode.CHECK_STARTS_FROM_SPACE;
+		// typo tolerant search by name, 0 for exact search
+		int nameMaxEdits = 0;
+		// limits number of name index entries read by typo tolerant search
+		int fuzzyCandidatesLimit = DEFAULT_FUZZY_CANDIDATES_LIMIT;
 		SearchFilter searchFilter = null;
 
 		SearchPoiTypeFilter poiTypeFilter = null;
+		// tiles of PoiTileCache.TILE_ZOOM which are not read (already cached)
+		TLongHashSet cachedPoiTiles = null;
 
 		// cache information
 		TIntArrayList cacheCoordinates = new TIntArrayList();
@@ -1782,6 +1955,14 @@ public class BinaryMapIndexReader {
 			this.interrupted = interrupted;
 		}
 
+		/**
+		 * Poi could be cached by tiles if all of them are read (no thinning by zoom), not search on the path
+		 * and not by name
+		 */
+		boolean isPoiTileCacheable() {
+			return tiles == null && nameQuery == null && (zoom == -1 || zoom >= ZOOM_TO_SEARCH_POI);
+		}
+
 		public boolean limitExceeded() {
 			return limit != -1 && searchResults.size() > limit;
 		}
@@ -1790,6 +1971,18 @@ public class BinaryMapIndexReader {
 			this.limit = limit;
 		}
 
+		public void setNameMaxEdits(int nameMaxEdits) {
+			this.nameMaxEdits = nameMaxEdits;
+		}
+
+		public void setFuzzyCandidatesLimit(int fuzzyCandidatesLimit) {
+			this.fuzzyCandidatesLimit = fuzzyCandidatesLimit;
+		}
+
+		public boolean isFuzzyNameSearch() {
+			return nameMaxEdits > 0;
+		}
+
 		public boolean isCancelled() {
 			if (this.interrupted) {
 				return interrupted;
@@ -2020,23 +2213,24 @@ public class BinaryMapIndexReader {
 							types.toArray(), additionalTypes.isEmpty() ? null : additionalTypes.toArray(), 
 									o.labelX, o.labelY);
 			if (o.namesOrder != null) {
-				bm.objectNames = new TIntObjectHashMap<>();
+				TIntObjectHashMap<String> objectNames = new TIntObjectHashMap<>();
 				bm.namesOrder = new TIntArrayList();
 				for (int i = 0; i < o.namesOrder.size(); i++) {
 					int nameType = o.namesOrder.get(i);
-					String name = o.objectNames.get(nameType);
+					String name = o.getNameByType(nameType);
 					TagValuePair tp = o.mapIndex.decodeType(nameType);
 					Integer r = getRule(tp);
 					if(r != null) {
 						bm.namesOrder.add(r);
-						bm.objectNames.put(r, name);
+						objectNames.put(r, name);
 					} else {
 						int nid = decodingRules.size() + 1;
 						initMapEncodingRule(tp.additionalAttribute, nid, tp.tag, tp.value);
 						additionalTypes.add(nid);
-						bm.objectNames.put(nid, name);
+						objectNames.put(nid, name);
 					}
 				}
+				bm.setObjectNames(objectNames);
 			}
 			return bm;
 		}
@@ -2123,6 +2317,10 @@ public class BinaryMapIndexReader {
 
 		private List<MapTree> trees = null;
 
+		// serialized packed trees from indexes cache, decoded on first search
+		byte[] packedTreesData = null;
+		PackedMapTreeIndex packedTrees = null;
+
 
 		public MapZooms.MapZoomPair getMapZoom() {
 			return new MapZooms.MapZoomPair(minZoom, maxZoom);
@@ -2181,6 +2379,7 @@ public class BinaryMapIndexReader {
 	private static boolean testPoiSearch = true;
 	private static boolean testPoiSearchOnPath = false;
 	private static boolean testTransportSearch = false;
+	private static boolean profileIO = false;
 	
 	private static int sleft = MapUtils.get31TileNumberX(27.55079);
 	private static int sright = MapUtils.get31TileNumberX(27.55317);
@@ -2196,10 +2395,13 @@ public class BinaryMapIndexReader {
 		File fl = new File(System.getProperty("maps") + "/Synthetic_test_rendering.obf");
 		fl = new File(System.getProperty("maps") +"/Wikivoyage.obf__");
 		
-		RandomAccessFile raf = new RandomAccessFile(fl, "r");
+		RandomAccessFile raf = BlockCompressedRandomAccessFile.open(fl);
 
 		BinaryMapIndexReader reader = new BinaryMapIndexReader(raf, fl);
 		println("VERSION " + reader.getVersion()); //$NON-NLS-1$
+		if (profileIO) {
+			reader.setIOProfiler(new BinaryMapReaderIOProfiler(reader));
+		}
 		long time = System.currentTimeMillis();
 
 		if (testMapSearch) {
@@ -2231,6 +2433,9 @@ public class BinaryMapIndexReader {
 
 		println("MEMORY " + (Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory())); //$NON-NLS-1$
 		println("Time " + (System.currentTimeMillis() - time)); //$NON-NLS-1$
+		if (profileIO) {
+			println(reader.getIOProfiler().getReport());
+		}
 	}
 
 	private static void testSearchOnthePath(BinaryMapIndexReader reader) throws IOException {
@@ -2402,6 +2607,134 @@ public class BinaryMapIndexReader {
 
 	}
 
+	void searchIndexedStringTable(Collator instance, List<String> queries, List<TIntArrayList> listOffsets, TIntArrayList matchedCharacters) throws IOException {
+		if (nameIndexCache == null) {
+			readIndexedStringTable(instance, queries, "", listOffsets, matchedCharacters);
+			return;
+		}
+		getIndexedStringTableTrie().search(instance, queries, listOffsets, matchedCharacters);
+	}
+
+	void searchIndexedStringTableFuzzy(List<LevenshteinAutomaton> queries, List<TIntArrayList> listOffsets, int limit) throws IOException {
+		if (nameIndexCache == null) {
+			List<int[]> states = new ArrayList<int[]>();
+			for (LevenshteinAutomaton q : queries) {
+				states.add(q.start());
+			}
+			readIndexedStringTableFuzzy(queries, states, "", listOffsets, limit);
+			return;
+		}
+		IndexedStringTableTrie trie = getIndexedStringTableTrie();
+		for (int i = 0; i < queries.size(); i++) {
+			trie.searchFuzzy(queries.get(i), listOffsets.get(i), limit);
+		}
+	}
+
+	/**
+	 * Same matching as {@link IndexedStringTableTrie#searchFuzzy} while reading the table from file,
+	 * subtables of keys which can't match any query are skipped same as in {@link #readIndexedStringTable}.
+	 *
+	 * @return for every query whether any key of the table could match it
+	 */
+	private boolean[] readIndexedStringTableFuzzy(List<LevenshteinAutomaton> queries, List<int[]> parentStates, String prefix,
+			List<TIntArrayList> listOffsets, int limit) throws IOException {
+		boolean[] found = new boolean[queries.size()];
+		List<int[]> states = new ArrayList<int[]>(parentStates);
+		boolean[] matched = new boolean[queries.size()];
+		boolean[] foundInSubtable = new boolean[queries.size()];
+		// offsets of key are used only if name index doesn't go deeper
+		TIntArrayList keyOffsets = new TIntArrayList();
+		String key = null;
+		while (true) {
+			int t = codedIS.readTag();
+			int tag = WireFormat.getTagFieldNumber(t);
+			switch (tag) {
+			case 0:
+			case OsmandOdb.IndexedStringTable.KEY_FIELD_NUMBER:
+				if (key != null) {
+					for (int i = 0; i < queries.size(); i++) {
+						if (states.get(i) != null && !matched[i] && !foundInSubtable[i]) {
+							for (int k = 0; k < keyOffsets.size(); k++) {
+								addOffset(keyOffsets.get(k), listOffsets.get(i), limit);
+							}
+						}
+					}
+				}
+				if (tag == 0) {
+					return found;
+				}
+				key = codedIS.readString();
+				if (prefix.length() > 0) {
+					key = prefix + key;
+				}
+				keyOffsets.clear();
+				for (int i = 0; i < queries.size(); i++) {
+					LevenshteinAutomaton q = queries.get(i);
+					int[] state = parentStates.get(i);
+					for (int c = prefix.length(); state != null && c < key.length() && q.canMatch(state); c++) {
+						state = q.step(state, key.charAt(c));
+					}
+					if (state != null && (!q.canMatch(state) || listOffsets.get(i).size() >= limit)) {
+						state = null;
+					}
+					states.set(i, state);
+					matched[i] = state != null && q.isMatch(state);
+					foundInSubtable[i] = false;
+					found[i] |= state != null;
+				}
+				break;
+			case OsmandOdb.IndexedStringTable.VAL_FIELD_NUMBER:
+				int val = readInt();
+				keyOffsets.add(val);
+				for (int i = 0; i < queries.size(); i++) {
+					if (matched[i]) {
+						addOffset(val, listOffsets.get(i), limit);
+					}
+				}
+				break;
+			case OsmandOdb.IndexedStringTable.SUBTABLES_FIELD_NUMBER:
+				int len = codedIS.readRawVarint32();
+				int oldLim = codedIS.pushLimit(len);
+				boolean read = false;
+				for (int[] state : states) {
+					read |= state != null;
+				}
+				if (read && key != null) {
+					foundInSubtable = readIndexedStringTableFuzzy(queries, states, key, listOffsets, limit);
+				} else {
+					codedIS.skipRawBytes(codedIS.getBytesUntilLimit());
+				}
+				codedIS.popLimit(oldLim);
+				break;
+			default:
+				skipUnknownField(t);
+				break;
+			}
+		}
+	}
+
+	private static void addOffset(int val, TIntArrayList offsets, int limit) {
+		if (offsets.size() < limit && !offsets.contains(val)) {
+			offsets.add(val);
+		}
+	}
+
+	private IndexedStringTableTrie getIndexedStringTableTrie() throws IOException {
+		NameIndexCache cache = nameIndexCache;
+		if (cache == null) {
+			return IndexedStringTableTrie.read(this, "");
+		}
+		int filePointer = codedIS.getTotalBytesRead();
+		IndexedStringTableTrie trie = cache.get(file, filePointer);
+		if (trie == null) {
+			trie = IndexedStringTableTrie.read(this, "");
+			cache.put(file, filePointer, trie);
+		} else {
+			codedIS.skipRawBytes(codedIS.getBytesUntilLimit());
+		}
+		return trie;
+	}
+
 	void readIndexedStringTable(Collator instance, List<String> queries, String prefix, List<TIntArrayList> listOffsets, TIntArrayList matchedCharacters) throws IOException {
 		String key = null;
 		boolean[] matched = new boolean[matchedCharacters.size()];
@@ -2691,6 +3024,7 @@ public class BinaryMapIndexReader {
 		req.numberOfAcceptedObjects = 0;
 		req.numberOfAcceptedSubtrees = 0;
 		req.numberOfReadSubtrees = 0;
+		beginProfiledRequest("searchRouteIndexTree");
 		if (routeAdapter != null) {
 			routeAdapter.initRouteTypesIfNeeded(req, list);
 			return routeAdapter.searchRouteRegionTree(req, list,
@@ -2700,12 +3034,14 @@ public class BinaryMapIndexReader {
 	}
 
 	public void loadRouteIndexData(List<RouteSubregion> toLoad, ResultMatcher<RouteDataObject> matcher) throws IOException {
+		beginProfiledRequest("loadRouteIndexData");
 		if (routeAdapter != null) {
 			routeAdapter.loadRouteRegionData(toLoad, matcher);
 		}
 	}
 
 	public List<RouteDataObject> loadRouteIndexData(RouteSubregion rs) throws IOException {
+		beginProfiledRequest("loadRouteIndexData");
 		if (routeAdapter != null) {
 			return routeAdapter.loadRouteRegionData(rs);
 		}
@@ -4,6 +4,7 @@ package net.osmand.binary;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Comparator;
 import java.util.LinkedList;
 import java.util.List;
@@ -15,12 +16,17 @@ import com.google.protobuf.WireFormat;
 
 import gnu.trove.list.array.TIntArrayList;
 import gnu.trove.map.hash.TIntLongHashMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
 import gnu.trove.set.hash.TLongHashSet;
 import net.osmand.Collator;
 import net.osmand.CollatorStringMatcher;
 import net.osmand.CollatorStringMatcher.StringMatcherMode;
+import net.osmand.LevenshteinAutomaton;
 import net.osmand.Location;
 import net.osmand.PlatformUtil;
+import net.osmand.ResultMatcher;
+import net.osmand.StringMatcher;
+import net.osmand.binary.BinaryMapIndexReader.SearchPoiTypeFilter;
 import net.osmand.binary.BinaryMapIndexReader.SearchRequest;
 import net.osmand.binary.OsmandOdb.OsmAndPoiNameIndex.OsmAndPoiNameIndexData;
 import net.osmand.data.Amenity;
@@ -302,6 +308,7 @@ public class BinaryMapPoiReaderAdapter {
 		String query = normalizeSearchPoiByNameQuery(req.nameQuery);
 		CollatorStringMatcher matcher = new CollatorStringMatcher(query,
 				StringMatcherMode.CHECK_STARTS_FROM_SPACE);
+		StringMatcher nameMatcher = req.isFuzzyNameSearch() ? new LevenshteinAutomaton(query, req.nameMaxEdits, matcher.getCollator()) : matcher;
 		long time = System.currentTimeMillis();
 		int indexOffset = codedIS.getTotalBytesRead();
 		while (true) {
@@ -355,7 +362,7 @@ public class BinaryMapPoiReaderAdapter {
 					codedIS.seek(offKeys[j] + indexOffset);
 					int len = readInt();
 					int oldLim = codedIS.pushLimit(len);
-					readPoiData(matcher, req, region);
+					readPoiData(nameMatcher, req, region);
 					codedIS.popLimit(oldLim);
 					if (req.isCancelled() || req.limitExceeded()) {
 						return;
@@ -394,7 +401,16 @@ public class BinaryMapPoiReaderAdapter {
 					charsList.add(0);
 					listOffsets.add(new TIntArrayList());
 				}
-				map.readIndexedStringTable(instance, queries, "", listOffsets, charsList);
+				if (req.isFuzzyNameSearch()) {
+					List<LevenshteinAutomaton> automata = new ArrayList<LevenshteinAutomaton>(queries.size());
+					for (String q : queries) {
+						automata.add(new LevenshteinAutomaton(q, Math.min(req.nameMaxEdits, LevenshteinAutomaton.getMaxEdits(q)),
+								instance));
+					}
+					map.searchIndexedStringTableFuzzy(automata, listOffsets, req.fuzzyCandidatesLimit);
+				} else {
+					map.searchIndexedStringTable(instance, queries, listOffsets, charsList);
+				}
 				codedIS.popLimit(oldLimit);
 				break;
 			}
@@ -563,7 +579,120 @@ public class BinaryMapPoiReaderAdapter {
 		}
 	}
 
-	private void readPoiData(CollatorStringMatcher matcher, SearchRequest<Amenity> req, PoiRegion region) throws IOException {
+	/**
+	 * Same as {@link #searchPoiIndex} for request bbox, but tiles found in cache are not read from file
+	 * and tiles which are read completely are put to cache.
+	 */
+	protected void searchPoiIndexCached(final SearchRequest<Amenity> req, PoiRegion region, PoiTileCache cache) throws IOException {
+		BitSet types = getAcceptedTypes(req.poiTypeFilter, region);
+		int shift = 31 - PoiTileCache.TILE_ZOOM;
+		int maxTile = (1 << PoiTileCache.TILE_ZOOM) - 1;
+		int tileLeft = Math.max(0, req.left >> shift);
+		int tileRight = Math.min(maxTile, req.right >> shift);
+		int tileTop = Math.max(0, req.top >> shift);
+		int tileBottom = Math.min(maxTile, req.bottom >> shift);
+		List<Amenity> amenities = new ArrayList<Amenity>();
+		TLongHashSet cachedTiles = new TLongHashSet();
+		TLongObjectHashMap<List<Amenity>> readTiles = new TLongObjectHashMap<List<Amenity>>();
+		int readLeft = Integer.MAX_VALUE;
+		int readRight = -1;
+		int readTop = Integer.MAX_VALUE;
+		int readBottom = -1;
+		for (int x = tileLeft; x <= tileRight; x++) {
+			for (int y = tileTop; y <= tileBottom; y++) {
+				long tile = PoiTileCache.getTileId(x, y);
+				List<Amenity> cached = cache.get(map.getFile(), region.filePointer, tile, types);
+				if (cached != null) {
+					cachedTiles.add(tile);
+					amenities.addAll(cached);
+				} else {
+					readTiles.put(tile, new ArrayList<Amenity>());
+					readLeft = Math.min(readLeft, x);
+					readRight = Math.max(readRight, x);
+					readTop = Math.min(readTop, y);
+					readBottom = Math.max(readBottom, y);
+				}
+			}
+		}
+		if (!readTiles.isEmpty()) {
+			// read whole tiles (not only request bbox) to put them to cache
+			SearchRequest<Amenity> tilesReq = BinaryMapIndexReader.buildSearchPoiRequest(readLeft << shift,
+					((readRight + 1) << shift) - 1, readTop << shift, ((readBottom + 1) << shift) - 1, req.zoom,
+					req.poiTypeFilter, new ResultMatcher<Amenity>() {
+						@Override
+						public boolean publish(Amenity object) {
+							return true;
+						}
+
+						@Override
+						public boolean isCancelled() {
+							return req.isCancelled();
+						}
+					});
+			tilesReq.cachedPoiTiles = cachedTiles;
+			searchPoiIndex(tilesReq.left, tilesReq.right, tilesReq.top, tilesReq.bottom, tilesReq, region);
+			req.numberOfVisitedObjects += tilesReq.numberOfVisitedObjects;
+			req.numberOfAcceptedObjects += tilesReq.numberOfAcceptedObjects;
+			req.numberOfReadSubtrees += tilesReq.numberOfReadSubtrees;
+			req.numberOfAcceptedSubtrees += tilesReq.numberOfAcceptedSubtrees;
+			if (req.isCancelled()) {
+				return;
+			}
+			for (Amenity am : tilesReq.getSearchResults()) {
+				List<Amenity> tileAmenities = readTiles.get(PoiTileCache.getTileId(am));
+				if (tileAmenities != null) {
+					tileAmenities.add(am);
+				}
+			}
+			for (long tile : readTiles.keys()) {
+				cache.put(map.getFile(), region.filePointer, tile, types, readTiles.get(tile));
+			}
+			amenities.addAll(tilesReq.getSearchResults());
+		}
+		for (Amenity am : amenities) {
+			if (req.limitExceeded()) {
+				return;
+			}
+			int x = MapUtils.get31TileNumberX(am.getLocation().getLongitude());
+			int y = MapUtils.get31TileNumberY(am.getLocation().getLatitude());
+			if (req.left <= x && x <= req.right && req.top <= y && y <= req.bottom) {
+				req.collectRawData(am);
+				req.publish(am);
+			}
+		}
+	}
+
+	/**
+	 * Types of region accepted by filter: bit per category with empty subtype and per its subcategories
+	 * and last bit for other category, filters with same accepted types read same amenities.
+	 * @return null if filter is null (all types accepted)
+	 */
+	private BitSet getAcceptedTypes(SearchPoiTypeFilter filter, PoiRegion region) {
+		if (filter == null) {
+			return null;
+		}
+		BitSet types = new BitSet();
+		int ind = 0;
+		for (int catId = 0; catId < region.categoriesType.size(); catId++) {
+			PoiCategory type = region.categoriesType.get(catId);
+			types.set(ind++, filter.accept(type, poiTypes.replaceDeprecatedSubtype(type, "")));
+			for (String subtype : region.subcategories.get(catId)) {
+				types.set(ind++, filter.accept(type, poiTypes.replaceDeprecatedSubtype(type, subtype)));
+			}
+		}
+		types.set(ind, filter.accept(poiTypes.getOtherPoiCategory(), ""));
+		return types;
+	}
+
+	private static boolean isCachedPoiTile(SearchRequest<Amenity> req, int x, int y, int zoom) {
+		if (req.cachedPoiTiles == null || zoom < PoiTileCache.TILE_ZOOM) {
+			return false;
+		}
+		int dz = zoom - PoiTileCache.TILE_ZOOM;
+		return req.cachedPoiTiles.contains(PoiTileCache.getTileId(x >> dz, y >> dz));
+	}
+
+	private void readPoiData(StringMatcher matcher, SearchRequest<Amenity> req, PoiRegion region) throws IOException {
 		int x = 0;
 		int y = 0;
 		int zoom = 0;
@@ -655,6 +784,9 @@ public class BinaryMapPoiReaderAdapter {
 				int oldLim = codedIS.pushLimit(len);
 				Amenity am = readPoiPoint(left31, right31, top31, bottom31, x, y, zoom, req, region, true);
 				codedIS.popLimit(oldLim);
+				if (am != null && req.cachedPoiTiles != null && req.cachedPoiTiles.contains(PoiTileCache.getTileId(am))) {
+					am = null;
+				}
 				if (am != null) {
 					if (toSkip != null) {
 						int xp = (int) MapUtils.getTileNumberX(zSkip, am.getLocation().getLongitude());
@@ -951,7 +1083,7 @@ public class BinaryMapPoiReaderAdapter {
 					int yT = y << (31 - zoom);
 					int yB = ((y + 1) << (31 - zoom)) - 1;
 					// check intersection
-					if (left31 > xR || xL > right31 || bottom31 < yT || yB < top31) {
+					if (left31 > xR || xL > right31 || bottom31 < yT || yB < top31 || isCachedPoiTile(req, x, y, zoom)) {
 						codedIS.skipRawBytes(codedIS.getBytesUntilLimit());
 						return false;
 					}
@@ -982,6 +1114,9 @@ public class BinaryMapPoiReaderAdapter {
 					long zy = y << (SearchRequest.ZOOM_TO_SEARCH_POI - zoom);
 					read = req.tiles.contains((zx << SearchRequest.ZOOM_TO_SEARCH_POI) + zy);
 				}
+				if (isCachedPoiTile(req, x, y, zoom)) {
+					read = false;
+				}
 				int offset = readInt();
 				if (read) {
 					if (skipTiles != null && zoom >= zoomToSkip) {
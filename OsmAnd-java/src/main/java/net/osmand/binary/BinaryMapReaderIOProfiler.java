@@ -0,0 +1,253 @@
+package net.osmand.binary;
+
+import com.google.protobuf.CodedInputStream;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Opt-in profiler of physical file access of {@link BinaryMapIndexReader}.
+ * Collects seeks, buffer refills, bytes read from file and bytes actually decoded by the reader
+ * per section (map, poi, address, routing, transport) and per request, and keeps heatmap of read offsets.
+ * Read amplification = bytes read / bytes decoded.
+ * Usage: {@code reader.setIOProfiler(new BinaryMapReaderIOProfiler(reader))} and {@link #getReport()}.
+ * Reader is not thread safe, so profiler doesn't need to be either.
+ */
+public class BinaryMapReaderIOProfiler implements CodedInputStream.ReadListener {
+
+	public static final int DEFAULT_HEATMAP_BUCKETS = 64;
+	private static final String OTHER_SECTION = "Header";
+	private static final String NO_REQUEST = "init";
+
+	public static class IOStats {
+		public int seeks;
+		public int bufferSeeks;
+		public int refills;
+		public int reads;
+		public long bytesRead;
+		public long bytesSkipped;
+		public long bytesDecoded;
+
+		public double getReadAmplification() {
+			return bytesDecoded == 0 ? 0 : (double) bytesRead / bytesDecoded;
+		}
+
+		void add(IOStats s) {
+			seeks += s.seeks;
+			bufferSeeks += s.bufferSeeks;
+			refills += s.refills;
+			reads += s.reads;
+			bytesRead += s.bytesRead;
+			bytesSkipped += s.bytesSkipped;
+			bytesDecoded += s.bytesDecoded;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("seeks %d (in buffer %d), reads %d (refills %d), read %d KB, skipped %d KB, decoded %d KB, amplification %.2f",
+					seeks, bufferSeeks, reads, refills, bytesRead >> 10, bytesSkipped >> 10, bytesDecoded >> 10,
+					getReadAmplification());
+		}
+	}
+
+	private final CodedInputStream codedIS;
+	private final long fileLength;
+	private final String fileName;
+	// sections sorted by file pointer
+	private final String[] sectionNames;
+	private final long[] sectionStarts;
+	private final long[] sectionEnds;
+
+	private final Map<String, IOStats[]> requests = new LinkedHashMap<String, IOStats[]>();
+	private IOStats[] currentRequest;
+	private final long[] heatmapBytes;
+	private final int[] heatmapReads;
+
+	// start of continuously decoded span
+	private long spanStart;
+	private long spanSkipped;
+
+	public BinaryMapReaderIOProfiler(BinaryMapIndexReader reader) {
+		this(reader, DEFAULT_HEATMAP_BUCKETS);
+	}
+
+	public BinaryMapReaderIOProfiler(BinaryMapIndexReader reader, int heatmapBuckets) {
+		this.codedIS = reader.codedIS;
+		this.fileLength = reader.getFile() == null ? 0 : reader.getFile().length();
+		this.fileName = reader.getFile() == null ? "" : reader.getFile().getName();
+		List<BinaryIndexPart> parts = new ArrayList<BinaryIndexPart>(reader.getIndexes());
+		Collections.sort(parts, new Comparator<BinaryIndexPart>() {
+			@Override
+			public int compare(BinaryIndexPart o1, BinaryIndexPart o2) {
+				return Integer.compare(o1.getFilePointer(), o2.getFilePointer());
+			}
+		});
+		sectionNames = new String[parts.size() + 1];
+		sectionStarts = new long[parts.size()];
+		sectionEnds = new long[parts.size()];
+		for (int i = 0; i < parts.size(); i++) {
+			BinaryIndexPart p = parts.get(i);
+			sectionNames[i] = p.getPartName();
+			sectionStarts[i] = p.getFilePointer();
+			sectionEnds[i] = (long) p.getFilePointer() + p.getLength();
+		}
+		sectionNames[parts.size()] = OTHER_SECTION;
+		heatmapBytes = new long[Math.max(1, heatmapBuckets)];
+		heatmapReads = new int[heatmapBytes.length];
+		spanStart = codedIS.getTotalBytesRead();
+		beginRequest(NO_REQUEST);
+	}
+
+	/**
+	 * Following file access will be accounted to this request until next call.
+	 * Requests with same name are summed up.
+	 */
+	public void beginRequest(String name) {
+		finishSpan(codedIS.getTotalBytesRead());
+		IOStats[] stats = requests.get(name);
+		if (stats == null) {
+			stats = new IOStats[sectionNames.length];
+			for (int i = 0; i < stats.length; i++) {
+				stats[i] = new IOStats();
+			}
+			requests.put(name, stats);
+		}
+		currentRequest = stats;
+	}
+
+	private int getSection(long pointer) {
+		for (int i = 0; i < sectionStarts.length; i++) {
+			if (pointer >= sectionStarts[i] && pointer < sectionEnds[i]) {
+				return i;
+			}
+		}
+		return sectionNames.length - 1;
+	}
+
+	private void finishSpan(long position) {
+		long decoded = position - spanStart - spanSkipped;
+		if (decoded > 0 && currentRequest != null) {
+			currentRequest[getSection(spanStart)].bytesDecoded += decoded;
+		}
+		spanStart = position;
+		spanSkipped = 0;
+	}
+
+	@Override
+	public void onSeek(long from, long to, boolean inBuffer) {
+		finishSpan(from);
+		spanStart = to;
+		IOStats s = currentRequest[getSection(to)];
+		if (inBuffer) {
+			s.bufferSeeks++;
+		} else {
+			s.seeks++;
+		}
+	}
+
+	@Override
+	public void onRead(long filePointer, int bytes, boolean refill) {
+		IOStats s = currentRequest[getSection(filePointer)];
+		s.reads++;
+		if (refill) {
+			s.refills++;
+		}
+		s.bytesRead += bytes;
+		if (fileLength > 0) {
+			int bucket = (int) Math.min(heatmapBytes.length - 1, filePointer * heatmapBytes.length / fileLength);
+			heatmapBytes[bucket] += bytes;
+			heatmapReads[bucket]++;
+		}
+	}
+
+	@Override
+	public void onSkip(long filePointer, int bytes) {
+		spanSkipped += bytes;
+		currentRequest[getSection(filePointer)].bytesSkipped += bytes;
+	}
+
+	public Map<String, IOStats[]> getRequests() {
+		finishSpan(codedIS.getTotalBytesRead());
+		return requests;
+	}
+
+	public String[] getSectionNames() {
+		return sectionNames;
+	}
+
+	public IOStats getTotal() {
+		IOStats total = new IOStats();
+		for (IOStats[] stats : getRequests().values()) {
+			for (IOStats s : stats) {
+				total.add(s);
+			}
+		}
+		return total;
+	}
+
+	public long[] getHeatmapBytes() {
+		return heatmapBytes;
+	}
+
+	public int[] getHeatmapReads() {
+		return heatmapReads;
+	}
+
+	public void reset() {
+		finishSpan(codedIS.getTotalBytesRead());
+		requests.clear();
+		for (int i = 0; i < heatmapBytes.length; i++) {
+			heatmapBytes[i] = 0;
+			heatmapReads[i] = 0;
+		}
+		currentRequest = null;
+		beginRequest(NO_REQUEST);
+	}
+
+	public String getReport() {
+		StringBuilder b = new StringBuilder();
+		b.append("IO profile of ").append(fileName).append(" (").append(fileLength >> 10).append(" KB)\n");
+		b.append("Total: ").append(getTotal()).append("\n");
+		for (Map.Entry<String, IOStats[]> e : getRequests().entrySet()) {
+			IOStats requestTotal = new IOStats();
+			for (IOStats s : e.getValue()) {
+				requestTotal.add(s);
+			}
+			if (requestTotal.reads == 0 && requestTotal.bytesDecoded == 0 && requestTotal.seeks == 0) {
+				continue;
+			}
+			b.append("Request ").append(e.getKey()).append(": ").append(requestTotal).append("\n");
+			for (int i = 0; i < sectionNames.length; i++) {
+				IOStats s = e.getValue()[i];
+				if (s.reads > 0 || s.bytesDecoded > 0 || s.seeks > 0 || s.bufferSeeks > 0) {
+					String name = i < sectionStarts.length ? sectionNames[i] + " " + sectionStarts[i] : sectionNames[i];
+					b.append("\t").append(name).append(": ").append(s).append("\n");
+				}
+			}
+		}
+		b.append("Heatmap of read offsets:\n");
+		long max = 1;
+		for (long l : heatmapBytes) {
+			max = Math.max(max, l);
+		}
+		long bucketSize = Math.max(1, fileLength / heatmapBytes.length);
+		for (int i = 0; i < heatmapBytes.length; i++) {
+			if (heatmapBytes[i] == 0) {
+				continue;
+			}
+			long start = i * bucketSize;
+			b.append(String.format("%10d %-10s %6d reads %8d KB ", start, sectionNames[getSection(start)],
+					heatmapReads[i], heatmapBytes[i] >> 10));
+			int bar = (int) (40 * heatmapBytes[i] / max);
+			for (int k = 0; k < Math.max(1, bar); k++) {
+				b.append('#');
+			}
+			b.append("\n");
+		}
+		return b.toString();
+	}
+}
@@ -297,6 +297,8 @@ public class BinaryMapRouteReaderAdapter {
 		public Map<String, Integer> decodingRules = null;
 		List<RouteSubregion> subregions = new ArrayList<RouteSubregion>();
 		List<RouteSubregion> basesubregions = new ArrayList<RouteSubregion>();
+		// not yet initialized subregions from indexes cache
+		volatile OsmandIndex.RoutingPart cachedRoutingPart = null;
 		
 		public int directionForward = -1;
 		public int directionBackward = -1;
@@ -403,16 +405,29 @@ public class BinaryMapRouteReaderAdapter {
 		}
 		
 		public List<RouteSubregion> getSubregions(){
+			initCachedSubregions();
 			return subregions;
 		}
 		
 		public List<RouteSubregion> getBaseSubregions(){
+			initCachedSubregions();
 			return basesubregions;
 		}
 
+		private void initCachedSubregions() {
+			if (cachedRoutingPart != null) {
+				synchronized (this) {
+					if (cachedRoutingPart != null) {
+						CachedOsmandIndexes.initRouteSubregions(this, cachedRoutingPart);
+						cachedRoutingPart = null;
+					}
+				}
+			}
+		}
+
 		public double getLeftLongitude() {
 			double l = 180;
-			for(RouteSubregion s : subregions) {
+			for(RouteSubregion s : getSubregions()) {
 				l = Math.min(l, MapUtils.get31LongitudeX(s.left));
 			}
 			return l;
@@ -420,7 +435,7 @@ public class BinaryMapRouteReaderAdapter {
 
 		public double getRightLongitude() {
 			double l = -180;
-			for(RouteSubregion s : subregions) {
+			for(RouteSubregion s : getSubregions()) {
 				l = Math.max(l, MapUtils.get31LongitudeX(s.right));
 			}
 			return l;
@@ -428,7 +443,7 @@ public class BinaryMapRouteReaderAdapter {
 
 		public double getBottomLatitude() {
 			double l = 90;
-			for(RouteSubregion s : subregions) {
+			for(RouteSubregion s : getSubregions()) {
 				l = Math.min(l, MapUtils.get31LatitudeY(s.bottom));
 			}
 			return l;
@@ -436,14 +451,14 @@ public class BinaryMapRouteReaderAdapter {
 
 		public double getTopLatitude() {
 			double l = -90;
-			for(RouteSubregion s : subregions) {
+			for(RouteSubregion s : getSubregions()) {
 				l = Math.max(l, MapUtils.get31LatitudeY(s.top));
 			}
 			return l;
 		}
 
 		public boolean contains(int x31, int y31) {
-			for(RouteSubregion s : subregions) {
+			for(RouteSubregion s : getSubregions()) {
 				if(s.left <= x31 && s.right >= x31 && s.top <= y31 && s.bottom >= y31) {
 					return true;
 				}
@@ -498,7 +513,7 @@ public class BinaryMapRouteReaderAdapter {
 			}
 			if (o.nameIds != null) {
 				rdo.nameIds = new int[o.nameIds.length];
-				rdo.names = new TIntObjectHashMap<>();
+				TIntObjectHashMap<String> names = new TIntObjectHashMap<>();
 				for (int i = 0; i < o.nameIds.length; i++) {
 					RouteTypeRule tp = o.region.routeEncodingRules.get(o.nameIds[i]);
 					int ruleId = searchRouteEncodingRule(tp.getTag(), null);
@@ -509,8 +524,9 @@ public class BinaryMapRouteReaderAdapter {
 						initRouteEncodingRule(ruleId, tp.getTag(), null);
 						rdo.nameIds[i] = ruleId;
 					}
-					rdo.names.put(ruleId, o.names.get(o.nameIds[i]));
+					names.put(ruleId, o.getNames().get(o.nameIds[i]));
 				}
+				rdo.setNames(names);
 			}
 			rdo.pointNames = o.pointNames;
 			if (o.pointNameTypes != null) {
@@ -737,16 +753,18 @@ public class BinaryMapRouteReaderAdapter {
 				codedIS.popLimit(oldLimit);
 				break;
 			case RouteData.STRINGNAMES_FIELD_NUMBER:
-				o.names = new TIntObjectHashMap<String>();
+				TIntObjectHashMap<String> names = new TIntObjectHashMap<String>();
 				int sizeL = codedIS.readRawVarint32();
 				int old = codedIS.pushLimit(sizeL);
 				TIntArrayList list = new TIntArrayList();
 				while (codedIS.getBytesUntilLimit() > 0) {
 					int stag = codedIS.readRawVarint32();
 					int pId = codedIS.readRawVarint32();
-					o.names.put(stag, ((char)pId)+"");
+					names.put(stag, ((char)pId)+"");
 					list.add(stag);
 				}
+				// indexes in string table are replaced by setStringTable
+				o.setNames(names);
 				o.nameIds = list.toArray();
 				codedIS.popLimit(old);
 				break;
@@ -818,7 +836,7 @@ public class BinaryMapRouteReaderAdapter {
 		routeTree.dataObjects = new ArrayList<RouteDataObject>();
 		idTables.clear();
 		restrictions.clear();
-		List<String> stringTable = null;
+		BinaryStringTable stringTable = null;
 		while(true){
 			int t = codedIS.readTag();
 			int tag = WireFormat.getTagFieldNumber(t);
@@ -848,11 +866,9 @@ public class BinaryMapRouteReaderAdapter {
 						if (o.id < idTables.size()) {
 							o.id = idTables.get((int) o.id);
 						}
-						if (o.names != null && stringTable != null) {
-							int[] keys = o.names.keys();
-							for (int j = 0; j < keys.length; j++) {
-								o.names.put(keys[j], stringTable.get(o.names.get(keys[j]).charAt(0)));
-							}
+						if (stringTable != null) {
+							// names are decoded lazily on first access
+							o.setStringTable(stringTable);
 						}
 						if (o.pointNames != null && stringTable != null) {
 							for(String[] ar : o.pointNames) {
@@ -936,7 +952,7 @@ public class BinaryMapRouteReaderAdapter {
 			case RouteDataBlock.STRINGTABLE_FIELD_NUMBER :
 				length = codedIS.readRawVarint32();
 				oldLimit = codedIS.pushLimit(length);
-				stringTable = map.readStringTable();
+				stringTable = BinaryStringTable.read(codedIS);
 //				codedIS.skipRawBytes(codedIS.getBytesUntilLimit());
 				codedIS.popLimit(oldLimit);
 				break;
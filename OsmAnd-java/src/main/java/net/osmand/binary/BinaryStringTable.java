@@ -0,0 +1,194 @@
+package net.osmand.binary;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.WireFormat;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TIntObjectHashMap;
+
+/**
+ * String table of map or route data block kept as raw UTF-8 bytes.
+ * Strings are decoded only when requested, so names of objects which are never displayed
+ * don't create String instances. Names could be compared with UTF-8 encoded values without decoding.
+ */
+public class BinaryStringTable {
+
+	private static final String UTF_8 = "UTF-8";
+
+	private final byte[] data;
+	private final int[] offsets;
+	private final int[] lengths;
+	private final String[] strings;
+
+	private BinaryStringTable(byte[] data, int[] offsets, int[] lengths) {
+		this.data = data;
+		this.offsets = offsets;
+		this.lengths = lengths;
+		this.strings = new String[offsets.length];
+	}
+
+	/**
+	 * Reads raw bytes of StringTable message up to current limit
+	 */
+	public static BinaryStringTable read(CodedInputStream codedIS) throws IOException {
+		byte[] data = codedIS.readRawBytes(codedIS.getBytesUntilLimit());
+		CodedInputStream cis = CodedInputStream.newInstance(data);
+		TIntArrayList offsets = new TIntArrayList();
+		TIntArrayList lengths = new TIntArrayList();
+		while (true) {
+			int t = cis.readTag();
+			int tag = WireFormat.getTagFieldNumber(t);
+			if (tag == 0) {
+				break;
+			} else if (tag == OsmandOdb.StringTable.S_FIELD_NUMBER) {
+				int length = cis.readRawVarint32();
+				offsets.add(cis.getTotalBytesRead());
+				lengths.add(length);
+				cis.skipRawBytes(length);
+			} else {
+				cis.skipField(t);
+			}
+		}
+		return new BinaryStringTable(data, offsets.toArray(), lengths.toArray());
+	}
+
+	public int size() {
+		return offsets.length;
+	}
+
+	public String get(int i) {
+		String s = strings[i];
+		if (s == null) {
+			try {
+				s = new String(data, offsets[i], lengths[i], UTF_8);
+			} catch (UnsupportedEncodingException e) {
+				throw new IllegalStateException(e);
+			}
+			strings[i] = s;
+		}
+		return s;
+	}
+
+	public boolean equals(int i, BinaryStringTable other, int j) {
+		if (other == this && i == j) {
+			return true;
+		}
+		if (lengths[i] != other.lengths[j]) {
+			return false;
+		}
+		return regionMatches(data, offsets[i], other.data, other.offsets[j], lengths[i]);
+	}
+
+	public boolean equals(int i, byte[] utf8) {
+		return lengths[i] == utf8.length && regionMatches(data, offsets[i], utf8, 0, utf8.length);
+	}
+
+	public boolean startsWith(int i, byte[] utf8Prefix) {
+		return lengths[i] >= utf8Prefix.length && regionMatches(data, offsets[i], utf8Prefix, 0, utf8Prefix.length);
+	}
+
+	public boolean contains(int i, byte[] utf8Part) {
+		int last = offsets[i] + lengths[i] - utf8Part.length;
+		for (int st = offsets[i]; st <= last; st++) {
+			if (regionMatches(data, st, utf8Part, 0, utf8Part.length)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public static byte[] encode(String s) {
+		try {
+			return s.getBytes(UTF_8);
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	public static String decode(byte[] utf8) {
+		try {
+			return new String(utf8, UTF_8);
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static boolean regionMatches(byte[] a, int aOffset, byte[] b, int bOffset, int length) {
+		for (int k = 0; k < length; k++) {
+			if (a[aOffset + k] != b[bOffset + k]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Names of one object where values are indexes (first char) in block string table
+	 */
+	public static class Names {
+		private final BinaryStringTable table;
+		private final TIntObjectHashMap<String> indexes;
+
+		public Names(BinaryStringTable table, TIntObjectHashMap<String> indexes) {
+			this.table = table;
+			this.indexes = indexes;
+		}
+
+		private int getIndex(int type) {
+			String ind = indexes.get(type);
+			return ind == null ? -1 : ind.charAt(0);
+		}
+
+		public int size() {
+			return indexes.size();
+		}
+
+		/**
+		 * @return total length of names in UTF-8 bytes
+		 */
+		public int getLength() {
+			int length = 0;
+			int[] keys = indexes.keys();
+			for (int j = 0; j < keys.length; j++) {
+				length += table.lengths[getIndex(keys[j])];
+			}
+			return length;
+		}
+
+		public TIntObjectHashMap<String> resolve() {
+			TIntObjectHashMap<String> names = new TIntObjectHashMap<String>(indexes.size());
+			int[] keys = indexes.keys();
+			for (int j = 0; j < keys.length; j++) {
+				names.put(keys[j], table.get(getIndex(keys[j])));
+			}
+			return names;
+		}
+
+		public boolean equals(int type, byte[] utf8) {
+			int ind = getIndex(type);
+			return ind != -1 && table.equals(ind, utf8);
+		}
+
+		public boolean startsWith(int type, byte[] utf8Prefix) {
+			int ind = getIndex(type);
+			return ind != -1 && table.startsWith(ind, utf8Prefix);
+		}
+
+		public boolean contains(int type, byte[] utf8Part) {
+			int ind = getIndex(type);
+			return ind != -1 && table.contains(ind, utf8Part);
+		}
+
+		public boolean equals(int type, Names other, int otherType) {
+			int ind = getIndex(type);
+			int otherInd = other.getIndex(otherType);
+			if (ind == -1 || otherInd == -1) {
+				return ind == otherInd;
+			}
+			return table.equals(ind, other.table, otherInd);
+		}
+	}
+}
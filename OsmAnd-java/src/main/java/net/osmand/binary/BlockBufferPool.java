@@ -0,0 +1,47 @@
+package net.osmand.binary;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pool of byte buffers for decompressed blocks, shared by all opened block compressed files
+ * so switching between blocks doesn't allocate new arrays.
+ */
+public class BlockBufferPool {
+
+	private static final int DEFAULT_MAX_BUFFERS = 32;
+	private static BlockBufferPool DEFAULT_POOL;
+
+	private final int maxBuffers;
+	private final List<byte[]> free = new ArrayList<byte[]>();
+
+	public BlockBufferPool(int maxBuffers) {
+		this.maxBuffers = maxBuffers;
+	}
+
+	public static synchronized BlockBufferPool getDefault() {
+		if (DEFAULT_POOL == null) {
+			DEFAULT_POOL = new BlockBufferPool(DEFAULT_MAX_BUFFERS);
+		}
+		return DEFAULT_POOL;
+	}
+
+	public synchronized byte[] acquire(int size) {
+		for (int i = free.size() - 1; i >= 0; i--) {
+			if (free.get(i).length >= size) {
+				return free.remove(i);
+			}
+		}
+		return new byte[size];
+	}
+
+	public synchronized void release(byte[] buffer) {
+		if (buffer != null && free.size() < maxBuffers) {
+			free.add(buffer);
+		}
+	}
+
+	public synchronized int getFreeBuffers() {
+		return free.size();
+	}
+}
@@ -0,0 +1,421 @@
+package net.osmand.binary;
+
+import net.osmand.PlatformUtil;
+
+import org.apache.commons.compress.compressors.lz4.BlockLZ4CompressorInputStream;
+import org.apache.commons.compress.compressors.lz4.BlockLZ4CompressorOutputStream;
+import org.apache.commons.logging.Log;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Read-only view of block compressed OBF file as plain OBF, so {@link BinaryMapIndexReader}
+ * and all file pointers stored in the file and in {@link CachedOsmandIndexes} stay the same.
+ * <p>
+ * Format: header (magic "OBFZ", version, codec, block size, uncompressed length, table offset),
+ * independently compressed blocks of uncompressed file and block offset table (count and offsets).
+ * Block is stored as is if compression doesn't make it smaller.
+ * Few last decompressed blocks are kept in buffers taken from {@link BlockBufferPool}.
+ * Instances are not thread safe same as RandomAccessFile.
+ * <p>
+ * Native library opens files by path and can't read this format, so block compressed files are not
+ * registered in it: they are rendered by java renderer only and routing falls back to java router
+ * when they are among routing files (see {@link BinaryMapIndexReader#isBlockCompressed()}).
+ */
+public class BlockCompressedRandomAccessFile extends RandomAccessFile {
+
+	private static final Log log = PlatformUtil.getLog(BlockCompressedRandomAccessFile.class);
+
+	public static final byte[] MAGIC = new byte[] { 'O', 'B', 'F', 'Z' };
+	public static final int VERSION = 1;
+	public static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+	private static final int HEADER_SIZE = 32;
+	private static final int CACHED_BLOCKS = 4;
+
+	public enum Codec {
+		DEFLATE(1),
+		LZ4(2);
+
+		public final int id;
+
+		Codec(int id) {
+			this.id = id;
+		}
+
+		public static Codec getById(int id) {
+			for (Codec c : values()) {
+				if (c.id == id) {
+					return c;
+				}
+			}
+			return null;
+		}
+	}
+
+	private final Codec codec;
+	private final int blockSize;
+	private final long length;
+	private final long[] blockOffsets;
+	private final BlockBufferPool pool;
+	private long position;
+
+	private final int[] cachedBlocks = new int[CACHED_BLOCKS];
+	private final byte[][] cachedBuffers = new byte[CACHED_BLOCKS][];
+	private final long[] cachedUsage = new long[CACHED_BLOCKS];
+	private long usageCounter;
+	private byte[] compressedBuffer;
+	private Inflater inflater;
+
+	public BlockCompressedRandomAccessFile(File file) throws IOException {
+		this(file, BlockBufferPool.getDefault());
+	}
+
+	public BlockCompressedRandomAccessFile(File file, BlockBufferPool pool) throws IOException {
+		super(file, "r");
+		this.pool = pool;
+		byte[] header = new byte[HEADER_SIZE];
+		readRaw(0, header, HEADER_SIZE);
+		ByteBuffer hb = ByteBuffer.wrap(header);
+		for (int i = 0; i < MAGIC.length; i++) {
+			if (hb.get() != MAGIC[i]) {
+				super.close();
+				throw new IOException("Not block compressed file " + file.getName());
+			}
+		}
+		int version = hb.getInt();
+		codec = Codec.getById(hb.getInt());
+		if (version != VERSION || codec == null) {
+			super.close();
+			throw new IOException("Unsupported block compressed file " + file.getName());
+		}
+		blockSize = hb.getInt();
+		length = hb.getLong();
+		long tableOffset = hb.getLong();
+		byte[] count = new byte[4];
+		readRaw(tableOffset, count, 4);
+		int blocks = ByteBuffer.wrap(count).getInt();
+		byte[] table = new byte[blocks * 8];
+		readRaw(tableOffset + 4, table, table.length);
+		ByteBuffer tb = ByteBuffer.wrap(table);
+		blockOffsets = new long[blocks + 1];
+		for (int i = 0; i < blocks; i++) {
+			blockOffsets[i] = tb.getLong();
+		}
+		blockOffsets[blocks] = tableOffset;
+		for (int i = 0; i < CACHED_BLOCKS; i++) {
+			cachedBlocks[i] = -1;
+		}
+	}
+
+	/**
+	 * Opens file for reading, block compressed files are detected by header.
+	 */
+	public static RandomAccessFile open(File file) throws IOException {
+		if (isBlockCompressed(file)) {
+			return new BlockCompressedRandomAccessFile(file);
+		}
+		return new RandomAccessFile(file, "r");
+	}
+
+	public static boolean isBlockCompressed(File file) throws IOException {
+		if (file.length() < HEADER_SIZE) {
+			return false;
+		}
+		InputStream is = new FileInputStream(file);
+		try {
+			for (int i = 0; i < MAGIC.length; i++) {
+				if (is.read() != MAGIC[i]) {
+					return false;
+				}
+			}
+			return true;
+		} finally {
+			is.close();
+		}
+	}
+
+	public Codec getCodec() {
+		return codec;
+	}
+
+	public int getBlockSize() {
+		return blockSize;
+	}
+
+	private void readRaw(long pointer, byte[] b, int len) throws IOException {
+		super.seek(pointer);
+		int off = 0;
+		while (off < len) {
+			int r = super.read(b, off, len - off);
+			if (r < 0) {
+				throw new EOFException();
+			}
+			off += r;
+		}
+	}
+
+	private int getBlockLength(int block) {
+		return (int) Math.min(blockSize, length - (long) block * blockSize);
+	}
+
+	private byte[] getBlock(int block) throws IOException {
+		int lru = 0;
+		for (int i = 0; i < CACHED_BLOCKS; i++) {
+			if (cachedBlocks[i] == block) {
+				cachedUsage[i] = ++usageCounter;
+				return cachedBuffers[i];
+			}
+			if (cachedUsage[i] < cachedUsage[lru]) {
+				lru = i;
+			}
+		}
+		byte[] buffer = cachedBuffers[lru];
+		if (buffer == null || buffer.length < blockSize) {
+			pool.release(buffer);
+			buffer = pool.acquire(blockSize);
+		}
+		// invalidate slot in case decompression fails
+		cachedBlocks[lru] = -1;
+		cachedBuffers[lru] = buffer;
+		decompressBlock(block, buffer);
+		cachedBlocks[lru] = block;
+		cachedUsage[lru] = ++usageCounter;
+		return buffer;
+	}
+
+	private void decompressBlock(int block, byte[] out) throws IOException {
+		int blockLength = getBlockLength(block);
+		int compressedLength = (int) (blockOffsets[block + 1] - blockOffsets[block]);
+		if (compressedLength == blockLength) {
+			readRaw(blockOffsets[block], out, blockLength);
+			return;
+		}
+		if (compressedBuffer == null || compressedBuffer.length < compressedLength) {
+			compressedBuffer = new byte[Math.max(compressedLength, blockSize)];
+		}
+		readRaw(blockOffsets[block], compressedBuffer, compressedLength);
+		if (codec == Codec.DEFLATE) {
+			if (inflater == null) {
+				inflater = new Inflater(true);
+			}
+			inflater.reset();
+			inflater.setInput(compressedBuffer, 0, compressedLength);
+			try {
+				int off = 0;
+				while (off < blockLength) {
+					int r = inflater.inflate(out, off, blockLength - off);
+					if (r == 0 && (inflater.finished() || inflater.needsInput())) {
+						break;
+					}
+					off += r;
+				}
+				if (off != blockLength) {
+					throw new IOException("Corrupted block " + block);
+				}
+			} catch (DataFormatException e) {
+				throw new IOException(e);
+			}
+		} else {
+			InputStream is = new BlockLZ4CompressorInputStream(
+					new ByteArrayInputStream(compressedBuffer, 0, compressedLength));
+			try {
+				int off = 0;
+				while (off < blockLength) {
+					int r = is.read(out, off, blockLength - off);
+					if (r < 0) {
+						throw new IOException("Corrupted block " + block);
+					}
+					off += r;
+				}
+			} finally {
+				is.close();
+			}
+		}
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (position >= length) {
+			return -1;
+		}
+		byte[] b = getBlock((int) (position / blockSize));
+		return b[(int) (position++ % blockSize)] & 0xff;
+	}
+
+	@Override
+	public int read(byte[] b) throws IOException {
+		return read(b, 0, b.length);
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		if (position >= length) {
+			return -1;
+		}
+		int read = 0;
+		while (read < len && position < length) {
+			int block = (int) (position / blockSize);
+			int inBlock = (int) (position % blockSize);
+			int cnt = Math.min(len - read, getBlockLength(block) - inBlock);
+			System.arraycopy(getBlock(block), inBlock, b, off + read, cnt);
+			read += cnt;
+			position += cnt;
+		}
+		return read;
+	}
+
+	@Override
+	public int skipBytes(int n) throws IOException {
+		if (n <= 0) {
+			return 0;
+		}
+		long newPosition = Math.min(length, position + n);
+		int skipped = (int) (newPosition - position);
+		position = newPosition;
+		return skipped;
+	}
+
+	@Override
+	public void seek(long pos) throws IOException {
+		if (pos < 0) {
+			throw new IOException("Negative seek offset");
+		}
+		position = pos;
+	}
+
+	@Override
+	public long getFilePointer() {
+		return position;
+	}
+
+	@Override
+	public long length() {
+		return length;
+	}
+
+	@Override
+	public void setLength(long newLength) throws IOException {
+		throw new IOException("Block compressed file is read only");
+	}
+
+	@Override
+	public void close() throws IOException {
+		for (int i = 0; i < CACHED_BLOCKS; i++) {
+			pool.release(cachedBuffers[i]);
+			cachedBuffers[i] = null;
+			cachedBlocks[i] = -1;
+		}
+		if (inflater != null) {
+			inflater.end();
+			inflater = null;
+		}
+		super.close();
+	}
+
+	/**
+	 * Writes block compressed copy of plain file
+	 */
+	public static void compress(File src, File dst, Codec codec, int blockSize) throws IOException {
+		long length = src.length();
+		int blocks = (int) ((length + blockSize - 1) / blockSize);
+		long[] offsets = new long[blocks];
+		FileInputStream fis = new FileInputStream(src);
+		FileOutputStream fos = new FileOutputStream(dst);
+		Deflater deflater = codec == Codec.DEFLATE ? new Deflater(Deflater.BEST_COMPRESSION, true) : null;
+		try {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			header.put(MAGIC).putInt(VERSION).putInt(codec.id).putInt(blockSize).putLong(length);
+			long tableOffsetPosition = header.position();
+			header.putLong(0);
+			fos.write(header.array());
+			long pointer = HEADER_SIZE;
+			byte[] block = new byte[blockSize];
+			byte[] compressed = new byte[blockSize];
+			for (int i = 0; i < blocks; i++) {
+				int blockLength = (int) Math.min(blockSize, length - (long) i * blockSize);
+				int off = 0;
+				while (off < blockLength) {
+					int r = fis.read(block, off, blockLength - off);
+					if (r < 0) {
+						throw new EOFException();
+					}
+					off += r;
+				}
+				offsets[i] = pointer;
+				byte[] out = block;
+				int outLength = blockLength;
+				if (codec == Codec.DEFLATE) {
+					deflater.reset();
+					deflater.setInput(block, 0, blockLength);
+					deflater.finish();
+					int clen = 0;
+					while (!deflater.finished() && clen < compressed.length) {
+						clen += deflater.deflate(compressed, clen, compressed.length - clen);
+					}
+					if (deflater.finished() && clen < blockLength) {
+						out = compressed;
+						outLength = clen;
+					}
+				} else {
+					ByteArrayOutputStream bous = new ByteArrayOutputStream(blockLength);
+					BlockLZ4CompressorOutputStream los = new BlockLZ4CompressorOutputStream(bous);
+					los.write(block, 0, blockLength);
+					los.close();
+					if (bous.size() < blockLength) {
+						out = bous.toByteArray();
+						outLength = out.length;
+					}
+				}
+				fos.write(out, 0, outLength);
+				pointer += outLength;
+			}
+			ByteBuffer table = ByteBuffer.allocate(4 + blocks * 8);
+			table.putInt(blocks);
+			for (int i = 0; i < blocks; i++) {
+				table.putLong(offsets[i]);
+			}
+			fos.write(table.array());
+			fos.close();
+			// update table offset in header
+			RandomAccessFile raf = new RandomAccessFile(dst, "rw");
+			try {
+				raf.seek(tableOffsetPosition);
+				raf.writeLong(pointer);
+			} finally {
+				raf.close();
+			}
+			log.info("Compressed " + src.getName() + " " + (length >> 10) + " KB -> " + (dst.length() >> 10) + " KB");
+		} finally {
+			fis.close();
+			fos.close();
+			if (deflater != null) {
+				deflater.end();
+			}
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.out.println("Usage: <source.obf> <target.obf> [deflate|lz4] [block size]");
+			return;
+		}
+		Codec codec = args.length > 2 ? Codec.valueOf(args[2].toUpperCase()) : Codec.DEFLATE;
+		int blockSize = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_BLOCK_SIZE;
+		compress(new File(args[0]), new File(args[1]), codec, blockSize);
+	}
+}
@@ -1,5 +1,11 @@
 package net.osmand.binary;
 
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.WireFormat;
+
 import net.osmand.PlatformUtil;
 import net.osmand.binary.BinaryMapAddressReaderAdapter.AddressRegion;
 import net.osmand.binary.BinaryMapAddressReaderAdapter.CitiesBlock;
@@ -20,40 +26,55 @@ import net.osmand.binary.OsmandIndex.PoiPart;
 import net.osmand.binary.OsmandIndex.RoutingPart;
 import net.osmand.binary.OsmandIndex.RoutingSubregion;
 import net.osmand.binary.OsmandIndex.TransportPart;
+import net.osmand.osm.MapPoiTypes;
+import net.osmand.util.Algorithms;
 
 import org.apache.commons.logging.Log;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class CachedOsmandIndexes {
 
-	private OsmAndStoredIndex storedIndex;
-	private OsmAndStoredIndex.Builder storedIndexBuilder;
+	// file indexes by file name, parsed from mapped cache file on first access
+	private final Map<String, StoredFileIndex> storedIndexes = new LinkedHashMap<String, StoredFileIndex>();
+	private MappedByteBuffer storedIndexBuffer;
+	private long dateCreated;
+	private final Map<String, Long> initTimes = new LinkedHashMap<String, Long>();
 	private Log log = PlatformUtil.getLog(CachedOsmandIndexes.class);
 	private boolean hasChanged = false;
 	public static final String INDEXES_DEFAULT_FILENAME = "indexes.cache";
 
-	public static final int VERSION = 2;
-
-	public FileIndex addToCache(BinaryMapIndexReader reader, File f) {
-		hasChanged = true;
-		if (storedIndexBuilder == null) {
-			storedIndexBuilder = OsmandIndex.OsmAndStoredIndex.newBuilder();
-			storedIndexBuilder.setVersion(VERSION);
-			storedIndexBuilder.setDateCreated(System.currentTimeMillis());
-			if (storedIndex != null) {
-				for (FileIndex ex : storedIndex.getFileIndexList()) {
-					if (!ex.getFileName().equals(f.getName())) {
-						storedIndexBuilder.addFileIndex(ex);
-					}
-				}
-			}
-		}
+	public static final int VERSION = 4;
+	private static final int FILE_INDEX_HEADER_SIZE = 1024;
 
+	private static class StoredFileIndex {
+		String fileName;
+		long size;
+		int offset;
+		int length;
+		byte[] data;
+		FileIndex fileIndex;
+	}
+
+	public FileIndex addToCache(BinaryMapIndexReader reader, File f) throws IOException {
 		FileIndex.Builder fileIndex = OsmandIndex.FileIndex.newBuilder();
 		long d = reader.getDateCreated();
 		fileIndex.setDateModified(d == 0 ? f.lastModified() : d);
@@ -77,6 +98,8 @@ public class CachedOsmandIndexes {
 				lev.setBottom(mr.bottom);
 				lev.setMinzoom(mr.minZoom);
 				lev.setMaxzoom(mr.maxZoom);
+				PackedMapTreeIndex packedTrees = reader.buildPackedMapTree(mr);
+				lev.setBoxes(ByteString.copyFrom(packedTrees.toByteArray()));
 				map.addLevels(lev);
 			}
 			fileIndex.addMapIndex(map);
@@ -159,7 +182,18 @@ public class CachedOsmandIndexes {
 		}
 
 		FileIndex fi = fileIndex.build();
-		storedIndexBuilder.addFileIndex(fi);
+		StoredFileIndex stored = new StoredFileIndex();
+		stored.fileName = fi.getFileName();
+		stored.size = fi.getSize();
+		stored.fileIndex = fi;
+		synchronized (this) {
+			if (!hasChanged) {
+				hasChanged = true;
+				dateCreated = System.currentTimeMillis();
+			}
+			storedIndexes.remove(stored.fileName);
+			storedIndexes.put(stored.fileName, stored);
+		}
 		return fi;
 	}
 
@@ -177,11 +211,11 @@ public class CachedOsmandIndexes {
 	}
 
 	public BinaryMapIndexReader getReader(File f, boolean useStoredIndex) throws IOException {
+		long val = System.currentTimeMillis();
 		FileIndex found = useStoredIndex ? getFileIndex(f, false) : null;
 		BinaryMapIndexReader reader = null;
-		RandomAccessFile mf = new RandomAccessFile(f.getPath(), "r");
+		RandomAccessFile mf = BlockCompressedRandomAccessFile.open(f);
 		if (found == null) {
-			long val = System.currentTimeMillis();
 			reader = new BinaryMapIndexReader(mf, f);
 			found = addToCache(reader, f);
 			if (log.isDebugEnabled()) {
@@ -190,24 +224,84 @@ public class CachedOsmandIndexes {
 		} else {
 			reader = initReaderFromFileIndex(found, mf, f);
 		}
+		synchronized (initTimes) {
+			initTimes.put(f.getName(), System.currentTimeMillis() - val);
+		}
 		return reader;
 	}
 
-
-	public FileIndex getFileIndex(File f, boolean init) throws IOException {
-		FileIndex found = null;
-		if (storedIndex != null) {
-			for (int i = 0; i < storedIndex.getFileIndexCount(); i++) {
-				FileIndex fi = storedIndex.getFileIndex(i);
-				if (f.length() == fi.getSize() && f.getName().equals(fi.getFileName())) {
-					// f.lastModified() == fi.getDateModified()
-					found = fi;
-					break;
+	/**
+	 * Opens readers for all files using pool of threads, files which could not be read are logged and skipped.
+	 * @return readers in the order of files
+	 */
+	public Map<File, BinaryMapIndexReader> getReaders(List<File> files, final Collection<File> filesToReindex,
+			int threads) {
+		long val = System.currentTimeMillis();
+		Map<File, BinaryMapIndexReader> readers = new LinkedHashMap<File, BinaryMapIndexReader>();
+		// poi types are lazily initialized by reader constructor, do it before readers are created concurrently
+		MapPoiTypes.getDefault();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+		try {
+			List<Future<BinaryMapIndexReader>> futures = new ArrayList<Future<BinaryMapIndexReader>>();
+			for (final File f : files) {
+				futures.add(executor.submit(new Callable<BinaryMapIndexReader>() {
+					@Override
+					public BinaryMapIndexReader call() throws Exception {
+						return getReader(f, filesToReindex == null || !filesToReindex.contains(f));
+					}
+				}));
+			}
+			for (int i = 0; i < files.size(); i++) {
+				File f = files.get(i);
+				try {
+					readers.put(f, futures.get(i).get());
+				} catch (ExecutionException e) {
+					log.error(String.format("File %s could not be read", f.getName()), e.getCause());
 				}
 			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			executor.shutdownNow();
 		}
+		log.info("Initialized " + readers.size() + " readers in " + (System.currentTimeMillis() - val) + " ms using "
+				+ threads + " threads");
+		return readers;
+	}
+
+	/**
+	 * @return time in ms spent to open reader per file name
+	 */
+	public Map<String, Long> getInitTimes() {
+		synchronized (initTimes) {
+			return new LinkedHashMap<String, Long>(initTimes);
+		}
+	}
+
+	public void logInitTimes(int top) {
+		List<Map.Entry<String, Long>> times = new ArrayList<Map.Entry<String, Long>>(getInitTimes().entrySet());
+		Collections.sort(times, new Comparator<Map.Entry<String, Long>>() {
+			@Override
+			public int compare(Map.Entry<String, Long> o1, Map.Entry<String, Long> o2) {
+				return -Algorithms.compare(o1.getValue(), o2.getValue());
+			}
+		});
+		long total = 0;
+		for (Map.Entry<String, Long> e : times) {
+			total += e.getValue();
+		}
+		StringBuilder sb = new StringBuilder();
+		sb.append("Init ").append(times.size()).append(" files ").append(total).append(" ms total");
+		for (int i = 0; i < Math.min(top, times.size()); i++) {
+			sb.append(", ").append(times.get(i).getKey()).append(" ").append(times.get(i).getValue()).append(" ms");
+		}
+		log.info(sb.toString());
+	}
+
+	public FileIndex getFileIndex(File f, boolean init) throws IOException {
+		FileIndex found = getStoredFileIndex(f);
 		if (found == null && init) {
-			RandomAccessFile mf = new RandomAccessFile(f.getPath(), "r");
+			RandomAccessFile mf = BlockCompressedRandomAccessFile.open(f);
 			long val = System.currentTimeMillis();
 			BinaryMapIndexReader reader = new BinaryMapIndexReader(mf, f);
 			found = addToCache(reader, f);
@@ -241,6 +335,9 @@ public class CachedOsmandIndexes {
 				root.bottom = mr.getBottom();
 				root.minZoom = mr.getMinzoom();
 				root.maxZoom = mr.getMaxzoom();
+				if (mr.hasBoxes()) {
+					root.packedTreesData = mr.getBoxes().toByteArray();
+				}
 				mi.roots.add(root);
 			}
 			reader.mapIndexes.add(mi);
@@ -305,56 +402,197 @@ public class CachedOsmandIndexes {
 			mi.length = (int) index.getSize();
 			mi.filePointer = (int) index.getOffset();
 			mi.name = index.getName();
-
-			for (RoutingSubregion mr : index.getSubregionsList()) {
-				RouteSubregion sub = new RouteSubregion(mi);
-				sub.length = (int) mr.getSize();
-				sub.filePointer = (int) mr.getOffset();
-				sub.left = mr.getLeft();
-				sub.right = mr.getRight();
-				sub.top = mr.getTop();
-				sub.bottom = mr.getBottom();
-				sub.shiftToData = mr.getShifToData();
-				if (mr.getBasemap()) {
-					mi.basesubregions.add(sub);
-				} else {
-					mi.subregions.add(sub);
-				}
-			}
+			// subregions are created on first access
+			mi.cachedRoutingPart = index;
 			reader.routingIndexes.add(mi);
 			reader.indexes.add(mi);
 		}
 
 		return reader;
 	}
-	
 
-	public void readFromFile(File f, int version) throws IOException {
+	static void initRouteSubregions(RouteRegion mi, RoutingPart index) {
+		for (RoutingSubregion mr : index.getSubregionsList()) {
+			RouteSubregion sub = new RouteSubregion(mi);
+			sub.length = (int) mr.getSize();
+			sub.filePointer = (int) mr.getOffset();
+			sub.left = mr.getLeft();
+			sub.right = mr.getRight();
+			sub.top = mr.getTop();
+			sub.bottom = mr.getBottom();
+			sub.shiftToData = mr.getShifToData();
+			if (mr.getBasemap()) {
+				mi.basesubregions.add(sub);
+			} else {
+				mi.subregions.add(sub);
+			}
+		}
+	}
+
+	private synchronized FileIndex getStoredFileIndex(File f) throws IOException {
+		StoredFileIndex stored = storedIndexes.get(f.getName());
+		if (stored == null || stored.size != f.length()) {
+			// f.lastModified() == fi.getDateModified()
+			return null;
+		}
+		if (stored.fileIndex == null) {
+			stored.fileIndex = FileIndex.parseFrom(getStoredData(stored));
+		}
+		return stored.fileIndex;
+	}
+
+	private byte[] getStoredData(StoredFileIndex stored) {
+		return getStoredData(stored, storedIndexBuffer);
+	}
+
+	private static byte[] getStoredData(StoredFileIndex stored, ByteBuffer storedBuffer) {
+		if (stored.data == null) {
+			byte[] data = new byte[stored.length];
+			ByteBuffer buf = storedBuffer.duplicate();
+			buf.position(stored.offset);
+			buf.get(data);
+			stored.data = data;
+		}
+		return stored.data;
+	}
+
+	/**
+	 * Maps cache file into memory and reads only names and sizes of stored files,
+	 * file index itself is parsed when reader for the file is requested.
+	 */
+	public synchronized void readFromFile(File f, int version) throws IOException {
 		long time = System.currentTimeMillis();
-		FileInputStream is = new FileInputStream(f);
+		storedIndexes.clear();
+		storedIndexBuffer = null;
+		RandomAccessFile raf = new RandomAccessFile(f, "r");
 		try {
-			storedIndex = OsmandIndex.OsmAndStoredIndex.newBuilder().mergeFrom(is).build();
+			FileChannel channel = raf.getChannel();
+			MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
 			hasChanged = false;
-			if (storedIndex.getVersion() != version) {
-				storedIndex = null;
+			int storedVersion = -1;
+			while (buf.hasRemaining()) {
+				int t = readRawVarint32(buf);
+				int tag = WireFormat.getTagFieldNumber(t);
+				if (tag == OsmAndStoredIndex.VERSION_FIELD_NUMBER) {
+					storedVersion = readRawVarint32(buf);
+				} else if (tag == OsmAndStoredIndex.DATECREATED_FIELD_NUMBER) {
+					dateCreated = readRawVarint64(buf);
+				} else if (tag == OsmAndStoredIndex.FILEINDEX_FIELD_NUMBER) {
+					StoredFileIndex stored = new StoredFileIndex();
+					stored.length = readRawVarint32(buf);
+					stored.offset = buf.position();
+					readStoredFileIndexHeader(buf, stored);
+					buf.position(stored.offset + stored.length);
+					if (stored.fileName != null) {
+						storedIndexes.put(stored.fileName, stored);
+					}
+				} else {
+					skipField(buf, t);
+				}
+			}
+			if (storedVersion != version) {
+				storedIndexes.clear();
+			} else {
+				storedIndexBuffer = buf;
 			}
 		} finally {
-			is.close();
+			raf.close();
 		}
-		log.info("Initialize cache " + (System.currentTimeMillis() - time));
+		log.info("Initialize cache " + (System.currentTimeMillis() - time) + " ms, " + storedIndexes.size() + " files");
 	}
 
-	public void writeToFile(File f) throws IOException {
+	private void readStoredFileIndexHeader(ByteBuffer buf, StoredFileIndex stored) throws IOException {
+		byte[] header = new byte[Math.min(stored.length, FILE_INDEX_HEADER_SIZE)];
+		buf.get(header);
+		CodedInputStream cis = CodedInputStream.newInstance(header);
+		try {
+			while (stored.fileName == null) {
+				int t = cis.readTag();
+				int tag = WireFormat.getTagFieldNumber(t);
+				if (tag == 0) {
+					break;
+				} else if (tag == FileIndex.SIZE_FIELD_NUMBER) {
+					stored.size = cis.readInt64();
+				} else if (tag == FileIndex.FILENAME_FIELD_NUMBER) {
+					stored.fileName = cis.readString();
+				} else {
+					cis.skipField(t);
+				}
+			}
+		} catch (InvalidProtocolBufferException e) {
+			// header is bigger than expected, parse whole message (buffer is not stored while cache is read)
+			FileIndex fileIndex = FileIndex.parseFrom(getStoredData(stored, buf));
+			stored.fileIndex = fileIndex;
+			stored.fileName = fileIndex.getFileName();
+			stored.size = fileIndex.getSize();
+		}
+	}
+
+	private static int readRawVarint32(ByteBuffer buf) {
+		return (int) readRawVarint64(buf);
+	}
+
+	private static long readRawVarint64(ByteBuffer buf) {
+		int shift = 0;
+		long result = 0;
+		while (shift < 64) {
+			byte b = buf.get();
+			result |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return result;
+			}
+			shift += 7;
+		}
+		throw new IllegalStateException("Malformed varint");
+	}
+
+	private static void skipField(ByteBuffer buf, int t) throws IOException {
+		switch (WireFormat.getTagWireType(t)) {
+		case WireFormat.WIRETYPE_VARINT:
+			readRawVarint64(buf);
+			break;
+		case WireFormat.WIRETYPE_FIXED64:
+			buf.position(buf.position() + 8);
+			break;
+		case WireFormat.WIRETYPE_LENGTH_DELIMITED:
+			int len = readRawVarint32(buf);
+			buf.position(buf.position() + len);
+			break;
+		case WireFormat.WIRETYPE_FIXED32:
+			buf.position(buf.position() + 4);
+			break;
+		default:
+			throw new InvalidProtocolBufferException("Protocol message tag had invalid wire type.");
+		}
+	}
+
+	public synchronized void writeToFile(File f) throws IOException {
 		if (hasChanged) {
+			// load not parsed indexes before file is overwritten, mapped buffer is not valid after that
+			for (StoredFileIndex stored : storedIndexes.values()) {
+				if (stored.fileIndex == null) {
+					getStoredData(stored);
+				}
+			}
+			storedIndexBuffer = null;
 			FileOutputStream outputStream = new FileOutputStream(f);
 			try {
-				storedIndexBuilder.build().writeTo(outputStream);
+				CodedOutputStream cos = CodedOutputStream.newInstance(outputStream);
+				cos.writeUInt32(OsmAndStoredIndex.VERSION_FIELD_NUMBER, VERSION);
+				cos.writeInt64(OsmAndStoredIndex.DATECREATED_FIELD_NUMBER, dateCreated);
+				for (StoredFileIndex stored : storedIndexes.values()) {
+					if (stored.fileIndex != null) {
+						cos.writeMessage(OsmAndStoredIndex.FILEINDEX_FIELD_NUMBER, stored.fileIndex);
+					} else {
+						cos.writeBytes(OsmAndStoredIndex.FILEINDEX_FIELD_NUMBER, ByteString.copyFrom(stored.data));
+					}
+				}
+				cos.flush();
 			} finally {
 				outputStream.close();
 			}
+			hasChanged = false;
 		}
 	}
 
-	
-
 }
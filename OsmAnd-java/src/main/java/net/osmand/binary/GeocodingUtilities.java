@@ -50,6 +50,9 @@ public class GeocodingUtilities {
 	public static final float THRESHOLD_MULTIPLIER_SKIP_BUILDINGS_AFTER = 1.5f;
 	public static final float DISTANCE_BUILDING_PROXIMITY = 100;
 
+	static final int STREETS_CACHE_ZOOM = 11;
+	static final int MAX_CACHED_STREETS = 5000;
+
 
 	public static final Comparator<GeocodingResult> DISTANCE_COMPARATOR = new Comparator<GeocodingResult>() {
 
@@ -145,6 +148,34 @@ public class GeocodingUtilities {
 	}
 
 
+	// streets found by name per reader, key is street name and cell of the road, null if not cached
+	private Map<BinaryMapIndexReader, Map<String, List<Street>>> streetsCache;
+	private int streetsCacheSize;
+
+	public GeocodingUtilities() {
+	}
+
+	/**
+	 * @param cacheStreets keep streets found by name (with loaded buildings) between searches,
+	 * so reverse geocoding of close points doesn't read same address data again
+	 */
+	public GeocodingUtilities(boolean cacheStreets) {
+		if (cacheStreets) {
+			streetsCache = new HashMap<BinaryMapIndexReader, Map<String, List<Street>>>();
+		}
+	}
+
+	public void clearStreetsCache() {
+		if (streetsCache != null) {
+			streetsCache.clear();
+			streetsCacheSize = 0;
+		}
+	}
+
+	int getStreetsCacheSize() {
+		return streetsCacheSize;
+	}
+
 	public List<GeocodingResult> reverseGeocodingSearch(RoutingContext ctx, double lat, double lon, boolean allowEmptyNames) throws IOException {
 		RoutePlannerFrontEnd rp = new RoutePlannerFrontEnd();
 		List<GeocodingResult> lst = new ArrayList<GeocodingUtilities.GeocodingResult>();
@@ -249,36 +280,19 @@ public class GeocodingUtilities {
 					mainWord = s;
 				}
 			}
-			SearchRequest<MapObject> req = BinaryMapIndexReader.buildAddressByNameRequest(
-					new ResultMatcher<MapObject>() {
-						@Override
-						public boolean publish(MapObject object) {
-							if (object instanceof Street
-									&& prepareStreetName(object.getName(), addCommonWordsFinal).equals(streetNamesUsedFinal)) {
-								double d = MapUtils.getDistance(object.getLocation(), road.searchPoint.getLatitude(),
-										road.searchPoint.getLongitude());
-								// double check to suport old format
-								if (d < DISTANCE_STREET_NAME_PROXIMITY_BY_NAME) {
-									GeocodingResult rs = new GeocodingResult(road);
-									rs.street = (Street) object;
-									// set connection point to sort
-									rs.connectionPoint = rs.street.getLocation();
-									rs.city = rs.street.getCity();
-									streetsList.add(rs);
-									return true;
-								}
-								return false;
-							}
-							return false;
-						}
-
-						@Override
-						public boolean isCancelled() {
-							return result != null && result.isCancelled();
-						}
-					}, mainWord, StringMatcherMode.CHECK_EQUALS_FROM_SPACE);
-			req.setBBoxRadius(road.getLocation().getLatitude(), road.getLocation().getLongitude(), DISTANCE_STREET_NAME_PROXIMITY_BY_NAME);
-			reader.searchAddressDataByName(req);
+			for (Street street : searchStreets(road, reader, mainWord, addCommonWordsFinal, streetNamesUsedFinal, result)) {
+				double d = MapUtils.getDistance(street.getLocation(), road.searchPoint.getLatitude(),
+						road.searchPoint.getLongitude());
+				// double check to suport old format
+				if (d < DISTANCE_STREET_NAME_PROXIMITY_BY_NAME) {
+					GeocodingResult rs = new GeocodingResult(road);
+					rs.street = street;
+					// set connection point to sort
+					rs.connectionPoint = rs.street.getLocation();
+					rs.city = rs.street.getCity();
+					streetsList.add(rs);
+				}
+			}
 		}
 
 		final List<GeocodingResult> res = new ArrayList<GeocodingResult>();
@@ -322,6 +336,64 @@ public class GeocodingUtilities {
 		return res;
 	}
 
+	private List<Street> searchStreets(GeocodingResult road, BinaryMapIndexReader reader, String mainWord,
+			final boolean addCommonWords, final List<String> streetNames, final ResultMatcher<GeocodingResult> result)
+			throws IOException {
+		LatLon location = road.getLocation();
+		int radius = DISTANCE_STREET_NAME_PROXIMITY_BY_NAME;
+		String key = null;
+		Map<String, List<Street>> readerCache = null;
+		if (streetsCache != null) {
+			// search around the cell so streets are valid for any road inside the cell
+			int x = (int) MapUtils.getTileNumberX(STREETS_CACHE_ZOOM, location.getLongitude());
+			int y = (int) MapUtils.getTileNumberY(STREETS_CACHE_ZOOM, location.getLatitude());
+			double cellTop = MapUtils.getLatitudeFromTile(STREETS_CACHE_ZOOM, y);
+			double cellLeft = MapUtils.getLongitudeFromTile(STREETS_CACHE_ZOOM, x);
+			location = new LatLon(MapUtils.getLatitudeFromTile(STREETS_CACHE_ZOOM, y + 0.5),
+					MapUtils.getLongitudeFromTile(STREETS_CACHE_ZOOM, x + 0.5));
+			radius += (int) Math.ceil(MapUtils.getDistance(location, cellTop, cellLeft));
+			key = x + "_" + y + "_" + road.streetName;
+			readerCache = streetsCache.get(reader);
+			if (readerCache == null) {
+				readerCache = new HashMap<String, List<Street>>();
+				streetsCache.put(reader, readerCache);
+			}
+			List<Street> streets = readerCache.get(key);
+			if (streets != null) {
+				return streets;
+			}
+		}
+		final List<Street> streets = new ArrayList<Street>();
+		SearchRequest<MapObject> req = BinaryMapIndexReader.buildAddressByNameRequest(
+				new ResultMatcher<MapObject>() {
+					@Override
+					public boolean publish(MapObject object) {
+						if (object instanceof Street
+								&& prepareStreetName(object.getName(), addCommonWords).equals(streetNames)) {
+							streets.add((Street) object);
+						}
+						return false;
+					}
+
+					@Override
+					public boolean isCancelled() {
+						return result != null && result.isCancelled();
+					}
+				}, mainWord, StringMatcherMode.CHECK_EQUALS_FROM_SPACE);
+		req.setBBoxRadius(location.getLatitude(), location.getLongitude(), radius);
+		reader.searchAddressDataByName(req);
+		if (readerCache != null && (result == null || !result.isCancelled())) {
+			if (streetsCacheSize + streets.size() > MAX_CACHED_STREETS) {
+				clearStreetsCache();
+				readerCache = new HashMap<String, List<Street>>();
+				streetsCache.put(reader, readerCache);
+			}
+			streetsCacheSize += streets.size();
+			readerCache.put(key, streets);
+		}
+		return streets;
+	}
+
 	public void filterDuplicateRegionResults(final List<GeocodingResult> res) {
 		Collections.sort(res, DISTANCE_COMPARATOR);
 		// filter duplicate city results (when building is in both regions on boundary)
@@ -369,8 +441,10 @@ public class GeocodingUtilities {
 	private List<GeocodingResult> loadStreetBuildings(final GeocodingResult road, BinaryMapIndexReader reader,
 			GeocodingResult street) throws IOException {
 		final List<GeocodingResult> streetBuildings = new ArrayList<GeocodingResult>();
-		reader.preloadBuildings(street.street, null);
-		log.info("Preload buildings " + street.street.getName() + " " + street.city.getName() + " " + street.street.getId());
+		if (streetsCache == null || street.street.getBuildings().isEmpty()) {
+			reader.preloadBuildings(street.street, null);
+			log.info("Preload buildings " + street.street.getName() + " " + street.city.getName() + " " + street.street.getId());
+		}
 		for (Building b : street.street.getBuildings()) {
 			if (b.getLatLon2() != null) {
 				double slat = b.getLocation().getLatitude();
@@ -0,0 +1,195 @@
+package net.osmand.binary;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.WireFormat;
+
+import net.osmand.Collator;
+import net.osmand.CollatorStringMatcher;
+import net.osmand.CollatorStringMatcher.StringMatcherMode;
+import net.osmand.LevenshteinAutomaton;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import gnu.trove.list.array.TIntArrayList;
+
+/**
+ * In-memory copy of OBF name index (IndexedStringTable of poi and address name index sections).
+ * Table is read once and then prefix queries are answered without file access and protobuf decoding,
+ * giving same offsets as {@link BinaryMapIndexReader#readIndexedStringTable}.
+ * Keys are stored with prefix of parent key, values are offsets relative to the name index data.
+ * Instance is immutable and can be shared between readers of the same file.
+ */
+public class IndexedStringTableTrie {
+
+	private static final int[] EMPTY = new int[0];
+
+	private final String[] keys;
+	private final int[][] values;
+	private final IndexedStringTableTrie[] subtables;
+
+	private IndexedStringTableTrie(String[] keys, int[][] values, IndexedStringTableTrie[] subtables) {
+		this.keys = keys;
+		this.values = values;
+		this.subtables = subtables;
+	}
+
+	static IndexedStringTableTrie read(BinaryMapIndexReader reader, String prefix) throws IOException {
+		CodedInputStream codedIS = reader.codedIS;
+		List<String> keys = new ArrayList<String>();
+		List<TIntArrayList> values = new ArrayList<TIntArrayList>();
+		List<IndexedStringTableTrie> subtables = new ArrayList<IndexedStringTableTrie>();
+		while (true) {
+			int t = codedIS.readTag();
+			int tag = WireFormat.getTagFieldNumber(t);
+			switch (tag) {
+			case 0:
+				int[][] vals = new int[values.size()][];
+				for (int i = 0; i < vals.length; i++) {
+					vals[i] = values.get(i).isEmpty() ? EMPTY : values.get(i).toArray();
+				}
+				return new IndexedStringTableTrie(keys.toArray(new String[0]), vals,
+						subtables.toArray(new IndexedStringTableTrie[0]));
+			case OsmandOdb.IndexedStringTable.KEY_FIELD_NUMBER:
+				String key = codedIS.readString();
+				keys.add(prefix.length() > 0 ? prefix + key : key);
+				values.add(new TIntArrayList(1));
+				subtables.add(null);
+				break;
+			case OsmandOdb.IndexedStringTable.VAL_FIELD_NUMBER:
+				int val = reader.readInt();
+				if (!values.isEmpty()) {
+					values.get(values.size() - 1).add(val);
+				}
+				break;
+			case OsmandOdb.IndexedStringTable.SUBTABLES_FIELD_NUMBER:
+				int len = codedIS.readRawVarint32();
+				int oldLim = codedIS.pushLimit(len);
+				if (!keys.isEmpty()) {
+					subtables.set(subtables.size() - 1, read(reader, keys.get(keys.size() - 1)));
+				} else {
+					codedIS.skipRawBytes(codedIS.getBytesUntilLimit());
+				}
+				codedIS.popLimit(oldLim);
+				break;
+			default:
+				reader.skipUnknownField(t);
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Same matching as {@link BinaryMapIndexReader#readIndexedStringTable}: for every query collects offsets
+	 * of the longest keys which start with query or which query starts with.
+	 */
+	public void search(Collator instance, List<String> queries, List<TIntArrayList> listOffsets,
+					   TIntArrayList matchedCharacters) {
+		boolean[] matched = new boolean[queries.size()];
+		for (int k = 0; k < keys.length; k++) {
+			String key = keys[k];
+			boolean shouldWeReadSubtable = false;
+			for (int i = 0; i < queries.size(); i++) {
+				int charMatches = matchedCharacters.get(i);
+				String query = queries.get(i);
+				matched[i] = false;
+				if (query == null) {
+					continue;
+				}
+				if (CollatorStringMatcher.cmatches(instance, key, query, StringMatcherMode.CHECK_ONLY_STARTS_WITH)) {
+					if (query.length() >= charMatches) {
+						if (query.length() > charMatches) {
+							matchedCharacters.set(i, query.length());
+							listOffsets.get(i).clear();
+						}
+						matched[i] = true;
+					}
+				} else if (CollatorStringMatcher.cmatches(instance, query, key, StringMatcherMode.CHECK_ONLY_STARTS_WITH)) {
+					if (key.length() >= charMatches) {
+						if (key.length() > charMatches) {
+							matchedCharacters.set(i, key.length());
+							listOffsets.get(i).clear();
+						}
+						matched[i] = true;
+					}
+				}
+				if (matched[i]) {
+					listOffsets.get(i).add(values[k]);
+				}
+				shouldWeReadSubtable |= matched[i];
+			}
+			if (shouldWeReadSubtable && subtables[k] != null) {
+				List<String> subqueries = new ArrayList<String>(queries);
+				// reset query so we don't search what was not matched
+				for (int i = 0; i < queries.size(); i++) {
+					if (!matched[i]) {
+						subqueries.set(i, null);
+					}
+				}
+				subtables[k].search(instance, subqueries, listOffsets, matchedCharacters);
+			}
+		}
+	}
+
+	/**
+	 * Typo tolerant search: collects offsets of the deepest keys accepted by automaton
+	 * while number of collected offsets is less than limit.
+	 * @return true if anything was found
+	 */
+	public boolean searchFuzzy(LevenshteinAutomaton automaton, TIntArrayList offsets, int limit) {
+		return searchFuzzy(automaton, automaton.start(), 0, offsets, limit);
+	}
+
+	private boolean searchFuzzy(LevenshteinAutomaton automaton, int[] parentState, int prefixLength,
+								TIntArrayList offsets, int limit) {
+		boolean found = false;
+		for (int k = 0; k < keys.length && offsets.size() < limit; k++) {
+			String key = keys[k];
+			int[] state = parentState;
+			for (int i = prefixLength; i < key.length() && automaton.canMatch(state); i++) {
+				state = automaton.step(state, key.charAt(i));
+			}
+			if (!automaton.canMatch(state)) {
+				continue;
+			}
+			boolean match = automaton.isMatch(state);
+			if (match) {
+				// all names with this key as prefix match
+				addOffsets(values[k], offsets, limit);
+			}
+			boolean foundInSubtable = subtables[k] != null
+					&& subtables[k].searchFuzzy(automaton, state, key.length(), offsets, limit);
+			if (!match && !foundInSubtable) {
+				// name index doesn't go deeper, names are checked after reading
+				addOffsets(values[k], offsets, limit);
+			}
+			found = true;
+		}
+		return found;
+	}
+
+	private static void addOffsets(int[] vals, TIntArrayList offsets, int limit) {
+		for (int i = 0; i < vals.length && offsets.size() < limit; i++) {
+			if (!offsets.contains(vals[i])) {
+				offsets.add(vals[i]);
+			}
+		}
+	}
+
+	public int size() {
+		int size = keys.length;
+		for (IndexedStringTableTrie s : subtables) {
+			if (s != null) {
+				size += s.size();
+			}
+		}
+		return size;
+	}
+
+	@Override
+	public String toString() {
+		return "IndexedStringTableTrie " + Arrays.toString(keys);
+	}
+}
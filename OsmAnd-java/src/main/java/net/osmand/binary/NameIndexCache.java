@@ -0,0 +1,113 @@
+package net.osmand.binary;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache of poi and address name indexes read to memory ({@link IndexedStringTableTrie}) by search by name,
+ * so following searches don't read them from file. Trie is stored per file and file pointer of name index.
+ * Least recently used tries are evicted when total number of keys exceeds the limit.
+ * Could be shared by readers of different files.
+ */
+public class NameIndexCache {
+
+	public static final int DEFAULT_MAX_KEYS = 100000;
+
+	private final int maxKeys;
+	private int size;
+	private final LinkedHashMap<TrieKey, IndexedStringTableTrie> tries = new LinkedHashMap<TrieKey, IndexedStringTableTrie>(16, 0.75f, true);
+	private final Map<TrieKey, Integer> sizes = new LinkedHashMap<TrieKey, Integer>();
+
+	private static class TrieKey {
+		private final File file;
+		private final int filePointer;
+
+		TrieKey(File file, int filePointer) {
+			this.file = file;
+			this.filePointer = filePointer;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * (file == null ? 0 : file.hashCode()) + filePointer;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (obj == null || getClass() != obj.getClass()) {
+				return false;
+			}
+			TrieKey other = (TrieKey) obj;
+			return filePointer == other.filePointer && (file == null ? other.file == null : file.equals(other.file));
+		}
+	}
+
+	public NameIndexCache() {
+		this(DEFAULT_MAX_KEYS);
+	}
+
+	public NameIndexCache(int maxKeys) {
+		this.maxKeys = maxKeys;
+	}
+
+	/**
+	 * @return name index or null if it is not cached
+	 */
+	public synchronized IndexedStringTableTrie get(File file, int filePointer) {
+		return tries.get(new TrieKey(file, filePointer));
+	}
+
+	public synchronized void put(File file, int filePointer, IndexedStringTableTrie trie) {
+		TrieKey key = new TrieKey(file, filePointer);
+		Integer old = sizes.remove(key);
+		if (old != null) {
+			size -= old;
+		}
+		int keys = trie.size();
+		tries.put(key, trie);
+		sizes.put(key, keys);
+		size += keys;
+		Iterator<Map.Entry<TrieKey, IndexedStringTableTrie>> it = tries.entrySet().iterator();
+		while (size > maxKeys && it.hasNext()) {
+			Map.Entry<TrieKey, IndexedStringTableTrie> e = it.next();
+			if (e.getKey().equals(key)) {
+				continue;
+			}
+			size -= sizes.remove(e.getKey());
+			it.remove();
+		}
+	}
+
+	/**
+	 * Removes name indexes of closed file, file pointers are not valid for updated file.
+	 */
+	public synchronized void remove(File file) {
+		Iterator<Map.Entry<TrieKey, IndexedStringTableTrie>> it = tries.entrySet().iterator();
+		while (it.hasNext()) {
+			TrieKey key = it.next().getKey();
+			if (file == null ? key.file == null : file.equals(key.file)) {
+				size -= sizes.remove(key);
+				it.remove();
+			}
+		}
+	}
+
+	public synchronized int getTriesCount() {
+		return tries.size();
+	}
+
+	public synchronized int getKeysCount() {
+		return size;
+	}
+
+	public synchronized void clear() {
+		tries.clear();
+		sizes.clear();
+		size = 0;
+	}
+}
@@ -5272,6 +5272,24 @@ public final class OsmandIndex {
      * <code>optional int32 maxzoom = 9;</code>
      */
     int getMaxzoom();
+
+    // optional bytes boxes = 10;
+    /**
+     * <code>optional bytes boxes = 10;</code>
+     *
+     * <pre>
+     * packed leaf boxes of the level tree (see PackedMapTreeIndex)
+     * </pre>
+     */
+    boolean hasBoxes();
+    /**
+     * <code>optional bytes boxes = 10;</code>
+     *
+     * <pre>
+     * packed leaf boxes of the level tree (see PackedMapTreeIndex)
+     * </pre>
+     */
+    com.google.protobuf.ByteString getBoxes();
   }
   /**
    * Protobuf type {@code OsmAnd.OBF.MapLevel}
@@ -5356,6 +5374,11 @@ public final class OsmandIndex {
               maxzoom_ = input.readInt32();
               break;
             }
+            case 82: {
+              bitField0_ |= 0x00000100;
+              boxes_ = input.readBytes();
+              break;
+            }
           }
         }
       } catch (com.google.protobuf.InvalidProtocolBufferException e) {
@@ -5511,6 +5534,30 @@ public final class OsmandIndex {
       return maxzoom_;
     }
 
+    // optional bytes boxes = 10;
+    public static final int BOXES_FIELD_NUMBER = 10;
+    private com.google.protobuf.ByteString boxes_;
+    /**
+     * <code>optional bytes boxes = 10;</code>
+     *
+     * <pre>
+     * packed leaf boxes of the level tree (see PackedMapTreeIndex)
+     * </pre>
+     */
+    public boolean hasBoxes() {
+      return ((bitField0_ & 0x00000100) == 0x00000100);
+    }
+    /**
+     * <code>optional bytes boxes = 10;</code>
+     *
+     * <pre>
+     * packed leaf boxes of the level tree (see PackedMapTreeIndex)
+     * </pre>
+     */
+    public com.google.protobuf.ByteString getBoxes() {
+      return boxes_;
+    }
+
     private void initFields() {
       size_ = 0L;
       offset_ = 0L;
@@ -5520,6 +5567,7 @@ public final class OsmandIndex {
       bottom_ = 0;
       minzoom_ = 0;
       maxzoom_ = 0;
+      boxes_ = com.google.protobuf.ByteString.EMPTY;
     }
     private byte memoizedIsInitialized = -1;
     public final boolean isInitialized() {
@@ -5581,6 +5629,9 @@ public final class OsmandIndex {
       if (((bitField0_ & 0x00000080) == 0x00000080)) {
         output.writeInt32(9, maxzoom_);
       }
+      if (((bitField0_ & 0x00000100) == 0x00000100)) {
+        output.writeBytes(10, boxes_);
+      }
     }
 
     private int memoizedSerializedSize = -1;
@@ -5621,6 +5672,10 @@ public final class OsmandIndex {
         size += com.google.protobuf.CodedOutputStream
           .computeInt32Size(9, maxzoom_);
       }
+      if (((bitField0_ & 0x00000100) == 0x00000100)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeBytesSize(10, boxes_);
+      }
       memoizedSerializedSize = size;
       return size;
     }
@@ -5728,6 +5783,8 @@ public final class OsmandIndex {
         bitField0_ = (bitField0_ & ~0x00000040);
         maxzoom_ = 0;
         bitField0_ = (bitField0_ & ~0x00000080);
+        boxes_ = com.google.protobuf.ByteString.EMPTY;
+        bitField0_ = (bitField0_ & ~0x00000100);
         return this;
       }
 
@@ -5783,6 +5840,10 @@ public final class OsmandIndex {
           to_bitField0_ |= 0x00000080;
         }
         result.maxzoom_ = maxzoom_;
+        if (((from_bitField0_ & 0x00000100) == 0x00000100)) {
+          to_bitField0_ |= 0x00000100;
+        }
+        result.boxes_ = boxes_;
         result.bitField0_ = to_bitField0_;
         return result;
       }
@@ -5813,6 +5874,9 @@ public final class OsmandIndex {
         if (other.hasMaxzoom()) {
           setMaxzoom(other.getMaxzoom());
         }
+        if (other.hasBoxes()) {
+          setBoxes(other.getBoxes());
+        }
         return this;
       }
 
@@ -6127,6 +6191,58 @@ public final class OsmandIndex {
         return this;
       }
 
+      // optional bytes boxes = 10;
+      private com.google.protobuf.ByteString boxes_ = com.google.protobuf.ByteString.EMPTY;
+      /**
+       * <code>optional bytes boxes = 10;</code>
+       *
+       * <pre>
+       * packed leaf boxes of the level tree (see PackedMapTreeIndex)
+       * </pre>
+       */
+      public boolean hasBoxes() {
+        return ((bitField0_ & 0x00000100) == 0x00000100);
+      }
+      /**
+       * <code>optional bytes boxes = 10;</code>
+       *
+       * <pre>
+       * packed leaf boxes of the level tree (see PackedMapTreeIndex)
+       * </pre>
+       */
+      public com.google.protobuf.ByteString getBoxes() {
+        return boxes_;
+      }
+      /**
+       * <code>optional bytes boxes = 10;</code>
+       *
+       * <pre>
+       * packed leaf boxes of the level tree (see PackedMapTreeIndex)
+       * </pre>
+       */
+      public Builder setBoxes(com.google.protobuf.ByteString value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  bitField0_ |= 0x00000100;
+        boxes_ = value;
+        
+        return this;
+      }
+      /**
+       * <code>optional bytes boxes = 10;</code>
+       *
+       * <pre>
+       * packed leaf boxes of the level tree (see PackedMapTreeIndex)
+       * </pre>
+       */
+      public Builder clearBoxes() {
+        bitField0_ = (bitField0_ & ~0x00000100);
+        boxes_ = getDefaultInstance().getBoxes();
+        
+        return this;
+      }
+
       // @@protoc_insertion_point(builder_scope:OsmAnd.OBF.MapLevel)
     }
 
@@ -0,0 +1,272 @@
+package net.osmand.binary;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.list.array.TLongArrayList;
+
+/**
+ * Flattened in-memory copy of the box tree of one map root level.
+ * Only boxes which point to map data (or carry an ocean flag) are stored,
+ * they are sorted along the Hilbert curve and grouped into a packed R-tree,
+ * so viewport query finds data blocks without seeking through nested boxes in the file.
+ * Leaf boxes are persisted in {@link CachedOsmandIndexes} as a varint byte array.
+ */
+public class PackedMapTreeIndex {
+
+	public static final int NODE_SIZE = 16;
+
+	private static final int OCEAN_UNDEFINED = 0;
+	private static final int OCEAN_FALSE = 1;
+	private static final int OCEAN_TRUE = 2;
+
+	private static final int HILBERT_BITS = 16;
+
+	private final int size;
+	// left, top, right, bottom for every node (leaves first, then upper levels)
+	private final int[] boxes;
+	// end of each level in nodes, last level contains only root
+	private final int[] levelBounds;
+	private final long[] dataBlocks;
+	private final byte[] ocean;
+
+	private PackedMapTreeIndex(int size, int[] leafBoxes, long[] dataBlocks, byte[] ocean) {
+		this.size = size;
+		this.dataBlocks = dataBlocks;
+		this.ocean = ocean;
+		TIntArrayList levels = new TIntArrayList();
+		int n = size;
+		int numNodes = n;
+		levels.add(n);
+		while (n > 1) {
+			n = (n + NODE_SIZE - 1) / NODE_SIZE;
+			numNodes += n;
+			levels.add(numNodes);
+		}
+		levelBounds = levels.toArray();
+		boxes = new int[numNodes * 4];
+		System.arraycopy(leafBoxes, 0, boxes, 0, size * 4);
+		int pos = 0;
+		for (int l = 0; l < levelBounds.length - 1; l++) {
+			int end = levelBounds[l];
+			int parent = end;
+			while (pos < end) {
+				int childEnd = Math.min(pos + NODE_SIZE, end);
+				int left = Integer.MAX_VALUE;
+				int top = Integer.MAX_VALUE;
+				int right = Integer.MIN_VALUE;
+				int bottom = Integer.MIN_VALUE;
+				for (; pos < childEnd; pos++) {
+					left = Math.min(left, boxes[pos * 4]);
+					top = Math.min(top, boxes[pos * 4 + 1]);
+					right = Math.max(right, boxes[pos * 4 + 2]);
+					bottom = Math.max(bottom, boxes[pos * 4 + 3]);
+				}
+				boxes[parent * 4] = left;
+				boxes[parent * 4 + 1] = top;
+				boxes[parent * 4 + 2] = right;
+				boxes[parent * 4 + 3] = bottom;
+				parent++;
+			}
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int getLeft(int ind) {
+		return boxes[ind * 4];
+	}
+
+	public int getTop(int ind) {
+		return boxes[ind * 4 + 1];
+	}
+
+	public int getRight(int ind) {
+		return boxes[ind * 4 + 2];
+	}
+
+	public int getBottom(int ind) {
+		return boxes[ind * 4 + 3];
+	}
+
+	/**
+	 * @return absolute file pointer of map data block or 0 if box has no data
+	 */
+	public long getDataBlock(int ind) {
+		return dataBlocks[ind];
+	}
+
+	public Boolean getOcean(int ind) {
+		if (ocean[ind] == OCEAN_UNDEFINED) {
+			return null;
+		}
+		return ocean[ind] == OCEAN_TRUE;
+	}
+
+	/**
+	 * Collects indexes of leaf boxes intersecting the given 31-tile bbox
+	 */
+	public TIntArrayList search(int left, int top, int right, int bottom, TIntArrayList result) {
+		if (size == 0) {
+			return result;
+		}
+		TIntArrayList queue = new TIntArrayList();
+		int level = levelBounds.length - 1;
+		int node = levelBounds[level] - 1;
+		while (true) {
+			int end = Math.min(node + NODE_SIZE, levelBounds[level]);
+			for (int pos = node; pos < end; pos++) {
+				if (boxes[pos * 4 + 2] < left || boxes[pos * 4] > right || boxes[pos * 4 + 1] > bottom
+						|| boxes[pos * 4 + 3] < top) {
+					continue;
+				}
+				if (level == 0) {
+					result.add(pos);
+				} else {
+					// first child of the node on the lower level
+					int childLevelStart = level == 1 ? 0 : levelBounds[level - 2];
+					int nodeInLevel = pos - levelBounds[level - 1];
+					queue.add(childLevelStart + nodeInLevel * NODE_SIZE);
+					queue.add(level - 1);
+				}
+			}
+			if (queue.isEmpty()) {
+				break;
+			}
+			level = queue.removeAt(queue.size() - 1);
+			node = queue.removeAt(queue.size() - 1);
+		}
+		return result;
+	}
+
+	public byte[] toByteArray() throws IOException {
+		ByteArrayOutputStream bous = new ByteArrayOutputStream();
+		CodedOutputStream cos = CodedOutputStream.newInstance(bous);
+		cos.writeUInt32NoTag(size);
+		int pleft = 0, ptop = 0;
+		long pblock = 0;
+		for (int i = 0; i < size; i++) {
+			int left = getLeft(i);
+			int top = getTop(i);
+			cos.writeSInt32NoTag(left - pleft);
+			cos.writeSInt32NoTag(top - ptop);
+			cos.writeUInt32NoTag(getRight(i) - left);
+			cos.writeUInt32NoTag(getBottom(i) - top);
+			cos.writeSInt64NoTag(dataBlocks[i] - pblock);
+			cos.writeUInt32NoTag(ocean[i]);
+			pleft = left;
+			ptop = top;
+			pblock = dataBlocks[i];
+		}
+		cos.flush();
+		return bous.toByteArray();
+	}
+
+	public static PackedMapTreeIndex parseFrom(byte[] data) throws IOException {
+		CodedInputStream cis = CodedInputStream.newInstance(data);
+		int size = cis.readRawVarint32();
+		int[] leafBoxes = new int[size * 4];
+		long[] dataBlocks = new long[size];
+		byte[] ocean = new byte[size];
+		int pleft = 0, ptop = 0;
+		long pblock = 0;
+		for (int i = 0; i < size; i++) {
+			int left = cis.readSInt32() + pleft;
+			int top = cis.readSInt32() + ptop;
+			leafBoxes[i * 4] = left;
+			leafBoxes[i * 4 + 1] = top;
+			leafBoxes[i * 4 + 2] = left + cis.readRawVarint32();
+			leafBoxes[i * 4 + 3] = top + cis.readRawVarint32();
+			dataBlocks[i] = cis.readSInt64() + pblock;
+			ocean[i] = (byte) cis.readRawVarint32();
+			pleft = left;
+			ptop = top;
+			pblock = dataBlocks[i];
+		}
+		return new PackedMapTreeIndex(size, leafBoxes, dataBlocks, ocean);
+	}
+
+	// Hilbert curve index of point in 2^HILBERT_BITS x 2^HILBERT_BITS grid
+	static long hilbertIndex(int x, int y) {
+		int n = 1 << HILBERT_BITS;
+		long d = 0;
+		for (int s = n >> 1; s > 0; s >>= 1) {
+			int rx = (x & s) > 0 ? 1 : 0;
+			int ry = (y & s) > 0 ? 1 : 0;
+			d += (long) s * s * ((3 * rx) ^ ry);
+			if (ry == 0) {
+				if (rx == 1) {
+					x = n - 1 - x;
+					y = n - 1 - y;
+				}
+				int t = x;
+				x = y;
+				y = t;
+			}
+		}
+		return d;
+	}
+
+	public static class Builder {
+		private final TIntArrayList leafBoxes = new TIntArrayList();
+		private final TLongArrayList dataBlocks = new TLongArrayList();
+		private final TIntArrayList ocean = new TIntArrayList();
+
+		public Builder addBox(int left, int right, int top, int bottom, long dataBlock, Boolean ocean) {
+			leafBoxes.add(left);
+			leafBoxes.add(top);
+			leafBoxes.add(right);
+			leafBoxes.add(bottom);
+			dataBlocks.add(dataBlock);
+			this.ocean.add(ocean == null ? OCEAN_UNDEFINED : (ocean ? OCEAN_TRUE : OCEAN_FALSE));
+			return this;
+		}
+
+		public PackedMapTreeIndex build() {
+			final int size = dataBlocks.size();
+			long minX = Long.MAX_VALUE, minY = Long.MAX_VALUE, maxX = Long.MIN_VALUE, maxY = Long.MIN_VALUE;
+			for (int i = 0; i < size; i++) {
+				minX = Math.min(minX, leafBoxes.get(i * 4));
+				minY = Math.min(minY, leafBoxes.get(i * 4 + 1));
+				maxX = Math.max(maxX, leafBoxes.get(i * 4 + 2));
+				maxY = Math.max(maxY, leafBoxes.get(i * 4 + 3));
+			}
+			double scaleX = maxX > minX ? ((1 << HILBERT_BITS) - 1) / (double) (maxX - minX) : 0;
+			double scaleY = maxY > minY ? ((1 << HILBERT_BITS) - 1) / (double) (maxY - minY) : 0;
+			final long[] hilbert = new long[size];
+			Integer[] order = new Integer[size];
+			for (int i = 0; i < size; i++) {
+				long cx = ((long) leafBoxes.get(i * 4) + leafBoxes.get(i * 4 + 2)) / 2;
+				long cy = ((long) leafBoxes.get(i * 4 + 1) + leafBoxes.get(i * 4 + 3)) / 2;
+				hilbert[i] = hilbertIndex((int) ((cx - minX) * scaleX), (int) ((cy - minY) * scaleY));
+				order[i] = i;
+			}
+			Arrays.sort(order, new Comparator<Integer>() {
+				@Override
+				public int compare(Integer o1, Integer o2) {
+					return Long.compare(hilbert[o1], hilbert[o2]);
+				}
+			});
+			int[] boxes = new int[size * 4];
+			long[] blocks = new long[size];
+			byte[] oc = new byte[size];
+			for (int i = 0; i < size; i++) {
+				int ind = order[i];
+				for (int k = 0; k < 4; k++) {
+					boxes[i * 4 + k] = leafBoxes.get(ind * 4 + k);
+				}
+				blocks[i] = dataBlocks.get(ind);
+				oc[i] = (byte) ocean.get(ind);
+			}
+			return new PackedMapTreeIndex(size, boxes, blocks, oc);
+		}
+	}
+}
@@ -0,0 +1,140 @@
+package net.osmand.binary;
+
+import net.osmand.data.Amenity;
+import net.osmand.util.MapUtils;
+
+import java.io.File;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache of decoded amenities by tiles of {@link #TILE_ZOOM}, so repeated searches with growing radius
+ * read from file only tiles which were not read before. Tile is stored per file, poi region and per set of
+ * categories / subcategories accepted by type filter (filters accepting the same types share tiles).
+ * Least recently used tiles are evicted when total number of amenities exceeds the limit,
+ * empty tile is counted as one amenity. Could be shared by readers of different files.
+ */
+public class PoiTileCache {
+
+	public static final int TILE_ZOOM = 14;
+	public static final int DEFAULT_MAX_AMENITIES = 20000;
+
+	private final int maxAmenities;
+	private int size;
+	private final LinkedHashMap<TileKey, List<Amenity>> tiles = new LinkedHashMap<TileKey, List<Amenity>>(16, 0.75f, true);
+
+	private static class TileKey {
+		private final File file;
+		private final int region;
+		private final long tile;
+		private final BitSet types;
+
+		TileKey(File file, int region, long tile, BitSet types) {
+			this.file = file;
+			this.region = region;
+			this.tile = tile;
+			this.types = types;
+		}
+
+		@Override
+		public int hashCode() {
+			int result = file == null ? 0 : file.hashCode();
+			result = 31 * result + region;
+			result = 31 * result + (int) (tile ^ (tile >>> 32));
+			result = 31 * result + (types == null ? 0 : types.hashCode());
+			return result;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (obj == null || getClass() != obj.getClass()) {
+				return false;
+			}
+			TileKey other = (TileKey) obj;
+			return region == other.region && tile == other.tile
+					&& (file == null ? other.file == null : file.equals(other.file))
+					&& (types == null ? other.types == null : types.equals(other.types));
+		}
+	}
+
+	public PoiTileCache() {
+		this(DEFAULT_MAX_AMENITIES);
+	}
+
+	public PoiTileCache(int maxAmenities) {
+		this.maxAmenities = maxAmenities;
+	}
+
+	public static long getTileId(int tileX, int tileY) {
+		return (((long) tileX) << TILE_ZOOM) | tileY;
+	}
+
+	public static long getTileId(Amenity amenity) {
+		int x = MapUtils.get31TileNumberX(amenity.getLocation().getLongitude()) >> (31 - TILE_ZOOM);
+		int y = MapUtils.get31TileNumberY(amenity.getLocation().getLatitude()) >> (31 - TILE_ZOOM);
+		return getTileId(x, y);
+	}
+
+	/**
+	 * @param types accepted types of region (see BinaryMapPoiReaderAdapter), null if all types are accepted
+	 * @return amenities of the tile or null if tile is not cached
+	 */
+	public synchronized List<Amenity> get(File file, int region, long tile, BitSet types) {
+		return tiles.get(new TileKey(file, region, tile, types));
+	}
+
+	public synchronized void put(File file, int region, long tile, BitSet types, List<Amenity> amenities) {
+		TileKey key = new TileKey(file, region, tile, types);
+		List<Amenity> old = tiles.put(key, amenities);
+		if (old != null) {
+			size -= getSize(old);
+		}
+		size += getSize(amenities);
+		Iterator<Map.Entry<TileKey, List<Amenity>>> it = tiles.entrySet().iterator();
+		while (size > maxAmenities && it.hasNext()) {
+			Map.Entry<TileKey, List<Amenity>> e = it.next();
+			if (e.getKey().equals(key)) {
+				continue;
+			}
+			size -= getSize(e.getValue());
+			it.remove();
+		}
+	}
+
+	/**
+	 * Removes tiles of closed file, file pointers of regions are not valid for updated file.
+	 */
+	public synchronized void remove(File file) {
+		Iterator<Map.Entry<TileKey, List<Amenity>>> it = tiles.entrySet().iterator();
+		while (it.hasNext()) {
+			Map.Entry<TileKey, List<Amenity>> e = it.next();
+			if (file == null ? e.getKey().file == null : file.equals(e.getKey().file)) {
+				size -= getSize(e.getValue());
+				it.remove();
+			}
+		}
+	}
+
+	private static int getSize(List<Amenity> amenities) {
+		return Math.max(1, amenities.size());
+	}
+
+	public synchronized int getTilesCount() {
+		return tiles.size();
+	}
+
+	public synchronized int getAmenitiesCount() {
+		return size;
+	}
+
+	public synchronized void clear() {
+		tiles.clear();
+		size = 0;
+	}
+}
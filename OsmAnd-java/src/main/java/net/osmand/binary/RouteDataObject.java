@@ -2,6 +2,7 @@ package net.osmand.binary;
 
 import java.util.Arrays;
 
+import gnu.trove.iterator.TIntObjectIterator;
 import gnu.trove.map.hash.TIntObjectHashMap;
 import net.osmand.Location;
 import net.osmand.PlatformUtil;
@@ -30,7 +31,9 @@ public class RouteDataObject {
 	public String[][] pointNames;
 	public int[][] pointNameTypes;
 	public long id;
+	// decoded names, null while names are kept in block string table (unresolvedNames), use getNames()
 	public TIntObjectHashMap<String> names;
+	private volatile BinaryStringTable.Names unresolvedNames;
 	public final static float NONE_MAX_SPEED = 40f;
 	public int[] nameIds;
 	// mixed array [0, height, cumulative_distance height, cumulative_distance, height, ...] - length is length(points)*2
@@ -58,6 +61,7 @@ public class RouteDataObject {
 		this.pointsX = copy.pointsX;
 		this.pointsY = copy.pointsY;
 		this.types = copy.types;
+		this.unresolvedNames = copy.unresolvedNames;
 		this.names = copy.names;
 		this.nameIds = copy.nameIds;
 		this.restrictions = copy.restrictions;
@@ -104,12 +108,20 @@ public class RouteDataObject {
 				} else if (nameIds.length != thatObj.nameIds.length) {
 					equals = false;
 				} else {
+					BinaryStringTable.Names thisNames = unresolvedNames;
+					BinaryStringTable.Names thatNames = thatObj.unresolvedNames;
 					for (int i = 0; i < this.nameIds.length && equals; i++) {
 						String thisTag = region.routeEncodingRules.get(nameIds[i]).getTag();
-						String thisValue = names.get(nameIds[i]);
 						String thatTag = thatObj.region.routeEncodingRules.get(thatObj.nameIds[i]).getTag();
-						String thatValue = thatObj.names.get(thatObj.nameIds[i]);
-						equals = (Algorithms.objectEquals(thisTag, thatTag) && Algorithms.objectEquals(thisValue, thatValue));
+						if (thisNames != null && thatNames != null) {
+							// compare UTF-8 bytes without decoding
+							equals = Algorithms.objectEquals(thisTag, thatTag)
+									&& thisNames.equals(nameIds[i], thatNames, thatObj.nameIds[i]);
+						} else {
+							String thisValue = getNames().get(nameIds[i]);
+							String thatValue = thatObj.getNames().get(thatObj.nameIds[i]);
+							equals = (Algorithms.objectEquals(thisTag, thatTag) && Algorithms.objectEquals(thisValue, thatValue));
+						}
 					}
 				}
 			}
@@ -249,7 +261,27 @@ public class RouteDataObject {
 		return id;
 	}
 
+	void setStringTable(BinaryStringTable stringTable) {
+		if (names != null) {
+			unresolvedNames = new BinaryStringTable.Names(stringTable, names);
+			names = null;
+		}
+	}
+
+	private void resolveNames() {
+		if (unresolvedNames != null) {
+			synchronized (this) {
+				BinaryStringTable.Names nms = unresolvedNames;
+				if (nms != null) {
+					names = nms.resolve();
+					unresolvedNames = null;
+				}
+			}
+		}
+	}
+
 	public String getName() {
+		resolveNames();
 		if (names != null) {
 			return names.get(region.nameTypeRule);
 		}
@@ -262,6 +294,7 @@ public class RouteDataObject {
 	}
 
 	public String getName(String lang, boolean transliterate) {
+		resolveNames();
 		if (names != null) {
 			if (Algorithms.isEmpty(lang)) {
 				return names.get(region.nameTypeRule);
@@ -289,10 +322,78 @@ public class RouteDataObject {
 	}
 
 	public TIntObjectHashMap<String> getNames() {
+		resolveNames();
 		return names;
 	}
 
+	public void setNames(TIntObjectHashMap<String> names) {
+		synchronized (this) {
+			this.unresolvedNames = null;
+			this.names = names;
+		}
+	}
+
+	public int getNamesCount() {
+		BinaryStringTable.Names unresolved = unresolvedNames;
+		if (unresolved != null) {
+			return unresolved.size();
+		}
+		TIntObjectHashMap<String> nms = names;
+		return nms == null ? 0 : nms.size();
+	}
+
+	/**
+	 * Name filters compare UTF-8 bytes without decoding names from string table
+	 */
+	public boolean nameEquals(int type, byte[] utf8) {
+		BinaryStringTable.Names unresolved = unresolvedNames;
+		if (unresolved != null) {
+			return unresolved.equals(type, utf8);
+		}
+		String name = getNames() == null ? null : names.get(type);
+		return name != null && name.equals(BinaryStringTable.decode(utf8));
+	}
+
+	public boolean nameStartsWith(int type, byte[] utf8Prefix) {
+		BinaryStringTable.Names unresolved = unresolvedNames;
+		if (unresolved != null) {
+			return unresolved.startsWith(type, utf8Prefix);
+		}
+		String name = getNames() == null ? null : names.get(type);
+		return name != null && name.startsWith(BinaryStringTable.decode(utf8Prefix));
+	}
+
+	public boolean nameContains(int type, byte[] utf8Part) {
+		BinaryStringTable.Names unresolved = unresolvedNames;
+		if (unresolved != null) {
+			return unresolved.contains(type, utf8Part);
+		}
+		String name = getNames() == null ? null : names.get(type);
+		return name != null && name.contains(BinaryStringTable.decode(utf8Part));
+	}
+
+	/**
+	 * @return total length of names, names which are not decoded yet are measured in UTF-8 bytes
+	 */
+	public int getNamesLength() {
+		BinaryStringTable.Names unresolved = unresolvedNames;
+		if (unresolved != null) {
+			return unresolved.getLength();
+		}
+		int length = 0;
+		TIntObjectHashMap<String> nms = names;
+		if (nms != null) {
+			TIntObjectIterator<String> it = nms.iterator();
+			while (it.hasNext()) {
+				it.advance();
+				length += it.value().length();
+			}
+		}
+		return length;
+	}
+
 	public String getRef(String lang, boolean transliterate, boolean direction) {
+		resolveNames();
 		if (names != null) {
 			if (Algorithms.isEmpty(lang)) {
 				return names.get(region.refTypeRule);
@@ -316,6 +417,7 @@ public class RouteDataObject {
 	}
 
 	public String getDestinationRef(String lang, boolean transliterate, boolean direction) {
+		resolveNames();
 		if (names != null) {
 			int[] kt = names.keys();
 			String refTag = (direction == true) ? "destination:ref:forward" : "destination:ref:backward";
@@ -342,6 +444,7 @@ public class RouteDataObject {
 	}
 
 	public String getDestinationName(String lang, boolean transliterate, boolean direction) {
+		resolveNames();
 		if (names != null) {
 			int[] kt = names.keys();
 
@@ -861,7 +964,7 @@ public class RouteDataObject {
 			for (int i = 0; i < nameIds.length; i++) {
 				RouteTypeRule r = region.quickGetEncodingRule(nameIds[i]);
 				if (r.getTag().equals(tag)) {
-					return names.get(nameIds[i]);
+					return getNames().get(nameIds[i]);
 				}
 			}
 		}
@@ -7,6 +7,7 @@ import net.osmand.binary.BinaryMapDataObject;
 import net.osmand.binary.BinaryMapIndexReader;
 import net.osmand.binary.BinaryMapIndexReader.MapIndex;
 import net.osmand.binary.BinaryMapIndexReader.TagValuePair;
+import net.osmand.binary.BlockCompressedRandomAccessFile;
 import net.osmand.data.LatLon;
 import net.osmand.data.QuadRect;
 import net.osmand.data.QuadTree;
@@ -18,7 +19,6 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.RandomAccessFile;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -114,7 +114,8 @@ public class OsmandRegions {
 	}
 	
 	public BinaryMapIndexReader prepareFile(String fileName) throws IOException {
-		reader = new BinaryMapIndexReader(new RandomAccessFile(fileName, "r"), new File(fileName));
+		File file = new File(fileName);
+		reader = new BinaryMapIndexReader(BlockCompressedRandomAccessFile.open(file), file);
 //		final Collator clt = OsmAndCollator.primaryCollator();
 		final Map<String, String> parentRelations = new LinkedHashMap<String, String>();
 		final ResultMatcher<BinaryMapDataObject> resultMatcher = new ResultMatcher<BinaryMapDataObject>() {
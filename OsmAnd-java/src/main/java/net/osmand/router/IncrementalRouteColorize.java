@@ -0,0 +1,71 @@
+package net.osmand.router;
+
+import net.osmand.router.RouteColorize.RouteColorizationPoint;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Colors of growing track (for example during recording) by values with fixed range,
+ * color of each point is calculated only once when point is added.
+ */
+public class IncrementalRouteColorize {
+
+	private final RouteColorize colorize;
+
+	private double[] latitudes = new double[256];
+	private double[] longitudes = new double[256];
+	private double[] values = new double[256];
+	private int[] colors = new int[256];
+	private int size;
+
+	/**
+	 * @param palette same as for {@link RouteColorize}, default palette is used for null
+	 */
+	public IncrementalRouteColorize(double minValue, double maxValue, double[][] palette) {
+		colorize = new RouteColorize(0, new double[0], new double[0], new double[0], minValue, maxValue, palette);
+	}
+
+	public int addPoint(double lat, double lon, double value) {
+		if (size == latitudes.length) {
+			int capacity = size * 2;
+			latitudes = Arrays.copyOf(latitudes, capacity);
+			longitudes = Arrays.copyOf(longitudes, capacity);
+			values = Arrays.copyOf(values, capacity);
+			colors = Arrays.copyOf(colors, capacity);
+		}
+		int color = colorize.getColorByValue(value);
+		latitudes[size] = lat;
+		longitudes[size] = lon;
+		values[size] = value;
+		colors[size] = color;
+		size++;
+		return color;
+	}
+
+	public int getPointsCount() {
+		return size;
+	}
+
+	public int getColor(int index) {
+		return colors[index];
+	}
+
+	public int[] getColors() {
+		return Arrays.copyOf(colors, size);
+	}
+
+	/**
+	 * @return colored points added after fromIndex (inclusive)
+	 */
+	public List<RouteColorizationPoint> getResult(int fromIndex) {
+		List<RouteColorizationPoint> result = new ArrayList<>(Math.max(0, size - fromIndex));
+		for (int i = fromIndex; i < size; i++) {
+			RouteColorizationPoint data = new RouteColorizationPoint(i, latitudes[i], longitudes[i], values[i]);
+			data.color = colors[i];
+			result.add(data);
+		}
+		return result;
+	}
+}
@@ -1,15 +1,15 @@
 package net.osmand.router;
 
+import net.osmand.ColumnarTrackPoints;
 import net.osmand.GPXUtilities.GPXFile;
 import net.osmand.GPXUtilities.GPXTrackAnalysis;
 import net.osmand.GPXUtilities.Track;
 import net.osmand.GPXUtilities.TrkSegment;
 import net.osmand.GPXUtilities.WptPt;
 import net.osmand.PlatformUtil;
-import net.osmand.osm.edit.Node;
-import net.osmand.osm.edit.OsmMapUtils;
 import net.osmand.util.Algorithms;
 import net.osmand.util.MapUtils;
+import net.osmand.util.SimplificationIndex;
 
 import org.apache.commons.logging.Log;
 
@@ -26,7 +26,12 @@ public class RouteColorize {
     public double maxValue;
     public double[][] palette;
 
-    private List<RouteColorizationPoint> dataList;
+    // palette prepared for interpolation: values and colors with their channels
+    private double[] paletteValues;
+    private int[] paletteColors;
+    private int[][] paletteChannels;
+    // Douglas-Peucker importance of points, it's reused for all zooms
+    private SimplificationIndex simplificationIndex;
 
     public static final int DARK_GREY = rgbaToDecimal(92, 92, 92, 255);
     public static final int LIGHT_GREY = rgbaToDecimal(200, 200, 200, 255);
@@ -89,6 +94,7 @@ public class RouteColorize {
         }
         checkPalette();
         sortPalette();
+        preparePalette();
     }
 
     /**
@@ -105,29 +111,43 @@ public class RouteColorize {
             return;
         }
 
-        List<Double> latList = new ArrayList<>();
-        List<Double> lonList = new ArrayList<>();
-        List<Double> valList = new ArrayList<>();
-        int wptIdx = 0;
-
         if (analysis == null) {
             analysis = Algorithms.isEmpty(gpxFile.path)
                     ? gpxFile.getAnalysis(System.currentTimeMillis())
                     : gpxFile.getAnalysis(gpxFile.modifiedTime);
         }
+        int size = 0;
+        for (Track t : gpxFile.tracks) {
+            for (TrkSegment ts : t.segments) {
+                if (!ts.generalSegment && ts.points.size() >= 2) {
+                    size += ts.points.size();
+                }
+            }
+        }
+        latitudes = new double[size];
+        longitudes = new double[size];
+        values = new double[size];
+        int wptIdx = 0;
         for (Track t : gpxFile.tracks) {
             for (TrkSegment ts : t.segments) {
                 if (ts.generalSegment || ts.points.size() < 2) {
                     continue;
                 }
 
-                for (WptPt p : ts.points) {
-                    latList.add(p.lat);
-                    lonList.add(p.lon);
+                ColumnarTrackPoints columns = ts.points instanceof ColumnarTrackPoints ? (ColumnarTrackPoints) ts.points : null;
+                for (int i = 0; i < ts.points.size(); i++) {
+                    if (columns != null) {
+                        latitudes[wptIdx] = columns.getLatitude(i);
+                        longitudes[wptIdx] = columns.getLongitude(i);
+                    } else {
+                        WptPt p = ts.points.get(i);
+                        latitudes[wptIdx] = p.lat;
+                        longitudes[wptIdx] = p.lon;
+                    }
                     if (type == ColorizationType.SPEED) {
-                        valList.add((double) analysis.speedData.get(wptIdx).speed);
+                        values[wptIdx] = analysis.speedData.get(wptIdx).speed;
                     } else {
-                        valList.add((double) analysis.elevationData.get(wptIdx).elevation);
+                        values[wptIdx] = analysis.elevationData.get(wptIdx).elevation;
                     }
                     wptIdx++;
                 }
@@ -136,17 +156,13 @@ public class RouteColorize {
 
         this.zoom = zoom;
         colorizationType = type;
-        latitudes = listToArray(latList);
-        longitudes = listToArray(lonList);
-
         if (type == ColorizationType.SLOPE) {
-            values = calculateSlopesByElevations(latitudes, longitudes, listToArray(valList), SLOPE_RANGE);
-        } else {
-            values = listToArray(valList);
+            values = calculateSlopesByElevations(latitudes, longitudes, values, SLOPE_RANGE);
         }
         calculateMinMaxValue(analysis, maxProfileSpeed);
         checkPalette();
         sortPalette();
+        preparePalette();
     }
 
     public int getZoom() {
@@ -190,11 +206,24 @@ public class RouteColorize {
             distances[i + 1] = totalDistance;
         }
 
+        double[] arg = new double[4];
+        // distances grow, so window ends are moved only forward
+        int minIndex = -1;
+        int maxIndex = 0;
         for (int i = 0; i < elevations.length; i++) {
             if (distances[i] < slopeRange / 2 || distances[i] > totalDistance - slopeRange / 2) {
                 slopes[i] = Double.NaN;
             } else {
-                double[] arg = findDerivativeArguments(distances, elevations, i, slopeRange);
+                double minDist = distances[i] - slopeRange / 2;
+                double maxDist = distances[i] + slopeRange / 2;
+                while (minIndex < i && distances[minIndex + 1] <= minDist) {
+                    minIndex++;
+                }
+                maxIndex = Math.max(maxIndex, i);
+                while (maxIndex < distances.length && distances[maxIndex] < maxDist) {
+                    maxIndex++;
+                }
+                findDerivativeArguments(distances, elevations, minDist, maxDist, minIndex, maxIndex, arg);
                 slopes[i] = (arg[1] - arg[0]) / (arg[3] - arg[2]);
             }
         }
@@ -249,40 +278,61 @@ public class RouteColorize {
     }
 
     public List<RouteColorizationPoint> getResult(boolean simplify) {
-        List<RouteColorizationPoint> result = new ArrayList<>();
         if (simplify) {
-            result = simplify();
-        } else {
-            for (int i = 0; i < latitudes.length; i++) {
-                result.add(new RouteColorizationPoint(i, latitudes[i], longitudes[i], values[i]));
-            }
+            return simplify();
         }
-        for (RouteColorizationPoint data : result) {
-            data.color = getColorByValue(data.val);
+        int[] colors = getColors();
+        List<RouteColorizationPoint> result = new ArrayList<>(latitudes.length);
+        for (int i = 0; i < latitudes.length; i++) {
+            RouteColorizationPoint data = new RouteColorizationPoint(i, latitudes[i], longitudes[i], values[i]);
+            data.color = colors[i];
+            result.add(data);
         }
         return result;
     }
 
+    /**
+     * @return colors of all values
+     */
+    public int[] getColors() {
+        return getColors(values, 0, values.length, new int[values.length]);
+    }
+
+    /**
+     * @return colors with colors of values in range [start, end) from index 0
+     */
+    public int[] getColors(double[] values, int start, int end, int[] colors) {
+        for (int i = start; i < end; i++) {
+            colors[i - start] = getColorByValue(values[i]);
+        }
+        return colors;
+    }
+
     public int getColorByValue(double value) {
         if (Double.isNaN(value)) {
             return LIGHT_GREY;
         }
-        for (int i = 0; i < palette.length - 1; i++) {
-            if (value == palette[i][VALUE_INDEX])
-                return (int) palette[i][DECIMAL_COLOR_INDEX];
-            if (value >= palette[i][VALUE_INDEX] && value <= palette[i + 1][VALUE_INDEX]) {
-                int minPaletteColor = (int) palette[i][DECIMAL_COLOR_INDEX];
-                int maxPaletteColor = (int) palette[i + 1][DECIMAL_COLOR_INDEX];
-                double minPaletteValue = palette[i][VALUE_INDEX];
-                double maxPaletteValue = palette[i + 1][VALUE_INDEX];
-                double percent = (value - minPaletteValue) / (maxPaletteValue - minPaletteValue);
-                return getIntermediateColor(minPaletteColor, maxPaletteColor, percent);
+        double[] paletteValues = this.paletteValues;
+        int last = paletteValues.length - 1;
+        for (int i = 0; i < last; i++) {
+            if (value == paletteValues[i])
+                return paletteColors[i];
+            if (value >= paletteValues[i] && value <= paletteValues[i + 1]) {
+                double percent = (value - paletteValues[i]) / (paletteValues[i + 1] - paletteValues[i]);
+                // same as getIntermediateColor() with channels of palette colors prepared once
+                int[] min = paletteChannels[i];
+                int[] max = paletteChannels[i + 1];
+                double resultRed = min[0] + percent * (max[0] - min[0]);
+                double resultGreen = min[1] + percent * (max[1] - min[1]);
+                double resultBlue = min[2] + percent * (max[2] - min[2]);
+                double resultAlpha = min[3] + percent * (max[3] - min[3]);
+                return rgbaToDecimal((int) resultRed, (int) resultGreen, (int) resultBlue, (int) resultAlpha);
             }
         }
-        if (value <= palette[0][0]) {
-            return (int)palette[0][1];
-        } else if (value >= palette[palette.length-1][0]) {
-            return (int) palette[palette.length-1][1];
+        if (value <= paletteValues[0]) {
+            return paletteColors[0];
+        } else if (value >= paletteValues[last]) {
+            return paletteColors[last];
         }
         return getTransparentColor();
     }
@@ -291,6 +341,7 @@ public class RouteColorize {
         this.palette = palette;
         checkPalette();
         sortPalette();
+        preparePalette();
     }
 
     public void setPalette(int[] gradientPalette) {
@@ -308,77 +359,75 @@ public class RouteColorize {
         return rgbaToDecimal(0, 0, 0, 0);
     }
 
+    /**
+     * Douglas-Peucker simplification for current zoom with extremums of values between kept points,
+     * colors of simplified points are calculated in the same pass.
+     */
     public List<RouteColorizationPoint> simplify() {
-        if (dataList == null) {
-            dataList = new ArrayList<>();
-            for (int i = 0; i < latitudes.length; i++) {
-                dataList.add(new RouteColorizationPoint(i, latitudes[i], longitudes[i], values[i]));
-            }
+        List<RouteColorizationPoint> simplified = new ArrayList<>();
+        if (latitudes.length == 0) {
+            return simplified;
         }
-        List<Node> nodes = new ArrayList<>();
-        List<Node> result = new ArrayList<>();
-        for (RouteColorizationPoint data : dataList) {
-            nodes.add(new net.osmand.osm.edit.Node(data.lat, data.lon, data.id));
+        if (simplificationIndex == null || simplificationIndex.getPointsCount() != latitudes.length) {
+            simplificationIndex = new SimplificationIndex(latitudes, longitudes);
         }
-
         double epsilon = Math.pow(2.0, DEFAULT_BASE - zoom);
-        result.add(nodes.get(0));
-        OsmMapUtils.simplifyDouglasPeucker(nodes, 0, nodes.size() - 1, result, epsilon);
-
-        List<RouteColorizationPoint> simplified = new ArrayList<>();
-        for (int i = 1; i < result.size(); i++) {
-            int prevId = (int) result.get(i - 1).getId();
-            int currentId = (int) result.get(i).getId();
-            List<RouteColorizationPoint> sublist = dataList.subList(prevId, currentId);
-            simplified.addAll(getExtremums(sublist));
-        }
-        Node lastSurvivedPoint = result.get(result.size() - 1);
-        simplified.add(dataList.get((int) lastSurvivedPoint.getId()));
+        int prevId = 0;
+        for (int id = 1; id < latitudes.length; id++) {
+            if (simplificationIndex.isKept(id, epsilon)) {
+                addExtremums(prevId, id, simplified);
+                prevId = id;
+            }
+        }
+        addPoint(prevId, simplified);
         return simplified;
     }
 
-    private List<RouteColorizationPoint> getExtremums(List<RouteColorizationPoint> subDataList) {
-        if (subDataList.size() <= 2) {
-            return subDataList;
+    // adds points of range [start, end) with extremums of values
+    private void addExtremums(int start, int end, List<RouteColorizationPoint> result) {
+        if (end - start <= 2) {
+            for (int i = start; i < end; i++) {
+                addPoint(i, result);
+            }
+            return;
         }
-
-        List<RouteColorizationPoint> result = new ArrayList<>();
         double min;
         double max;
-        min = max = subDataList.get(0).val;
-        for (RouteColorizationPoint pt : subDataList) {
-            if (min > pt.val) {
-                min = pt.val;
+        min = max = values[start];
+        for (int i = start; i < end; i++) {
+            if (min > values[i]) {
+                min = values[i];
             }
-            if (max < pt.val) {
-                max = pt.val;
+            if (max < values[i]) {
+                max = values[i];
             }
         }
 
         double diff = max - min;
+        // first point of range is compared as previous point in result
+        boolean addExtremums = values[start] / diff > MIN_DIFFERENCE_SLOPE;
 
-        result.add(subDataList.get(0));
-        for (int i = 1; i < subDataList.size() - 1; i++) {
-            double prev = subDataList.get(i - 1).val;
-            double current = subDataList.get(i).val;
-            double next = subDataList.get(i + 1).val;
-            RouteColorizationPoint currentData = subDataList.get(i);
+        addPoint(start, result);
+        for (int i = start + 1; i < end - 1; i++) {
+            double prev = values[i - 1];
+            double current = values[i];
+            double next = values[i + 1];
 
             if ((current > prev && current > next) || (current < prev && current < next)
                     || (current < prev && current == next) || (current == prev && current < next)
                     || (current > prev && current == next) || (current == prev && current > next)) {
-                RouteColorizationPoint prevInResult;
-                if (result.size() > 0) {
-                    prevInResult = result.get(0);
-                    if (prevInResult.val / diff > MIN_DIFFERENCE_SLOPE) {
-                        result.add(currentData);
-                    }
-                } else
-                    result.add(currentData);
+                if (addExtremums) {
+                    addPoint(i, result);
+                }
             }
         }
-        result.add(subDataList.get(subDataList.size() - 1));
-        return result;
+        addPoint(end - 1, result);
+    }
+
+    private void addPoint(int id, List<RouteColorizationPoint> result) {
+        RouteColorizationPoint data = new RouteColorizationPoint(id, latitudes[id], longitudes[id], values[id]);
+        data.color = getColorByValue(data.val);
+        result.add(data);
     }
 
     private void checkPalette() {
@@ -428,37 +477,44 @@ public class RouteColorize {
         });
     }
 
+    private void preparePalette() {
+        paletteValues = new double[palette.length];
+        paletteColors = new int[palette.length];
+        paletteChannels = new int[palette.length][];
+        for (int i = 0; i < palette.length; i++) {
+            int color = (int) palette[i][DECIMAL_COLOR_INDEX];
+            paletteValues[i] = palette[i][VALUE_INDEX];
+            paletteColors[i] = color;
+            paletteChannels[i] = new int[] {getRed(color), getGreen(color), getBlue(color), getAlpha(color)};
+        }
+    }
+
     /**
-     * @return double[minElevation, maxElevation, minDist, maxDist]
+     * Fills result with [minElevation, maxElevation, minDist, maxDist]
+     *
+     * @param minIndex last index with distance not greater than minDist or -1
+     * @param maxIndex first index with distance not less than maxDist or length of distances
      */
-    private double[] findDerivativeArguments(double[] distances, double[] elevations, int index, double slopeRange) {
-        double[] result = new double[4];
-        double minDist = distances[index] - slopeRange / 2;
-        double maxDist = distances[index] + slopeRange / 2;
+    private void findDerivativeArguments(double[] distances, double[] elevations, double minDist, double maxDist,
+                                         int minIndex, int maxIndex, double[] result) {
         result[0] = Double.NaN;
         result[1] = Double.NaN;
         result[2] = minDist;
         result[3] = maxDist;
         int closestMaxIndex = -1;
         int closestMinIndex = -1;
-        for (int i = index; i < distances.length; i++) {
-            if (distances[i] == maxDist) {
-                result[1] = elevations[i];
-                break;
-            }
-            if (distances[i] > maxDist) {
-                closestMaxIndex = i;
-                break;
+        if (maxIndex < distances.length) {
+            if (distances[maxIndex] == maxDist) {
+                result[1] = elevations[maxIndex];
+            } else {
+                closestMaxIndex = maxIndex;
             }
         }
-        for (int i = index; i >= 0; i--) {
-            if (distances[i] == minDist) {
-                result[0] = elevations[i];
-                break;
-            }
-            if (distances[i] < minDist) {
-                closestMinIndex = i;
-                break;
+        if (minIndex >= 0) {
+            if (distances[minIndex] == minDist) {
+                result[0] = elevations[minIndex];
+            } else {
+                closestMinIndex = minIndex;
             }
         }
         if (closestMaxIndex > 0) {
@@ -480,7 +536,6 @@ public class RouteColorize {
         if (Double.isNaN(result[0]) || Double.isNaN(result[1])) {
             LOG.warn("Elevations wasn't calculated");
         }
-        return result;
     }
 
     public static double getMinValue(ColorizationType type, GPXTrackAnalysis analysis) {
@@ -537,14 +592,6 @@ public class RouteColorize {
         maxValue = getMaxValue(colorizationType, analysis, minValue, maxProfileSpeed);
     }
 
-    private double[] listToArray(List<Double> doubleList) {
-        double[] result = new double[doubleList.size()];
-        for (int i = 0; i < doubleList.size(); i++) {
-            result[i] = doubleList.get(i);
-        }
-        return result;
-    }
-
     private double[][] getDefaultPalette(ColorizationType colorizationType) {
         if (colorizationType == ColorizationType.SLOPE) {
             return SLOPE_PALETTE;
@@ -107,7 +107,7 @@ public class RouteSegmentResult implements StringExternalizable<RouteDataBundle>
 		}
 		if (object.nameIds != null) {
 			for (int nameId : object.nameIds) {
-				String name = object.names.get(nameId);
+				String name = object.getNames().get(nameId);
 				String tag = region.quickGetEncodingRule(nameId).getTag();
 				RouteTypeRule r = new RouteTypeRule(tag, name);
 				if (!rules.containsKey(r)) {
@@ -189,7 +189,7 @@ public class RouteSegmentResult implements StringExternalizable<RouteDataBundle>
 		int[] res = new int[nameIds.length];
 		for (int i = 0; i < nameIds.length; i++) {
 			int nameId = nameIds[i];
-			String name = object.names.get(nameId);
+			String name = object.getNames().get(nameId);
 			String tag = object.region.quickGetEncodingRule(nameId).getTag();
 			RouteTypeRule rule = new RouteTypeRule(tag, name);
 			Integer ruleId = rules.get(rule);
@@ -233,7 +233,7 @@ public class RouteSegmentResult implements StringExternalizable<RouteDataBundle>
 			RouteRegion region = object.region;
 			int nameTypeRule = region.getNameTypeRule();
 			int refTypeRule = region.getRefTypeRule();
-			object.names = new TIntObjectHashMap<>();
+			TIntObjectHashMap<String> names = new TIntObjectHashMap<>();
 			for (int nameId : object.nameIds) {
 				RouteTypeRule rule = region.quickGetEncodingRule(nameId);
 				if (rule != null) {
@@ -242,9 +242,10 @@ public class RouteSegmentResult implements StringExternalizable<RouteDataBundle>
 					} else if (refTypeRule != -1 && "ref".equals(rule.getTag())) {
 						nameId = refTypeRule;
 					}
-					object.names.put(nameId, rule.getValue());
+					names.put(nameId, rule.getValue());
 				}
 			}
+			object.setNames(names);
 		}
 		String[][] pointNames = null;
 		int[][] pointNameTypes = null;
@@ -13,7 +13,6 @@ import java.util.Map.Entry;
 
 import org.apache.commons.logging.Log;
 
-import gnu.trove.iterator.TIntObjectIterator;
 import gnu.trove.iterator.TLongIterator;
 import gnu.trove.map.TLongObjectMap;
 import gnu.trove.map.hash.TLongObjectHashMap;
@@ -893,15 +892,12 @@ public class RoutingContext {
 		// calculate size
 		int sz = 0;
 		sz += 8 + 4; // overhead
-		if (o.names != null) {
+		// names are not decoded to estimate size
+		int namesCount = o.getNamesCount();
+		if (namesCount > 0) {
 			sz += 12;
-			TIntObjectIterator<String> it = o.names.iterator();
-			while(it.hasNext()) {
-				it.advance();
-				String vl = it.value();
-				sz += 12 + vl.length();
-			}
-			sz += 12 + o.names.size() * 25;
+			sz += 12 * namesCount + o.getNamesLength();
+			sz += 12 + namesCount * 25;
 		}
 		sz += 8; // id
 		// coordinates
@@ -4,6 +4,7 @@ package net.osmand.router;
 import net.osmand.NativeLibrary;
 import net.osmand.PlatformUtil;
 import net.osmand.binary.BinaryMapIndexReader;
+import net.osmand.binary.BlockCompressedRandomAccessFile;
 import net.osmand.data.LatLon;
 import net.osmand.router.BinaryRoutePlanner.FinalRouteSegment;
 import net.osmand.router.BinaryRoutePlanner.RouteSegment;
@@ -297,7 +298,7 @@ public class TestRouting {
 		BinaryMapIndexReader[] rs = new BinaryMapIndexReader[files.size()];
 		int it = 0;
 		for (File f : files) {
-			RandomAccessFile raf = new RandomAccessFile(f.getAbsolutePath(), "r"); //$NON-NLS-1$ //$NON-NLS-2$
+			RandomAccessFile raf = BlockCompressedRandomAccessFile.open(f);
 			System.out.println(f.getName());
 			rs[it++] = new BinaryMapIndexReader(raf, f);
 		}
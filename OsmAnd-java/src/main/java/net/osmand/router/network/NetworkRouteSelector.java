@@ -791,7 +791,7 @@ public class NetworkRouteSelector {
 			Map<String, String> tags = new TreeMap<>();
 			for (int i = 0; obj.nameIds != null && i < obj.nameIds.length; i++) {
 				int nameId = obj.nameIds[i];
-				String value = obj.names.get(nameId);
+				String value = obj.getNames().get(nameId);
 				RouteTypeRule rt = obj.region.quickGetEncodingRule(nameId);
 				if (rt != null) {
 					tags.put(rt.getTag(), value);
@@ -37,12 +37,18 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.ListIterator;
+import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -64,9 +70,12 @@ public class SearchUICore {
 	private Runnable onSearchStart = null;
 	private Runnable onResultsComplete = null;
 	private AtomicInteger requestNumber = new AtomicInteger();
-	private int totalLimit = -1; // -1 unlimited - not used
+	private int totalLimit = -1; // -1 unlimited
 
 	List<SearchCoreAPI> apis = new ArrayList<>();
+	// api -> api which uses it for sub search, such apis run in one thread in parallel mode
+	private final Map<SearchCoreAPI, SearchCoreAPI> apiGroups = new HashMap<>();
+	private ThreadPoolExecutor parallelExecutor;
 	private SearchSettings searchSettings;
 	private MapPoiTypes poiTypes;
 
@@ -93,18 +102,55 @@ public class SearchUICore {
 		return debugMode;
 	}
 
+	/**
+	 * Runs independent apis concurrently on pool of given size, 1 (default) runs them one after another.
+	 * Results of each api are passed to matcher when api is finished, final results keep api priority order.
+	 */
+	public void setParallelSearchThreads(int threads) {
+		if (parallelExecutor != null) {
+			parallelExecutor.shutdown();
+			parallelExecutor = null;
+		}
+		if (threads > 1) {
+			parallelExecutor = new ThreadPoolExecutor(threads, threads, 30L, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<Runnable>());
+			parallelExecutor.allowCoreThreadTimeOut(true);
+		}
+	}
+
+	public boolean isParallelSearch() {
+		return parallelExecutor != null;
+	}
+
 	public static class SearchResultCollection {
 		private List<SearchResult> searchResults;
 		private SearchPhrase phrase;
+		private int resultsLimit = -1;
 		private static final int DEPTH_TO_CHECK_SAME_SEARCH_RESULTS = 20;
 
 		public SearchResultCollection(SearchPhrase phrase) {
 			searchResults = new ArrayList<>();
 			this.phrase = phrase;
+			if (phrase != null && phrase.getSettings() != null) {
+				resultsLimit = phrase.getSettings().getTotalLimit();
+			}
+		}
+
+		/**
+		 * @param resultsLimit only best results are kept after resorting, -1 unlimited.
+		 * By default it is total limit of phrase settings.
+		 */
+		public void setResultsLimit(int resultsLimit) {
+			this.resultsLimit = resultsLimit;
+		}
+
+		public int getResultsLimit() {
+			return resultsLimit;
 		}
 
 		public SearchResultCollection combineWithCollection(SearchResultCollection collection, boolean resort, boolean removeDuplicates) {
 			SearchResultCollection src = new SearchResultCollection(phrase);
+			src.setResultsLimit(resultsLimit);
 			src.addSearchResults(searchResults, false, false);
 			src.addSearchResults(collection.searchResults, resort, removeDuplicates);
 			return src;
@@ -116,9 +162,13 @@ public class SearchUICore {
 			}
 			if (resortAll) {
 				this.searchResults.addAll(sr);
-				sortSearchResults();
-				if (removeDuplicates) {
-					filterSearchDuplicateResults();
+				if (resultsLimit >= 0 && searchResults.size() > resultsLimit) {
+					selectTopSearchResults(removeDuplicates);
+				} else {
+					sortSearchResults();
+					if (removeDuplicates) {
+						filterSearchDuplicateResults();
+					}
 				}
 			} else {
 				if (!removeDuplicates) {
@@ -202,25 +252,94 @@ public class SearchUICore {
 			}
 		}
 
+		/**
+		 * Same as sort, filter duplicates and keep first resultsLimit results, but only best results
+		 * are taken from the heap in sorted order
+		 */
+		private void selectTopSearchResults(boolean removeDuplicates) {
+			if (debugMode) {
+				LOG.info("Select top " + resultsLimit + " search results <" + phrase + "> Results=" + searchResults.size());
+			}
+			PriorityQueue<SearchResult> heap = new PriorityQueue<>(Math.max(1, searchResults.size()),
+					new SearchResultComparator(phrase));
+			heap.addAll(searchResults);
+			searchResults.clear();
+			UniqueResultsWindow window = removeDuplicates ? new UniqueResultsWindow() : null;
+			while (searchResults.size() < resultsLimit && !heap.isEmpty()) {
+				SearchResult r = heap.poll();
+				if (window == null || window.add(r)) {
+					searchResults.add(r);
+				}
+			}
+			if (debugMode) {
+				LOG.info("Top search results selected <" + phrase + "> Results=" + searchResults.size());
+			}
+		}
+
 		private void filterSearchDuplicateResults(List<SearchResult> lst) {
-			ListIterator<SearchResult> it = lst.listIterator();
-			LinkedList<SearchResult> lstUnique = new LinkedList<SearchResult>();
-			while (it.hasNext()) {
-				SearchResult r = it.next();
-				boolean same = false;
-				for (SearchResult rs : lstUnique) {
-					same = sameSearchResult(rs, r);
-					if (same) {
-						break;
+			UniqueResultsWindow window = new UniqueResultsWindow();
+			int size = 0;
+			for (int i = 0; i < lst.size(); i++) {
+				SearchResult r = lst.get(i);
+				if (window.add(r)) {
+					lst.set(size++, r);
+				}
+			}
+			lst.subList(size, lst.size()).clear();
+		}
+
+		/**
+		 * Last DEPTH_TO_CHECK_SAME_SEARCH_RESULTS unique results with hash sets of their names, objects and
+		 * street locations, result could be the same as other only if one of them matches,
+		 * so most of the results are added without comparing with whole window.
+		 */
+		private class UniqueResultsWindow {
+			private final LinkedList<SearchResult> results = new LinkedList<>();
+			private final Map<String, Integer> names = new HashMap<>();
+			private final Map<Object, Integer> objects = new IdentityHashMap<>();
+			private final Map<LatLon, Integer> streetLocations = new HashMap<>();
+
+			/**
+			 * @return false if the same result is in the window
+			 */
+			boolean add(SearchResult r) {
+				if (names.containsKey(r.localeName) || (r.object != null && objects.containsKey(r.object))
+						|| (r.objectType == ObjectType.STREET && streetLocations.containsKey(getStreetLocation(r)))) {
+					for (SearchResult rs : results) {
+						if (sameSearchResult(rs, r)) {
+							return false;
+						}
 					}
 				}
-				if (same) {
-					it.remove();
+				results.add(r);
+				update(r, 1);
+				if (results.size() > DEPTH_TO_CHECK_SAME_SEARCH_RESULTS) {
+					update(results.removeFirst(), -1);
+				}
+				return true;
+			}
+
+			private LatLon getStreetLocation(SearchResult r) {
+				return r.object instanceof Street ? ((Street) r.object).getLocation() : null;
+			}
+
+			private void update(SearchResult r, int delta) {
+				count(names, r.localeName, delta);
+				if (r.object != null) {
+					count(objects, r.object, delta);
+				}
+				if (r.objectType == ObjectType.STREET) {
+					count(streetLocations, getStreetLocation(r), delta);
+				}
+			}
+
+			private <K> void count(Map<K, Integer> map, K key, int delta) {
+				Integer c = map.get(key);
+				int n = (c == null ? 0 : c) + delta;
+				if (n == 0) {
+					map.remove(key);
 				} else {
-					lstUnique.add(r);
-					if (lstUnique.size() > DEPTH_TO_CHECK_SAME_SEARCH_RESULTS) {
-						lstUnique.remove(0);
-					}
+					map.put(key, n);
 				}
 			}
 		}
@@ -301,6 +420,13 @@ public class SearchUICore {
 		this.totalLimit = totalLimit;
 	}
 
+	// total limit of core overrides limit of search settings
+	private void setResultsLimit(SearchResultCollection collection) {
+		if (totalLimit >= 0) {
+			collection.setResultsLimit(totalLimit);
+		}
+	}
+
 	@SuppressWarnings("unchecked")
 	public <T> T getApiByClass(Class<T> cl) {
 		for (SearchCoreAPI a : apis) {
@@ -332,6 +458,7 @@ public class SearchUICore {
 
 			SearchResultCollection collection = new SearchResultCollection(
 					sphrase);
+			setResultsLimit(collection);
 			collection.addSearchResults(rm.getRequestResults(), resortAll, removeDuplicates);
 			if (debugMode) {
 				LOG.info("Finish shallow search <" + sphrase + "> Results=" + rm.getRequestResults().size());
@@ -345,14 +472,19 @@ public class SearchUICore {
 		apis.add(new SearchCoreFactory.SearchLocationAndUrlAPI());
 		SearchAmenityTypesAPI searchAmenityTypesAPI = new SearchAmenityTypesAPI(poiTypes);
 		apis.add(searchAmenityTypesAPI);
-		apis.add(new SearchAmenityByTypeAPI(poiTypes, searchAmenityTypesAPI));
+		SearchAmenityByTypeAPI amenityByTypeAPI = new SearchAmenityByTypeAPI(poiTypes, searchAmenityTypesAPI);
+		apis.add(amenityByTypeAPI);
 		apis.add(new SearchCoreFactory.SearchAmenityByNameAPI());
 		SearchBuildingAndIntersectionsByStreetAPI streetsApi =
 				new SearchCoreFactory.SearchBuildingAndIntersectionsByStreetAPI();
 		apis.add(streetsApi);
 		SearchStreetByCityAPI cityApi = new SearchCoreFactory.SearchStreetByCityAPI(streetsApi);
 		apis.add(cityApi);
-		apis.add(new SearchCoreFactory.SearchAddressByNameAPI(streetsApi, cityApi));
+		SearchCoreAPI addressApi = new SearchCoreFactory.SearchAddressByNameAPI(streetsApi, cityApi);
+		apis.add(addressApi);
+		apiGroups.put(searchAmenityTypesAPI, amenityByTypeAPI);
+		apiGroups.put(streetsApi, addressApi);
+		apiGroups.put(cityApi, addressApi);
 	}
 
 	public void clearCustomSearchPoiFilters() {
@@ -449,6 +581,7 @@ public class SearchUICore {
 		final SearchResultMatcher rm = new SearchResultMatcher(null, phrase, requestNumber.get(), requestNumber, totalLimit);
 		searchInternal(phrase, rm);
 		SearchResultCollection collection = new SearchResultCollection(phrase);
+		setResultsLimit(collection);
 		collection.addSearchResults(rm.getRequestResults(), true, true);
 		return collection;
 	}
@@ -536,6 +669,7 @@ public class SearchUICore {
 					if (!rm.isCancelled()) {
 						SearchResultCollection collection = new SearchResultCollection(
 								phrase);
+						setResultsLimit(collection);
 						if (debugMode) {
 							LOG.info("Processing search results <" + phrase + ">");
 						}
@@ -632,6 +766,10 @@ public class SearchUICore {
 						o2.getSearchPriority(phrase));
 			}
 		});
+		if (parallelExecutor != null) {
+			searchParallel(phrase, lst, matcher);
+			return;
+		}
 		for (SearchCoreAPI api : lst) {
 			if (matcher.isCancelled()) {
 				break;
@@ -639,21 +777,87 @@ public class SearchUICore {
 			if (!api.isSearchAvailable(phrase) || api.getSearchPriority(phrase) == -1) {
 				continue;
 			}
-			try {
-				if (debugMode) {
-					LOG.info("Run API search <" + phrase + "> API=<" + api + ">");
-				}
-				api.search(phrase, matcher);
-				if (debugMode) {
-					LOG.info("API search finishing <" + phrase + "> API=<" + api + ">");
-				}
-				matcher.apiSearchFinished(api, phrase);
-				if (debugMode) {
-					LOG.info("API search done <" + phrase + "> API=<" + api + ">");
+			searchApi(api, phrase, matcher);
+		}
+	}
+
+	private void searchApi(SearchCoreAPI api, SearchPhrase phrase, SearchResultMatcher matcher) {
+		try {
+			if (debugMode) {
+				LOG.info("Run API search <" + phrase + "> API=<" + api + ">");
+			}
+			api.search(phrase, matcher);
+			if (debugMode) {
+				LOG.info("API search finishing <" + phrase + "> API=<" + api + ">");
+			}
+			matcher.apiSearchFinished(api, phrase);
+			if (debugMode) {
+				LOG.info("API search done <" + phrase + "> API=<" + api + ">");
+			}
+		} catch (Throwable e) {
+			e.printStackTrace();
+			LOG.error(e.getMessage(), e);
+		}
+	}
+
+	private SearchCoreAPI getApiGroup(SearchCoreAPI api) {
+		SearchCoreAPI group = api;
+		while (apiGroups.containsKey(group)) {
+			group = apiGroups.get(group);
+		}
+		return group;
+	}
+
+	private void searchParallel(final SearchPhrase phrase, List<SearchCoreAPI> sortedApis, final SearchResultMatcher matcher) {
+		// initialize lazy caches of phrase before it is shared between threads
+		phrase.get1km31Rect();
+		phrase.getMainUnknownNameStringMatcher();
+		phrase.getFirstUnknownNameStringMatcher();
+		Map<SearchCoreAPI, List<SearchCoreAPI>> groups = new LinkedHashMap<>();
+		Map<SearchCoreAPI, SearchResultMatcher> apiMatchers = new HashMap<>();
+		for (SearchCoreAPI api : sortedApis) {
+			if (!api.isSearchAvailable(phrase) || api.getSearchPriority(phrase) == -1) {
+				continue;
+			}
+			SearchCoreAPI group = getApiGroup(api);
+			List<SearchCoreAPI> groupApis = groups.get(group);
+			if (groupApis == null) {
+				groupApis = new ArrayList<>();
+				groups.put(group, groupApis);
+			}
+			groupApis.add(api);
+			apiMatchers.put(api, matcher.createApiMatcher());
+		}
+		List<Future<?>> futures = new ArrayList<>();
+		for (final List<SearchCoreAPI> groupApis : groups.values()) {
+			final List<SearchResultMatcher> groupMatchers = new ArrayList<>();
+			for (SearchCoreAPI api : groupApis) {
+				groupMatchers.add(apiMatchers.get(api));
+			}
+			futures.add(parallelExecutor.submit(new Runnable() {
+				@Override
+				public void run() {
+					for (int i = 0; i < groupApis.size() && !matcher.isCancelled(); i++) {
+						searchApi(groupApis.get(i), phrase, groupMatchers.get(i));
+						matcher.publishApiResults(groupMatchers.get(i));
+					}
 				}
-			} catch (Throwable e) {
-				e.printStackTrace();
+			}));
+		}
+		// apis are not reentrant, so wait all of them even if search is cancelled
+		for (Future<?> f : futures) {
+			try {
+				f.get();
+			} catch (InterruptedException e) {
 				LOG.error(e.getMessage(), e);
+			} catch (ExecutionException e) {
+				LOG.error(e.getMessage(), e);
+			}
+		}
+		for (SearchCoreAPI api : sortedApis) {
+			SearchResultMatcher apiMatcher = apiMatchers.get(api);
+			if (apiMatcher != null) {
+				matcher.mergeApiResults(apiMatcher);
 			}
 		}
 	}
@@ -684,6 +888,8 @@ public class SearchUICore {
 		private SearchPhrase phrase;
 		private List<MapObject> exportedObjects;
 		private List<City> exportedCities;
+		// results of api matcher accepted by parent matcher
+		private List<SearchResult> acceptedResults;
 
 		public SearchResultMatcher(ResultMatcher<SearchResult> matcher, SearchPhrase phrase, int request,
 								   AtomicInteger requestNumber, int totalLimit) {
@@ -694,6 +900,65 @@ public class SearchUICore {
 			this.totalLimit = totalLimit;
 		}
 
+		/**
+		 * Creates matcher for one api running in parallel, it buffers results and events
+		 * until {@link #publishApiResults(SearchResultMatcher)}
+		 */
+		SearchResultMatcher createApiMatcher() {
+			SearchResultMatcher apiMatcher = new SearchResultMatcher(new BufferedResultMatcher(this), phrase,
+					request, requestNumber, totalLimit);
+			apiMatcher.parentSearchResult = parentSearchResult;
+			return apiMatcher;
+		}
+
+		/**
+		 * Passes buffered results of finished api to the matcher, so results of one api are not mixed with others
+		 */
+		synchronized void publishApiResults(SearchResultMatcher apiMatcher) {
+			BufferedResultMatcher buffer = (BufferedResultMatcher) apiMatcher.matcher;
+			apiMatcher.acceptedResults = new ArrayList<>();
+			if (isCancelled()) {
+				return;
+			}
+			Set<SearchResult> results = Collections.newSetFromMap(new IdentityHashMap<SearchResult, Boolean>());
+			results.addAll(apiMatcher.requestResults);
+			for (SearchResult sr : buffer.events) {
+				boolean result = results.contains(sr);
+				if (matcher == null || matcher.publish(sr)) {
+					if (result) {
+						apiMatcher.acceptedResults.add(sr);
+					}
+				}
+			}
+			buffer.events.clear();
+		}
+
+		/**
+		 * Adds accepted results of api to request results, should be called in api priority order
+		 */
+		void mergeApiResults(SearchResultMatcher apiMatcher) {
+			if (apiMatcher.acceptedResults != null) {
+				for (SearchResult sr : apiMatcher.acceptedResults) {
+					count++;
+					if (totalLimit == -1 || count < totalLimit) {
+						requestResults.add(sr);
+					}
+				}
+			}
+			if (apiMatcher.exportedObjects != null) {
+				if (exportedObjects == null) {
+					exportedObjects = new ArrayList<>();
+				}
+				exportedObjects.addAll(apiMatcher.exportedObjects);
+			}
+			if (apiMatcher.exportedCities != null) {
+				if (exportedCities == null) {
+					exportedCities = new ArrayList<>();
+				}
+				exportedCities.addAll(apiMatcher.exportedCities);
+			}
+		}
+
 		public SearchResult setParentSearchResult(SearchResult parentSearchResult) {
 			SearchResult prev = this.parentSearchResult;
 			this.parentSearchResult = parentSearchResult;
@@ -799,6 +1064,26 @@ public class SearchUICore {
 			return cancelled || (matcher != null && matcher.isCancelled());
 		}
 
+		private static class BufferedResultMatcher implements ResultMatcher<SearchResult> {
+			private final SearchResultMatcher parent;
+			private final List<SearchResult> events = new ArrayList<>();
+
+			BufferedResultMatcher(SearchResultMatcher parent) {
+				this.parent = parent;
+			}
+
+			@Override
+			public boolean publish(SearchResult object) {
+				events.add(object);
+				return true;
+			}
+
+			@Override
+			public boolean isCancelled() {
+				return parent.isCancelled();
+			}
+		}
+
 		public List<MapObject> getExportedObjects() {
 			return exportedObjects;
 		}
@@ -949,14 +1234,13 @@ public class SearchUICore {
 			case UNKNOWN_PHRASE_MATCH_WEIGHT:
 				// here we check how much each sub search result matches the phrase
 				// also we sort it by type house -> street/poi -> city/postcode/village/other
-				SearchPhrase ph = o1.requiredSearchPhrase;
 				double o1PhraseWeight = o1.getUnknownPhraseMatchWeight();
 				double o2PhraseWeight = o2.getUnknownPhraseMatchWeight();
 				if (o1PhraseWeight == o2PhraseWeight && o1PhraseWeight / SEARCH_PRIORITY_COEF > 1) {
-					if (!ph.getUnknownWordToSearchBuildingNameMatcher().matches(stripBraces(o1.localeName))) {
+					if (!c.getFeatures(o1).isBuildingNameMatch()) {
 						o1PhraseWeight--;
 					}
-					if (!ph.getUnknownWordToSearchBuildingNameMatcher().matches(stripBraces(o2.localeName))) {
+					if (!c.getFeatures(o2).isBuildingNameMatch()) {
 						o2PhraseWeight--;
 					}
 				}
@@ -966,18 +1250,16 @@ public class SearchUICore {
 				break;
 			case SEARCH_DISTANCE_IF_NOT_BY_NAME: 
 				if (!c.sortByName) {
-					double s1 = o1.getSearchDistance(c.loc);
-					double s2 = o2.getSearchDistance(c.loc);
+					double s1 = c.getFeatures(o1).searchDistance;
+					double s2 = c.getFeatures(o2).searchDistance;
 					if (s1 != s2) {
 						return Double.compare(s1, s2);
 					}
 				}
 				break;
 			case COMPARE_FIRST_NUMBER_IN_NAME: {
-				String localeName1 = o1.localeName == null ? "" : o1.localeName;
-				String localeName2 = o2.localeName == null ? "" : o2.localeName;
-				int st1 = Algorithms.extractFirstIntegerNumber(localeName1);
-				int st2 = Algorithms.extractFirstIntegerNumber(localeName2);
+				int st1 = c.getFeatures(o1).firstNumberInName;
+				int st2 = c.getFeatures(o2).firstNumberInName;
 				if (st1 != st2) {
 					return Algorithms.compare(st1, st2);
 				}
@@ -993,8 +1275,8 @@ public class SearchUICore {
 				break;
 			}
 			case COMPARE_DISTANCE_TO_PARENT_SEARCH_RESULT:
-				double ps1 = o1.parentSearchResult == null ? 0 : o1.parentSearchResult.getSearchDistance(c.loc);
-				double ps2 = o2.parentSearchResult == null ? 0 : o2.parentSearchResult.getSearchDistance(c.loc);
+				double ps1 = c.getFeatures(o1).parentSearchDistance;
+				double ps2 = c.getFeatures(o2).parentSearchDistance;
 				if (ps1 != ps2) {
 					return Double.compare(ps1, ps2);
 				}
@@ -1009,8 +1291,8 @@ public class SearchUICore {
 				break;
 			}
 			case COMPARE_BY_DISTANCE:
-				double s1 = o1.getSearchDistance(c.loc, 1);
-				double s2 = o2.getSearchDistance(c.loc, 1);
+				double s1 = c.getFeatures(o1).searchDistanceByDistance;
+				double s2 = c.getFeatures(o2).searchDistanceByDistance;
 				if (s1 != s2) {
 					return Double.compare(s1, s2);
 				}
@@ -1069,9 +1351,12 @@ public class SearchUICore {
 	}
 
 	public static class SearchResultComparator implements Comparator<SearchResult> {
+		private static final ResultCompareStep[] STEPS = ResultCompareStep.values();
 		private Collator collator;
 		private LatLon loc;
 		private boolean sortByName;
+		// features of results computed once per comparator (comparator is not thread safe)
+		private final Map<SearchResult, ResultFeatures> features = new IdentityHashMap<>();
 		
 
 		public SearchResultComparator(SearchPhrase sp) {
@@ -1079,17 +1364,23 @@ public class SearchUICore {
 			loc = sp.getLastTokenLocation();
 			sortByName = sp.isSortByName();
 		}
-		
+
+		ResultFeatures getFeatures(SearchResult r) {
+			ResultFeatures f = features.get(r);
+			if (f == null) {
+				f = new ResultFeatures(r, loc);
+				features.put(r, f);
+			}
+			return f;
+		}
 
 		@Override
 		public int compare(SearchResult o1, SearchResult o2) {
-			List<ResultCompareStep> steps = new ArrayList<>();
-			for (ResultCompareStep step : ResultCompareStep.values()) {
+			for (ResultCompareStep step : STEPS) {
 				int r = step.compare(o1, o2, this);
-				steps.add(step);
 				if (r != 0) {
 					// debug crashes and identify non-transitive comparision
-					// LOG.debug(String.format("%d: %s o1='%s' o2='%s'", r, steps, o1, o2));
+					// LOG.debug(String.format("%d: %s o1='%s' o2='%s'", r, step, o1, o2));
 					return r;
 				}
 			}
@@ -1098,4 +1389,29 @@ public class SearchUICore {
 		}
 
 	}
+
+	private static class ResultFeatures {
+		private final SearchResult result;
+		final double searchDistance;
+		final double searchDistanceByDistance;
+		final double parentSearchDistance;
+		final int firstNumberInName;
+		private Boolean buildingNameMatch;
+
+		ResultFeatures(SearchResult r, LatLon loc) {
+			result = r;
+			searchDistance = r.getSearchDistance(loc);
+			searchDistanceByDistance = r.getSearchDistance(loc, 1);
+			parentSearchDistance = r.parentSearchResult == null ? 0 : r.parentSearchResult.getSearchDistance(loc);
+			firstNumberInName = Algorithms.extractFirstIntegerNumber(r.localeName == null ? "" : r.localeName);
+		}
+
+		boolean isBuildingNameMatch() {
+			if (buildingNameMatch == null) {
+				buildingNameMatch = result.requiredSearchPhrase.getUnknownWordToSearchBuildingNameMatcher()
+						.matches(stripBraces(result.localeName));
+			}
+			return buildingNameMatch;
+		}
+	}
 }
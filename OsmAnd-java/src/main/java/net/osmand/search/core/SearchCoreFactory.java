@@ -6,6 +6,7 @@ import static net.osmand.osm.MapPoiTypes.WIKI_PLACE;
 
 import net.osmand.CollatorStringMatcher;
 import net.osmand.CollatorStringMatcher.StringMatcherMode;
+import net.osmand.LevenshteinAutomaton;
 import net.osmand.ResultMatcher;
 import net.osmand.binary.BinaryMapAddressReaderAdapter;
 import net.osmand.binary.BinaryMapIndexReader;
@@ -342,7 +343,11 @@ public class SearchCoreFactory {
 				BinaryMapIndexReader r = offlineIndexes.next();
 				if (!townCities.containsKey(r)) {
 					BinaryMapIndexReader.buildAddressRequest(null);
-					List<City> l = r.getCities(null, BinaryMapAddressReaderAdapter.CITY_TOWN_TYPE);
+					List<City> l;
+					// reader could be used by apis running in parallel
+					synchronized (r) {
+						l = r.getCities(null, BinaryMapAddressReaderAdapter.CITY_TOWN_TYPE);
+					}
 					townCities.put(r, l);
 					for (City c  : l) {
 						LatLon cl = c.getLocation();
@@ -513,29 +518,42 @@ public class SearchCoreFactory {
 					};
 				}
 
-				Iterator<BinaryMapIndexReader> offlineIterator = phrase.getRadiusOfflineIndexes(DEFAULT_ADDRESS_BBOX_RADIUS * 5,
-						SearchPhraseDataType.ADDRESS);
 				String wordToSearch = phrase.getUnknownWordToSearch();
-				while (offlineIterator.hasNext() && wordToSearch.length() > 0) {
-					BinaryMapIndexReader r = offlineIterator.next();
-					currentFile[0] = r;
-					immediateResults.clear();
-					SearchRequest<MapObject> req = BinaryMapIndexReader.buildAddressByNameRequest(rm, rawDataCollector, wordToSearch.toLowerCase(),
-							phrase.isMainUnknownSearchWordComplete() ? StringMatcherMode.CHECK_EQUALS_FROM_SPACE
-									: StringMatcherMode.CHECK_STARTS_FROM_SPACE);
-					if (locSpecified) {
-						req.setBBoxRadius(loc.getLatitude(), loc.getLongitude(),
-								phrase.getRadiusSearch(DEFAULT_ADDRESS_BBOX_RADIUS * 5));
+				int maxEdits = phrase.getSettings().isExportObjects() ? 0 : LevenshteinAutomaton.getMaxEdits(wordToSearch);
+				boolean found = false;
+				// second pass tolerant to typos is done only if nothing was found
+				int[] passes = maxEdits > 0 ? new int[]{0, maxEdits} : new int[]{0};
+				for (int edits : passes) {
+					if (found || resultMatcher.isCancelled()) {
+						break;
 					}
-					r.searchAddressDataByName(req);
-					for (SearchResult res : immediateResults) {
-						if (res.objectType == ObjectType.STREET) {
-							subSearchApiOrPublish(phrase, resultMatcher, res, streetsApi);
-						} else {
-							subSearchApiOrPublish(phrase, resultMatcher, res, cityApi);
+					Iterator<BinaryMapIndexReader> offlineIterator = phrase.getRadiusOfflineIndexes(DEFAULT_ADDRESS_BBOX_RADIUS * 5,
+							SearchPhraseDataType.ADDRESS);
+					while (offlineIterator.hasNext() && wordToSearch.length() > 0) {
+						BinaryMapIndexReader r = offlineIterator.next();
+						currentFile[0] = r;
+						immediateResults.clear();
+						SearchRequest<MapObject> req = BinaryMapIndexReader.buildAddressByNameRequest(rm, rawDataCollector, wordToSearch.toLowerCase(),
+								phrase.isMainUnknownSearchWordComplete() ? StringMatcherMode.CHECK_EQUALS_FROM_SPACE
+										: StringMatcherMode.CHECK_STARTS_FROM_SPACE);
+						req.setNameMaxEdits(edits);
+						if (locSpecified) {
+							req.setBBoxRadius(loc.getLatitude(), loc.getLongitude(),
+									phrase.getRadiusSearch(DEFAULT_ADDRESS_BBOX_RADIUS * 5));
+						}
+						synchronized (r) {
+							r.searchAddressDataByName(req);
+						}
+						found |= !immediateResults.isEmpty();
+						for (SearchResult res : immediateResults) {
+							if (res.objectType == ObjectType.STREET) {
+								subSearchApiOrPublish(phrase, resultMatcher, res, streetsApi);
+							} else {
+								subSearchApiOrPublish(phrase, resultMatcher, res, cityApi);
+							}
 						}
+						resultMatcher.apiSearchRegionFinished(this, r, phrase);
 					}
-					resultMatcher.apiSearchRegionFinished(this, r, phrase);
 				}
 			}
 		}
@@ -547,6 +565,12 @@ public class SearchCoreFactory {
 		private static final int BBOX_RADIUS_INSIDE = 10000 * 1000; // to support city search for basemap
 		private static final int FIRST_WORD_MIN_LENGTH = 3;
 
+		// candidates found by previous phrase, refined in memory while user continues to type the same word
+		private SearchPhrase lastPhrase;
+		private List<Amenity> lastCandidates = new ArrayList<>();
+		private List<BinaryMapIndexReader> lastCandidateFiles = new ArrayList<>();
+		private List<BinaryMapIndexReader> lastSearchedFiles = new ArrayList<>();
+
 		public SearchAmenityByNameAPI() {
 			super(ObjectType.POI);
 		}
@@ -560,6 +584,25 @@ public class SearchCoreFactory {
 				// don't search by name when type is selected or poi type is part of name
 				return false;
 			}
+			if (!phrase.getSettings().isExportObjects() && phrase.isRefinementOf(lastPhrase)
+					&& refinePreviousSearch(phrase, resultMatcher)) {
+				return true;
+			}
+			clearPreviousSearch();
+			String searchWord = phrase.getUnknownWordToSearch();
+			boolean found = searchByName(phrase, resultMatcher, phrase.getMainUnknownNameStringMatcher(), 0);
+			int maxEdits = LevenshteinAutomaton.getMaxEdits(searchWord);
+			if (!found && maxEdits > 0 && !resultMatcher.isCancelled() && !phrase.getSettings().isExportObjects()) {
+				// nothing found, probably there is a typo
+				NameStringMatcher fuzzyMatcher = new NameStringMatcher(new LevenshteinAutomaton(searchWord, maxEdits,
+						phrase.getCollator()));
+				searchByName(phrase, resultMatcher, fuzzyMatcher, maxEdits);
+			}
+			return true;
+		}
+
+		private boolean searchByName(final SearchPhrase phrase, final SearchResultMatcher resultMatcher,
+									 final NameStringMatcher nm, int maxEdits) throws IOException {
 			// Take into account POI [bar] - 'Hospital 512'
 			// BEFORE: it was searching exact match of whole phrase.getUnknownSearchPhrase() [ Check feedback ] 
 
@@ -567,9 +610,11 @@ public class SearchCoreFactory {
 			Iterator<BinaryMapIndexReader> offlineIterator = phrase.getRadiusOfflineIndexes(BBOX_RADIUS,
 					SearchPhraseDataType.POI);
 			String searchWord = phrase.getUnknownWordToSearch();
-			final NameStringMatcher nm = phrase.getMainUnknownNameStringMatcher();
 			QuadRect bbox = phrase.getRadiusBBoxToSearch(BBOX_RADIUS_INSIDE);
 			final Set<String> ids = new HashSet<String>();
+			final List<Amenity> candidates = new ArrayList<>();
+			final List<BinaryMapIndexReader> candidateFiles = new ArrayList<>();
+			final boolean[] limitReached = new boolean[1];
 
 			ResultMatcher<Amenity> rawDataCollector = null;
 			if (phrase.getSettings().isExportObjects()) {
@@ -597,35 +642,19 @@ public class SearchCoreFactory {
 								resultMatcher.exportObject(phrase, object);
 							}
 							if (limit++ > LIMIT) {
+								limitReached[0] = true;
 								return false;
 							}
 							String poiID = object.getType().getKeyName() + "_" + object.getId();
 							if (ids.contains(poiID)) {
 								return false;
 							}
-							SearchResult sr = new SearchResult(phrase);
-							sr.otherNames = object.getOtherNames(true);
-							sr.localeName = object.getName(phrase.getSettings().getLang(),
-									phrase.getSettings().isTransliterate());
-							if (!nm.matches(sr.localeName) && !nm.matches(sr.otherNames)
-									&& !nm.matches(object.getAdditionalInfoValues(false))) {
+							candidates.add(object);
+							candidateFiles.add(currentFile[0]);
+							SearchResult sr = createSearchResult(phrase, nm, object, currentFile[0]);
+							if (sr == null) {
 								return false;
 							}
-							sr.object = object;
-							sr.preferredZoom = 17;
-							sr.file = currentFile[0];
-							sr.location = object.getLocation();
-							if (object.getSubType().equals("city") || object.getSubType().equals("country")) {
-								sr.priorityDistance = SEARCH_AMENITY_BY_NAME_CITY_PRIORITY_DISTANCE;
-								sr.preferredZoom = object.getSubType().equals("country") ? 7 : 13;
-							} else if (object.getSubType().equals("town")) {
-								sr.priorityDistance = SEARCH_AMENITY_BY_NAME_TOWN_PRIORITY_DISTANCE;
-							} else {
-								sr.priorityDistance = 1;
-							}
-							sr.priority = SEARCH_AMENITY_BY_NAME_PRIORITY;
-							phrase.countUnknownWordsMatchMainResult(sr);
-							sr.objectType = ObjectType.POI;
 							resultMatcher.publish(sr);
 							ids.add(poiID);
 							return false;
@@ -636,17 +665,100 @@ public class SearchCoreFactory {
 							return resultMatcher.isCancelled() && (limit < LIMIT);
 						}
 					}, rawDataCollector);
+			req.setNameMaxEdits(maxEdits);
 
+			List<BinaryMapIndexReader> searchedFiles = new ArrayList<>();
 			while (offlineIterator.hasNext()) {
 				BinaryMapIndexReader r = offlineIterator.next();
 				currentFile[0] = r;
-				r.searchPoiByName(req);
+				synchronized (r) {
+					r.searchPoiByName(req);
+				}
+				searchedFiles.add(r);
 
 				resultMatcher.apiSearchRegionFinished(this, r, phrase);
 			}
+			if (maxEdits == 0 && !ids.isEmpty() && !resultMatcher.isCancelled() && !limitReached[0]) {
+				// all objects matching the word prefix are known, so longer prefix could be searched among them
+				lastPhrase = phrase;
+				lastCandidates = candidates;
+				lastCandidateFiles = candidateFiles;
+				lastSearchedFiles = searchedFiles;
+			}
+			return !ids.isEmpty();
+		}
+
+		private boolean refinePreviousSearch(SearchPhrase phrase, SearchResultMatcher resultMatcher) {
+			NameStringMatcher nm = phrase.getMainUnknownNameStringMatcher();
+			Set<String> ids = new HashSet<String>();
+			List<Amenity> candidates = new ArrayList<>();
+			List<BinaryMapIndexReader> candidateFiles = new ArrayList<>();
+			for (int i = 0; i < lastCandidates.size() && !resultMatcher.isCancelled(); i++) {
+				Amenity object = lastCandidates.get(i);
+				BinaryMapIndexReader file = lastCandidateFiles.get(i);
+				SearchResult sr = createSearchResult(phrase, nm, object, file);
+				if (sr == null) {
+					continue;
+				}
+				// objects not matching the shorter word can't match the longer one
+				candidates.add(object);
+				candidateFiles.add(file);
+				if (ids.add(object.getType().getKeyName() + "_" + object.getId())) {
+					resultMatcher.publish(sr);
+				}
+			}
+			if (resultMatcher.isCancelled()) {
+				clearPreviousSearch();
+				return true;
+			}
+			if (ids.isEmpty()) {
+				// search again to find names with typos
+				return false;
+			}
+			for (BinaryMapIndexReader r : lastSearchedFiles) {
+				resultMatcher.apiSearchRegionFinished(this, r, phrase);
+			}
+			lastPhrase = phrase;
+			lastCandidates = candidates;
+			lastCandidateFiles = candidateFiles;
 			return true;
 		}
 
+		private void clearPreviousSearch() {
+			lastPhrase = null;
+			lastCandidates = new ArrayList<>();
+			lastCandidateFiles = new ArrayList<>();
+			lastSearchedFiles = new ArrayList<>();
+		}
+
+		private SearchResult createSearchResult(SearchPhrase phrase, NameStringMatcher nm, Amenity object,
+												BinaryMapIndexReader file) {
+			SearchResult sr = new SearchResult(phrase);
+			sr.otherNames = object.getOtherNames(true);
+			sr.localeName = object.getName(phrase.getSettings().getLang(),
+					phrase.getSettings().isTransliterate());
+			if (!nm.matches(sr.localeName) && !nm.matches(sr.otherNames)
+					&& !nm.matches(object.getAdditionalInfoValues(false))) {
+				return null;
+			}
+			sr.object = object;
+			sr.preferredZoom = 17;
+			sr.file = file;
+			sr.location = object.getLocation();
+			if (object.getSubType().equals("city") || object.getSubType().equals("country")) {
+				sr.priorityDistance = SEARCH_AMENITY_BY_NAME_CITY_PRIORITY_DISTANCE;
+				sr.preferredZoom = object.getSubType().equals("country") ? 7 : 13;
+			} else if (object.getSubType().equals("town")) {
+				sr.priorityDistance = SEARCH_AMENITY_BY_NAME_TOWN_PRIORITY_DISTANCE;
+			} else {
+				sr.priorityDistance = 1;
+			}
+			sr.priority = SEARCH_AMENITY_BY_NAME_PRIORITY;
+			phrase.countUnknownWordsMatchMainResult(sr);
+			sr.objectType = ObjectType.POI;
+			return sr;
+		}
+
 		@Override
 		public int getSearchPriority(SearchPhrase p) {
 			if (p.hasObjectType(ObjectType.POI) ||
@@ -1088,7 +1200,9 @@ public class SearchCoreFactory {
 					}
 					SearchRequest<Amenity> req = BinaryMapIndexReader.buildSearchPoiRequest((int) bbox.left,
 							(int) bbox.right, (int) bbox.top, (int) bbox.bottom, -1, poiTypeFilter, rm);
-					r.searchPoi(req);
+					synchronized (r) {
+						r.searchPoi(req);
+					}
 					resultMatcher.apiSearchRegionFinished(this, r, phrase);
 				}
 			}
@@ -1251,7 +1365,10 @@ public class SearchCoreFactory {
 			if (isLastWordCityGroup(phrase) && sw.getResult() != null && sw.getResult().file != null) {
 				City c = (City) sw.getResult().object;
 				if (c.getStreets().isEmpty()) {
-					sw.getResult().file.preloadStreets(c, null);
+					BinaryMapIndexReader file = sw.getResult().file;
+					synchronized (file) {
+						file.preloadStreets(c, null);
+					}
 				}
 				int limit = 0;
 				NameStringMatcher nm = phrase.getMainUnknownNameStringMatcher();
@@ -1354,7 +1471,9 @@ public class SearchCoreFactory {
 								}
 							});
 
-					file.preloadBuildings(s, sr);
+					synchronized (file) {
+						file.preloadBuildings(s, sr);
+					}
 					Collections.sort(s.getBuildings(), new Comparator<Building>() {
 
 						@Override
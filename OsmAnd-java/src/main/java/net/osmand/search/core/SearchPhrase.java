@@ -368,6 +368,31 @@ public class SearchPhrase {
 	public boolean isUnknownSearchWordPresent() {
 		return firstUnknownSearchWord.length() > 0;
 	}
+
+	/**
+	 * @return true if this phrase differs from previous only by more characters typed in the single unknown word,
+	 * so results of this phrase are subset of the previous results
+	 */
+	public boolean isRefinementOf(SearchPhrase previous) {
+		if (previous == null || previous.settings != settings || previous.words.size() != words.size()) {
+			return false;
+		}
+		for (int i = 0; i < words.size(); i++) {
+			if (previous.words.get(i).getResult() != words.get(i).getResult()) {
+				return false;
+			}
+		}
+		if (previous.unselectedPoiType != null || unselectedPoiType != null) {
+			return false;
+		}
+		if (hasMoreThanOneUnknownSearchWord() || previous.hasMoreThanOneUnknownSearchWord()
+				|| isFirstUnknownSearchWordComplete() || previous.isFirstUnknownSearchWordComplete()
+				|| !previous.isUnknownSearchWordPresent()) {
+			return false;
+		}
+		return firstUnknownSearchWord.length() > previous.firstUnknownSearchWord.length()
+				&& firstUnknownSearchWord.startsWith(previous.firstUnknownSearchWord);
+	}
 	
 	public QuadRect getRadiusBBoxToSearch(int radius) {
 		int radiusInMeters = getRadiusSearch(radius);
@@ -759,11 +784,15 @@ public class SearchPhrase {
 
 	public static class NameStringMatcher implements StringMatcher {
 
-		private CollatorStringMatcher sm;
+		private StringMatcher sm;
 
 		public NameStringMatcher(String namePart, StringMatcherMode mode) {
 			sm = new CollatorStringMatcher(namePart, mode);
 		}
+
+		public NameStringMatcher(StringMatcher sm) {
+			this.sm = sm;
+		}
 		
 		public boolean matches(Collection<String> map) {
 			if(map == null) {
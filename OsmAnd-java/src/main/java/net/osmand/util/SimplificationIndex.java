@@ -0,0 +1,100 @@
+package net.osmand.util;
+
+import java.util.Arrays;
+
+import gnu.trove.list.array.TIntArrayList;
+
+/**
+ * Douglas-Peucker importance of polyline points calculated once for all zooms.
+ * <p>
+ * Point is kept by Douglas-Peucker simplification with epsilon (orthogonal distance in meters as
+ * {@link MapUtils#getOrthogonalDistance}) only if its importance is greater than epsilon, so simplified
+ * polyline for any zoom is filtered scan of points instead of new simplification.
+ */
+public class SimplificationIndex {
+
+	public interface CancellationCallback {
+		boolean isCancelled();
+	}
+
+	private final double[] importance;
+	private boolean cancelled;
+
+	public SimplificationIndex(double[] lats, double[] lons) {
+		this(lats, lons, null);
+	}
+
+	/**
+	 * @param cancellation checked for every interval, if calculation is cancelled index is not complete
+	 * and {@link #isCancelled()} returns true
+	 */
+	public SimplificationIndex(double[] lats, double[] lons, CancellationCallback cancellation) {
+		int size = lats.length;
+		importance = new double[size];
+		Arrays.fill(importance, Double.NEGATIVE_INFINITY);
+		if (size == 0) {
+			return;
+		}
+		importance[0] = Double.POSITIVE_INFINITY;
+		importance[size - 1] = Double.POSITIVE_INFINITY;
+		// stack of intervals instead of recursion which is too deep for long tracks
+		TIntArrayList intervals = new TIntArrayList();
+		intervals.add(0);
+		intervals.add(size - 1);
+		while (!intervals.isEmpty()) {
+			if (cancellation != null && cancellation.isCancelled()) {
+				cancelled = true;
+				return;
+			}
+			int end = intervals.removeAt(intervals.size() - 1);
+			int start = intervals.removeAt(intervals.size() - 1);
+			double dmax = Double.NEGATIVE_INFINITY;
+			int index = -1;
+			for (int i = start + 1; i < end; i++) {
+				double d = MapUtils.getOrthogonalDistance(lats[i], lons[i], lats[start], lons[start],
+						lats[end], lons[end]);
+				if (d > dmax) {
+					dmax = d;
+					index = i;
+				}
+			}
+			if (index != -1) {
+				// interval is simplified only if epsilon is less than importance of both its ends
+				importance[index] = Math.min(dmax, Math.min(importance[start], importance[end]));
+				intervals.add(start);
+				intervals.add(index);
+				intervals.add(index);
+				intervals.add(end);
+			}
+		}
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	public int getPointsCount() {
+		return importance.length;
+	}
+
+	public double getImportance(int index) {
+		return importance[index];
+	}
+
+	public boolean isKept(int index, double epsilon) {
+		return importance[index] > epsilon;
+	}
+
+	/**
+	 * @return indexes of points kept by simplification with epsilon
+	 */
+	public TIntArrayList getPoints(double epsilon) {
+		TIntArrayList result = new TIntArrayList();
+		for (int i = 0; i < importance.length; i++) {
+			if (importance[i] > epsilon) {
+				result.add(i);
+			}
+		}
+		return result;
+	}
+}
@@ -0,0 +1,129 @@
+package net.osmand;
+
+import net.osmand.CollatorStringMatcher.StringMatcherMode;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Locale;
+import java.util.Random;
+
+public class CollatorStringMatcherTest {
+
+	private static final String CHARS = "aabcdeghlnosuvwyz AZ-'.1ßäåæçéíñöøüčšžőаеёйкнсщыΑάλ́";
+	private static final String[] LOCALES = {"en", "de", "da", "hu", "sv", "fi", "ru", "tr", "fr", "es"};
+
+	// collator without fold table
+	private static Collator plainCollator(final Collator collator) {
+		return new Collator() {
+			@Override
+			public boolean equals(String source, String target) {
+				return collator.equals(source, target);
+			}
+
+			@Override
+			public int compare(String source, String target) {
+				return collator.compare(source, target);
+			}
+
+			@Override
+			public int compare(Object o1, Object o2) {
+				return collator.compare(o1, o2);
+			}
+		};
+	}
+
+	private static Collator primaryCollator(Locale locale) {
+		java.text.Collator instance = java.text.Collator.getInstance(locale);
+		instance.setStrength(java.text.Collator.PRIMARY);
+		return OsmAndCollator.wrapCollator(instance);
+	}
+
+	private static String randomString(Random rnd, int maxLength) {
+		int len = rnd.nextInt(maxLength + 1);
+		StringBuilder b = new StringBuilder();
+		for (int i = 0; i < len; i++) {
+			b.append(CHARS.charAt(rnd.nextInt(CHARS.length())));
+		}
+		return b.toString();
+	}
+
+	@Test
+	public void testFoldedMatchingSameAsCollator() {
+		Random rnd = new Random(7);
+		for (String l : LOCALES) {
+			Collator collator = primaryCollator(new Locale(l));
+			Collator plain = plainCollator(collator);
+			for (int i = 0; i < 3000; i++) {
+				String name = randomString(rnd, 12);
+				String part = randomString(rnd, 4);
+				if (rnd.nextBoolean() && name.length() > 2) {
+					// make matches more likely
+					int st = rnd.nextInt(name.length() - 1);
+					part = name.substring(st, st + 1 + rnd.nextInt(Math.min(4, name.length() - st - 1))).toUpperCase();
+				}
+				for (StringMatcherMode mode : StringMatcherMode.values()) {
+					Assert.assertEquals(l + " " + mode + " '" + name + "' '" + part + "'",
+							CollatorStringMatcher.cmatches(plain, name, part, mode),
+							CollatorStringMatcher.cmatches(collator, name, part, mode));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testAccentedLettersFolded() {
+		// precomposed letter is base letter element followed by accent element without primary order
+		CollatorFoldTable table = OsmAndCollator.getFoldTable(primaryCollator(Locale.FRENCH));
+		Assert.assertNotNull(table);
+		Assert.assertEquals('e', table.fold('é'));
+		Assert.assertEquals('e', table.fold('É'));
+		Assert.assertEquals('c', table.fold('ç'));
+		Assert.assertEquals('u', table.fold('ü'));
+		// accent alone has no primary element and is left to collator
+		Assert.assertEquals(CollatorFoldTable.UNKNOWN, table.fold('\u0301'));
+	}
+
+	@Test
+	public void testFoldedMatching() {
+		Collator collator = primaryCollator(Locale.GERMAN);
+		Assert.assertTrue(CollatorStringMatcher.cmatches(collator, "Müllerstraße 5", "mulle", StringMatcherMode.CHECK_ONLY_STARTS_WITH));
+		Assert.assertTrue(CollatorStringMatcher.cmatches(collator, "Große Straße", "STRASSE", StringMatcherMode.CHECK_EQUALS_FROM_SPACE));
+		Assert.assertFalse(CollatorStringMatcher.cmatches(collator, "Große Straße", "str", StringMatcherMode.CHECK_ONLY_STARTS_WITH));
+		Assert.assertTrue(CollatorStringMatcher.cmatches(collator, "Café Rouge", "fe ro", StringMatcherMode.CHECK_CONTAINS));
+	}
+
+	/**
+	 * Compares speed of matching with fold table and with collator only
+	 */
+	public static void main(String[] args) {
+		Random rnd = new Random(1);
+		String[] words = {"Sunset", "Boulevard", "Müller", "Straße", "Café", "Sunny", "Park", "Hôtel", "de", "la",
+				"Gare", "Łódź", "Road", "Avenue", "Plaza", "Mayor", "Córdoba", "Santa", "Sunrise", "Tower"};
+		String[] names = new String[100000];
+		for (int i = 0; i < names.length; i++) {
+			StringBuilder b = new StringBuilder();
+			for (int k = rnd.nextInt(3); k >= 0; k--) {
+				b.append(words[rnd.nextInt(words.length)]).append(k > 0 ? " " : "");
+			}
+			names[i] = b.toString();
+		}
+		Collator collator = primaryCollator(Locale.getDefault());
+		Collator plain = plainCollator(collator);
+		for (int k = 0; k < 3; k++) {
+			for (Collator c : new Collator[]{plain, collator}) {
+				long time = System.nanoTime();
+				int matched = 0;
+				CollatorStringMatcher matcher = new CollatorStringMatcher("sun", StringMatcherMode.CHECK_STARTS_FROM_SPACE);
+				for (String name : names) {
+					if (c == collator ? matcher.matches(name) :
+							CollatorStringMatcher.cmatches(c, name, "sun", StringMatcherMode.CHECK_STARTS_FROM_SPACE)) {
+						matched++;
+					}
+				}
+				System.out.println((c == plain ? "Collator: " : "Fold table: ") + (System.nanoTime() - time) / 1000000
+						+ " ms, matched " + matched);
+			}
+		}
+	}
+}
@@ -0,0 +1,118 @@
+package net.osmand;
+
+import net.osmand.GPXUtilities.GPXFile;
+import net.osmand.GPXUtilities.GPXTrackAnalysis;
+import net.osmand.GPXUtilities.Track;
+import net.osmand.GPXUtilities.TrkSegment;
+import net.osmand.GPXUtilities.WptPt;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class ColumnarTrackPointsTest {
+
+	private static List<WptPt> randomPoints(int count) {
+		Random rnd = new Random(7);
+		List<WptPt> points = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			WptPt p = new WptPt(52 + i * 0.0003 + rnd.nextDouble() * 0.0001, 4 + rnd.nextDouble() * 0.0005,
+					1600000000000L + i * 5000, i % 10 == 0 ? Double.NaN : 10 + rnd.nextInt(50), rnd.nextDouble() * 20,
+					rnd.nextInt(8) + 0.5);
+			if (i % 50 == 0) {
+				p.name = "Point " + i;
+				p.setColor(0xff00ff00);
+			}
+			points.add(p);
+		}
+		return points;
+	}
+
+	private static void assertPoint(WptPt expected, WptPt actual) {
+		Assert.assertEquals(expected.lat, actual.lat, 0);
+		Assert.assertEquals(expected.lon, actual.lon, 0);
+		Assert.assertEquals(expected.time, actual.time);
+		Assert.assertEquals(expected.ele, actual.ele, 0);
+		Assert.assertEquals(expected.speed, actual.speed, 0);
+		Assert.assertEquals(expected.hdop, actual.hdop, 0);
+		Assert.assertEquals(expected.name, actual.name);
+		Assert.assertEquals(expected.getColor(), actual.getColor());
+	}
+
+	@Test
+	public void testListOperations() {
+		List<WptPt> points = randomPoints(500);
+		ColumnarTrackPoints columns = new ColumnarTrackPoints(points);
+		Assert.assertEquals(points.size(), columns.size());
+		for (int i = 0; i < points.size(); i++) {
+			assertPoint(points.get(i), columns.get(i));
+		}
+		WptPt inserted = new WptPt(10, 20, 0, 5, 0, Double.NaN);
+		inserted.name = "Inserted";
+		points.add(3, inserted);
+		columns.add(3, inserted);
+		points.remove(100);
+		columns.remove(100);
+		WptPt changed = columns.get(150);
+		changed.desc = "Changed";
+		columns.set(150, changed);
+		points.get(150).desc = "Changed";
+		Assert.assertEquals(points.size(), columns.size());
+		for (int i = 0; i < points.size(); i++) {
+			assertPoint(points.get(i), columns.get(i));
+			Assert.assertEquals(points.get(i).desc, columns.get(i).desc);
+		}
+		columns.trimToSize();
+		columns.addAll(new ColumnarTrackPoints(points));
+		Assert.assertEquals(points.size() * 2, columns.size());
+		assertPoint(points.get(150), columns.get(points.size() + 150));
+	}
+
+	@Test
+	public void testAnalysis() {
+		GPXFile gpx = new GPXFile("test");
+		GPXFile compactGpx = new GPXFile("test");
+		for (int t = 0; t < 2; t++) {
+			TrkSegment segment = new TrkSegment();
+			segment.points.addAll(randomPoints(1000 + t));
+			Track track = new Track();
+			track.segments.add(segment);
+			gpx.tracks.add(track);
+
+			TrkSegment compactSegment = new TrkSegment();
+			compactSegment.points.addAll(randomPoints(1000 + t));
+			compactSegment.compactPoints();
+			Track compactTrack = new Track();
+			compactTrack.segments.add(compactSegment);
+			compactGpx.tracks.add(compactTrack);
+		}
+		Assert.assertTrue(compactGpx.getGeneralSegment().points instanceof ColumnarTrackPoints);
+
+		GPXTrackAnalysis expected = gpx.getAnalysis(0);
+		GPXTrackAnalysis actual = compactGpx.getAnalysis(0);
+		Assert.assertEquals(expected.totalDistance, actual.totalDistance, 0);
+		Assert.assertEquals(expected.totalDistanceWithoutGaps, actual.totalDistanceWithoutGaps, 0);
+		Assert.assertEquals(expected.timeMoving, actual.timeMoving);
+		Assert.assertEquals(expected.diffElevationUp, actual.diffElevationUp, 0);
+		Assert.assertEquals(expected.diffElevationDown, actual.diffElevationDown, 0);
+		Assert.assertEquals(expected.maxHdop, actual.maxHdop, 0);
+		Assert.assertEquals(expected.avgSpeed, actual.avgSpeed, 0);
+		Assert.assertEquals(expected.left, actual.left, 0);
+		Assert.assertEquals(expected.top, actual.top, 0);
+
+		List<GPXTrackAnalysis> expectedSplit = gpx.tracks.get(0).segments.get(0).splitByDistance(1000, false);
+		List<GPXTrackAnalysis> actualSplit = compactGpx.tracks.get(0).segments.get(0).splitByDistance(1000, false);
+		Assert.assertEquals(expectedSplit.size(), actualSplit.size());
+		for (int i = 0; i < expectedSplit.size(); i++) {
+			Assert.assertEquals(expectedSplit.get(i).totalDistance, actualSplit.get(i).totalDistance, 0);
+			Assert.assertEquals(expectedSplit.get(i).diffElevationUp, actualSplit.get(i).diffElevationUp, 0);
+		}
+
+		LocationsHolder holder = new LocationsHolder(compactGpx.tracks.get(1).segments.get(0).points);
+		Assert.assertEquals(1001, holder.getSize());
+		Assert.assertEquals(gpx.tracks.get(1).segments.get(0).points.get(500).lat, holder.getLatitude(500), 0);
+	}
+}
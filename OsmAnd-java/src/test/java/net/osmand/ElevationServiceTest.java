@@ -0,0 +1,118 @@
+package net.osmand;
+
+import net.osmand.GPXUtilities.GPXFile;
+import net.osmand.GPXUtilities.Track;
+import net.osmand.GPXUtilities.TrkSegment;
+import net.osmand.GPXUtilities.WptPt;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+public class ElevationServiceTest {
+
+	private static final int SIZE = 121;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	// heights grow to south and east, so bilinear interpolation is exact
+	private static double height(int base, double lat, double lon) {
+		double row = (Math.floor(lat) + 1 - lat) * (SIZE - 1);
+		double col = (lon - Math.floor(lon)) * (SIZE - 1);
+		return base + 2 * row + col;
+	}
+
+	private static void writeTile(File file, int base, boolean withVoid) throws IOException {
+		DataOutputStream out = new DataOutputStream(new FileOutputStream(file));
+		try {
+			for (int row = 0; row < SIZE; row++) {
+				for (int col = 0; col < SIZE; col++) {
+					out.writeShort(withVoid && row == 0 && col == 0 ? Short.MIN_VALUE : base + 2 * row + col);
+				}
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	private ElevationService createService(boolean withGeoid) throws IOException {
+		File dir = folder.newFolder();
+		writeTile(new File(dir, ElevationService.getTileName(52.5, 4.5)), 100, true);
+		writeTile(new File(dir, "s34e151.hgt"), 1000, false);
+		GeoidAltitudeCorrection geoid = null;
+		if (withGeoid) {
+			DataOutputStream out = new DataOutputStream(new FileOutputStream(new File(dir, "WW15MGH.DAC")));
+			try {
+				for (int i = 0; i < 721 * 1440; i++) {
+					out.writeShort(4700);
+				}
+			} finally {
+				out.close();
+			}
+			geoid = new GeoidAltitudeCorrection(dir);
+			Assert.assertTrue(geoid.isGeoidInformationAvailable());
+			Assert.assertEquals(47, geoid.getGeoidHeight(52.5, 4.5), 0);
+		}
+		return withGeoid ? new ElevationService(dir, geoid) : new ElevationService(dir);
+	}
+
+	@Test
+	public void testBatchElevations() throws IOException {
+		ElevationService service = createService(false);
+		Assert.assertEquals("N52E004.hgt", ElevationService.getTileName(52.5, 4.5));
+		Assert.assertEquals("S34E151.hgt", ElevationService.getTileName(-33.5, 151.2));
+		double[] lats = {52.5, -33.1234, 52.1, 10, 52.99999, -33.9, 52.25, 95};
+		double[] lons = {4.5, 151.5678, 4.001, 10, 4.00001, 151.1, 4.75, 4.5};
+		double[] ele = new double[lats.length];
+		Assert.assertEquals(6, service.getElevations(lats, lons, ele));
+		Assert.assertEquals(height(100, 52.5, 4.5), ele[0], 1e-6);
+		Assert.assertEquals(height(1000, -33.1234, 151.5678), ele[1], 1e-6);
+		Assert.assertEquals(height(100, 52.1, 4.001), ele[2], 1e-6);
+		Assert.assertTrue(Double.isNaN(ele[3]));
+		// north west corner of tile is void, other heights are used
+		Assert.assertTrue(Math.abs(height(100, 52.99999, 4.00001) - ele[4]) < 3);
+		Assert.assertEquals(height(1000, -33.9, 151.1), ele[5], 1e-6);
+		Assert.assertEquals(height(100, 52.25, 4.75), ele[6], 1e-6);
+		Assert.assertTrue(Double.isNaN(ele[7]));
+		Assert.assertEquals(ele[1], service.getElevation(-33.1234, 151.5678), 0);
+	}
+
+	@Test
+	public void testAugmentGpx() throws IOException {
+		ElevationService service = createService(true);
+		GPXFile gpx = new GPXFile("test");
+		Track track = new Track();
+		for (int s = 0; s < 2; s++) {
+			TrkSegment segment = new TrkSegment();
+			for (int i = 0; i < 1000; i++) {
+				// track goes from one tile to other and back
+				double lat = i % 2 == 0 ? 52 + i / 2000.0 : -33.5 - i / 2000.0;
+				double lon = i % 2 == 0 ? 4.2 : 151.3;
+				segment.points.add(new WptPt(lat, lon, 0, i % 10 == 0 ? 5 : Double.NaN, 0, Double.NaN));
+			}
+			if (s == 1) {
+				segment.compactPoints();
+			}
+			track.segments.add(segment);
+		}
+		gpx.tracks.add(track);
+		Assert.assertEquals(1800, service.augmentElevations(gpx, true));
+		for (TrkSegment segment : track.segments) {
+			for (int i = 0; i < segment.points.size(); i++) {
+				WptPt p = segment.points.get(i);
+				// heights of tiles are above geoid, which is 47 m above ellipsoid
+				double expected = i % 10 == 0 ? 5 : height(i % 2 == 0 ? 100 : 1000, p.lat, p.lon) + 47;
+				Assert.assertEquals(expected, p.ele, 1e-6);
+			}
+		}
+		Assert.assertEquals(2000, service.augmentElevations(gpx, false));
+		Assert.assertEquals(height(100, 52, 4.2) + 47, track.segments.get(1).points.get(0).ele, 1e-6);
+	}
+}
@@ -0,0 +1,148 @@
+package net.osmand;
+
+import net.osmand.GPXUtilities.GPXFile;
+import net.osmand.GPXUtilities.PointsGroup;
+import net.osmand.GPXUtilities.Track;
+import net.osmand.GPXUtilities.TrkSegment;
+import net.osmand.GPXUtilities.WptPt;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+public class GPXBinaryCacheTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static void assertPoint(WptPt expected, WptPt actual) {
+		Assert.assertEquals(expected.lat, actual.lat, 0);
+		Assert.assertEquals(expected.lon, actual.lon, 0);
+		Assert.assertEquals(expected.time, actual.time);
+		Assert.assertEquals(expected.ele, actual.ele, 0);
+		Assert.assertEquals(expected.speed, actual.speed, 0);
+		Assert.assertEquals(expected.hdop, actual.hdop, 0);
+		Assert.assertEquals(expected.heading, actual.heading, 0);
+		Assert.assertEquals(expected.name, actual.name);
+		Assert.assertEquals(expected.desc, actual.desc);
+		Assert.assertEquals(expected.category, actual.category);
+		Assert.assertEquals(expected.extensions, actual.extensions);
+	}
+
+	private static void assertPoints(List<WptPt> expected, List<WptPt> actual) {
+		Assert.assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertPoint(expected.get(i), actual.get(i));
+		}
+	}
+
+	private static GPXFile createGpx() {
+		GPXFile gpx = new GPXFile("test");
+		gpx.metadata.name = "Cache test";
+		gpx.metadata.getExtensionsToWrite().put("desc", "Track with all kinds of points");
+		Random rnd = new Random(7);
+		long time = 1600000000000L;
+		for (int t = 0; t < 2; t++) {
+			Track track = new Track();
+			track.name = "Track " + t;
+			for (int s = 0; s < 3; s++) {
+				TrkSegment segment = new TrkSegment();
+				for (int i = 0; i < 200; i++) {
+					time += rnd.nextInt(3000);
+					// first track has raw gps values, second one is rounded as recorded by app
+					double lat = 50 + rnd.nextDouble();
+					double lon = 10 + rnd.nextDouble();
+					double ele = t == 0 ? 100 + rnd.nextDouble() * 100 : 100 + rnd.nextInt(1000) / 10.0;
+					if (t == 1) {
+						lat = Math.round(lat * 1e6) / 1e6;
+						lon = Math.round(lon * 1e6) / 1e6;
+					}
+					WptPt p = new WptPt(lat, lon, time, i % 5 == 0 ? Double.NaN : ele,
+							s == 1 ? 0 : rnd.nextInt(100) / 10.0, t == 0 ? Double.NaN : rnd.nextInt(20));
+					if (i % 50 == 0) {
+						p.name = "Point " + i;
+						p.getExtensionsToWrite().put("icon", "special_star");
+					}
+					segment.points.add(p);
+				}
+				track.segments.add(segment);
+			}
+			gpx.tracks.add(track);
+		}
+		for (int i = 0; i < 10; i++) {
+			WptPt wpt = new WptPt(51 + i * 0.01, 11, 0, Double.NaN, 0, Double.NaN);
+			wpt.name = "Waypoint " + i;
+			wpt.category = i % 2 == 0 ? "Even" : null;
+			gpx.addPoint(wpt);
+		}
+		return gpx;
+	}
+
+	@Test
+	public void testReadSameAsLoaded() throws IOException {
+		File gpxFile = folder.newFile("test.gpx");
+		GPXUtilities.writeGpxFile(gpxFile, createGpx());
+		File cacheDir = folder.newFolder("cache");
+
+		GPXFile expected = GPXUtilities.loadGPXFile(gpxFile);
+		GPXFile written = GPXBinaryCache.loadGPXFile(gpxFile, cacheDir);
+		File cacheFile = GPXBinaryCache.getCacheFile(gpxFile, cacheDir);
+		Assert.assertTrue(cacheFile.exists());
+		// temporary file is renamed to cache file
+		Assert.assertArrayEquals(new File[] {cacheFile}, cacheDir.listFiles());
+		Assert.assertTrue(cacheFile.length() < gpxFile.length() / 3);
+		GPXFile cached = GPXBinaryCache.loadGPXFile(gpxFile, cacheDir);
+		Assert.assertNotSame(written, cached);
+
+		Assert.assertEquals(expected.author, cached.author);
+		Assert.assertEquals(expected.metadata.name, cached.metadata.name);
+		Assert.assertEquals(expected.metadata.time, cached.metadata.time);
+		Assert.assertEquals(expected.metadata.getExtensionsToRead(), cached.metadata.getExtensionsToRead());
+		Assert.assertEquals(expected.path, cached.path);
+		Assert.assertEquals(expected.modifiedTime, cached.modifiedTime);
+		assertPoints(expected.getPoints(), cached.getPoints());
+		Assert.assertEquals(expected.getPointsGroups().keySet(), cached.getPointsGroups().keySet());
+		for (PointsGroup group : expected.getPointsGroups().values()) {
+			assertPoints(group.points, cached.getPointsGroups().get(group.name).points);
+		}
+		Assert.assertEquals(expected.tracks.size(), cached.tracks.size());
+		for (int t = 0; t < expected.tracks.size(); t++) {
+			Track track = expected.tracks.get(t);
+			Track cachedTrack = cached.tracks.get(t);
+			Assert.assertEquals(track.name, cachedTrack.name);
+			Assert.assertEquals(track.generalTrack, cachedTrack.generalTrack);
+			Assert.assertEquals(track.segments.size(), cachedTrack.segments.size());
+			for (int s = 0; s < track.segments.size(); s++) {
+				assertPoints(track.segments.get(s).points, cachedTrack.segments.get(s).points);
+			}
+		}
+		Assert.assertEquals(expected.getAnalysis(0).totalDistance, cached.getAnalysis(0).totalDistance, 0);
+	}
+
+	@Test
+	public void testOutdatedCache() throws IOException {
+		File gpxFile = folder.newFile("test.gpx");
+		GPXFile gpx = createGpx();
+		GPXUtilities.writeGpxFile(gpxFile, gpx);
+		File cacheDir = folder.newFolder("cache");
+		GPXBinaryCache.loadGPXFile(gpxFile, cacheDir);
+		File cacheFile = GPXBinaryCache.getCacheFile(gpxFile, cacheDir);
+		Assert.assertNotNull(GPXBinaryCache.read(cacheFile, gpxFile.length(), gpxFile.lastModified()));
+
+		gpx.tracks.remove(1);
+		GPXUtilities.writeGpxFile(gpxFile, gpx);
+		gpxFile.setLastModified(gpxFile.lastModified() + 2000);
+		Assert.assertNull(GPXBinaryCache.read(cacheFile, gpxFile.length(), gpxFile.lastModified()));
+		GPXFile reloaded = GPXBinaryCache.loadGPXFile(gpxFile, cacheDir);
+		Assert.assertEquals(2, reloaded.tracks.size());
+		GPXFile cached = GPXBinaryCache.read(cacheFile, gpxFile.length(), gpxFile.lastModified());
+		Assert.assertNotNull(cached);
+		Assert.assertEquals(2, cached.tracks.size());
+	}
+}
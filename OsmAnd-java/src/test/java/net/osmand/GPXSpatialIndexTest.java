@@ -0,0 +1,231 @@
+package net.osmand;
+
+import net.osmand.GPXSpatialIndex.TrackRange;
+import net.osmand.GPXUtilities.GPXFile;
+import net.osmand.GPXUtilities.Track;
+import net.osmand.GPXUtilities.TrkSegment;
+import net.osmand.GPXUtilities.WptPt;
+import net.osmand.util.MapUtils;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class GPXSpatialIndexTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static GPXFile createGpx(double startLat, double startLon, long seed) {
+		GPXFile gpx = new GPXFile("test");
+		Random rnd = new Random(seed);
+		Track track = new Track();
+		double lat = startLat;
+		double lon = startLon;
+		for (int s = 0; s < 2; s++) {
+			TrkSegment segment = new TrkSegment();
+			for (int i = 0; i < 1000; i++) {
+				lat += 0.0002 * rnd.nextDouble();
+				lon += 0.0002 * (rnd.nextDouble() - 0.5);
+				segment.points.add(new WptPt(lat, lon, 0, Double.NaN, 0, Double.NaN));
+			}
+			track.segments.add(segment);
+		}
+		gpx.tracks.add(track);
+		return gpx;
+	}
+
+	private static File writeGpx(File file, GPXFile gpx) {
+		GPXUtilities.writeGpxFile(file, gpx);
+		return file;
+	}
+
+	private static void assertSameAsScan(GPXSpatialIndex index, List<GPXFile> gpxFiles, List<File> files,
+	                                     double top, double left, double bottom, double right) {
+		int left31 = MapUtils.get31TileNumberX(left);
+		int top31 = MapUtils.get31TileNumberY(top);
+		int right31 = MapUtils.get31TileNumberX(right);
+		int bottom31 = MapUtils.get31TileNumberY(bottom);
+		List<TrackRange> ranges = index.search(left31, top31, right31, bottom31);
+		for (int f = 0; f < gpxFiles.size(); f++) {
+			String path = files.get(f).getAbsolutePath();
+			List<TrkSegment> segments = gpxFiles.get(f).getNonEmptyTrkSegments(false);
+			for (int s = 0; s < segments.size(); s++) {
+				List<WptPt> points = segments.get(s).points;
+				for (int i = 0; i < points.size(); i++) {
+					WptPt p = points.get(i);
+					int x = MapUtils.get31TileNumberX(p.lon);
+					int y = MapUtils.get31TileNumberY(p.lat);
+					if (x >= left31 && x <= right31 && y >= top31 && y <= bottom31) {
+						Assert.assertTrue("Point " + i + " is not found", contains(ranges, path, s, i));
+					}
+				}
+			}
+		}
+	}
+
+	private static boolean contains(List<TrackRange> ranges, String path, int segment, int point) {
+		for (TrackRange r : ranges) {
+			if (r.path.equals(path) && r.segment == segment && r.startPoint <= point && point <= r.endPoint) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Test
+	public void testSearch() throws IOException {
+		List<GPXFile> gpxFiles = Arrays.asList(createGpx(50, 10, 1), createGpx(50.05, 10, 2), createGpx(-33, 151, 3));
+		List<File> files = Arrays.asList(writeGpx(folder.newFile("1.gpx"), gpxFiles.get(0)),
+				writeGpx(folder.newFile("2.gpx"), gpxFiles.get(1)), writeGpx(folder.newFile("3.gpx"), gpxFiles.get(2)));
+		GPXSpatialIndex index = new GPXSpatialIndex();
+		Assert.assertTrue(index.update(files));
+		Assert.assertFalse(index.update(files));
+
+		assertSameAsScan(index, gpxFiles, files, 50.1, 9.99, 50.05, 10.01);
+		assertSameAsScan(index, gpxFiles, files, 50.3, 9, 49, 11);
+		assertSameAsScan(index, gpxFiles, files, -32, 150, -34, 152);
+		// whole world is found by one range of keys
+		Assert.assertEquals(3, index.searchFiles(0, 0, Integer.MAX_VALUE, Integer.MAX_VALUE).size());
+
+		int left31 = MapUtils.get31TileNumberX(150);
+		int right31 = MapUtils.get31TileNumberX(152);
+		int top31 = MapUtils.get31TileNumberY(-32);
+		int bottom31 = MapUtils.get31TileNumberY(-34);
+		Assert.assertEquals(Collections.singleton(files.get(2).getAbsolutePath()),
+				index.searchFiles(left31, top31, right31, bottom31));
+		WptPt first = gpxFiles.get(0).tracks.get(0).segments.get(0).points.get(0);
+		List<TrackRange> nearby = index.searchNearby(first.lat, first.lon, 100);
+		Assert.assertFalse(nearby.isEmpty());
+		Assert.assertEquals(files.get(0).getAbsolutePath(), nearby.get(0).path);
+		Assert.assertEquals(0, nearby.get(0).startPoint);
+		Assert.assertTrue(nearby.get(0).endPoint < 1000);
+		Assert.assertTrue(index.searchNearby(0, 0, 1000).isEmpty());
+	}
+
+	@Test
+	public void testIncrementalUpdate() throws IOException {
+		File file1 = writeGpx(folder.newFile("1.gpx"), createGpx(50, 10, 1));
+		File file2 = writeGpx(folder.newFile("2.gpx"), createGpx(-33, 151, 3));
+		GPXSpatialIndex index = new GPXSpatialIndex();
+		index.update(Arrays.asList(file1, file2));
+		File indexFile = new File(folder.getRoot(), GPXSpatialIndex.FILE_NAME);
+		index.save(indexFile);
+
+		GPXSpatialIndex loaded = GPXSpatialIndex.load(indexFile);
+		Assert.assertEquals(index.getIndexedFiles(), loaded.getIndexedFiles());
+		Assert.assertTrue(loaded.isIndexed(file1));
+		List<TrackRange> expected = index.searchNearby(-33, 151, 50000);
+		List<TrackRange> actual = loaded.searchNearby(-33, 151, 50000);
+		Assert.assertEquals(expected.toString(), actual.toString());
+
+		// second file is moved to another place
+		writeGpx(file2, createGpx(40, -74, 4));
+		file2.setLastModified(file2.lastModified() + 2000);
+		Assert.assertFalse(loaded.isIndexed(file2));
+		Assert.assertTrue(loaded.update(Arrays.asList(file1, file2)));
+		Assert.assertTrue(loaded.searchNearby(-33, 151, 50000).isEmpty());
+		Assert.assertEquals(file2.getAbsolutePath(), loaded.searchNearby(40.1, -74, 50000).get(0).path);
+
+		Assert.assertTrue(loaded.update(Collections.singletonList(file1)));
+		Assert.assertTrue(loaded.searchNearby(40.1, -74, 50000).isEmpty());
+		Assert.assertEquals(Collections.singleton(file1.getAbsolutePath()), loaded.getIndexedFiles());
+	}
+
+	private static GPXFile createLine(double lat1, double lon1, double lat2, double lon2) {
+		GPXFile gpx = new GPXFile("test");
+		Track track = new Track();
+		TrkSegment segment = new TrkSegment();
+		segment.points.add(new WptPt(lat1, lon1, 0, Double.NaN, 0, Double.NaN));
+		segment.points.add(new WptPt(lat2, lon2, 0, Double.NaN, 0, Double.NaN));
+		track.segments.add(segment);
+		gpx.tracks.add(track);
+		return gpx;
+	}
+
+	@Test
+	public void testLongLines() throws IOException {
+		File diagonal = folder.newFile("diagonal.gpx");
+		File horizontal = folder.newFile("horizontal.gpx");
+		GPXSpatialIndex index = new GPXSpatialIndex();
+		index.updateFile(diagonal, createLine(50, 10, 51, 11.3));
+		index.updateFile(horizontal, createLine(52, 12, 52, 10));
+
+		// query boxes far from the ends of lines
+		List<TrackRange> found = index.searchNearby(50.5, 10.65, 300);
+		Assert.assertEquals(1, found.size());
+		Assert.assertEquals(diagonal.getAbsolutePath(), found.get(0).path);
+		Assert.assertEquals(0, found.get(0).startPoint);
+		Assert.assertEquals(1, found.get(0).endPoint);
+		found = index.searchNearby(52, 11, 300);
+		Assert.assertEquals(1, found.size());
+		Assert.assertEquals(horizontal.getAbsolutePath(), found.get(0).path);
+		// every point of line (straight in 31 tile coordinates) is found
+		double x1 = MapUtils.get31TileNumberX(10);
+		double y1 = MapUtils.get31TileNumberY(50);
+		double x2 = MapUtils.get31TileNumberX(11.3);
+		double y2 = MapUtils.get31TileNumberY(51);
+		for (int i = 0; i <= 1000; i++) {
+			double lat = MapUtils.get31LatitudeY((int) (y1 + (y2 - y1) * i / 1000));
+			double lon = MapUtils.get31LongitudeX((int) (x1 + (x2 - x1) * i / 1000));
+			Assert.assertEquals("Point " + i + " is not found", 1, index.searchNearby(lat, lon, 10).size());
+		}
+		// cells of bbox which are far from line are empty
+		Assert.assertTrue(index.searchNearby(50.9, 10.1, 300).isEmpty());
+		Assert.assertTrue(index.searchNearby(50.1, 11.2, 300).isEmpty());
+	}
+
+	@Test
+	public void testStreamingSameAsLoaded() throws IOException {
+		File file = writeGpx(folder.newFile("1.gpx"), createGpx(50, 10, 1));
+		GPXSpatialIndex streamed = new GPXSpatialIndex();
+		Assert.assertTrue(streamed.updateFile(file));
+		GPXSpatialIndex loaded = new GPXSpatialIndex();
+		GPXFile gpx = GPXUtilities.loadGPXFile(file);
+		loaded.updateFile(file, gpx);
+		List<TrackRange> expected = loaded.searchNearby(50.1, 10, 50000);
+		Assert.assertFalse(expected.isEmpty());
+		Assert.assertEquals(expected.toString(), streamed.searchNearby(50.1, 10, 50000).toString());
+		for (TrackRange range : streamed.searchNearby(50.1, 10, 50000)) {
+			WptPt start = gpx.getNonEmptyTrkSegments(false).get(range.segment).points.get(range.startPoint);
+			Assert.assertEquals(MapUtils.get31TileNumberX(start.lon), range.startX31);
+			Assert.assertEquals(MapUtils.get31TileNumberY(start.lat), range.startY31);
+		}
+		Assert.assertFalse(streamed.updateFile(new File(folder.getRoot(), "missing.gpx")));
+	}
+
+	@Test
+	public void testAntimeridian() throws IOException {
+		File east = folder.newFile("east.gpx");
+		File west = folder.newFile("west.gpx");
+		GPXSpatialIndex index = new GPXSpatialIndex();
+		index.updateFile(east, createLine(10, 179.99, 10.02, -179.99));
+		index.updateFile(west, createLine(-10, -179.99, -10.02, 179.99));
+
+		found(index, east, 10.01, 179.999);
+		found(index, east, 10.01, -179.999);
+		found(index, west, -10.01, 179.999);
+		found(index, west, -10.01, -179.999);
+		// line is not indexed across the whole world
+		Assert.assertTrue(index.searchNearby(10.01, 0, 1000).isEmpty());
+		Assert.assertTrue(index.searchNearby(-10.01, 0, 1000).isEmpty());
+		Assert.assertTrue(index.searchNearby(10.01, 179.5, 1000).isEmpty());
+		Assert.assertTrue(index.searchNearby(10.01, -179.5, 1000).isEmpty());
+	}
+
+	private static void found(GPXSpatialIndex index, File file, double lat, double lon) {
+		List<TrackRange> found = index.searchNearby(lat, lon, 500);
+		Assert.assertEquals(1, found.size());
+		Assert.assertEquals(file.getAbsolutePath(), found.get(0).path);
+		Assert.assertEquals(0, found.get(0).startPoint);
+		Assert.assertEquals(1, found.get(0).endPoint);
+	}
+}
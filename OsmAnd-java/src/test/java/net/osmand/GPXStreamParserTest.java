@@ -0,0 +1,134 @@
+package net.osmand;
+
+import net.osmand.GPXUtilities.GPXFile;
+import net.osmand.GPXUtilities.Track;
+import net.osmand.GPXUtilities.TrkSegment;
+import net.osmand.GPXUtilities.WptPt;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+
+public class GPXStreamParserTest {
+
+	@Test
+	public void testParseNumbers() {
+		Random rnd = new Random(5);
+		String[] special = {"0", "-0", "+1.5", "1.", ".25", "1e5", "-1.5E-3", " 12.5 ", "NaN", "123456789012345678",
+				"0.30000000000000004", "52.123456789012345678", "99999.999999"};
+		List<String> values = new ArrayList<>();
+		for (String s : special) {
+			values.add(s);
+		}
+		for (int i = 0; i < 10000; i++) {
+			values.add(String.format(Locale.US, "%." + rnd.nextInt(12) + "f", (rnd.nextDouble() - 0.5) * Math.pow(10, rnd.nextInt(8))));
+		}
+		for (String s : values) {
+			Assert.assertEquals(s, Double.doubleToLongBits(Double.parseDouble(s)),
+					Double.doubleToLongBits(GPXStreamParser.parseDouble(s)));
+			Assert.assertEquals(s, Float.floatToIntBits(Float.parseFloat(s)),
+					Float.floatToIntBits(GPXStreamParser.parseFloat(s)));
+		}
+		for (String s : new String[] {"", "-", ".", "1.2.3", "abc"}) {
+			try {
+				GPXStreamParser.parseDouble(s);
+				Assert.fail(s);
+			} catch (NumberFormatException e) {
+				// expected
+			}
+		}
+	}
+
+	@Test
+	public void testParseTime() {
+		SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssXXX", Locale.US);
+		format.setTimeZone(TimeZone.getTimeZone("UTC"));
+		SimpleDateFormat formatMillis = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSXXX", Locale.US);
+		formatMillis.setTimeZone(TimeZone.getTimeZone("UTC"));
+		String[] times = {"2021-03-04T05:06:07Z", "2020-02-29T23:59:59.999Z", "1999-12-31T00:00:00+03:30",
+				"2016-07-01T12:00:00.120-02:00", "1970-01-01T00:00:00Z", "2021-02-30T10:00:00Z",
+				"2021-03-04T05:06:07.5Z", "2021-03-04T05:06:07", "1800-01-01T00:00:00Z", "2021-03-04 05:06:07Z"};
+		for (String t : times) {
+			Assert.assertEquals(t, GPXUtilities.parseTime(t, format, formatMillis), GPXStreamParser.parseTime(t));
+		}
+		Assert.assertEquals(GPXStreamParser.UNPARSED_TIME, GPXStreamParser.parseIsoTime("2021-03-04T05:06:07"));
+	}
+
+	@Test
+	public void testParse() throws IOException {
+		GPXFile gpx = new GPXFile("test");
+		Random rnd = new Random(3);
+		for (int t = 0; t < 2; t++) {
+			Track track = new Track();
+			for (int s = 0; s < 3; s++) {
+				TrkSegment segment = new TrkSegment();
+				for (int i = 0; i < 100; i++) {
+					WptPt p = new WptPt(50 + rnd.nextDouble(), 10 + rnd.nextDouble(), 1600000000000L + i * 1000,
+							100 + rnd.nextInt(1000) / 10.0, rnd.nextInt(100) / 10.0, Double.NaN);
+					segment.points.add(p);
+				}
+				track.segments.add(segment);
+			}
+			gpx.tracks.add(track);
+		}
+		WptPt wpt = new WptPt(51, 11, 0, Double.NaN, 0, Double.NaN);
+		wpt.name = "Waypoint";
+		gpx.addPoint(wpt);
+		byte[] bytes = GPXUtilities.asString(gpx).getBytes("UTF-8");
+
+		final GPXFile loaded = GPXUtilities.loadGPXFile(new ByteArrayInputStream(bytes));
+		final int[] counts = new int[3];
+		final List<WptPt> points = new ArrayList<>();
+		GPXStreamParser.parse(new ByteArrayInputStream(bytes), new GPXStreamParser.GPXVisitor() {
+			@Override
+			public void startTrack() {
+				counts[0]++;
+			}
+
+			@Override
+			public void startSegment() {
+				counts[1]++;
+			}
+
+			@Override
+			public void visitTrackPoint(WptPt point) {
+				points.add(new WptPt(point));
+			}
+
+			@Override
+			public void visitWaypoint(WptPt point) {
+				counts[2]++;
+				Assert.assertEquals("Waypoint", point.name);
+			}
+		});
+		Assert.assertEquals(2, counts[0]);
+		Assert.assertEquals(6, counts[1]);
+		Assert.assertEquals(1, counts[2]);
+		int ind = 0;
+		for (Track track : loaded.tracks) {
+			if (track.generalTrack) {
+				continue;
+			}
+			for (TrkSegment segment : track.segments) {
+				for (WptPt expected : segment.points) {
+					WptPt actual = points.get(ind++);
+					Assert.assertEquals(expected.lat, actual.lat, 0);
+					Assert.assertEquals(expected.lon, actual.lon, 0);
+					Assert.assertEquals(expected.ele, actual.ele, 0);
+					Assert.assertEquals(expected.speed, actual.speed, 0);
+					Assert.assertEquals(expected.time, actual.time);
+				}
+			}
+		}
+		Assert.assertEquals(600, ind);
+		Assert.assertEquals(ind, points.size());
+	}
+}
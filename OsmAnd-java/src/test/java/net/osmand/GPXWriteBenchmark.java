@@ -0,0 +1,112 @@
+package net.osmand;
+
+import net.osmand.GPXUtilities.GPXFile;
+import net.osmand.GPXUtilities.Track;
+import net.osmand.GPXUtilities.TrkSegment;
+import net.osmand.GPXUtilities.WptPt;
+
+import org.xmlpull.v1.XmlSerializer;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Measures throughput of {@link GPXUtilities#writeGpxFile} for recorded track and compares it with
+ * writing of the same track points by kxml serializer with {@link DecimalFormat} (previous gpx writer).
+ * <p>
+ * Usage: {@code GPXWriteBenchmark [points] [iterations] [dir]}, default is 500000 points written 5 times.
+ */
+public class GPXWriteBenchmark {
+
+	private static GPXFile createRecordedTrack(int points) {
+		GPXFile gpx = new GPXFile("OsmAnd");
+		Random rnd = new Random(1);
+		Track track = new Track();
+		TrkSegment segment = new TrkSegment();
+		double lat = 52.37;
+		double lon = 4.89;
+		long time = 1600000000000L;
+		for (int i = 0; i < points; i++) {
+			lat += (rnd.nextDouble() - 0.4) * 0.0001;
+			lon += (rnd.nextDouble() - 0.4) * 0.0001;
+			time += 1000;
+			WptPt p = new WptPt(lat, lon, time, 10 + rnd.nextInt(1000) / 10.0, rnd.nextInt(200) / 10.0,
+					rnd.nextInt(50) / 10.0);
+			p.heading = rnd.nextInt(360);
+			segment.points.add(p);
+		}
+		track.segments.add(segment);
+		gpx.tracks.add(track);
+		return gpx;
+	}
+
+	private static void writeWithKxml(File file, GPXFile gpx) throws IOException {
+		DecimalFormat latLonFormat = new DecimalFormat("0.00#####", new DecimalFormatSymbols(Locale.US));
+		DecimalFormat decimalFormat = new DecimalFormat("#.#", new DecimalFormatSymbols(Locale.US));
+		Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+		try {
+			XmlSerializer serializer = PlatformUtil.newSerializer();
+			serializer.setOutput(writer);
+			serializer.setFeature(GPXXmlWriter.FEATURE_INDENT_OUTPUT, true);
+			serializer.startDocument("UTF-8", true);
+			serializer.startTag(null, "gpx");
+			serializer.startTag(null, "trk");
+			serializer.startTag(null, "trkseg");
+			for (WptPt p : gpx.tracks.get(0).segments.get(0).points) {
+				serializer.startTag(null, "trkpt");
+				serializer.attribute(null, "lat", latLonFormat.format(p.lat));
+				serializer.attribute(null, "lon", latLonFormat.format(p.lon));
+				GPXUtilities.writeNotNullText(serializer, "ele", decimalFormat.format(p.ele));
+				GPXUtilities.writeNotNullText(serializer, "time", GPXUtilities.formatTime(p.time));
+				GPXUtilities.writeNotNullText(serializer, "hdop", decimalFormat.format(p.hdop));
+				serializer.startTag(null, "extensions");
+				GPXUtilities.writeNotNullText(serializer, "speed", decimalFormat.format(p.speed));
+				GPXUtilities.writeNotNullText(serializer, "heading", String.valueOf(Math.round(p.heading)));
+				serializer.endTag(null, "extensions");
+				serializer.endTag(null, "trkpt");
+			}
+			serializer.endTag(null, "trkseg");
+			serializer.endTag(null, "trk");
+			serializer.endTag(null, "gpx");
+			serializer.endDocument();
+		} finally {
+			writer.close();
+		}
+	}
+
+	private static void report(String name, int points, long bytes, long nanos) {
+		double seconds = nanos / 1e9;
+		System.out.println(String.format(Locale.US, "%-8s %8.0f ms %10.0f points/s %8.1f MB/s", name,
+				nanos / 1e6, points / seconds, bytes / seconds / (1 << 20)));
+	}
+
+	public static void main(String[] args) throws IOException {
+		int points = args.length > 0 ? Integer.parseInt(args[0]) : 500000;
+		int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+		File dir = args.length > 2 ? new File(args[2]) : new File(System.getProperty("java.io.tmpdir"));
+		GPXFile gpx = createRecordedTrack(points);
+		File gpxFile = new File(dir, "benchmark.gpx");
+		File kxmlFile = new File(dir, "benchmark_kxml.gpx");
+		for (int i = 0; i < iterations; i++) {
+			long start = System.nanoTime();
+			Exception error = GPXUtilities.writeGpxFile(gpxFile, gpx);
+			if (error != null) {
+				throw new IOException(error);
+			}
+			report("gpx", points, gpxFile.length(), System.nanoTime() - start);
+
+			start = System.nanoTime();
+			writeWithKxml(kxmlFile, gpx);
+			report("kxml", points, kxmlFile.length(), System.nanoTime() - start);
+		}
+		gpxFile.delete();
+		kxmlFile.delete();
+	}
+}
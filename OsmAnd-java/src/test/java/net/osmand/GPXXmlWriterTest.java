@@ -0,0 +1,228 @@
+package net.osmand;
+
+import net.osmand.GPXUtilities.GPXExtensionsWriter;
+import net.osmand.GPXUtilities.GPXFile;
+import net.osmand.GPXXmlWriter.DecimalPattern;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.xmlpull.v1.XmlSerializer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+import java.util.Random;
+
+public class GPXXmlWriterTest {
+
+	private static final String[] TEXTS = {"", "a", "&amp;", "<b>", "\"q\"", "'s'", "ü日", "😀",
+			"\t\r\n", "x y", "]]>", "\uD800"};
+
+	private static String randomText(Random rnd) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = rnd.nextInt(4); i > 0; i--) {
+			sb.append(TEXTS[rnd.nextInt(TEXTS.length)]);
+		}
+		return sb.toString();
+	}
+
+	private static void writeDocument(XmlSerializer serializer, long seed) throws IOException {
+		Random rnd = new Random(seed);
+		serializer.setFeature(GPXXmlWriter.FEATURE_INDENT_OUTPUT, true);
+		serializer.startDocument("UTF-8", true);
+		serializer.startTag(null, "gpx");
+		serializer.attribute(null, "version", "1.1");
+		int depth = 1;
+		String[] names = new String[64];
+		names[0] = "gpx";
+		for (int i = 0; i < 5000; i++) {
+			int action = rnd.nextInt(10);
+			if (action < 3 && depth < names.length) {
+				names[depth] = "tag" + rnd.nextInt(5);
+				serializer.startTag(null, names[depth++]);
+				if (rnd.nextBoolean()) {
+					serializer.attribute(null, "attr", randomText(rnd));
+				}
+			} else if (action < 6 && depth > 1) {
+				serializer.endTag(null, names[--depth]);
+			} else if (action < 8) {
+				serializer.text(randomText(rnd));
+			} else if (action < 9) {
+				serializer.flush();
+			} else {
+				Assert.assertEquals(names[depth - 1], serializer.getName());
+			}
+		}
+		while (depth > 0) {
+			serializer.endTag(null, names[--depth]);
+		}
+		serializer.endDocument();
+	}
+
+	@Test
+	public void testSameAsKxml() throws IOException {
+		for (long seed = 0; seed < 20; seed++) {
+			ByteArrayOutputStream expected = new ByteArrayOutputStream();
+			Writer writer = new OutputStreamWriter(expected, "UTF-8");
+			XmlSerializer kxml = PlatformUtil.newSerializer();
+			kxml.setOutput(writer);
+			writeDocument(kxml, seed);
+			writer.close();
+
+			ByteArrayOutputStream actual = new ByteArrayOutputStream();
+			writeDocument(new GPXXmlWriter(Channels.newChannel(actual)), seed);
+			Assert.assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+
+			StringWriter expectedChars = new StringWriter();
+			kxml = PlatformUtil.newSerializer();
+			kxml.setOutput(expectedChars);
+			writeDocument(kxml, seed);
+			StringWriter chars = new StringWriter();
+			writeDocument(new GPXXmlWriter(chars), seed);
+			Assert.assertEquals(expectedChars.toString(), chars.toString());
+		}
+	}
+
+	// extension writers declare and generate prefixes of their namespaces
+	private static void writeNamespaces(XmlSerializer serializer, String encoding) throws IOException {
+		serializer.setFeature(GPXXmlWriter.FEATURE_INDENT_OUTPUT, true);
+		serializer.startDocument(encoding, null);
+		serializer.startTag(null, "gpx");
+		serializer.setPrefix("ex", "http://ex");
+		serializer.startTag("http://ex", "a");
+		serializer.attribute("http://ex", "k", "v");
+		serializer.attribute("http://other", "k", "ü日\"");
+		Assert.assertEquals("http://ex", serializer.getNamespace());
+		Assert.assertEquals("ex", serializer.getPrefix("http://ex", false));
+		serializer.text("ü日 <a>");
+		serializer.startTag("http://ex", "b");
+		serializer.startTag("http://new", "c");
+		serializer.endTag("http://new", "c");
+		serializer.setPrefix("", "http://default");
+		serializer.startTag("http://default", "d");
+		serializer.endTag("http://default", "d");
+		serializer.endTag("http://ex", "b");
+		serializer.endTag("http://ex", "a");
+		Assert.assertNull(serializer.getPrefix("http://ex", false));
+		serializer.startTag("http://ex", "e");
+		serializer.startTag("", "f");
+		Assert.assertEquals("", serializer.getNamespace());
+		serializer.endTag("", "f");
+		serializer.endTag("http://ex", "e");
+		serializer.endTag(null, "gpx");
+		serializer.endDocument();
+	}
+
+	@Test
+	public void testNamespacesSameAsKxml() throws IOException {
+		XmlSerializer kxml = PlatformUtil.newSerializer();
+		GPXXmlWriter writer = new GPXXmlWriter(new StringWriter());
+		for (String encoding : new String[] {"UTF-8", "ISO-8859-1"}) {
+			ByteArrayOutputStream expected = new ByteArrayOutputStream();
+			kxml.setOutput(expected, encoding);
+			writeNamespaces(kxml, encoding);
+			ByteArrayOutputStream actual = new ByteArrayOutputStream();
+			writer.setOutput(actual, encoding);
+			writeNamespaces(writer, encoding);
+			Assert.assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+
+			// kxml keeps encoding of previous output stream
+			StringWriter expectedChars = new StringWriter();
+			XmlSerializer charsKxml = PlatformUtil.newSerializer();
+			charsKxml.setOutput(expectedChars);
+			writeNamespaces(charsKxml, null);
+			StringWriter chars = new StringWriter();
+			writer.setOutput(chars);
+			writeNamespaces(writer, null);
+			Assert.assertEquals(expectedChars.toString(), chars.toString());
+		}
+		writer.setFeature("http://xmlpull.org/v1/doc/features.html#names-interned", true);
+		Assert.assertTrue(writer.getFeature("http://xmlpull.org/v1/doc/features.html#names-interned"));
+		writer.setProperty("property", 1);
+		Assert.assertEquals(1, writer.getProperty("property"));
+	}
+
+	@Test
+	public void testReleasedOnError() throws IOException {
+		final XmlSerializer[] failed = new XmlSerializer[1];
+		GPXFile file = new GPXFile("Test");
+		file.setExtensionsWriter(new GPXExtensionsWriter() {
+			@Override
+			public void writeExtensions(XmlSerializer serializer) {
+				failed[0] = serializer;
+				throw new IllegalArgumentException("Test");
+			}
+		});
+		Exception error = GPXUtilities.writeGpx(new StringWriter(), file, null);
+		Assert.assertTrue(error instanceof IllegalArgumentException);
+		try {
+			failed[0].text("released buffer is used by next writer");
+			Assert.fail();
+		} catch (IllegalStateException e) {
+			// expected
+		}
+
+		file.setExtensionsWriter(null);
+		StringWriter expected = new StringWriter();
+		Assert.assertNull(GPXUtilities.writeGpx(expected, file, null));
+		StringWriter actual = new StringWriter();
+		Assert.assertNull(GPXUtilities.writeGpx(actual, file, null));
+		Assert.assertEquals(expected.toString(), actual.toString());
+	}
+
+	@Test
+	public void testNumbersSameAsDecimalFormat() {
+		String[] patterns = {"0.00#####", "#.#", "0", "0.000"};
+		Random rnd = new Random(11);
+		for (String p : patterns) {
+			DecimalPattern pattern = new DecimalPattern(p);
+			DecimalFormat format = new DecimalFormat(p, new DecimalFormatSymbols(Locale.US));
+			double[] special = {0, -0.0, 0.05, 0.15, 0.25, -1.25, 123.45, 45.12345675, -1e-9, 1e10, 1e20,
+					Double.NaN, Double.POSITIVE_INFINITY, Double.MAX_VALUE, Double.MIN_VALUE};
+			for (double value : special) {
+				Assert.assertEquals(format.format(value), pattern.format(value));
+			}
+			for (int i = 0; i < 100000; i++) {
+				double value;
+				switch (i % 4) {
+					case 0:
+						value = (rnd.nextDouble() - 0.5) * 360;
+						break;
+					case 1:
+						// ties of decimal numbers
+						value = (rnd.nextInt(2000000) - 1000000) / 200.0;
+						break;
+					case 2:
+						value = Math.round(rnd.nextDouble() * 1e7) / 1e7 + 5e-8;
+						break;
+					default:
+						value = rnd.nextDouble() * Math.pow(10, rnd.nextInt(14));
+				}
+				Assert.assertEquals(format.format(value), pattern.format(value));
+			}
+		}
+	}
+
+	@Test
+	public void testTimeSameAsFormatTime() throws IOException {
+		Random rnd = new Random(5);
+		long[] special = {0, -1, 1, -2208988800000L, -2208988800001L, 253402300799999L, 253402300800000L,
+				951782400000L, 4107542400000L, Long.MIN_VALUE / 2};
+		StringWriter expected = new StringWriter();
+		StringWriter actual = new StringWriter();
+		GPXXmlWriter writer = new GPXXmlWriter(actual);
+		for (int i = 0; i < 100000 + special.length; i++) {
+			long time = i < special.length ? special[i] : (rnd.nextLong() >> 20);
+			expected.append(GPXUtilities.formatTime(time)).append(' ');
+			writer.timeText(time).text(" ");
+		}
+		writer.flush();
+		Assert.assertEquals(expected.toString(), actual.toString());
+	}
+}
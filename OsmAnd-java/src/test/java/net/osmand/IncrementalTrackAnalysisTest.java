@@ -0,0 +1,152 @@
+package net.osmand;
+
+import net.osmand.GPXUtilities.GPXFile;
+import net.osmand.GPXUtilities.GPXTrackAnalysis;
+import net.osmand.GPXUtilities.Track;
+import net.osmand.GPXUtilities.TrkSegment;
+import net.osmand.GPXUtilities.WptPt;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class IncrementalTrackAnalysisTest {
+
+	private static void assertAnalysis(GPXTrackAnalysis expected, GPXTrackAnalysis actual) {
+		Assert.assertEquals(expected.totalTracks, actual.totalTracks);
+		Assert.assertEquals(expected.points, actual.points);
+		Assert.assertEquals(expected.totalDistance, actual.totalDistance, 0);
+		Assert.assertEquals(expected.startTime, actual.startTime);
+		Assert.assertEquals(expected.endTime, actual.endTime);
+		Assert.assertEquals(expected.timeSpan, actual.timeSpan);
+		Assert.assertEquals(expected.timeMoving, actual.timeMoving);
+		Assert.assertEquals(expected.totalDistanceMoving, actual.totalDistanceMoving, 0);
+		Assert.assertEquals(expected.diffElevationUp, actual.diffElevationUp, 0);
+		Assert.assertEquals(expected.diffElevationDown, actual.diffElevationDown, 0);
+		Assert.assertEquals(expected.avgElevation, actual.avgElevation, 0);
+		Assert.assertEquals(expected.minElevation, actual.minElevation, 0);
+		Assert.assertEquals(expected.maxElevation, actual.maxElevation, 0);
+		Assert.assertEquals(expected.minSpeed, actual.minSpeed, 0);
+		Assert.assertEquals(expected.maxSpeed, actual.maxSpeed, 0);
+		Assert.assertEquals(expected.avgSpeed, actual.avgSpeed, 0);
+		Assert.assertEquals(expected.minHdop, actual.minHdop, 0);
+		Assert.assertEquals(expected.maxHdop, actual.maxHdop, 0);
+		Assert.assertEquals(expected.left, actual.left, 0);
+		Assert.assertEquals(expected.right, actual.right, 0);
+		Assert.assertEquals(expected.top, actual.top, 0);
+		Assert.assertEquals(expected.bottom, actual.bottom, 0);
+		Assert.assertEquals(expected.hasElevationData, actual.hasElevationData);
+		Assert.assertEquals(expected.hasSpeedData, actual.hasSpeedData);
+		Assert.assertSame(expected.locationStart, actual.locationStart);
+		Assert.assertSame(expected.locationEnd, actual.locationEnd);
+		Assert.assertEquals(expected.elevationData.size(), actual.elevationData.size());
+		for (int i = 0; i < expected.speedData.size(); i++) {
+			Assert.assertEquals(expected.speedData.get(i).speed, actual.speedData.get(i).speed, 0);
+			Assert.assertEquals(expected.elevationData.get(i).elevation, actual.elevationData.get(i).elevation, 0);
+			Assert.assertEquals(expected.elevationData.get(i).time, actual.elevationData.get(i).time);
+		}
+	}
+
+	@Test
+	public void testSameAsBatchAnalysis() {
+		Random rnd = new Random(11);
+		GPXFile gpx = new GPXFile("test");
+		Track track = new Track();
+		gpx.tracks.add(track);
+		IncrementalTrackAnalysis analysis = new IncrementalTrackAnalysis();
+		// walking, driving, single point and untimed segments
+		int[] sizes = {300, 200, 1, 150, 0, 100};
+		double[] steps = {0.00001, 0.0003, 0.0001, 0.0002, 0, 0.00005};
+		long time = 1600000000000L;
+		double lat = 52;
+		double ele = 100;
+		for (int s = 0; s < sizes.length; s++) {
+			TrkSegment segment = new TrkSegment();
+			track.segments.add(segment);
+			analysis.startSegment();
+			assertAnalysis(gpx.getAnalysis(5), analysis.getAnalysis(5));
+			boolean timed = s != 3;
+			for (int i = 0; i < sizes[s]; i++) {
+				lat += steps[s] * rnd.nextDouble();
+				ele += rnd.nextInt(5) - 2;
+				time += 1000;
+				WptPt p = new WptPt(lat, 4 + rnd.nextDouble() * steps[s], timed ? time : 0,
+						i % 7 == 0 ? Double.NaN : ele, s == 1 ? rnd.nextInt(30) : 0, i % 3 == 0 ? Double.NaN : rnd.nextInt(10));
+				segment.points.add(p);
+				analysis.addPoint(p);
+				if (i % 37 == 0 || i == sizes[s] - 1) {
+					assertAnalysis(gpx.getAnalysis(5), analysis.getAnalysis(5));
+				}
+			}
+		}
+		assertAnalysis(gpx.getAnalysis(5), analysis.getAnalysis(5));
+	}
+
+	@Test
+	public void testSameAsBatchAnalysisWithChangingWindow() {
+		Random rnd = new Random(7);
+		GPXFile gpx = new GPXFile("test");
+		Track track = new Track();
+		gpx.tracks.add(track);
+		TrkSegment segment = new TrkSegment();
+		track.segments.add(segment);
+		IncrementalTrackAnalysis analysis = new IncrementalTrackAnalysis();
+		long time = 1600000000000L;
+		double ele = 100;
+		// 10 - 50 m between points, so window length changes with every point
+		double lat = 52;
+		for (int i = 0; i < 1000; i++) {
+			lat += (10 + rnd.nextInt(40)) / 111000d;
+			ele += rnd.nextInt(5) - 2;
+			time += 5000;
+			WptPt p = new WptPt(lat, 4, time, ele, 0, Double.NaN);
+			segment.points.add(p);
+			analysis.addPoint(p);
+			if (i % 10 == 0) {
+				assertAnalysis(gpx.getAnalysis(5), analysis.getAnalysis(5));
+			}
+		}
+		assertAnalysis(gpx.getAnalysis(5), analysis.getAnalysis(5));
+	}
+
+	@Test
+	public void testWindowsNotRecalculatedWithSameLength() {
+		Random rnd = new Random(7);
+		IncrementalTrackAnalysis analysis = new IncrementalTrackAnalysis();
+		int count = 5000;
+		long time = 1600000000000L;
+		double ele = 100;
+		// less than 5 m between points, so window length is always 20 m
+		double lat = 52;
+		for (int i = 0; i < count; i++) {
+			lat += (1 + rnd.nextInt(3)) / 111000d;
+			ele += rnd.nextInt(5) - 2;
+			time += 1000;
+			analysis.addPoint(new WptPt(lat, 4, time, ele, 0, Double.NaN));
+			analysis.getAnalysis(5);
+		}
+		Assert.assertEquals(2, analysis.getRecalculatedPoints());
+	}
+
+	@Test
+	public void testDataViews() {
+		IncrementalTrackAnalysis analysis = new IncrementalTrackAnalysis();
+		long time = 1600000000000L;
+		for (int i = 0; i < 10; i++) {
+			analysis.addPoint(new WptPt(52 + i * 0.0001, 4, time + i * 1000, 100 + i, 0, Double.NaN));
+		}
+		GPXTrackAnalysis first = analysis.getAnalysis(5);
+		for (int i = 10; i < 1000; i++) {
+			analysis.addPoint(new WptPt(52 + i * 0.0001, 4, time + i * 1000, 100 + i, 0, Double.NaN));
+		}
+		GPXTrackAnalysis second = analysis.getAnalysis(5);
+		Assert.assertEquals(10, first.elevationData.size());
+		Assert.assertEquals(10, first.speedData.size());
+		Assert.assertEquals(1000, second.elevationData.size());
+		for (int i = 0; i < first.elevationData.size(); i++) {
+			Assert.assertSame(second.elevationData.get(i), first.elevationData.get(i));
+			Assert.assertSame(second.speedData.get(i), first.speedData.get(i));
+		}
+	}
+}
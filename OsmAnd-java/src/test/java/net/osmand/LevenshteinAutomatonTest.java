@@ -0,0 +1,45 @@
+package net.osmand;
+
+import java.util.Locale;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LevenshteinAutomatonTest {
+
+	@Test
+	public void testMaxEdits() {
+		Assert.assertEquals(0, LevenshteinAutomaton.getMaxEdits("bar"));
+		Assert.assertEquals(1, LevenshteinAutomaton.getMaxEdits("bahn"));
+		Assert.assertEquals(2, LevenshteinAutomaton.getMaxEdits("hauptstr"));
+	}
+
+	@Test
+	public void testTypos() {
+		LevenshteinAutomaton a = new LevenshteinAutomaton("Hauptstrase", 2);
+		Assert.assertTrue(a.matches("Hauptstraße"));
+		Assert.assertTrue(a.matches("Alte Hauptstrasse 5"));
+		Assert.assertTrue(a.matches("Haupstrasse"));
+		Assert.assertFalse(a.matches("Hafenstrasse"));
+		Assert.assertFalse(a.matches("Alte Hauptstrasse".substring(0, 8)));
+
+		LevenshteinAutomaton b = new LevenshteinAutomaton("berln", 1);
+		Assert.assertTrue(b.matches("Berlin"));
+		Assert.assertTrue(b.matches("Bérlin Mitte"));
+		Assert.assertTrue(b.matches("Mitte, berlm"));
+		Assert.assertFalse(b.matches("Bremen"));
+		Assert.assertFalse(b.matches("Oberlin"));
+	}
+
+	@Test
+	public void testCollatorOfPhrase() {
+		java.text.Collator us = java.text.Collator.getInstance(Locale.US);
+		us.setStrength(java.text.Collator.PRIMARY);
+		java.text.Collator sv = java.text.Collator.getInstance(new Locale("sv"));
+		sv.setStrength(java.text.Collator.PRIMARY);
+		// swedish collator treats ö as separate letter as CollatorStringMatcher does
+		Assert.assertTrue(new LevenshteinAutomaton("malmo", 0, OsmAndCollator.wrapCollator(us)).matches("Malmö"));
+		Assert.assertFalse(new LevenshteinAutomaton("malmo", 0, OsmAndCollator.wrapCollator(sv)).matches("Malmö"));
+		Assert.assertTrue(new LevenshteinAutomaton("malmö", 0, OsmAndCollator.wrapCollator(sv)).matches("MALMÖ"));
+	}
+}
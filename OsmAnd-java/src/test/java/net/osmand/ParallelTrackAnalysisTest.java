@@ -0,0 +1,99 @@
+package net.osmand;
+
+import net.osmand.GPXUtilities.GPXFile;
+import net.osmand.GPXUtilities.GPXTrackAnalysis;
+import net.osmand.GPXUtilities.Track;
+import net.osmand.GPXUtilities.TrkSegment;
+import net.osmand.GPXUtilities.WptPt;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class ParallelTrackAnalysisTest {
+
+	private static GPXFile createGpx() {
+		GPXFile gpx = new GPXFile("test");
+		Random rnd = new Random(17);
+		long time = 1600000000000L;
+		double lat = 45;
+		for (int t = 0; t < 3; t++) {
+			Track track = new Track();
+			for (int s = 0; s < 10; s++) {
+				TrkSegment segment = new TrkSegment();
+				for (int i = 0; i < 500 + rnd.nextInt(500); i++) {
+					// whole seconds to get splits exactly at points
+					time += 1000 * (1 + rnd.nextInt(5));
+					lat += 0.0002 * rnd.nextDouble();
+					segment.points.add(new WptPt(lat, 7 + 0.001 * rnd.nextDouble(), time,
+							i % 11 == 0 ? Double.NaN : 300 + rnd.nextInt(100), rnd.nextInt(20), Double.NaN));
+				}
+				track.segments.add(segment);
+			}
+			gpx.tracks.add(track);
+		}
+		gpx.addGeneralTrack();
+		return gpx;
+	}
+
+	private static List<TrkSegment> getSegments(GPXFile gpx) {
+		List<TrkSegment> segments = new ArrayList<>();
+		for (Track track : gpx.tracks) {
+			if (!track.generalTrack) {
+				segments.addAll(track.segments);
+			}
+		}
+		return segments;
+	}
+
+	@Test
+	public void testDistancesSameAsSequential() {
+		List<TrkSegment> segments = getSegments(createGpx());
+		List<float[]> expected = GPXUtilities.calculateDistances(segments, Integer.MAX_VALUE);
+		List<float[]> actual = GPXUtilities.calculateDistances(segments, 100);
+		Assert.assertEquals(expected.size(), actual.size());
+		float[] calculations = new float[1];
+		for (int i = 0; i < segments.size(); i++) {
+			Assert.assertArrayEquals(expected.get(i), actual.get(i), 0);
+			List<WptPt> points = segments.get(i).points;
+			for (int k = 1; k < points.size(); k++) {
+				net.osmand.Location.distanceBetween(points.get(k - 1).lat, points.get(k - 1).lon,
+						points.get(k).lat, points.get(k).lon, calculations);
+				Assert.assertEquals(calculations[0], actual.get(i)[k], 0);
+			}
+		}
+	}
+
+	@Test
+	public void testAnalysisSameAsSequential() {
+		// file has more points than threshold, so its distances are calculated in parallel
+		GPXFile gpx = createGpx();
+		Assert.assertTrue(gpx.getAllSegmentsPoints().size() > GPXUtilities.PARALLEL_POINTS_THRESHOLD);
+		GPXTrackAnalysis actual = gpx.getAnalysis(0);
+
+		IncrementalTrackAnalysis sequential = new IncrementalTrackAnalysis();
+		for (TrkSegment segment : getSegments(createGpx())) {
+			sequential.startSegment();
+			for (WptPt p : segment.points) {
+				sequential.addPoint(p);
+			}
+		}
+		GPXTrackAnalysis expected = sequential.getAnalysis(0);
+		Assert.assertEquals(expected.points, actual.points);
+		Assert.assertEquals(expected.totalDistance, actual.totalDistance, 0);
+		Assert.assertEquals(expected.totalDistanceMoving, actual.totalDistanceMoving, 0);
+		Assert.assertEquals(expected.timeMoving, actual.timeMoving);
+		Assert.assertEquals(expected.diffElevationUp, actual.diffElevationUp, 0);
+		Assert.assertEquals(expected.diffElevationDown, actual.diffElevationDown, 0);
+		Assert.assertEquals(expected.avgSpeed, actual.avgSpeed, 0);
+		Assert.assertEquals(expected.maxSpeed, actual.maxSpeed, 0);
+		Assert.assertEquals(expected.elevationData.size(), actual.elevationData.size());
+		for (int k = 0; k < expected.elevationData.size(); k++) {
+			Assert.assertEquals(expected.elevationData.get(k).distance, actual.elevationData.get(k).distance, 0);
+			Assert.assertEquals(expected.speedData.get(k).speed, actual.speedData.get(k).speed, 0);
+		}
+	}
+}
@@ -0,0 +1,290 @@
+package net.osmand.binary;
+
+import net.osmand.binary.BinaryMapIndexReader.SearchRequest;
+import net.osmand.binary.GeocodingUtilities.GeocodingResult;
+import net.osmand.data.Building;
+import net.osmand.data.City;
+import net.osmand.data.City.CityType;
+import net.osmand.data.LatLon;
+import net.osmand.data.MapObject;
+import net.osmand.data.Street;
+import net.osmand.router.RoutingContext;
+import net.osmand.util.MapUtils;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BatchReverseGeocodingTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	// creates empty contexts and counts released ones
+	private static class TestFactory implements BatchReverseGeocoding.RoutingContextFactory {
+		final AtomicInteger created = new AtomicInteger();
+		final AtomicInteger released = new AtomicInteger();
+
+		@Override
+		public RoutingContext createRoutingContext() {
+			created.incrementAndGet();
+			return null;
+		}
+
+		@Override
+		public void releaseRoutingContext(RoutingContext ctx) {
+			released.incrementAndGet();
+		}
+	}
+
+	// returns search point as result without reading maps
+	private static class TestBatch extends BatchReverseGeocoding {
+		final Set<Worker> workers = Collections.newSetFromMap(new ConcurrentHashMap<Worker, Boolean>());
+		final TestFactory factory;
+		int failAfter = -1;
+
+		TestBatch() {
+			this(new TestFactory());
+		}
+
+		private TestBatch(TestFactory factory) {
+			super(factory);
+			this.factory = factory;
+		}
+
+		@Override
+		protected Worker createWorker() throws IOException {
+			Worker w = super.createWorker();
+			workers.add(w);
+			return w;
+		}
+
+		@Override
+		protected List<GeocodingResult> geocode(Worker worker, double lat, double lon) throws IOException {
+			if (failAfter >= 0 && failAfter-- == 0) {
+				throw new IOException("Test failure");
+			}
+			GeocodingResult r = new GeocodingResult();
+			r.searchPoint = new LatLon(lat, lon);
+			List<GeocodingResult> res = new ArrayList<GeocodingResult>();
+			res.add(r);
+			return res;
+		}
+	}
+
+	// publishes given number of streets named as query around the search point
+	private static class StreetsReader extends BinaryMapIndexReader {
+		int streetsPerSearch = 1;
+		int searches;
+
+		StreetsReader(RandomAccessFile raf, File file) throws IOException {
+			super(raf, file, false);
+		}
+
+		@Override
+		public List<MapObject> searchAddressDataByName(SearchRequest<MapObject> req) {
+			searches++;
+			City city = new City(CityType.CITY);
+			city.setName("City");
+			LatLon center = new LatLon(MapUtils.get31LatitudeY((req.top + req.bottom) / 2),
+					MapUtils.get31LongitudeX((req.left + req.right) / 2));
+			for (int i = 0; i < streetsPerSearch; i++) {
+				Street street = new Street(city);
+				street.setName(req.nameQuery);
+				street.setLocation(center);
+				// far building, so cached street is not preloaded again
+				Building building = new Building();
+				building.setLocation(0, 0);
+				street.addBuilding(building);
+				req.publish(street);
+			}
+			return req.getSearchResults();
+		}
+
+		@Override
+		public void preloadBuildings(Street s, SearchRequest<Building> resultMatcher) {
+		}
+	}
+
+	private static double[][] randomPoints(int count) {
+		Random rnd = new Random(3);
+		double[][] points = new double[2][count];
+		for (int i = 0; i < count; i++) {
+			points[0][i] = 52 + rnd.nextDouble();
+			points[1][i] = 4 + rnd.nextDouble();
+		}
+		return points;
+	}
+
+	@Test
+	public void testSortAlongCurve() {
+		double[][] points = randomPoints(2000);
+		int[] order = BatchReverseGeocoding.sortAlongCurve(points[0], points[1]);
+		boolean[] used = new boolean[order.length];
+		double sortedLength = 0;
+		double inputLength = 0;
+		for (int i = 0; i < order.length; i++) {
+			Assert.assertFalse(used[order[i]]);
+			used[order[i]] = true;
+			if (i > 0) {
+				sortedLength += MapUtils.getDistance(points[0][order[i]], points[1][order[i]],
+						points[0][order[i - 1]], points[1][order[i - 1]]);
+				inputLength += MapUtils.getDistance(points[0][i], points[1][i], points[0][i - 1], points[1][i - 1]);
+			}
+		}
+		// consecutive points are close
+		Assert.assertTrue(sortedLength * 10 < inputLength);
+	}
+
+	@Test
+	public void testAllPointsPublished() throws IOException {
+		final double[][] points = randomPoints(1000);
+		TestBatch batch = new TestBatch();
+		batch.setThreads(4);
+		batch.setPartitionSize(50);
+		final int[] published = new int[points[0].length];
+		batch.reverseGeocoding(points[0], points[1], new BatchReverseGeocoding.BatchGeocodingListener() {
+			@Override
+			public void onResult(int index, double lat, double lon, List<GeocodingResult> results) {
+				published[index]++;
+				Assert.assertEquals(points[0][index], lat, 0);
+				Assert.assertEquals(lat, results.get(0).searchPoint.getLatitude(), 0);
+			}
+
+			@Override
+			public boolean isCancelled() {
+				return false;
+			}
+		});
+		for (int p : published) {
+			Assert.assertEquals(1, p);
+		}
+		Assert.assertTrue(batch.workers.size() <= 4);
+		Assert.assertEquals(batch.workers.size(), batch.factory.created.get());
+		Assert.assertEquals(batch.factory.created.get(), batch.factory.released.get());
+	}
+
+	@Test
+	public void testCancel() throws IOException {
+		double[][] points = randomPoints(1000);
+		TestBatch batch = new TestBatch();
+		final int[] count = new int[1];
+		batch.reverseGeocoding(points[0], points[1], new BatchReverseGeocoding.BatchGeocodingListener() {
+			@Override
+			public void onResult(int index, double lat, double lon, List<GeocodingResult> results) {
+				count[0]++;
+			}
+
+			@Override
+			public boolean isCancelled() {
+				return count[0] >= 10;
+			}
+		});
+		Assert.assertEquals(10, count[0]);
+		Assert.assertEquals(1, batch.factory.released.get());
+	}
+
+	@Test
+	public void testContextReleasedOnError() {
+		double[][] points = randomPoints(100);
+		TestBatch batch = new TestBatch();
+		batch.failAfter = 10;
+		try {
+			batch.reverseGeocoding(points[0], points[1], new BatchReverseGeocoding.BatchGeocodingListener() {
+				@Override
+				public void onResult(int index, double lat, double lon, List<GeocodingResult> results) {
+				}
+
+				@Override
+				public boolean isCancelled() {
+					return false;
+				}
+			});
+			Assert.fail();
+		} catch (IOException e) {
+			Assert.assertEquals("Test failure", e.getMessage());
+		}
+		Assert.assertEquals(1, batch.factory.created.get());
+		Assert.assertEquals(1, batch.factory.released.get());
+	}
+
+	private static GeocodingResult road(String name, double lat, double lon) {
+		GeocodingResult road = new GeocodingResult();
+		road.streetName = name;
+		road.searchPoint = new LatLon(lat, lon);
+		road.connectionPoint = road.searchPoint;
+		return road;
+	}
+
+	@Test
+	public void testStreetsCache() throws IOException {
+		File file = folder.newFile("Test.obf");
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			StreetsReader reader = new StreetsReader(raf, file);
+			GeocodingUtilities utilities = new GeocodingUtilities(true);
+			int zoom = GeocodingUtilities.STREETS_CACHE_ZOOM;
+			double top = MapUtils.getLatitudeFromTile(zoom, 680);
+			double bottom = MapUtils.getLatitudeFromTile(zoom, 681);
+			double left = MapUtils.getLongitudeFromTile(zoom, 1047);
+			double right = MapUtils.getLongitudeFromTile(zoom, 1048);
+			double lat = top + (bottom - top) * 0.1;
+			double lon = left + (right - left) * 0.1;
+
+			List<GeocodingResult> res = utilities.justifyReverseGeocodingSearch(road("Alpha", lat, lon), reader, 0, null);
+			Assert.assertEquals(1, res.size());
+			Assert.assertTrue("Alpha".equalsIgnoreCase(res.get(0).street.getName()));
+			Assert.assertEquals(1, reader.searches);
+			Assert.assertEquals(1, utilities.getStreetsCacheSize());
+			// other corner of the same cell
+			lat = top + (bottom - top) * 0.9;
+			lon = left + (right - left) * 0.9;
+			res = utilities.justifyReverseGeocodingSearch(road("Alpha", lat, lon), reader, 0, null);
+			Assert.assertTrue("Alpha".equalsIgnoreCase(res.get(0).street.getName()));
+			Assert.assertEquals(1, reader.searches);
+			// other street name and next cell
+			utilities.justifyReverseGeocodingSearch(road("Beta", lat, lon), reader, 0, null);
+			Assert.assertEquals(2, reader.searches);
+			utilities.justifyReverseGeocodingSearch(road("Alpha", lat, right + (right - left) * 0.5), reader, 0, null);
+			Assert.assertEquals(3, reader.searches);
+			Assert.assertEquals(3, utilities.getStreetsCacheSize());
+
+			// cache is cleared when it would exceed the limit
+			reader.streetsPerSearch = GeocodingUtilities.MAX_CACHED_STREETS / 2;
+			utilities.justifyReverseGeocodingSearch(road("Gamma", lat, lon), reader, 0, null);
+			Assert.assertEquals(4, reader.searches);
+			Assert.assertEquals(3 + reader.streetsPerSearch, utilities.getStreetsCacheSize());
+			utilities.justifyReverseGeocodingSearch(road("Delta", lat, lon), reader, 0, null);
+			Assert.assertEquals(5, reader.searches);
+			Assert.assertEquals(reader.streetsPerSearch, utilities.getStreetsCacheSize());
+			// evicted and still cached streets
+			utilities.justifyReverseGeocodingSearch(road("Gamma", lat, lon), reader, 0, null);
+			Assert.assertEquals(6, reader.searches);
+			Assert.assertEquals(2 * reader.streetsPerSearch, utilities.getStreetsCacheSize());
+			utilities.justifyReverseGeocodingSearch(road("Delta", lat, lon), reader, 0, null);
+			Assert.assertEquals(6, reader.searches);
+
+			// without cache every search reads streets
+			GeocodingUtilities uncached = new GeocodingUtilities();
+			reader.streetsPerSearch = 1;
+			uncached.justifyReverseGeocodingSearch(road("Alpha", lat, lon), reader, 0, null);
+			uncached.justifyReverseGeocodingSearch(road("Alpha", lat, lon), reader, 0, null);
+			Assert.assertEquals(8, reader.searches);
+			Assert.assertEquals(0, uncached.getStreetsCacheSize());
+		} finally {
+			raf.close();
+		}
+	}
+}
@@ -0,0 +1,152 @@
+package net.osmand.binary;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+
+import net.osmand.binary.BinaryMapReaderIOProfiler.IOStats;
+import net.osmand.binary.BinaryMapRouteReaderAdapter.RouteRegion;
+import net.osmand.binary.BinaryMapRouteReaderAdapter.RouteSubregion;
+import net.osmand.binary.OsmandOdb.IdTable;
+import net.osmand.binary.OsmandOdb.OsmAndRoutingIndex;
+import net.osmand.binary.OsmandOdb.OsmAndRoutingIndex.RouteDataBlock;
+import net.osmand.binary.OsmandOdb.OsmAndStructure;
+import net.osmand.binary.OsmandOdb.RouteData;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.List;
+
+public class BinaryMapReaderIOProfilerTest {
+
+	// bigger than buffer of coded input stream, so reads around it are not buffered
+	private static final int PADDING = 3 * 5 * 1024;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private int blockPointer;
+	private int blockSize;
+
+	private static ByteString bytes(int count) {
+		return ByteString.copyFrom(new byte[count]);
+	}
+
+	private static RouteDataBlock createBlock() throws IOException {
+		ByteArrayOutputStream points = new ByteArrayOutputStream();
+		CodedOutputStream cos = CodedOutputStream.newInstance(points);
+		cos.writeSInt32NoTag(1 << 26);
+		cos.writeSInt32NoTag(1 << 25);
+		cos.writeSInt32NoTag(1000);
+		cos.writeSInt32NoTag(-500);
+		cos.flush();
+		RouteDataBlock.Builder block = RouteDataBlock.newBuilder();
+		block.addDataObjects(RouteData.newBuilder().setRouteId(0).setTypes(ByteString.copyFrom(new byte[] {1}))
+				.setPoints(ByteString.copyFrom(points.toByteArray())));
+		block.setIdTable(IdTable.newBuilder().addRouteId(64));
+		return block.build();
+	}
+
+	// header, padding, routing section with data block, padding
+	private File createObf() throws IOException {
+		byte[] data = createBlock().toByteArray();
+		ByteArrayOutputStream section = new ByteArrayOutputStream();
+		CodedOutputStream cos = CodedOutputStream.newInstance(section);
+		cos.writeString(OsmAndRoutingIndex.NAME_FIELD_NUMBER, "Test");
+		cos.writeTag(OsmAndRoutingIndex.BLOCKS_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+		cos.flush();
+		int blockOffset = section.size();
+		cos.writeRawVarint32(data.length);
+		cos.writeRawBytes(data);
+		cos.flush();
+		blockSize = section.size() - blockOffset;
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		cos = CodedOutputStream.newInstance(bytes);
+		cos.writeUInt32(OsmAndStructure.VERSION_FIELD_NUMBER, 2);
+		cos.writeBytes(100, bytes(PADDING));
+		cos.writeTag(OsmAndStructure.ROUTINGINDEX_FIELD_NUMBER, WireFormat.WIRETYPE_FIXED32_LENGTH_DELIMITED);
+		cos.writeRawByte(section.size() >>> 24);
+		cos.writeRawByte(section.size() >>> 16);
+		cos.writeRawByte(section.size() >>> 8);
+		cos.writeRawByte(section.size());
+		cos.flush();
+		blockPointer = bytes.size() + blockOffset;
+		cos.writeRawBytes(section.toByteArray());
+		cos.writeBytes(100, bytes(PADDING));
+		cos.writeUInt32(OsmAndStructure.VERSIONCONFIRM_FIELD_NUMBER, 2);
+		cos.flush();
+		File file = folder.newFile("Test.obf");
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			bytes.writeTo(out);
+		} finally {
+			out.close();
+		}
+		return file;
+	}
+
+	@Test
+	public void testRouteDataAccounting() throws IOException {
+		File file = createObf();
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			BinaryMapIndexReader reader = new BinaryMapIndexReader(raf, file);
+			Assert.assertEquals(1, reader.getRoutingIndexes().size());
+			RouteRegion region = reader.getRoutingIndexes().get(0);
+			region.initRouteEncodingRule(1, "highway", "primary");
+			BinaryMapReaderIOProfiler profiler = new BinaryMapReaderIOProfiler(reader);
+			reader.setIOProfiler(profiler);
+			String[] sections = profiler.getSectionNames();
+			Assert.assertEquals(Arrays.asList("Routing", "Header"), Arrays.asList(sections));
+
+			RouteSubregion sub = new RouteSubregion(region);
+			sub.filePointer = blockPointer;
+			List<RouteDataObject> objects = reader.loadRouteIndexData(sub);
+			Assert.assertEquals(1, objects.size());
+			IOStats routing = profiler.getRequests().get("loadRouteIndexData")[0];
+			IOStats header = profiler.getRequests().get("loadRouteIndexData")[1];
+			Assert.assertEquals(1, routing.seeks);
+			Assert.assertEquals(0, routing.bufferSeeks);
+			Assert.assertEquals(1, routing.reads);
+			Assert.assertEquals(1, routing.refills);
+			// one buffer is read from the block
+			Assert.assertEquals(Math.min(5 * 1024, file.length() - blockPointer), routing.bytesRead);
+			Assert.assertEquals(blockSize, routing.bytesDecoded);
+			Assert.assertEquals(0, routing.bytesSkipped);
+			Assert.assertEquals(0, header.reads);
+			Assert.assertEquals(0, header.bytesDecoded);
+
+			// block is still in buffer
+			sub.dataObjects = null;
+			Assert.assertEquals(1, reader.loadRouteIndexData(sub).size());
+			// decoded bytes are accounted when span is finished
+			Assert.assertSame(routing, profiler.getRequests().get("loadRouteIndexData")[0]);
+			Assert.assertEquals(1, routing.seeks);
+			Assert.assertEquals(1, routing.bufferSeeks);
+			Assert.assertEquals(1, routing.reads);
+			Assert.assertEquals(2 * blockSize, routing.bytesDecoded);
+			Assert.assertEquals(routing.bytesRead, profiler.getTotal().bytesRead);
+
+			long[] heatmap = profiler.getHeatmapBytes();
+			int bucket = (int) (blockPointer * heatmap.length / file.length());
+			Assert.assertEquals(routing.bytesRead, heatmap[bucket]);
+			Assert.assertEquals(1, profiler.getHeatmapReads()[bucket]);
+
+			profiler.reset();
+			Assert.assertEquals(0, profiler.getTotal().bytesRead);
+			Assert.assertEquals(0, profiler.getHeatmapBytes()[bucket]);
+		} finally {
+			raf.close();
+		}
+	}
+}
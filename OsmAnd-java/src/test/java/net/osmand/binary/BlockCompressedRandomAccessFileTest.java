@@ -0,0 +1,78 @@
+package net.osmand.binary;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+
+import net.osmand.binary.BlockCompressedRandomAccessFile.Codec;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BlockCompressedRandomAccessFileTest {
+
+	private static final int VALUES = 100000;
+	private static final int BLOCK_SIZE = 4096;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testDeflate() throws IOException {
+		testCodec(Codec.DEFLATE);
+	}
+
+	@Test
+	public void testLz4() throws IOException {
+		testCodec(Codec.LZ4);
+	}
+
+	private void testCodec(Codec codec) throws IOException {
+		File plain = folder.newFile("plain.obf");
+		Random rnd = new Random(11);
+		FileOutputStream fos = new FileOutputStream(plain);
+		CodedOutputStream cos = CodedOutputStream.newInstance(fos);
+		int[] values = new int[VALUES];
+		for (int i = 0; i < VALUES; i++) {
+			// mix of compressible and random data
+			values[i] = i % 7 == 0 ? rnd.nextInt() : i % 100;
+			cos.writeFixed32NoTag(values[i]);
+		}
+		cos.flush();
+		fos.close();
+
+		File compressed = folder.newFile("compressed.obf");
+		BlockCompressedRandomAccessFile.compress(plain, compressed, codec, BLOCK_SIZE);
+		Assert.assertTrue(BlockCompressedRandomAccessFile.isBlockCompressed(compressed));
+		Assert.assertFalse(BlockCompressedRandomAccessFile.isBlockCompressed(plain));
+		Assert.assertTrue(compressed.length() < plain.length());
+
+		RandomAccessFile raf = BlockCompressedRandomAccessFile.open(compressed);
+		Assert.assertTrue(raf instanceof BlockCompressedRandomAccessFile);
+		Assert.assertEquals(plain.length(), raf.length());
+		CodedInputStream cis = CodedInputStream.newInstance(raf);
+		for (int k = 0; k < 2000; k++) {
+			int ind = rnd.nextInt(VALUES - 10);
+			cis.seek(ind * 4L);
+			for (int i = ind; i < ind + 10; i++) {
+				Assert.assertEquals(values[i], cis.readFixed32());
+			}
+		}
+		byte[] all = new byte[(int) raf.length()];
+		raf.seek(0);
+		raf.readFully(all);
+		CodedInputStream full = CodedInputStream.newInstance(all);
+		for (int i = 0; i < VALUES; i++) {
+			Assert.assertEquals(values[i], full.readFixed32());
+		}
+		Assert.assertEquals(-1, raf.read());
+		raf.close();
+	}
+}
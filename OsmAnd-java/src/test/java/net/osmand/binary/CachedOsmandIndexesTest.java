@@ -0,0 +1,90 @@
+package net.osmand.binary;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedOutputStream;
+
+import net.osmand.binary.OsmandIndex.AddressPart;
+import net.osmand.binary.OsmandIndex.FileIndex;
+import net.osmand.binary.OsmandIndex.OsmAndStoredIndex;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+public class CachedOsmandIndexesTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static String longName(int length) {
+		StringBuilder sb = new StringBuilder();
+		while (sb.length() < length) {
+			sb.append("Region ");
+		}
+		return sb.toString();
+	}
+
+	// file name is written after address part, so it is not in the header read by readFromFile
+	private static ByteString fileIndex(String fileName, long size, String addressName) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		CodedOutputStream cos = CodedOutputStream.newInstance(bytes);
+		cos.writeMessage(FileIndex.ADDRESSINDEX_FIELD_NUMBER,
+				AddressPart.newBuilder().setSize(10).setOffset(20).setName(addressName).build());
+		cos.writeInt64(FileIndex.SIZE_FIELD_NUMBER, size);
+		cos.writeInt64(FileIndex.DATEMODIFIED_FIELD_NUMBER, 1000);
+		cos.writeString(FileIndex.FILENAME_FIELD_NUMBER, fileName);
+		cos.writeInt32(FileIndex.VERSION_FIELD_NUMBER, 2);
+		cos.flush();
+		return ByteString.copyFrom(bytes.toByteArray());
+	}
+
+	private File createObf(String name, int size) throws IOException {
+		File file = folder.newFile(name);
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write(new byte[size]);
+		} finally {
+			out.close();
+		}
+		return file;
+	}
+
+	@Test
+	public void testReadStoredIndexes() throws IOException {
+		File shortHeader = createObf("Short.obf", 100);
+		File longHeader = createObf("Long.obf", 200);
+		String longName = longName(3000);
+		File cacheFile = folder.newFile(CachedOsmandIndexes.INDEXES_DEFAULT_FILENAME);
+		FileOutputStream out = new FileOutputStream(cacheFile);
+		try {
+			CodedOutputStream cos = CodedOutputStream.newInstance(out);
+			cos.writeUInt32(OsmAndStoredIndex.VERSION_FIELD_NUMBER, CachedOsmandIndexes.VERSION);
+			cos.writeInt64(OsmAndStoredIndex.DATECREATED_FIELD_NUMBER, 1000);
+			cos.writeBytes(OsmAndStoredIndex.FILEINDEX_FIELD_NUMBER, fileIndex(shortHeader.getName(), 100, "Short"));
+			cos.writeBytes(OsmAndStoredIndex.FILEINDEX_FIELD_NUMBER, fileIndex(longHeader.getName(), 200, longName));
+			cos.flush();
+		} finally {
+			out.close();
+		}
+
+		CachedOsmandIndexes cache = new CachedOsmandIndexes();
+		cache.readFromFile(cacheFile, CachedOsmandIndexes.VERSION);
+		FileIndex fileIndex = cache.getFileIndex(shortHeader, false);
+		Assert.assertNotNull(fileIndex);
+		Assert.assertEquals("Short", fileIndex.getAddressIndex(0).getName());
+		fileIndex = cache.getFileIndex(longHeader, false);
+		Assert.assertNotNull(fileIndex);
+		Assert.assertEquals(longName, fileIndex.getAddressIndex(0).getName());
+		Assert.assertEquals(2, fileIndex.getVersion());
+
+		Assert.assertNull(cache.getFileIndex(folder.newFile("Missing.obf"), false));
+		cache.readFromFile(cacheFile, CachedOsmandIndexes.VERSION + 1);
+		Assert.assertNull(cache.getFileIndex(shortHeader, false));
+	}
+}
@@ -0,0 +1,163 @@
+package net.osmand.binary;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+
+import net.osmand.Collator;
+import net.osmand.LevenshteinAutomaton;
+import net.osmand.OsmAndCollator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import gnu.trove.list.array.TIntArrayList;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class IndexedStringTableTrieTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private int nextValue = 1;
+
+	// builds table of keys split in 2-chars chunks like index creator does
+	private byte[] writeTable(List<String> words, int depth) throws IOException {
+		ByteArrayOutputStream bous = new ByteArrayOutputStream();
+		CodedOutputStream cos = CodedOutputStream.newInstance(bous);
+		List<String> prefixes = new ArrayList<String>();
+		for (String w : words) {
+			String prefix = w.substring(0, Math.min(w.length(), depth + 2)).substring(Math.min(w.length(), depth));
+			if (prefix.length() > 0 && !prefixes.contains(prefix)) {
+				prefixes.add(prefix);
+			}
+		}
+		for (String p : prefixes) {
+			cos.writeString(OsmandOdb.IndexedStringTable.KEY_FIELD_NUMBER, p);
+			cos.writeTag(OsmandOdb.IndexedStringTable.VAL_FIELD_NUMBER, WireFormat.WIRETYPE_FIXED32_LENGTH_DELIMITED);
+			int v = nextValue++;
+			cos.writeRawByte(v >>> 24);
+			cos.writeRawByte(v >>> 16);
+			cos.writeRawByte(v >>> 8);
+			cos.writeRawByte(v);
+			List<String> sub = new ArrayList<String>();
+			for (String w : words) {
+				if (w.length() > depth + 2 && w.substring(depth).startsWith(p)) {
+					sub.add(w);
+				}
+			}
+			if (!sub.isEmpty()) {
+				byte[] subtable = writeTable(sub, depth + 2);
+				cos.writeTag(OsmandOdb.IndexedStringTable.SUBTABLES_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+				cos.writeRawVarint32(subtable.length);
+				cos.writeRawBytes(subtable);
+			}
+		}
+		cos.flush();
+		return bous.toByteArray();
+	}
+
+	@Test
+	public void testSameOffsetsAsFileSearch() throws IOException {
+		List<String> words = Arrays.asList("berlin", "bern", "bergen", "bar", "barcelona", "münchen", "munster",
+				"moscow", "a", "amsterdam", "ams");
+		byte[] table = writeTable(words, 0);
+		File f = folder.newFile("names.obf");
+		FileOutputStream fos = new FileOutputStream(f);
+		fos.write(table);
+		fos.close();
+
+		Collator collator = OsmAndCollator.primaryCollator();
+		BinaryMapIndexReader reader = new BinaryMapIndexReader(new RandomAccessFile(f, "r"), f, false);
+		reader.codedIS.seek(0);
+		int oldLimit = reader.codedIS.pushLimit(table.length);
+		IndexedStringTableTrie trie = IndexedStringTableTrie.read(reader, "");
+		reader.codedIS.popLimit(oldLimit);
+
+		for (String query : new String[]{"ber", "berl", "b", "mun", "Munch", "am", "amsterdamx", "x", "barc"}) {
+			List<String> queries = Arrays.asList(query, "mo");
+			List<TIntArrayList> expected = Arrays.asList(new TIntArrayList(), new TIntArrayList());
+			TIntArrayList expectedChars = new TIntArrayList(new int[]{0, 0});
+			reader.codedIS.seek(0);
+			oldLimit = reader.codedIS.pushLimit(table.length);
+			reader.readIndexedStringTable(collator, queries, "", expected, expectedChars);
+			reader.codedIS.popLimit(oldLimit);
+
+			List<TIntArrayList> actual = Arrays.asList(new TIntArrayList(), new TIntArrayList());
+			TIntArrayList actualChars = new TIntArrayList(new int[]{0, 0});
+			trie.search(collator, queries, actual, actualChars);
+			Assert.assertFalse(expected.get(1).isEmpty());
+			Assert.assertEquals(query, expected, actual);
+			Assert.assertEquals(query, expectedChars, actualChars);
+		}
+
+		TIntArrayList fuzzy = new TIntArrayList();
+		trie.searchFuzzy(new LevenshteinAutomaton("amsterdm", 1), fuzzy, 100);
+		TIntArrayList exact = new TIntArrayList();
+		trie.search(collator, Arrays.asList("amsterdam"), Arrays.asList(exact), new TIntArrayList(new int[]{0}));
+		Assert.assertFalse(exact.isEmpty());
+		Assert.assertTrue(fuzzy.containsAll(exact));
+		TIntArrayList limited = new TIntArrayList();
+		trie.searchFuzzy(new LevenshteinAutomaton("bern", 1), limited, 2);
+		Assert.assertEquals(2, limited.size());
+
+		// without name index cache fuzzy search reads table from file
+		Assert.assertNull(reader.getNameIndexCache());
+		for (String query : new String[]{"amsterdm", "berln", "munchen", "mosow", "xyz", "ba"}) {
+			LevenshteinAutomaton automaton = new LevenshteinAutomaton(query, 1);
+			TIntArrayList expected = new TIntArrayList();
+			trie.searchFuzzy(automaton, expected, 100);
+			List<TIntArrayList> actual = Arrays.asList(new TIntArrayList(), new TIntArrayList());
+			reader.codedIS.seek(0);
+			oldLimit = reader.codedIS.pushLimit(table.length);
+			reader.searchIndexedStringTableFuzzy(Arrays.asList(automaton, new LevenshteinAutomaton("bern", 0)), actual, 100);
+			reader.codedIS.popLimit(oldLimit);
+			Assert.assertEquals(query, expected, actual.get(0));
+			Assert.assertFalse(actual.get(1).isEmpty());
+		}
+		reader.close();
+	}
+
+	@Test
+	public void testNameIndexCacheBound() throws IOException {
+		byte[] table = writeTable(Arrays.asList("berlin", "bern", "moscow"), 0);
+		File f = folder.newFile("cache.obf");
+		FileOutputStream fos = new FileOutputStream(f);
+		fos.write(table);
+		fos.close();
+		BinaryMapIndexReader reader = new BinaryMapIndexReader(new RandomAccessFile(f, "r"), f, false);
+		int oldLimit = reader.codedIS.pushLimit(table.length);
+		IndexedStringTableTrie trie = IndexedStringTableTrie.read(reader, "");
+		reader.codedIS.popLimit(oldLimit);
+		reader.close();
+
+		File other = new File(f.getParentFile(), "other.obf");
+		NameIndexCache cache = new NameIndexCache(2 * trie.size());
+		cache.put(f, 10, trie);
+		cache.put(f, 20, trie);
+		Assert.assertSame(trie, cache.get(f, 10));
+		// least recently used index is evicted
+		cache.put(other, 10, trie);
+		Assert.assertEquals(2, cache.getTriesCount());
+		Assert.assertEquals(2 * trie.size(), cache.getKeysCount());
+		Assert.assertNull(cache.get(f, 20));
+		Assert.assertSame(trie, cache.get(f, 10));
+		Assert.assertSame(trie, cache.get(other, 10));
+
+		cache.remove(f);
+		Assert.assertNull(cache.get(f, 10));
+		Assert.assertEquals(1, cache.getTriesCount());
+		Assert.assertEquals(trie.size(), cache.getKeysCount());
+		cache.clear();
+		Assert.assertEquals(0, cache.getKeysCount());
+	}
+}
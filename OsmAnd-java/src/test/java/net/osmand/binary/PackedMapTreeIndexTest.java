@@ -0,0 +1,62 @@
+package net.osmand.binary;
+
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.set.hash.TLongHashSet;
+
+public class PackedMapTreeIndexTest {
+
+	private static final int BOXES = 2000;
+
+	@Test
+	public void testSearchMatchesBruteForce() throws IOException {
+		Random rnd = new Random(17);
+		int[][] boxes = new int[BOXES][];
+		PackedMapTreeIndex.Builder builder = new PackedMapTreeIndex.Builder();
+		for (int i = 0; i < BOXES; i++) {
+			int left = rnd.nextInt(1 << 30);
+			int top = rnd.nextInt(1 << 30);
+			int right = left + rnd.nextInt(1 << 20);
+			int bottom = top + rnd.nextInt(1 << 20);
+			boxes[i] = new int[] { left, right, top, bottom };
+			builder.addBox(left, right, top, bottom, i + 1, i % 3 == 0 ? null : (i % 3 == 1));
+		}
+		PackedMapTreeIndex index = builder.build();
+		PackedMapTreeIndex restored = PackedMapTreeIndex.parseFrom(index.toByteArray());
+		Assert.assertEquals(BOXES, restored.size());
+
+		for (int k = 0; k < 100; k++) {
+			int left = rnd.nextInt(1 << 30);
+			int top = rnd.nextInt(1 << 30);
+			int right = left + rnd.nextInt(1 << 26);
+			int bottom = top + rnd.nextInt(1 << 26);
+			TLongHashSet expected = new TLongHashSet();
+			for (int i = 0; i < BOXES; i++) {
+				if (!(boxes[i][1] < left || boxes[i][0] > right || boxes[i][2] > bottom || boxes[i][3] < top)) {
+					expected.add(i + 1);
+				}
+			}
+			checkSearch(index, left, top, right, bottom, expected);
+			checkSearch(restored, left, top, right, bottom, expected);
+		}
+	}
+
+	private void checkSearch(PackedMapTreeIndex index, int left, int top, int right, int bottom, TLongHashSet expected) {
+		TIntArrayList found = index.search(left, top, right, bottom, new TIntArrayList());
+		TLongHashSet actual = new TLongHashSet();
+		for (int i = 0; i < found.size(); i++) {
+			int ind = found.get(i);
+			long block = index.getDataBlock(ind);
+			actual.add(block);
+			int orig = (int) block - 1;
+			Boolean ocean = index.getOcean(ind);
+			Assert.assertEquals(orig % 3 == 0 ? null : (orig % 3 == 1), ocean);
+		}
+		Assert.assertEquals(expected, actual);
+	}
+}
@@ -0,0 +1,334 @@
+package net.osmand.binary;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+
+import net.osmand.ResultMatcher;
+import net.osmand.binary.BinaryMapIndexReader.SearchPoiTypeFilter;
+import net.osmand.binary.BinaryMapIndexReader.SearchRequest;
+import net.osmand.binary.BinaryMapPoiReaderAdapter.PoiRegion;
+import net.osmand.binary.OsmandOdb.OsmAndCategoryTable;
+import net.osmand.binary.OsmandOdb.OsmAndPoiBox;
+import net.osmand.binary.OsmandOdb.OsmAndPoiBoxData;
+import net.osmand.binary.OsmandOdb.OsmAndPoiBoxDataAtom;
+import net.osmand.binary.OsmandOdb.OsmAndPoiIndex;
+import net.osmand.binary.OsmandOdb.OsmAndStructure;
+import net.osmand.binary.OsmandOdb.OsmAndTileBox;
+import net.osmand.data.Amenity;
+import net.osmand.osm.PoiCategory;
+import net.osmand.util.MapUtils;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+public class PoiTileCacheTest {
+
+	// tiles of TILE_ZOOM with amenities: (X, Y), (X + 1, Y), (X, Y + 1), tile (X + 1, Y + 1) is empty
+	private static final int TILE_X = 8400;
+	private static final int TILE_Y = 5400;
+	private static final int ROOT_ZOOM = 10;
+	private static final String[] SUBTYPES = {"cafe", "restaurant", "bakery"};
+	// category id | subcategory id << 7 of food: cafe, restaurant and shop: bakery
+	private static final int[] CATEGORIES = {0, 1 << 7, 1};
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static File file(String name) {
+		return new File(name);
+	}
+
+	private static List<Amenity> amenities(int count) {
+		List<Amenity> list = new ArrayList<Amenity>();
+		for (int i = 0; i < count; i++) {
+			Amenity am = new Amenity();
+			am.setId((long) i);
+			am.setLocation(52.37, 4.89);
+			list.add(am);
+		}
+		return list;
+	}
+
+	@Test
+	public void testTilesByTypes() {
+		PoiTileCache cache = new PoiTileCache();
+		BitSet food = new BitSet();
+		food.set(3);
+		BitSet sameFood = new BitSet();
+		sameFood.set(3);
+		BitSet shops = new BitSet();
+		shops.set(5);
+		List<Amenity> list = amenities(2);
+		File f = file("a.obf");
+		cache.put(f, 1, 10, food, list);
+		Assert.assertSame(list, cache.get(file("a.obf"), 1, 10, sameFood));
+		Assert.assertNull(cache.get(f, 1, 10, shops));
+		Assert.assertNull(cache.get(f, 1, 10, null));
+		Assert.assertNull(cache.get(f, 2, 10, food));
+		Assert.assertNull(cache.get(f, 1, 11, food));
+		Assert.assertNull(cache.get(file("b.obf"), 1, 10, food));
+		List<Amenity> empty = Collections.emptyList();
+		cache.put(f, 1, 11, null, empty);
+		Assert.assertSame(empty, cache.get(f, 1, 11, null));
+		cache.remove(f);
+		Assert.assertEquals(0, cache.getTilesCount());
+		Assert.assertEquals(0, cache.getAmenitiesCount());
+	}
+
+	@Test
+	public void testEvictLeastRecentlyUsed() {
+		PoiTileCache cache = new PoiTileCache(10);
+		File f = file("a.obf");
+		cache.put(f, 1, 1, null, amenities(4));
+		cache.put(f, 1, 2, null, amenities(4));
+		Assert.assertNotNull(cache.get(f, 1, 1, null));
+		cache.put(f, 1, 3, null, amenities(4));
+		Assert.assertNotNull(cache.get(f, 1, 1, null));
+		Assert.assertNull(cache.get(f, 1, 2, null));
+		Assert.assertNotNull(cache.get(f, 1, 3, null));
+		Assert.assertEquals(8, cache.getAmenitiesCount());
+		// tile bigger than limit is kept alone
+		cache.put(f, 1, 4, null, amenities(12));
+		Assert.assertEquals(1, cache.getTilesCount());
+		Assert.assertEquals(12, cache.getAmenitiesCount());
+		cache.clear();
+		Assert.assertEquals(0, cache.getAmenitiesCount());
+		// empty tiles are counted too
+		List<Amenity> empty = Collections.emptyList();
+		for (int i = 0; i < 15; i++) {
+			cache.put(file(i % 2 == 0 ? "a.obf" : "b.obf"), 1, i, null, empty);
+		}
+		Assert.assertEquals(10, cache.getTilesCount());
+		Assert.assertEquals(10, cache.getAmenitiesCount());
+		Assert.assertNull(cache.get(f, 1, 0, null));
+		Assert.assertNotNull(cache.get(file("b.obf"), 1, 13, null));
+	}
+
+	@Test
+	public void testTileId() {
+		Amenity am = amenities(1).get(0);
+		int x = (int) MapUtils.getTileNumberX(PoiTileCache.TILE_ZOOM, am.getLocation().getLongitude());
+		int y = (int) MapUtils.getTileNumberY(PoiTileCache.TILE_ZOOM, am.getLocation().getLatitude());
+		Assert.assertEquals(PoiTileCache.getTileId(x, y), PoiTileCache.getTileId(am));
+		Assert.assertNotEquals(PoiTileCache.getTileId(x + 1, y), PoiTileCache.getTileId(x, y + 1));
+	}
+
+	private static void writeFixed32(CodedOutputStream cos, int v) throws IOException {
+		cos.writeRawByte(v >>> 24);
+		cos.writeRawByte(v >>> 16);
+		cos.writeRawByte(v >>> 8);
+		cos.writeRawByte(v);
+	}
+
+	// poi boxes and data blocks are prefixed with fixed32 length
+	private static void writeFixedMessage(CodedOutputStream cos, int field, byte[] data) throws IOException {
+		cos.writeTag(field, WireFormat.WIRETYPE_FIXED32_LENGTH_DELIMITED);
+		writeFixed32(cos, data.length);
+		cos.writeRawBytes(data);
+	}
+
+	private static int getAmenityX(int tile, int i) {
+		return (tile << 10) + 100 + 300 * i;
+	}
+
+	private static int getAmenityY(int tile, int i) {
+		return (tile << 10) + 200 + 250 * i;
+	}
+
+	private static byte[] writeData(int tileX, int tileY) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		CodedOutputStream cos = CodedOutputStream.newInstance(bytes);
+		cos.writeUInt32(OsmAndPoiBoxData.ZOOM_FIELD_NUMBER, PoiTileCache.TILE_ZOOM);
+		cos.writeUInt32(OsmAndPoiBoxData.X_FIELD_NUMBER, tileX);
+		cos.writeUInt32(OsmAndPoiBoxData.Y_FIELD_NUMBER, tileY);
+		for (int i = 0; i < SUBTYPES.length; i++) {
+			ByteArrayOutputStream atom = new ByteArrayOutputStream();
+			CodedOutputStream acos = CodedOutputStream.newInstance(atom);
+			// coordinates of zoom 24 relative to data tile
+			acos.writeSInt32(OsmAndPoiBoxDataAtom.DX_FIELD_NUMBER, getAmenityX(tileX, i) - (tileX << 10));
+			acos.writeSInt32(OsmAndPoiBoxDataAtom.DY_FIELD_NUMBER, getAmenityY(tileY, i) - (tileY << 10));
+			acos.writeUInt32(OsmAndPoiBoxDataAtom.CATEGORIES_FIELD_NUMBER, CATEGORIES[i]);
+			acos.writeString(OsmAndPoiBoxDataAtom.NAME_FIELD_NUMBER, SUBTYPES[i] + " " + tileX + " " + tileY);
+			acos.writeUInt64(OsmAndPoiBoxDataAtom.ID_FIELD_NUMBER, (tileX * 100L + tileY) * 10 + i);
+			acos.flush();
+			cos.writeBytes(OsmAndPoiBoxData.POIDATA_FIELD_NUMBER, ByteString.copyFrom(atom.toByteArray()));
+		}
+		cos.flush();
+		return bytes.toByteArray();
+	}
+
+	private static byte[] writeBoxes(int[][] tiles, int[] offsets) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		CodedOutputStream cos = CodedOutputStream.newInstance(bytes);
+		cos.writeUInt32(OsmAndPoiBox.ZOOM_FIELD_NUMBER, ROOT_ZOOM);
+		cos.writeSInt32(OsmAndPoiBox.LEFT_FIELD_NUMBER, TILE_X >> (PoiTileCache.TILE_ZOOM - ROOT_ZOOM));
+		cos.writeSInt32(OsmAndPoiBox.TOP_FIELD_NUMBER, TILE_Y >> (PoiTileCache.TILE_ZOOM - ROOT_ZOOM));
+		for (int i = 0; i < tiles.length; i++) {
+			ByteArrayOutputStream sub = new ByteArrayOutputStream();
+			CodedOutputStream scos = CodedOutputStream.newInstance(sub);
+			// zoom and position relative to parent box
+			int dz = PoiTileCache.TILE_ZOOM - ROOT_ZOOM;
+			scos.writeUInt32(OsmAndPoiBox.ZOOM_FIELD_NUMBER, dz);
+			scos.writeSInt32(OsmAndPoiBox.LEFT_FIELD_NUMBER, tiles[i][0] - ((tiles[i][0] >> dz) << dz));
+			scos.writeSInt32(OsmAndPoiBox.TOP_FIELD_NUMBER, tiles[i][1] - ((tiles[i][1] >> dz) << dz));
+			scos.writeTag(OsmAndPoiBox.SHIFTTODATA_FIELD_NUMBER, WireFormat.WIRETYPE_FIXED32);
+			writeFixed32(scos, offsets[i]);
+			scos.flush();
+			writeFixedMessage(cos, OsmAndPoiBox.SUBBOXES_FIELD_NUMBER, sub.toByteArray());
+		}
+		cos.flush();
+		return bytes.toByteArray();
+	}
+
+	private File createObf() throws IOException {
+		int[][] tiles = {{TILE_X, TILE_Y}, {TILE_X + 1, TILE_Y}, {TILE_X, TILE_Y + 1}};
+		ByteArrayOutputStream header = new ByteArrayOutputStream();
+		CodedOutputStream cos = CodedOutputStream.newInstance(header);
+		cos.writeString(OsmAndPoiIndex.NAME_FIELD_NUMBER, "Test");
+		ByteArrayOutputStream bbox = new ByteArrayOutputStream();
+		CodedOutputStream bcos = CodedOutputStream.newInstance(bbox);
+		bcos.writeUInt32(OsmAndTileBox.LEFT_FIELD_NUMBER, TILE_X << 17);
+		bcos.writeUInt32(OsmAndTileBox.RIGHT_FIELD_NUMBER, ((TILE_X + 2) << 17) - 1);
+		bcos.writeUInt32(OsmAndTileBox.TOP_FIELD_NUMBER, TILE_Y << 17);
+		bcos.writeUInt32(OsmAndTileBox.BOTTOM_FIELD_NUMBER, ((TILE_Y + 2) << 17) - 1);
+		bcos.flush();
+		cos.writeBytes(OsmAndPoiIndex.BOUNDARIES_FIELD_NUMBER, ByteString.copyFrom(bbox.toByteArray()));
+		ByteArrayOutputStream categories = new ByteArrayOutputStream();
+		CodedOutputStream ccos = CodedOutputStream.newInstance(categories);
+		ccos.writeString(OsmAndCategoryTable.CATEGORY_FIELD_NUMBER, "food");
+		ccos.writeString(OsmAndCategoryTable.SUBCATEGORIES_FIELD_NUMBER, "cafe");
+		ccos.writeString(OsmAndCategoryTable.SUBCATEGORIES_FIELD_NUMBER, "restaurant");
+		ccos.flush();
+		cos.writeBytes(OsmAndPoiIndex.CATEGORIESTABLE_FIELD_NUMBER, ByteString.copyFrom(categories.toByteArray()));
+		categories.reset();
+		ccos = CodedOutputStream.newInstance(categories);
+		ccos.writeString(OsmAndCategoryTable.CATEGORY_FIELD_NUMBER, "shop");
+		ccos.writeString(OsmAndCategoryTable.SUBCATEGORIES_FIELD_NUMBER, "bakery");
+		ccos.flush();
+		cos.writeBytes(OsmAndPoiIndex.CATEGORIESTABLE_FIELD_NUMBER, ByteString.copyFrom(categories.toByteArray()));
+		cos.flush();
+
+		// offsets of data blocks are relative to poi section, boxes have the same size with any offsets
+		int[] offsets = new int[tiles.length];
+		int boxesSize = writeBoxes(tiles, offsets).length;
+		int pointer = header.size() + 1 + 4 + boxesSize;
+		ByteArrayOutputStream data = new ByteArrayOutputStream();
+		CodedOutputStream dcos = CodedOutputStream.newInstance(data);
+		for (int i = 0; i < tiles.length; i++) {
+			dcos.flush();
+			offsets[i] = pointer + data.size() + 1;
+			writeFixedMessage(dcos, OsmAndPoiIndex.POIDATA_FIELD_NUMBER, writeData(tiles[i][0], tiles[i][1]));
+		}
+		dcos.flush();
+		writeFixedMessage(cos, OsmAndPoiIndex.BOXES_FIELD_NUMBER, writeBoxes(tiles, offsets));
+		cos.writeRawBytes(data.toByteArray());
+		cos.flush();
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		cos = CodedOutputStream.newInstance(bytes);
+		cos.writeUInt32(OsmAndStructure.VERSION_FIELD_NUMBER, 2);
+		writeFixedMessage(cos, OsmAndStructure.POIINDEX_FIELD_NUMBER, header.toByteArray());
+		cos.writeUInt32(OsmAndStructure.VERSIONCONFIRM_FIELD_NUMBER, 2);
+		cos.flush();
+		File file = folder.newFile("Poi.obf");
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			bytes.writeTo(out);
+		} finally {
+			out.close();
+		}
+		return file;
+	}
+
+	private static SearchPoiTypeFilter filter(final String category, final String subtype) {
+		return new SearchPoiTypeFilter() {
+			@Override
+			public boolean accept(PoiCategory type, String subcategory) {
+				return type.getKeyName().equals(category) && (subtype == null || subtype.equals(subcategory));
+			}
+
+			@Override
+			public boolean isEmpty() {
+				return false;
+			}
+		};
+	}
+
+	private static List<String> search(BinaryMapIndexReader reader, int left, int right, int top, int bottom,
+									   SearchPoiTypeFilter filter, int[] visited) throws IOException {
+		SearchRequest<Amenity> req = BinaryMapIndexReader.buildSearchPoiRequest(left, right, top, bottom, -1,
+				filter, new ResultMatcher<Amenity>() {
+					@Override
+					public boolean publish(Amenity object) {
+						return true;
+					}
+
+					@Override
+					public boolean isCancelled() {
+						return false;
+					}
+				});
+		List<String> res = new ArrayList<String>();
+		for (PoiRegion region : reader.getPoiIndexes()) {
+			for (Amenity am : reader.searchPoi(region, req)) {
+				res.add(am.getId() + " " + am.getSubType() + " " + am.getName());
+			}
+		}
+		if (visited != null) {
+			visited[0] = req.numberOfVisitedObjects;
+		}
+		Collections.sort(res);
+		return res;
+	}
+
+	@Test
+	public void testCachedSearchSameAsUncached() throws IOException {
+		File file = createObf();
+		BinaryMapIndexReader plain = new BinaryMapIndexReader(new RandomAccessFile(file, "r"), file);
+		BinaryMapIndexReader cached = new BinaryMapIndexReader(new RandomAccessFile(file, "r"), plain);
+		PoiTileCache cache = new PoiTileCache();
+		cached.setPoiTileCache(cache);
+		int x = TILE_X << 17;
+		int y = TILE_Y << 17;
+		int tile = 1 << 17;
+		// part of tiles, all tiles with data and empty tile, bigger area
+		int[][] boxes = {
+				{x + (400 << 7), x + 2 * tile - (500 << 7), y + (300 << 7), y + 2 * tile - 1},
+				{x, x + 2 * tile - 1, y, y + 2 * tile - 1},
+				{x - tile, x + 3 * tile - 1, y - tile, y + 3 * tile - 1}};
+		SearchPoiTypeFilter[] filters = {null, filter("food", null), filter("shop", null), filter("food", "cafe")};
+		int found = 0;
+		for (int[] b : boxes) {
+			for (SearchPoiTypeFilter f : filters) {
+				List<String> expected = search(plain, b[0], b[1], b[2], b[3], f, null);
+				Assert.assertEquals(expected, search(cached, b[0], b[1], b[2], b[3], f, null));
+				found += expected.size();
+			}
+		}
+		Assert.assertEquals(2 * (9 + 6 + 3 + 3) + 5 + 3 + 2 + 0, found);
+
+		// filter accepting the same types reads tiles from cache
+		int[] visited = new int[1];
+		List<String> food = search(cached, x, x + 2 * tile - 1, y, y + 2 * tile - 1, filter("food", null), visited);
+		Assert.assertEquals(6, food.size());
+		Assert.assertEquals(0, visited[0]);
+		// tiles are cached per accepted types: 4 types sets, 16 tiles of bigger area, 3 of them with data
+		Assert.assertEquals(filters.length * 16, cache.getTilesCount());
+		Assert.assertEquals(filters.length * 13 + 9 + 6 + 3 + 3, cache.getAmenitiesCount());
+		plain.close();
+		cached.close();
+	}
+}
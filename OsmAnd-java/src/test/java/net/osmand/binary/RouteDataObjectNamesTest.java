@@ -0,0 +1,178 @@
+package net.osmand.binary;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+
+import net.osmand.GPXUtilities;
+import net.osmand.GPXUtilities.GPXFile;
+import net.osmand.Location;
+import net.osmand.binary.BinaryMapRouteReaderAdapter.RouteRegion;
+import net.osmand.binary.BinaryMapRouteReaderAdapter.RouteSubregion;
+import net.osmand.binary.OsmandOdb.IdTable;
+import net.osmand.binary.OsmandOdb.OsmAndRoutingIndex.RouteDataBlock;
+import net.osmand.binary.OsmandOdb.OsmAndStructure;
+import net.osmand.binary.OsmandOdb.RouteData;
+import net.osmand.binary.OsmandOdb.StringTable;
+import net.osmand.router.RouteExporter;
+import net.osmand.router.RouteImporter;
+import net.osmand.router.RouteSegmentResult;
+import net.osmand.util.MapUtils;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class RouteDataObjectNamesTest {
+
+	private static final int HIGHWAY_RULE = 1;
+	private static final int NAME_RULE = 2;
+	private static final int REF_RULE = 3;
+	private static final String[] STRINGS = {"Main Street", "A1", "Hauptstraße Ü"};
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static ByteString varints(int... values) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		CodedOutputStream cos = CodedOutputStream.newInstance(bytes);
+		for (int v : values) {
+			cos.writeRawVarint32(v);
+		}
+		cos.flush();
+		return ByteString.copyFrom(bytes.toByteArray());
+	}
+
+	// points are deltas of coordinates shifted by 4 bits
+	private static ByteString points(int x, int y, int count) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		CodedOutputStream cos = CodedOutputStream.newInstance(bytes);
+		cos.writeSInt32NoTag(x >> 4);
+		cos.writeSInt32NoTag(y >> 4);
+		for (int i = 1; i < count; i++) {
+			cos.writeSInt32NoTag(1000);
+			cos.writeSInt32NoTag(-500);
+		}
+		cos.flush();
+		return ByteString.copyFrom(bytes.toByteArray());
+	}
+
+	private static RouteDataBlock createBlock() throws IOException {
+		RouteDataBlock.Builder block = RouteDataBlock.newBuilder();
+		// names are indexes in string table
+		block.addDataObjects(RouteData.newBuilder().setRouteId(0).setTypes(varints(HIGHWAY_RULE))
+				.setPoints(points(1 << 30, 1 << 29, 5)).setStringNames(varints(NAME_RULE, 0, REF_RULE, 1)));
+		block.addDataObjects(RouteData.newBuilder().setRouteId(1).setTypes(varints(HIGHWAY_RULE))
+				.setPoints(points(1 << 30, 1 << 29, 3)).setStringNames(varints(NAME_RULE, 2)));
+		block.addDataObjects(RouteData.newBuilder().setRouteId(2).setTypes(varints(HIGHWAY_RULE))
+				.setPoints(points(1 << 30, 1 << 29, 3)).setStringNames(varints(NAME_RULE, 2)));
+		// ids are deltas, last two objects are the same way
+		block.setIdTable(IdTable.newBuilder().addRouteId(64).addRouteId(64).addRouteId(0));
+		StringTable.Builder strings = StringTable.newBuilder();
+		for (String s : STRINGS) {
+			strings.addS(s);
+		}
+		block.setStringTable(strings);
+		return block.build();
+	}
+
+	private List<RouteDataObject> readObjects() throws IOException {
+		byte[] data = createBlock().toByteArray();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		CodedOutputStream cos = CodedOutputStream.newInstance(bytes);
+		cos.writeUInt32(OsmAndStructure.VERSION_FIELD_NUMBER, 2);
+		// data block is stored as unknown field of file structure
+		cos.writeTag(100, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+		cos.flush();
+		int blockPointer = bytes.size();
+		cos.writeRawVarint32(data.length);
+		cos.writeRawBytes(data);
+		cos.writeUInt32(OsmAndStructure.VERSIONCONFIRM_FIELD_NUMBER, 2);
+		cos.flush();
+		File file = folder.newFile("Test.obf");
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			bytes.writeTo(out);
+		} finally {
+			out.close();
+		}
+
+		RouteRegion region = new RouteRegion();
+		region.initRouteEncodingRule(HIGHWAY_RULE, "highway", "primary");
+		region.initRouteEncodingRule(NAME_RULE, "name", "");
+		region.initRouteEncodingRule(REF_RULE, "ref", "");
+		RouteSubregion sub = new RouteSubregion(region);
+		sub.filePointer = blockPointer;
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			return new BinaryMapIndexReader(raf, file).loadRouteIndexData(sub);
+		} finally {
+			raf.close();
+		}
+	}
+
+	@Test
+	public void testNamesRoundTrip() throws IOException {
+		List<RouteDataObject> objects = readObjects();
+		Assert.assertEquals(3, objects.size());
+		RouteDataObject main = objects.get(0);
+		// names are not decoded to estimate size
+		Assert.assertEquals(2, main.getNamesCount());
+		Assert.assertEquals(STRINGS[0].length() + STRINGS[1].length(), main.getNamesLength());
+		Assert.assertEquals(STRINGS[2].getBytes("UTF-8").length, objects.get(1).getNamesLength());
+		Assert.assertTrue(objects.get(1).compareRoute(objects.get(2)));
+		Assert.assertFalse(objects.get(0).compareRoute(objects.get(1)));
+
+		// name filters compare bytes of string table
+		byte[] mainName = BinaryStringTable.encode(STRINGS[0]);
+		Assert.assertTrue(main.nameEquals(NAME_RULE, mainName));
+		Assert.assertTrue(main.nameStartsWith(NAME_RULE, BinaryStringTable.encode("Main")));
+		Assert.assertFalse(main.nameStartsWith(REF_RULE, BinaryStringTable.encode("Main")));
+		Assert.assertTrue(objects.get(1).nameContains(NAME_RULE, BinaryStringTable.encode("ße Ü")));
+		Assert.assertFalse(objects.get(1).nameEquals(REF_RULE, mainName));
+		Assert.assertNull(main.names);
+
+		RouteDataObject copy = new RouteDataObject(main);
+		Assert.assertEquals(STRINGS[0], main.getName());
+		Assert.assertEquals(STRINGS[1], main.getRef(null, false, true));
+		Assert.assertEquals(STRINGS[0], copy.getNames().get(NAME_RULE));
+		Assert.assertEquals(STRINGS[1], copy.getNames().get(REF_RULE));
+		Assert.assertEquals(STRINGS[2], objects.get(2).getName(""));
+		Assert.assertEquals(STRINGS[2].length(), objects.get(2).getNamesLength());
+		Assert.assertEquals(STRINGS[0], main.names.get(NAME_RULE));
+		Assert.assertTrue(main.nameEquals(NAME_RULE, mainName));
+		Assert.assertTrue(objects.get(2).nameContains(NAME_RULE, BinaryStringTable.encode("ße Ü")));
+
+		List<RouteSegmentResult> route = new ArrayList<>();
+		List<Location> locations = new ArrayList<>();
+		for (RouteDataObject o : objects.subList(0, 2)) {
+			route.add(new RouteSegmentResult(o, 0, o.getPointsLength() - 1));
+			for (int i = 0; i < o.getPointsLength(); i++) {
+				locations.add(new Location("", MapUtils.get31LatitudeY(o.getPoint31YTile(i)),
+						MapUtils.get31LongitudeX(o.getPoint31XTile(i))));
+			}
+		}
+		GPXFile gpx = new RouteExporter("Test", route, locations, null).exportRoute();
+		File gpxFile = folder.newFile("Test.gpx");
+		Assert.assertNull(GPXUtilities.writeGpxFile(gpxFile, gpx));
+		List<RouteSegmentResult> imported = new RouteImporter(gpxFile).importRoute();
+		Assert.assertEquals(2, imported.size());
+		RouteDataObject importedMain = imported.get(0).getObject();
+		Assert.assertEquals(STRINGS[0], importedMain.getName());
+		Assert.assertEquals(STRINGS[1], importedMain.getRef(null, false, true));
+		Assert.assertEquals(2, importedMain.getNamesCount());
+		Assert.assertEquals(STRINGS[2], imported.get(1).getObject().getName());
+		Assert.assertEquals(Collections.singletonList(STRINGS[2]),
+				new ArrayList<>(imported.get(1).getObject().getNames().valueCollection()));
+	}
+}
@@ -0,0 +1,65 @@
+package net.osmand.router;
+
+import net.osmand.router.RouteColorize.RouteColorizationPoint;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+public class RouteColorizeTest {
+
+	@Test
+	public void testIncrementalColors() {
+		Random rnd = new Random(31);
+		int size = 1000;
+		double[] lats = new double[size];
+		double[] lons = new double[size];
+		double[] values = new double[size];
+		IncrementalRouteColorize incremental = new IncrementalRouteColorize(0, 30, null);
+		for (int i = 0; i < size; i++) {
+			lats[i] = 50 + i * 0.0001;
+			lons[i] = 10 + rnd.nextDouble() * 0.0001;
+			values[i] = i % 50 == 0 ? Double.NaN : rnd.nextDouble() * 35;
+			incremental.addPoint(lats[i], lons[i], values[i]);
+		}
+		RouteColorize colorize = new RouteColorize(15, lats, lons, values, 0, 30, null);
+		int[] colors = colorize.getColors();
+		Assert.assertArrayEquals(colors, incremental.getColors());
+		List<RouteColorizationPoint> points = colorize.getResult(false);
+		for (int i = 0; i < size; i++) {
+			Assert.assertEquals(colorize.getColorByValue(values[i]), colors[i]);
+			Assert.assertEquals(colors[i], points.get(i).color);
+		}
+		Assert.assertEquals(RouteColorize.LIGHT_GREY, colors[0]);
+		Assert.assertEquals(RouteColorize.GREEN, colorize.getColorByValue(0));
+		Assert.assertEquals(RouteColorize.RED, colorize.getColorByValue(40));
+		Assert.assertEquals(size - 990, incremental.getResult(990).size());
+	}
+
+	@Test
+	public void testSimplify() {
+		int size = 500;
+		double[] lats = new double[size];
+		double[] lons = new double[size];
+		double[] values = new double[size];
+		for (int i = 0; i < size; i++) {
+			// straight line with single peak of values
+			lats[i] = 50 + i * 0.0001;
+			lons[i] = 10;
+			values[i] = i == 250 ? 100 : 10 + i % 2;
+		}
+		RouteColorize colorize = new RouteColorize(10, lats, lons, values, Double.NaN, Double.NaN, null);
+		List<RouteColorizationPoint> simplified = colorize.simplify();
+		Assert.assertEquals(0, simplified.get(0).id);
+		Assert.assertEquals(size - 1, simplified.get(simplified.size() - 1).id);
+		boolean peak = false;
+		for (RouteColorizationPoint p : simplified) {
+			Assert.assertEquals(colorize.getColorByValue(p.val), p.color);
+			peak |= p.id == 250;
+		}
+		Assert.assertTrue(peak);
+		Assert.assertTrue(simplified.size() < size);
+	}
+}
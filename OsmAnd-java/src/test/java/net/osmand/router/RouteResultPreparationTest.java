@@ -6,6 +6,7 @@ import com.google.gson.GsonBuilder;
 import net.osmand.NativeLibrary;
 import net.osmand.PlatformUtil;
 import net.osmand.binary.BinaryMapIndexReader;
+import net.osmand.binary.BlockCompressedRandomAccessFile;
 import net.osmand.data.LatLon;
 import net.osmand.router.RoutingConfiguration.RoutingMemoryLimits;
 import net.osmand.util.Algorithms;
@@ -89,7 +90,7 @@ public class RouteResultPreparationTest {
         String fileName = "src/test/resources/Turn_lanes_test.obf";
         File fl = new File(fileName);
     
-        RandomAccessFile raf = new RandomAccessFile(fl, "r");
+        RandomAccessFile raf = BlockCompressedRandomAccessFile.open(fl);
         fe = new RoutePlannerFrontEnd();
         RoutingConfiguration.Builder builder = RoutingConfiguration.getDefault();
         if (useNative) {
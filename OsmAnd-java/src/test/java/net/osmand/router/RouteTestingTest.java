@@ -4,6 +4,7 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 
 import net.osmand.binary.BinaryMapIndexReader;
+import net.osmand.binary.BlockCompressedRandomAccessFile;
 import net.osmand.router.RoutingConfiguration.RoutingMemoryLimits;
 
 import net.osmand.util.RouterUtilTest;
@@ -74,7 +75,7 @@ public class RouteTestingTest {
 		}
 
 		String fl = "src/test/resources/Routing_test.obf";
-		RandomAccessFile raf = new RandomAccessFile(fl, "r");
+		RandomAccessFile raf = BlockCompressedRandomAccessFile.open(new File(fl));
 		RoutePlannerFrontEnd fe = new RoutePlannerFrontEnd();
 
 		BinaryMapIndexReader[] binaryMapIndexReaders;// = { new BinaryMapIndexReader(raf, new File(fl)) };
@@ -82,7 +83,7 @@ public class RouteTestingTest {
 		Map<String, String> params = te.getParams();
 		if (params.containsKey("map")) {
 			String fl1 = "src/test/resources/" + params.get("map");
-			RandomAccessFile raf1 = new RandomAccessFile(fl1, "r");
+			RandomAccessFile raf1 = BlockCompressedRandomAccessFile.open(new File(fl1));
 			binaryMapIndexReaders = new BinaryMapIndexReader[]{
 					new BinaryMapIndexReader(raf1, new File(fl1)),
 					new BinaryMapIndexReader(raf, new File(fl))
@@ -0,0 +1,27 @@
+package net.osmand.search;
+
+import net.osmand.search.core.SearchPhrase;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SearchPhraseRefinementTest {
+
+	private SearchPhrase phrase(String text) {
+		return SearchPhrase.emptyPhrase().generateNewPhrase(text, null);
+	}
+
+	@Test
+	public void testRefinement() {
+		SearchPhrase caf = phrase("caf");
+		SearchPhrase cafe = caf.generateNewPhrase("cafe", null);
+		Assert.assertTrue(cafe.isRefinementOf(caf));
+		Assert.assertFalse(caf.isRefinementOf(cafe));
+		Assert.assertFalse(caf.isRefinementOf(caf));
+		Assert.assertFalse(cafe.isRefinementOf(null));
+		Assert.assertFalse(phrase("bar").isRefinementOf(caf));
+		// completed word or several words are searched differently
+		Assert.assertFalse(phrase("cafe ").isRefinementOf(caf));
+		Assert.assertFalse(phrase("caf b").isRefinementOf(caf));
+	}
+}
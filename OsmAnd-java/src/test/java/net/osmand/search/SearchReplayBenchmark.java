@@ -0,0 +1,238 @@
+package net.osmand.search;
+
+import net.osmand.ResultMatcher;
+import net.osmand.binary.BinaryMapIndexReader;
+import net.osmand.binary.BinaryMapReaderIOProfiler;
+import net.osmand.binary.BlockCompressedRandomAccessFile;
+import net.osmand.data.LatLon;
+import net.osmand.osm.MapPoiTypes;
+import net.osmand.search.core.ObjectType;
+import net.osmand.search.core.SearchResult;
+import net.osmand.search.core.SearchSettings;
+import net.osmand.util.Algorithms;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Replays typed queries through {@link SearchUICore#search} with delayed execution (as search UI does)
+ * and reports per keystroke time to first result, time to final result and bytes read from obf.
+ * Uses test data of {@link SearchUICoreTest} (json with settings and obf.gz exported with SearchExportSettings).
+ * <p>
+ * Usage: {@code SearchReplayBenchmark <test.json> [queries.json]}, queries log format:
+ * <pre>
+ * {"sessions": [{"lat": 52.37, "lon": 4.89, "keystrokes": ["c", "ca", "caf"], "delays": [0, 180, 140]}]}
+ * </pre>
+ * delays are milliseconds before keystroke, without log phrases of the test are typed char by char.
+ */
+public class SearchReplayBenchmark {
+
+	private static final int DEFAULT_KEYSTROKE_DELAY = 150;
+	private static final int SEARCH_TIMEOUT_SECONDS = 60;
+
+	private static class Session {
+		LatLon location;
+		List<String> keystrokes = new ArrayList<>();
+		List<Integer> delays = new ArrayList<>();
+	}
+
+	private static class KeystrokeStats implements ResultMatcher<SearchResult> {
+		final String text;
+		final long start = System.nanoTime();
+		final CountDownLatch finished = new CountDownLatch(1);
+		final SearchUICore core;
+		volatile long firstResult = -1;
+		volatile long finalResult = -1;
+		long bytesRead;
+
+		KeystrokeStats(String text, SearchUICore core) {
+			this.text = text;
+			this.core = core;
+		}
+
+		@Override
+		public boolean publish(SearchResult object) {
+			ObjectType type = object.objectType;
+			long time = System.nanoTime() - start;
+			if (type == ObjectType.SEARCH_FINISHED) {
+				finalResult = time;
+				if (firstResult == -1 && !core.getCurrentSearchResult().getCurrentSearchResults().isEmpty()) {
+					firstResult = time;
+				}
+				finished.countDown();
+			} else if (type == ObjectType.FILTER_FINISHED) {
+				// previous results filtered by new text are shown
+				if (firstResult == -1 && !core.getCurrentSearchResult().getCurrentSearchResults().isEmpty()) {
+					firstResult = time;
+				}
+			} else if (type != ObjectType.SEARCH_STARTED && type != ObjectType.SEARCH_API_FINISHED
+					&& type != ObjectType.SEARCH_API_REGION_FINISHED && firstResult == -1) {
+				firstResult = time;
+			}
+			return true;
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return false;
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		if (args.length == 0) {
+			System.out.println("Usage: SearchReplayBenchmark <test.json> [queries.json]");
+			return;
+		}
+		SearchUICoreTest.defaultSetup();
+		File testFile = new File(args[0]);
+		JSONObject testJson = new JSONObject(Algorithms.getFileAsString(testFile));
+		SearchSettings settings = SearchSettings.parseJSON(testJson.getJSONObject("settings"));
+		File obfFile = new File(testFile.getParentFile(), testFile.getName().replace(".json", ".obf"));
+		File obfZipFile = new File(testFile.getParentFile(), testFile.getName().replace(".json", ".obf.gz"));
+		if (!obfFile.exists() && obfZipFile.exists()) {
+			GZIPInputStream gzin = new GZIPInputStream(new FileInputStream(obfZipFile));
+			FileOutputStream fous = new FileOutputStream(obfFile);
+			Algorithms.streamCopy(gzin, fous);
+			fous.close();
+			gzin.close();
+		}
+		BinaryMapIndexReader reader = new BinaryMapIndexReader(BlockCompressedRandomAccessFile.open(obfFile), obfFile);
+		BinaryMapReaderIOProfiler profiler = new BinaryMapReaderIOProfiler(reader);
+		reader.setIOProfiler(profiler);
+		settings.setOfflineIndexes(Collections.singletonList(reader));
+
+		List<Session> sessions = args.length > 1 ? readSessions(new File(args[1])) : testSessions(testJson, settings);
+		SearchUICore core = new SearchUICore(MapPoiTypes.getDefault(), "en", false);
+		core.init();
+		List<KeystrokeStats> all = new ArrayList<>();
+		for (Session session : sessions) {
+			core.updateSettings(session.location == null ? settings : settings.setOriginalLocation(session.location));
+			core.resetPhrase();
+			List<KeystrokeStats> typed = replay(core, session, profiler);
+			all.addAll(typed);
+			for (KeystrokeStats s : typed) {
+				System.out.println(String.format(Locale.US, "%-30s first %8s final %8s read %8d KB", "'" + s.text + "'",
+						formatTime(s.firstResult), s.finalResult == -1 ? "cancel" : formatTime(s.finalResult),
+						s.bytesRead >> 10));
+			}
+		}
+		printSummary(all);
+		reader.close();
+	}
+
+	private static List<KeystrokeStats> replay(SearchUICore core, Session session, BinaryMapReaderIOProfiler profiler)
+			throws InterruptedException {
+		List<KeystrokeStats> typed = new ArrayList<>();
+		long bytes = profiler.getTotal().bytesRead;
+		for (int i = 0; i < session.keystrokes.size(); i++) {
+			Thread.sleep(session.delays.get(i));
+			long read = profiler.getTotal().bytesRead;
+			if (i > 0) {
+				typed.get(i - 1).bytesRead = read - bytes;
+			}
+			bytes = read;
+			KeystrokeStats stats = new KeystrokeStats(session.keystrokes.get(i), core);
+			typed.add(stats);
+			core.search(stats.text, true, stats);
+		}
+		if (!typed.isEmpty()) {
+			KeystrokeStats last = typed.get(typed.size() - 1);
+			if (!last.finished.await(SEARCH_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+				System.out.println("Search timeout '" + last.text + "'");
+			}
+			last.bytesRead = profiler.getTotal().bytesRead - bytes;
+		}
+		return typed;
+	}
+
+	private static List<Session> readSessions(File file) throws IOException {
+		JSONArray sessionsJson = new JSONObject(Algorithms.getFileAsString(file)).getJSONArray("sessions");
+		List<Session> sessions = new ArrayList<>();
+		for (int i = 0; i < sessionsJson.length(); i++) {
+			JSONObject json = sessionsJson.getJSONObject(i);
+			Session s = new Session();
+			if (json.has("lat") && json.has("lon")) {
+				s.location = new LatLon(json.getDouble("lat"), json.getDouble("lon"));
+			}
+			JSONArray keystrokes = json.getJSONArray("keystrokes");
+			JSONArray delays = json.optJSONArray("delays");
+			for (int k = 0; k < keystrokes.length(); k++) {
+				s.keystrokes.add(keystrokes.getString(k));
+				s.delays.add(delays != null && k < delays.length() ? delays.getInt(k) : DEFAULT_KEYSTROKE_DELAY);
+			}
+			sessions.add(s);
+		}
+		return sessions;
+	}
+
+	private static List<Session> testSessions(JSONObject testJson, SearchSettings settings) {
+		List<String> phrases = new ArrayList<>();
+		if (testJson.has("phrase")) {
+			phrases.add(testJson.getString("phrase"));
+		}
+		JSONArray phrasesJson = testJson.optJSONArray("phrases");
+		for (int i = 0; phrasesJson != null && i < phrasesJson.length(); i++) {
+			phrases.add(phrasesJson.getString(i));
+		}
+		List<Session> sessions = new ArrayList<>();
+		for (String phrase : phrases) {
+			Session s = new Session();
+			s.location = settings.getOriginalLocation();
+			for (int i = 1; i <= phrase.length(); i++) {
+				s.keystrokes.add(phrase.substring(0, i));
+				s.delays.add(i == 1 ? 0 : DEFAULT_KEYSTROKE_DELAY);
+			}
+			sessions.add(s);
+		}
+		return sessions;
+	}
+
+	private static String formatTime(long nanos) {
+		return nanos == -1 ? "-" : (nanos / 1000000) + " ms";
+	}
+
+	private static void printSummary(List<KeystrokeStats> all) {
+		long[] first = new long[all.size()];
+		long[] last = new long[all.size()];
+		int firstCount = 0;
+		int lastCount = 0;
+		long bytes = 0;
+		for (KeystrokeStats s : all) {
+			if (s.firstResult != -1) {
+				first[firstCount++] = s.firstResult;
+			}
+			if (s.finalResult != -1) {
+				last[lastCount++] = s.finalResult;
+			}
+			bytes += s.bytesRead;
+		}
+		first = Arrays.copyOf(first, firstCount);
+		last = Arrays.copyOf(last, lastCount);
+		Arrays.sort(first);
+		Arrays.sort(last);
+		System.out.println(String.format(Locale.US, "Keystrokes %d, completed %d, read %d KB per keystroke",
+				all.size(), lastCount, all.isEmpty() ? 0 : (bytes / all.size()) >> 10));
+		System.out.println("First result p50 " + formatTime(percentile(first, 50)) + " p90 " + formatTime(percentile(first, 90)));
+		System.out.println("Final result p50 " + formatTime(percentile(last, 50)) + " p90 " + formatTime(percentile(last, 90)));
+	}
+
+	private static long percentile(long[] sorted, int p) {
+		if (sorted.length == 0) {
+			return -1;
+		}
+		return sorted[Math.min(sorted.length - 1, sorted.length * p / 100)];
+	}
+}
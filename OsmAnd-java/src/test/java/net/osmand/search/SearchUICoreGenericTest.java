@@ -3,6 +3,7 @@ package net.osmand.search;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 import org.junit.Assert;
 import org.junit.BeforeClass;
@@ -97,6 +98,37 @@ public class SearchUICoreGenericTest {
 		Assert.assertSame(b2, cll.getCurrentSearchResults().get(2));
 	}
 
+	@Test
+	public void testResultsLimit() throws IOException {
+		SearchSettings ss = new SearchSettings((SearchSettings)null);
+		ss = ss.setOriginalLocation(new LatLon(0, 0));
+		SearchPhrase phrase = SearchPhrase.emptyPhrase(ss);
+		List<SearchResult> rs = new ArrayList<>();
+		Random rnd = new Random(5);
+		for (int i = 0; i < 1000; i++) {
+			searchResult(rs, phrase, String.valueOf((char) ('a' + rnd.nextInt(5))), rnd.nextInt(300));
+		}
+		SearchResultCollection all = new SearchUICore.SearchResultCollection(phrase);
+		all.addSearchResults(new ArrayList<>(rs), true, true);
+		SearchResultCollection top = new SearchUICore.SearchResultCollection(phrase);
+		top.setResultsLimit(20);
+		top.addSearchResults(new ArrayList<>(rs), true, true);
+		Assert.assertEquals(20, top.getCurrentSearchResults().size());
+		for (int i = 0; i < 20; i++) {
+			SearchResult expected = all.getCurrentSearchResults().get(i);
+			SearchResult actual = top.getCurrentSearchResults().get(i);
+			Assert.assertEquals(expected.localeName, actual.localeName);
+			Assert.assertEquals(expected.location, actual.location);
+		}
+		// limit of search settings
+		SearchResultCollection limited = new SearchUICore.SearchResultCollection(
+				SearchPhrase.emptyPhrase(ss.setTotalLimit(20)));
+		Assert.assertEquals(20, limited.getResultsLimit());
+		limited.addSearchResults(new ArrayList<>(rs), true, true);
+		Assert.assertEquals(20, limited.getCurrentSearchResults().size());
+		Assert.assertEquals(-1, all.getResultsLimit());
+	}
+
 	private SearchResult searchResult(List<SearchResult> rs, SearchPhrase phrase, String text, int dist) {
 		SearchResult res = new SearchResult(phrase);
 		res.localeName = text;
@@ -0,0 +1,186 @@
+package net.osmand.search;
+
+import net.osmand.ResultMatcher;
+import net.osmand.osm.MapPoiTypes;
+import net.osmand.search.SearchUICore.SearchResultMatcher;
+import net.osmand.search.core.ObjectType;
+import net.osmand.search.core.SearchCoreAPI;
+import net.osmand.search.core.SearchPhrase;
+import net.osmand.search.core.SearchResult;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SearchUICoreParallelTest {
+
+	// apis wait for each other with timeout, so sequential execution fails instead of hanging
+	private static final long TIMEOUT_SECONDS = 10;
+
+	private static class TestAPI implements SearchCoreAPI {
+		private final String name;
+		private final int priority;
+		private final CountDownLatch started;
+		private final CountDownLatch proceed;
+		private volatile boolean timedOut;
+
+		TestAPI(String name, int priority, CountDownLatch started, CountDownLatch proceed) {
+			this.name = name;
+			this.priority = priority;
+			this.started = started;
+			this.proceed = proceed;
+		}
+
+		@Override
+		public int getSearchPriority(SearchPhrase p) {
+			return priority;
+		}
+
+		@Override
+		public boolean search(SearchPhrase phrase, SearchResultMatcher resultMatcher) {
+			if (started != null) {
+				started.countDown();
+			}
+			if (proceed != null) {
+				try {
+					timedOut = !proceed.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					return false;
+				}
+			}
+			for (int i = 0; i < 3 && !resultMatcher.isCancelled(); i++) {
+				SearchResult sr = new SearchResult(phrase);
+				sr.localeName = name + i;
+				resultMatcher.publish(sr);
+			}
+			return true;
+		}
+
+		@Override
+		public boolean isSearchMoreAvailable(SearchPhrase phrase) {
+			return false;
+		}
+
+		@Override
+		public boolean isSearchAvailable(SearchPhrase p) {
+			return true;
+		}
+
+		@Override
+		public int getMinimalSearchRadius(SearchPhrase phrase) {
+			return 0;
+		}
+
+		@Override
+		public int getNextSearchRadius(SearchPhrase phrase) {
+			return 0;
+		}
+
+		@Override
+		public String toString() {
+			return name;
+		}
+	}
+
+	@Test
+	public void testParallelSearchKeepsPriorityOrder() {
+		SearchUICore core = new SearchUICore(MapPoiTypes.getDefaultNoInit(), "en", false);
+		// slow api finishes only after results of fast api are published
+		final CountDownLatch fastFinished = new CountDownLatch(1);
+		TestAPI slow = new TestAPI("slow", 1, null, fastFinished);
+		core.registerAPI(slow);
+		core.registerAPI(new TestAPI("fast", 2, null, null));
+		core.setParallelSearchThreads(2);
+		SearchPhrase phrase = core.resetPhrase("test");
+		final List<String> published = Collections.synchronizedList(new ArrayList<String>());
+		ResultMatcher<SearchResult> matcher = new ResultMatcher<SearchResult>() {
+			@Override
+			public boolean publish(SearchResult object) {
+				if (object.objectType == ObjectType.SEARCH_API_FINISHED) {
+					published.add("finished " + object.object);
+					if ("fast".equals(String.valueOf(object.object))) {
+						fastFinished.countDown();
+					}
+				} else {
+					published.add(object.localeName);
+				}
+				return true;
+			}
+
+			@Override
+			public boolean isCancelled() {
+				return false;
+			}
+		};
+		SearchResultMatcher rm = new SearchResultMatcher(matcher, phrase, 0, new AtomicInteger(), -1);
+		core.searchInternal(phrase, rm);
+
+		// fast api is not waiting for slow one and results of apis are not mixed
+		Assert.assertFalse(slow.timedOut);
+		Assert.assertEquals(8, published.size());
+		Assert.assertEquals("fast0", published.get(0));
+		Assert.assertEquals("finished fast", published.get(3));
+		Assert.assertEquals("finished slow", published.get(7));
+		List<String> results = new ArrayList<>();
+		for (SearchResult sr : rm.getRequestResults()) {
+			results.add(sr.localeName);
+		}
+		Assert.assertEquals(Arrays.asList("slow0", "slow1", "slow2", "fast0", "fast1", "fast2"), results);
+	}
+
+	@Test
+	public void testParallelSearchCancelled() {
+		SearchUICore core = new SearchUICore(MapPoiTypes.getDefaultNoInit(), "en", false);
+		// both apis are running when next keystroke comes
+		final CountDownLatch started = new CountDownLatch(2);
+		final CountDownLatch proceed = new CountDownLatch(1);
+		TestAPI slow = new TestAPI("slow", 1, started, proceed);
+		TestAPI fast = new TestAPI("fast", 2, started, proceed);
+		core.registerAPI(slow);
+		core.registerAPI(fast);
+		core.setParallelSearchThreads(2);
+		SearchPhrase phrase = core.resetPhrase("test");
+		final AtomicInteger requestNumber = new AtomicInteger();
+		final List<SearchResult> published = Collections.synchronizedList(new ArrayList<SearchResult>());
+		ResultMatcher<SearchResult> matcher = new ResultMatcher<SearchResult>() {
+			@Override
+			public boolean publish(SearchResult object) {
+				published.add(object);
+				return true;
+			}
+
+			@Override
+			public boolean isCancelled() {
+				return false;
+			}
+		};
+		final SearchResultMatcher rm = new SearchResultMatcher(matcher, phrase, 0, requestNumber, -1);
+		new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					if (started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+						// next keystroke
+						requestNumber.incrementAndGet();
+					}
+				} catch (InterruptedException e) {
+					// ignore
+				}
+				proceed.countDown();
+			}
+		}).start();
+		core.searchInternal(phrase, rm);
+		Assert.assertFalse(slow.timedOut);
+		Assert.assertFalse(fast.timedOut);
+		Assert.assertTrue(rm.isCancelled());
+		Assert.assertTrue(published.isEmpty());
+		Assert.assertTrue(rm.getRequestResults().isEmpty());
+	}
+}
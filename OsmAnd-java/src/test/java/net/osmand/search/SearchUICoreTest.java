@@ -2,6 +2,7 @@ package net.osmand.search;
 
 import net.osmand.ResultMatcher;
 import net.osmand.binary.BinaryMapIndexReader;
+import net.osmand.binary.BlockCompressedRandomAccessFile;
 import net.osmand.osm.AbstractPoiType;
 import net.osmand.osm.MapPoiTypes;
 import net.osmand.search.SearchUICore.SearchResultCollection;
@@ -24,7 +25,6 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -123,7 +123,7 @@ public class SearchUICoreTest {
 			fous.close();
 			gzin.close();
 
-			reader = new BinaryMapIndexReader(new RandomAccessFile(obfFile.getPath(), "r"), obfFile);
+			reader = new BinaryMapIndexReader(BlockCompressedRandomAccessFile.open(obfFile), obfFile);
 		}
 		 boolean disabled = settingsJson.optBoolean("disabled", false);
 		 if (disabled) {
@@ -0,0 +1,70 @@
+package net.osmand.util;
+
+import net.osmand.osm.edit.Node;
+import net.osmand.osm.edit.OsmMapUtils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import gnu.trove.list.array.TIntArrayList;
+
+public class SimplificationIndexTest {
+
+	@Test
+	public void testSameAsDouglasPeucker() {
+		Random rnd = new Random(23);
+		int size = 5000;
+		double[] lats = new double[size];
+		double[] lons = new double[size];
+		List<Node> nodes = new ArrayList<>();
+		double lat = 48;
+		double lon = 11;
+		for (int i = 0; i < size; i++) {
+			lat += (rnd.nextDouble() - 0.3) * 0.0005;
+			lon += (rnd.nextDouble() - 0.5) * 0.0005;
+			// repeated points and straight parts
+			if (i % 100 < 5) {
+				lat = lats[Math.max(0, i - 1)];
+			}
+			lats[i] = lat;
+			lons[i] = lon;
+			nodes.add(new Node(lat, lon, i));
+		}
+		SimplificationIndex index = new SimplificationIndex(lats, lons);
+		for (double epsilon : new double[] {0, 0.5, 3, 10, 50, 200, 1000, 100000}) {
+			List<Node> survived = new ArrayList<>();
+			survived.add(nodes.get(0));
+			OsmMapUtils.simplifyDouglasPeucker(nodes, 0, size - 1, survived, epsilon);
+			TIntArrayList points = index.getPoints(epsilon);
+			Assert.assertEquals(survived.size(), points.size());
+			for (int i = 0; i < survived.size(); i++) {
+				Assert.assertEquals(survived.get(i).getId(), points.get(i));
+			}
+		}
+	}
+
+	@Test
+	public void testCancel() {
+		int size = 1000;
+		double[] lats = new double[size];
+		double[] lons = new double[size];
+		for (int i = 0; i < size; i++) {
+			lats[i] = 48 + (i % 2) * 0.001;
+			lons[i] = 11 + i * 0.001;
+		}
+		final int[] checks = new int[1];
+		SimplificationIndex index = new SimplificationIndex(lats, lons, new SimplificationIndex.CancellationCallback() {
+			@Override
+			public boolean isCancelled() {
+				return ++checks[0] > 10;
+			}
+		});
+		Assert.assertTrue(index.isCancelled());
+		Assert.assertEquals(11, checks[0]);
+		Assert.assertFalse(new SimplificationIndex(lats, lons).isCancelled());
+	}
+}
@@ -1299,7 +1299,7 @@ public class OsmandAidlApi {
 
 					@Override
 					protected GPXFile doInBackground(File... files) {
-						return GPXUtilities.loadGPXFile(files[0]);
+						return app.getGpxDbHelper().loadGpxFile(files[0]);
 					}
 
 					@Override
@@ -1325,7 +1325,7 @@ public class OsmandAidlApi {
 
 				@Override
 				protected GPXFile doInBackground(File... files) {
-					return GPXUtilities.loadGPXFile(files[0]);
+					return app.getGpxDbHelper().loadGpxFile(files[0]);
 				}
 
 				@Override
@@ -1445,7 +1445,7 @@ public class OsmandAidlApi {
 
 				@Override
 				protected GPXFile doInBackground(File... files) {
-					return GPXUtilities.loadGPXFile(files[0]);
+					return app.getGpxDbHelper().loadGpxFile(files[0]);
 				}
 
 				@Override
@@ -39,6 +39,7 @@ import net.osmand.ResultMatcher;
 import net.osmand.binary.BinaryMapDataObject;
 import net.osmand.binary.BinaryMapIndexReader;
 import net.osmand.binary.BinaryMapIndexReader.SearchRequest;
+import net.osmand.binary.BlockCompressedRandomAccessFile;
 import net.osmand.data.Amenity;
 import net.osmand.map.OsmandRegions;
 import net.osmand.map.WorldRegion;
@@ -63,7 +64,6 @@ import net.osmand.util.Algorithms;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -589,7 +589,7 @@ public class SearchDialogFragment extends DialogFragment implements DownloadEven
 						});
 
 				searchCityRequest = request;
-				BinaryMapIndexReader baseMapReader = new BinaryMapIndexReader(new RandomAccessFile(obf, "r"), obf);
+				BinaryMapIndexReader baseMapReader = new BinaryMapIndexReader(BlockCompressedRandomAccessFile.open(obf), obf);
 				baseMapReader.searchPoiByName(request);
 				try {
 					baseMapReader.close();
@@ -1026,6 +1026,7 @@ public class GpxUiHelper {
 	                                                File dir, GPXFile currentFile, String... filename) {
 		ProgressDialog dlg = ProgressDialog.show(activity, activity.getString(R.string.loading_smth, ""),
 				activity.getString(R.string.loading_data));
+		OsmandApplication app = (OsmandApplication) activity.getApplication();
 		new Thread(new Runnable() {
 			@Override
 			public void run() {
@@ -1037,7 +1038,7 @@ public class GpxUiHelper {
 				}
 				for (String fname : filename) {
 					File f = new File(dir, fname);
-					GPXFile res = GPXUtilities.loadGPXFile(f);
+					GPXFile res = app.getGpxDbHelper().loadGpxFile(f);
 					if (res.error != null && !Algorithms.isEmpty(res.error.getMessage())) {
 						w += res.error.getMessage() + "\n";
 					} else {
@@ -12,7 +12,6 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AlertDialog;
 
-import net.osmand.GPXUtilities;
 import net.osmand.GPXUtilities.GPXFile;
 import net.osmand.PlatformUtil;
 import net.osmand.plus.OsmandApplication;
@@ -147,7 +146,7 @@ public class RestoreNavigationHelper {
 			protected GPXFile doInBackground(String... params) {
 				if (gpxPath != null) {
 					// Reverse also should be stored ?
-					GPXFile gpxFile = GPXUtilities.loadGPXFile(new File(gpxPath));
+					GPXFile gpxFile = app.getGpxDbHelper().loadGpxFile(new File(gpxPath));
 					return gpxFile.error == null ? gpxFile : null;
 				}
 				return null;
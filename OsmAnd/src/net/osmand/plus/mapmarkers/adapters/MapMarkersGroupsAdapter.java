@@ -16,7 +16,6 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.android.material.snackbar.Snackbar;
 
-import net.osmand.GPXUtilities;
 import net.osmand.GPXUtilities.GPXFile;
 import net.osmand.IndexConstants;
 import net.osmand.data.LatLon;
@@ -220,7 +219,7 @@ public class MapMarkersGroupsAdapter extends RecyclerView.Adapter<RecyclerView.V
 			if (selectedGpx != null && selectedGpx.getGpxFile() != null) {
 				return selectedGpx.getGpxFile();
 			}
-			return GPXUtilities.loadGPXFile(new File(filePath));
+			return app.getGpxDbHelper().loadGpxFile(new File(filePath));
 		}
 		return null;
 	}
@@ -495,7 +494,7 @@ public class MapMarkersGroupsAdapter extends RecyclerView.Adapter<RecyclerView.V
 								gpxFile[0] = selectedGpxFile.getGpxFile();
 							} else {
 								// TODO IO load in another thread ?
-								gpxFile[0] = GPXUtilities.loadGPXFile(new File(gpxPath));
+								gpxFile[0] = app.getGpxDbHelper().loadGpxFile(new File(gpxPath));
 							}
 							switchGpxVisibility(gpxFile[0], selectedGpxFile, !disabled);
 						}
@@ -1404,7 +1404,7 @@ public class AvailableGPXFragment extends OsmandExpandableListFragment implement
 			Track generalTrack = null;
 			if (gpxInfo.gpx == null) {
 				if (gpxInfo.file != null) {
-					gpxFile = GPXUtilities.loadGPXFile(gpxInfo.file);
+					gpxFile = app.getGpxDbHelper().loadGpxFile(gpxInfo.file);
 				}
 			} else {
 				gpxFile = gpxInfo.gpx;
@@ -343,6 +343,11 @@ public class MapRenderRepositories {
 				if (!nativeFiles.contains(mapName)) {
 					long time = System.currentTimeMillis();
 					nativeFiles.add(mapName);
+					if (fr.isBlockCompressed()) {
+						// native library can't read block compressed files
+						log.warn("Block compressed resource " + mapName + " is not available for native library"); //$NON-NLS-1$
+						continue;
+					}
 					if (!library.initMapFile(fr.getFile().getAbsolutePath(), useLive)) {
 						continue;
 					}
@@ -24,7 +24,10 @@ import net.osmand.ResultMatcher;
 import net.osmand.binary.BinaryMapIndexReader;
 import net.osmand.binary.BinaryMapIndexReader.SearchPoiTypeFilter;
 import net.osmand.binary.BinaryMapPoiReaderAdapter.PoiSubType;
+import net.osmand.binary.BlockCompressedRandomAccessFile;
 import net.osmand.binary.CachedOsmandIndexes;
+import net.osmand.binary.NameIndexCache;
+import net.osmand.binary.PoiTileCache;
 import net.osmand.data.Amenity;
 import net.osmand.data.RotatedTileBox;
 import net.osmand.data.TransportRoute;
@@ -113,6 +116,10 @@ public class ResourceManager {
 
 	private final OsmandApplication context;
 	private final List<ResourceListener> resourceListeners = new ArrayList<>();
+	// name indexes of all files read by quick search, bounded by total number of keys
+	private static final NameIndexCache nameIndexCache = new NameIndexCache();
+	// decoded amenities of all files shared by poi layer and search, bounded by total number of amenities
+	private static final PoiTileCache poiTileCache = new PoiTileCache();
 
 	public interface ResourceListener {
 		void onMapsIndexed();
@@ -165,8 +172,15 @@ public class ResourceManager {
 			BinaryMapIndexReader initialReader = this.initialReader;
 			if (r == null && initialReader != null) {
 				try {
-					RandomAccessFile raf = new RandomAccessFile(filename, "r");
+					RandomAccessFile raf = BlockCompressedRandomAccessFile.open(filename);
 					r = new BinaryMapIndexReader(raf, initialReader);
+					// name indexes are queried on every keystroke
+					if (type == BinaryMapReaderResourceType.QUICK_SEARCH) {
+						r.setNameIndexCache(nameIndexCache);
+					}
+					if (type == BinaryMapReaderResourceType.POI || type == BinaryMapReaderResourceType.QUICK_SEARCH) {
+						r.setPoiTileCache(poiTileCache);
+					}
 					readers.set(type.ordinal(), r);
 				} catch (IOException e) {
 					log.error("Fail to initialize " + filename.getName(), e);
@@ -197,6 +211,8 @@ public class ResourceManager {
 				}
 			}
 			initialReader = null;
+			nameIndexCache.remove(filename);
+			poiTileCache.remove(filename);
 		}
 
 		public boolean isClosed() {
@@ -924,20 +940,21 @@ public class ResourceManager {
 		}
 
 		java.text.DateFormat dateFormat = getDateFormat();
+		if (progress != null) {
+			progress.startTask(context.getString(R.string.indexing_map), -1);
+		}
+		int initThreads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+		Map<File, BinaryMapIndexReader> mapReaders = cachedOsmandIndexes.getReaders(files, filesToReindex, initThreads);
+		cachedOsmandIndexes.logInitTimes(10);
 		for (File f : files) {
 			String fileName = f.getName();
 			if (progress != null) {
 				progress.startTask(context.getString(R.string.indexing_map) + " " + fileName, -1);
 			}
 			try {
-				BinaryMapIndexReader mapReader = null;
-				try {
-					mapReader = cachedOsmandIndexes.getReader(f, !filesToReindex.contains(f));
-					if (mapReader.getVersion() != IndexConstants.BINARY_MAP_VERSION) {
-						mapReader = null;
-					}
-				} catch (IOException e) {
-					log.error(String.format("File %s could not be read", fileName), e);
+				BinaryMapIndexReader mapReader = mapReaders.get(f);
+				if (mapReader != null && mapReader.getVersion() != IndexConstants.BINARY_MAP_VERSION) {
+					mapReader = null;
 				}
 				boolean wikiMap = WikipediaPlugin.containsWikipediaExtension(fileName);
 				boolean srtmMap = SrtmDownloadItem.containsSrtmExtension(fileName);
@@ -1497,6 +1514,8 @@ public class ResourceManager {
 			r.clearCache();
 		}
 		renderer.clearCache();
+		nameIndexCache.clear();
+		poiTileCache.clear();
 
 		System.gc();
 	}
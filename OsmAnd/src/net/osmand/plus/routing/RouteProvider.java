@@ -697,6 +697,16 @@ public class RouteProvider {
 		}
 		// BUILD context
 		NativeOsmandLibrary lib = settings.SAFE_MODE.get() ? null : NativeOsmandLibrary.getLoadedLibrary();
+		if (lib != null) {
+			for (BinaryMapIndexReader file : files) {
+				if (file.isBlockCompressed()) {
+					// native router can't read block compressed files, java router reads all files
+					log.info("Java routing is used for block compressed " + file.getFile().getName());
+					lib = null;
+					break;
+				}
+			}
+		}
 		// check loaded files
 		int leftX = MapUtils.get31TileNumberX(params.start.getLongitude());
 		int rightX = leftX;
@@ -58,7 +58,9 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import static net.osmand.osm.MapPoiTypes.OSM_WIKI_CATEGORY;
 
@@ -72,6 +74,8 @@ public class QuickSearchHelper implements ResourceListener {
 	public static final int SEARCH_WPT_OBJECT_PRIORITY = 152;
 	public static final int SEARCH_TRACK_API_PRIORITY = 150;
 	public static final int SEARCH_TRACK_OBJECT_PRIORITY = 153;
+	public static final int SEARCH_TRACK_NEARBY_OBJECT_PRIORITY = 152;
+	public static final int SEARCH_TRACK_NEARBY_RADIUS = 5000;
 	public static final int SEARCH_INDEX_ITEM_API_PRIORITY = 150;
 	public static final int SEARCH_INDEX_ITEM_PRIORITY = 150;
 	public static final int SEARCH_HISTORY_API_PRIORITY = 150;
@@ -542,6 +546,10 @@ public class QuickSearchHelper implements ResourceListener {
 			File tracksDir = app.getAppPath(IndexConstants.GPX_INDEX_DIR);
 			List<GPXInfo> gpxInfoList = new ArrayList<>();
 			GpxUiHelper.readGpxDirectory(tracksDir, gpxInfoList, "", false);
+			LatLon searchLocation = phrase.getSettings().getOriginalLocation();
+			Map<File, LatLon> nearbyTracks = searchLocation != null
+					? app.getGpxDbHelper().searchTracksNearby(searchLocation, SEARCH_TRACK_NEARBY_RADIUS)
+					: Collections.emptyMap();
 			for (GPXInfo gpxInfo : gpxInfoList) {
 				SearchResult searchResult = new SearchResult(phrase);
 				searchResult.objectType = ObjectType.GPX_TRACK;
@@ -549,6 +557,13 @@ public class QuickSearchHelper implements ResourceListener {
 				searchResult.relatedObject = gpxInfo;
 				searchResult.priority = SEARCH_TRACK_OBJECT_PRIORITY;
 				searchResult.preferredZoom = 17;
+				LatLon trackLocation = nearbyTracks.get(new File(tracksDir, gpxInfo.getFileName()));
+				if (trackLocation != null) {
+					// tracks passing near search location go first, nearest track first
+					searchResult.location = trackLocation;
+					searchResult.priority = SEARCH_TRACK_NEARBY_OBJECT_PRIORITY;
+					searchResult.priorityDistance = 1;
+				}
 				if (phrase.getFullSearchPhrase().length() <= 1 && phrase.isNoSelectedType()) {
 					resultMatcher.publish(searchResult);
 				} else if (phrase.getFirstUnknownNameStringMatcher().matches(searchResult.localeName)) {
@@ -6,25 +6,46 @@ import android.os.AsyncTask;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
-import net.osmand.GPXUtilities;
+import net.osmand.GPXBinaryCache;
+import net.osmand.GPXSpatialIndex;
+import net.osmand.GPXSpatialIndex.TrackRange;
 import net.osmand.GPXUtilities.GPXFile;
 import net.osmand.GPXUtilities.GPXTrackAnalysis;
+import net.osmand.IndexConstants;
+import net.osmand.PlatformUtil;
+import net.osmand.data.LatLon;
 import net.osmand.plus.OsmandApplication;
 import net.osmand.plus.track.helpers.GPXDatabase.GpxDataItem;
 import net.osmand.plus.api.SQLiteAPI.SQLiteConnection;
 import net.osmand.plus.track.GpxSplitType;
+import net.osmand.util.MapUtils;
+
+import org.apache.commons.logging.Log;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class GpxDbHelper {
 
+	private static final Log log = PlatformUtil.getLog(GpxDbHelper.class);
+
 	private static final int MAX_ITEMS_CACHE_SIZE = 5000;
+	private static final String GPX_CACHE_DIR = "gpx_cache";
 
+	private final OsmandApplication app;
 	private final GPXDatabase db;
+	private final File gpxCacheDir;
+	private final File spatialIndexFile;
+	private final ExecutorService spatialIndexExecutor = Executors.newSingleThreadExecutor();
+	private volatile GPXSpatialIndex spatialIndex;
 	private final Map<File, GpxDataItem> itemsCache = new ConcurrentHashMap<>();
 
 	private final ConcurrentLinkedQueue<File> readingItems = new ConcurrentLinkedQueue<>();
@@ -40,7 +61,95 @@ public class GpxDbHelper {
 	}
 
 	public GpxDbHelper(@NonNull OsmandApplication app) {
+		this.app = app;
 		db = new GPXDatabase(app);
+		gpxCacheDir = new File(app.getCacheDir(), GPX_CACHE_DIR);
+		spatialIndexFile = new File(gpxCacheDir, GPXSpatialIndex.FILE_NAME);
+	}
+
+	/**
+	 * Loads track from its binary cache, file is parsed and cache is written again
+	 * when length or modification time of file changed.
+	 */
+	@NonNull
+	public GPXFile loadGpxFile(@NonNull File file) {
+		return GPXBinaryCache.loadGPXFile(file, gpxCacheDir);
+	}
+
+	private void removeCachedGpx(@NonNull File file) {
+		GPXBinaryCache.getCacheFile(file, gpxCacheDir).delete();
+		GPXSpatialIndex index = spatialIndex;
+		if (index != null && index.removeFile(file.getAbsolutePath())) {
+			saveSpatialIndex(index);
+		}
+	}
+
+	/**
+	 * Loads spatial index of tracks and reindexes tracks which were added or changed since last run
+	 * in background, tracks are streamed without loading them to memory.
+	 */
+	public void updateSpatialIndex() {
+		spatialIndexExecutor.execute(() -> {
+			GPXSpatialIndex index = spatialIndex;
+			if (index == null) {
+				index = GPXSpatialIndex.load(spatialIndexFile);
+			}
+			List<File> files = new ArrayList<>();
+			collectGpxFiles(app.getAppPath(IndexConstants.GPX_INDEX_DIR), files);
+			spatialIndex = index;
+			if (index.update(files)) {
+				saveSpatialIndex(index);
+			}
+		});
+	}
+
+	private void saveSpatialIndex(@NonNull GPXSpatialIndex index) {
+		spatialIndexExecutor.execute(() -> {
+			try {
+				gpxCacheDir.mkdirs();
+				index.save(spatialIndexFile);
+			} catch (IOException e) {
+				log.error("Error saving gpx spatial index", e);
+			}
+		});
+	}
+
+	private static void collectGpxFiles(@NonNull File dir, @NonNull List<File> files) {
+		File[] listFiles = dir.listFiles();
+		if (listFiles != null) {
+			for (File file : listFiles) {
+				if (file.isDirectory()) {
+					collectGpxFiles(file, files);
+				} else if (file.getName().toLowerCase().endsWith(IndexConstants.GPX_FILE_EXT)) {
+					files.add(file);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return tracks passing within radius of location with their nearest indexed point,
+	 * empty until spatial index is loaded
+	 */
+	@NonNull
+	public Map<File, LatLon> searchTracksNearby(@NonNull LatLon location, int radiusMeters) {
+		Map<File, LatLon> result = new HashMap<>();
+		GPXSpatialIndex index = spatialIndex;
+		if (index == null) {
+			return result;
+		}
+		Map<File, Double> distances = new HashMap<>();
+		for (TrackRange range : index.searchNearby(location.getLatitude(), location.getLongitude(), radiusMeters)) {
+			File file = new File(range.path);
+			LatLon start = new LatLon(MapUtils.get31LatitudeY(range.startY31), MapUtils.get31LongitudeX(range.startX31));
+			double distance = MapUtils.getDistance(location, start);
+			Double nearest = distances.get(file);
+			if (nearest == null || distance < nearest) {
+				distances.put(file, distance);
+				result.put(file, start);
+			}
+		}
+		return result;
 	}
 
 	public void loadGpxItems() {
@@ -67,6 +176,7 @@ public class GpxDbHelper {
 
 	public boolean rename(File currentFile, File newFile) {
 		GpxDataItem item = itemsCache.get(currentFile);
+		removeCachedGpx(currentFile);
 		return db.rename(item, currentFile, newFile);
 	}
 
@@ -138,12 +248,14 @@ public class GpxDbHelper {
 	public boolean remove(File file) {
 		boolean res = db.remove(file);
 		itemsCache.remove(file);
+		removeCachedGpx(file);
 		return res;
 	}
 
 	public boolean remove(GpxDataItem item) {
 		boolean res = db.remove(item);
 		itemsCache.remove(item.getFile());
+		removeCachedGpx(item.getFile());
 		return res;
 	}
 
@@ -251,7 +363,8 @@ public class GpxDbHelper {
 							item = db.getItem(gpxFile, conn);
 						}
 						if (isAnalyseNeeded(gpxFile, item)) {
-							GPXFile f = GPXUtilities.loadGPXFile(gpxFile);
+							GPXFile f = loadGpxFile(gpxFile);
+							updateSpatialIndex(gpxFile, f);
 							GPXTrackAnalysis analysis = f.getAnalysis(gpxFile.lastModified());
 							if (item == null || item.getFile() == null) {
 								item = new GpxDataItem(gpxFile, analysis);
@@ -278,6 +391,16 @@ public class GpxDbHelper {
 			return null;
 		}
 
+		private void updateSpatialIndex(@NonNull File file, @NonNull GPXFile gpx) {
+			GPXSpatialIndex index = spatialIndex;
+			File tracksDir = app.getAppPath(IndexConstants.GPX_INDEX_DIR);
+			if (index != null && gpx.error == null && !index.isIndexed(file)
+					&& file.getAbsolutePath().startsWith(tracksDir.getAbsolutePath())) {
+				index.updateFile(file, gpx);
+				saveSpatialIndex(index);
+			}
+		}
+
 		@Override
 		protected void onCancelled(Void aVoid) {
 			readingItems.clear();
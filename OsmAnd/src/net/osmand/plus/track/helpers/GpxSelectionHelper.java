@@ -224,7 +224,7 @@ public class GpxSelectionHelper {
 						if (p != null) {
 							p.startTask(app.getString(R.string.loading_smth, fl.getName()), -1);
 						}
-						GPXFile gpx = GPXUtilities.loadGPXFile(fl);
+						GPXFile gpx = app.getGpxDbHelper().loadGpxFile(fl);
 						if (obj.has(COLOR)) {
 							int color = GPXUtilities.parseColor(obj.getString(COLOR), 0);
 							gpx.setColor(color);
@@ -495,7 +495,7 @@ public class GpxSelectionHelper {
 					break;
 				}
 				if (!gpxFile.showCurrentTrack) {
-					gpxFile = GPXUtilities.loadGPXFile(new File(gpxFile.path));
+					gpxFile = app.getGpxDbHelper().loadGpxFile(new File(gpxFile.path));
 				}
 				GpxSelectionParams params = GpxSelectionParams.newInstance()
 						.showOnMap().selectedByUser().syncGroup()
@@ -13,6 +13,7 @@ import net.osmand.GPXUtilities.GPXTrackAnalysis;
 import net.osmand.GPXUtilities.Track;
 import net.osmand.GPXUtilities.TrkSegment;
 import net.osmand.GPXUtilities.WptPt;
+import net.osmand.IncrementalTrackAnalysis;
 import net.osmand.IndexConstants;
 import net.osmand.PlatformUtil;
 import net.osmand.data.LatLon;
@@ -78,6 +79,7 @@ public class SavingTrackHelper extends SQLiteOpenHelper {
 	private float distance;
 	private long duration;
 	private final SelectedGpxFile currentTrack;
+	private IncrementalTrackAnalysis currentTrackAnalysis;
 	private int points;
 	private int trkPoints;
 	private long lastTimeFileSaved;
@@ -94,6 +96,7 @@ public class SavingTrackHelper extends SQLiteOpenHelper {
 		gx.showCurrentTrack = true;
 		this.currentTrack.setGpxFile(gx, ctx);
 		prepareCurrentTrackForRecording();
+		resetCurrentTrackAnalysis();
 	}
 
 	@Override
@@ -280,6 +283,7 @@ public class SavingTrackHelper extends SQLiteOpenHelper {
 		currentTrack.getModifiableGpxFile().modifiedTime = currentTimeMillis;
 		currentTrack.getModifiableGpxFile().pointsModifiedTime = currentTimeMillis;
 		prepareCurrentTrackForRecording();
+		resetCurrentTrackAnalysis();
 	}
 
 	public Map<String, GPXFile> collectRecordedData() {
@@ -512,6 +516,14 @@ public class SavingTrackHelper extends SQLiteOpenHelper {
 			TrkSegment lt = track.segments.get(track.segments.size() - 1);
 			lt.points.add(pt);
 		}
+		if (currentTrackAnalysis != null) {
+			if (segmentAdded) {
+				currentTrackAnalysis.startSegment();
+			}
+			if (pt != null) {
+				currentTrackAnalysis.addPoint(pt);
+			}
+		}
 		if (segmentAdded) {
 			currentTrack.processPoints(ctx);
 		}
@@ -706,6 +718,7 @@ public class SavingTrackHelper extends SQLiteOpenHelper {
 			ctx.getSelectedGpxHelper().addPoints(entry.getValue().getPoints(), currentTrack.getModifiableGpxFile());
 			currentTrack.getModifiableGpxFile().tracks.addAll(entry.getValue().tracks);
 		}
+		resetCurrentTrackAnalysis();
 		currentTrack.processPoints(ctx);
 		prepareCurrentTrackForRecording();
 		GPXTrackAnalysis analysis = currentTrack.getModifiableGpxFile().getAnalysis(System.currentTimeMillis());
@@ -725,6 +738,29 @@ public class SavingTrackHelper extends SQLiteOpenHelper {
 		}
 	}
 
+	/**
+	 * Recorded points are analysed once when they are added. Points are added to the last segment of
+	 * the first track, so analysis follows order of file only while there is no other track
+	 */
+	private void resetCurrentTrackAnalysis() {
+		GPXFile gpxFile = currentTrack.getModifiableGpxFile();
+		currentTrackAnalysis = null;
+		if (gpxFile.tracks.size() <= 1) {
+			currentTrackAnalysis = new IncrementalTrackAnalysis();
+			for (Track track : gpxFile.tracks) {
+				for (TrkSegment segment : track.segments) {
+					if (!segment.generalSegment) {
+						currentTrackAnalysis.startSegment();
+						for (WptPt point : segment.points) {
+							currentTrackAnalysis.addPoint(point);
+						}
+					}
+				}
+			}
+		}
+		currentTrack.setIncrementalAnalysis(currentTrackAnalysis);
+	}
+
 	public boolean getIsRecording() {
 		return OsmandPlugin.isActive(OsmandMonitoringPlugin.class)
 				&& settings.SAVE_GLOBAL_TRACK_TO_GPX.get() || isRecordingAutomatically();
@@ -6,6 +6,7 @@ import androidx.annotation.Nullable;
 import net.osmand.GPXUtilities.GPXFile;
 import net.osmand.GPXUtilities.GPXTrackAnalysis;
 import net.osmand.GPXUtilities.TrkSegment;
+import net.osmand.IncrementalTrackAnalysis;
 import net.osmand.plus.OsmandApplication;
 import net.osmand.plus.track.helpers.GPXDatabase.GpxDataItem;
 import net.osmand.util.Algorithms;
@@ -24,6 +25,8 @@ public class SelectedGpxFile {
 
 	protected GPXFile gpxFile;
 	protected GPXTrackAnalysis trackAnalysis;
+	// analysis of points added to recorded track, used instead of analysing all points of file
+	private IncrementalTrackAnalysis incrementalAnalysis;
 
 	protected Set<String> hiddenGroups = new HashSet<>();
 	protected List<TrkSegment> processedPointsToDisplay = new ArrayList<>();
@@ -75,7 +78,14 @@ public class SelectedGpxFile {
 		long fileTimestamp = Algorithms.isEmpty(gpxFile.path)
 				? System.currentTimeMillis()
 				: new File(gpxFile.path).lastModified();
-		trackAnalysis = gpxFile.getAnalysis(fileTimestamp);
+		if (incrementalAnalysis != null) {
+			trackAnalysis = incrementalAnalysis.getAnalysis(fileTimestamp);
+			trackAnalysis.name = gpxFile.path;
+			trackAnalysis.wptPoints = gpxFile.getPointsSize();
+			trackAnalysis.wptCategoryNames = gpxFile.getWaypointCategories();
+		} else {
+			trackAnalysis = gpxFile.getAnalysis(fileTimestamp);
+		}
 
 		displayGroups = null;
 		splitProcessed = processSplit(app);
@@ -101,6 +111,10 @@ public class SelectedGpxFile {
 		}
 	}
 
+	public void setIncrementalAnalysis(@Nullable IncrementalTrackAnalysis incrementalAnalysis) {
+		this.incrementalAnalysis = incrementalAnalysis;
+	}
+
 	public boolean isRoutePoints() {
 		return routePoints;
 	}
@@ -3,7 +3,8 @@ package net.osmand.plus.views;
 import android.os.AsyncTask;
 
 import net.osmand.GPXUtilities.WptPt;
-import net.osmand.util.MapUtils;
+import net.osmand.util.SimplificationIndex;
+import net.osmand.util.SimplificationIndex.CancellationCallback;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -38,13 +39,17 @@ public abstract class AsynchronousResampler extends AsyncTask<String,Integer,Str
 
             int nsize = rs.points.size();
             if (nsize > 0) {
-                boolean[] survivor = new boolean[nsize];
-                cullRamerDouglasPeucer(survivor, 0, nsize - 1);
-                if (!isCancelled()) {
+                // importance of points is calculated once and reused for other zooms
+                SimplificationIndex index = rs.getSimplificationIndex(new CancellationCallback() {
+                    @Override
+                    public boolean isCancelled() {
+                        return RamerDouglasPeucer.this.isCancelled();
+                    }
+                });
+                if (index != null && !isCancelled()) {
                     culled = new ArrayList<>();
-                    survivor[0] = true;
                     for (int i = 0; i < nsize; i++) {
-                        if (survivor[i]) {
+                        if (index.isKept(i, epsilon)) {
                             culled.add(rs.points.get(i));
                         }
                     }
@@ -52,29 +57,5 @@ public abstract class AsynchronousResampler extends AsyncTask<String,Integer,Str
             }
             return null;
         }
-
-        private void cullRamerDouglasPeucer(boolean[] survivor, int start, int end) {
-
-            double dmax = Double.NEGATIVE_INFINITY;
-            int index = -1;
-
-            WptPt startPt = rs.points.get(start);
-            WptPt endPt = rs.points.get(end);
-
-            for (int i = start + 1; i < end && !isCancelled(); i++) {
-                WptPt pt = rs.points.get(i);
-                double d = MapUtils.getOrthogonalDistance(pt.lat, pt.lon, startPt.lat, startPt.lon, endPt.lat, endPt.lon);
-                if (d > dmax) {
-                    dmax = d;
-                    index = i;
-                }
-            }
-            if (dmax > epsilon) {
-                cullRamerDouglasPeucer(survivor, start, index);
-                cullRamerDouglasPeucer(survivor, index, end);
-            } else {
-                survivor[end] = true;
-            }
-        }
     }
 }
@@ -21,6 +21,8 @@ import net.osmand.plus.views.layers.geometry.GpxGeometryWay;
 import net.osmand.router.RouteSegmentResult;
 import net.osmand.util.Algorithms;
 import net.osmand.util.MapUtils;
+import net.osmand.util.SimplificationIndex;
+import net.osmand.util.SimplificationIndex.CancellationCallback;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -68,6 +70,7 @@ public class Renderable {
 
         public List<WptPt> points;                           // Original list of points
         protected List<WptPt> culled = new ArrayList<>();    // Reduced/resampled list of points
+        private SimplificationIndex simplificationIndex;     // Douglas-Peucker importance of points for all zooms
         protected int pointSize;
         protected double segmentSize;
 
@@ -173,6 +176,29 @@ public class Renderable {
             culled = cull;
         }
 
+        /**
+         * @return index of current points or null if its calculation is cancelled
+         */
+        @Nullable
+        public synchronized SimplificationIndex getSimplificationIndex(@Nullable CancellationCallback cancellation) {
+            int size = points.size();
+            if (simplificationIndex == null || simplificationIndex.getPointsCount() != size) {
+                double[] lats = new double[size];
+                double[] lons = new double[size];
+                for (int i = 0; i < size; i++) {
+                    WptPt pt = points.get(i);
+                    lats[i] = pt.lat;
+                    lons[i] = pt.lon;
+                }
+                SimplificationIndex index = new SimplificationIndex(lats, lons, cancellation);
+                if (index.isCancelled()) {
+                    return null;
+                }
+                simplificationIndex = index;
+            }
+            return simplificationIndex;
+        }
+
         public List<WptPt> getPointsForDrawing() {
             return culled.isEmpty() ? points : culled;
         }
@@ -18,6 +18,7 @@ import net.osmand.plus.views.layers.geometry.GeometryWayDrawer.DrawPathData31;
 import net.osmand.util.Algorithms;
 import net.osmand.util.MapAlgorithms;
 import net.osmand.util.MapUtils;
+import net.osmand.util.SimplificationIndex;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -35,6 +36,7 @@ public abstract class GeometryWay<T extends GeometryWayContext, D extends Geomet
 	private final T context;
 	private final D drawer;
 	private GeometryWayProvider locationProvider;
+	private SimplificationIndex simplificationIndex;
 	protected Map<Integer, GeometryWayStyle<?>> styleMap = Collections.emptyMap();
 	protected TreeMap<Integer, PathGeometryZoom> zooms = new TreeMap<>();
 
@@ -136,6 +138,7 @@ public abstract class GeometryWay<T extends GeometryWayContext, D extends Geomet
 		this.styleMap = styleMap == null ? Collections.emptyMap() : styleMap;
 		this.mapDensity = tb.getMapDensity();
 		this.zooms = new TreeMap<>();
+		this.simplificationIndex = null;
 		clearPathCache();
 	}
 
@@ -148,6 +151,7 @@ public abstract class GeometryWay<T extends GeometryWayContext, D extends Geomet
 		this.styleMap = styleMap == null ? Collections.emptyMap() : styleMap;
 		this.mapDensity = tb.getMapDensity();
 		this.zooms = new TreeMap<>();
+		this.simplificationIndex = null;
 		clearPathCache();
 	}
 
@@ -155,6 +159,7 @@ public abstract class GeometryWay<T extends GeometryWayContext, D extends Geomet
 		this.locationProvider = null;
 		this.styleMap = Collections.emptyMap();
 		this.zooms = new TreeMap<>();
+		this.simplificationIndex = null;
 		resetSymbolProviders();
 		clearPathCache();
 	}
@@ -181,12 +186,33 @@ public abstract class GeometryWay<T extends GeometryWayContext, D extends Geomet
 		int zoom = tb.getZoom();
 		PathGeometryZoom zm = zooms.size() > zoom ? zooms.get(zoom) : null;
 		if (zm == null) {
-			zm = new PathGeometryZoom(locationProvider, tb, tb.getZoom() < context.getSimplificationZoom());
+			boolean simplify = tb.getZoom() < context.getSimplificationZoom();
+			zm = new PathGeometryZoom(locationProvider, tb, simplify, simplify ? getSimplificationIndex() : null);
 			zooms.put(zoom, zm);
 		}
 		return zm;
 	}
 
+	@NonNull
+	protected SimplificationIndex getSimplificationIndex() {
+		if (simplificationIndex == null) {
+			simplificationIndex = createSimplificationIndex(locationProvider);
+		}
+		return simplificationIndex;
+	}
+
+	@NonNull
+	private static SimplificationIndex createSimplificationIndex(@NonNull GeometryWayProvider locationProvider) {
+		int size = locationProvider.getSize();
+		double[] lats = new double[size];
+		double[] lons = new double[size];
+		for (int i = 0; i < size; i++) {
+			lats[i] = locationProvider.getLatitude(i);
+			lons[i] = locationProvider.getLongitude(i);
+		}
+		return new SimplificationIndex(lats, lons);
+	}
+
 	@NonNull
 	public abstract GeometryWayStyle<?> getDefaultWayStyle();
 
@@ -676,9 +702,17 @@ public abstract class GeometryWay<T extends GeometryWayContext, D extends Geomet
 		private final TByteArrayList simplifyPoints;
 		private final List<Double> distances;
 		private final List<Double> angles;
+		@Nullable
+		private final SimplificationIndex simplificationIndex;
 
 		public PathGeometryZoom(GeometryWayProvider locationProvider, RotatedTileBox tb, boolean simplify) {
+			this(locationProvider, tb, simplify, null);
+		}
+
+		public PathGeometryZoom(GeometryWayProvider locationProvider, RotatedTileBox tb, boolean simplify,
+		                        @Nullable SimplificationIndex simplificationIndex) {
 			//  this.locations = locations;
+			this.simplificationIndex = simplificationIndex;
 			tb = new RotatedTileBox(tb);
 			tb.setZoomAndAnimation(tb.getZoom(), 0, tb.getZoomFloatPart());
 			int size = locationProvider.getSize();
@@ -721,7 +755,13 @@ public abstract class GeometryWay<T extends GeometryWayContext, D extends Geomet
 			}
 			double distInPix = (tb.getDistance(0, 0, tb.getPixWidth(), 0) / tb.getPixWidth());
 			double cullDistance = (distInPix * (EPSILON_IN_DPI * Math.max(1, tb.getDensity())));
-			cullRamerDouglasPeucker(simplifyPoints, locationProvider, 0, size - 1, cullDistance);
+			SimplificationIndex index = simplificationIndex != null
+					? simplificationIndex : createSimplificationIndex(locationProvider);
+			for (int i = 1; i < size; i++) {
+				if (index.isKept(i, cullDistance)) {
+					simplifyPoints.set(i, (byte) 1);
+				}
+			}
 		}
 
 		public List<Double> getDistances() {
@@ -732,27 +772,6 @@ public abstract class GeometryWay<T extends GeometryWayContext, D extends Geomet
 			return angles;
 		}
 
-		private void cullRamerDouglasPeucker(TByteArrayList survivor, GeometryWayProvider locationProvider,
-											 int start, int end, double epsillon) {
-			double dmax = Double.NEGATIVE_INFINITY;
-			int index = -1;
-			for (int i = start + 1; i < end; i++) {
-				double d = MapUtils.getOrthogonalDistance(locationProvider.getLatitude(i), locationProvider.getLongitude(i),
-						locationProvider.getLatitude(start), locationProvider.getLongitude(start),
-						locationProvider.getLatitude(end), locationProvider.getLongitude(end));
-				if (d > dmax) {
-					dmax = d;
-					index = i;
-				}
-			}
-			if (dmax > epsillon) {
-				cullRamerDouglasPeucker(survivor, locationProvider, start, index, epsillon);
-				cullRamerDouglasPeucker(survivor, locationProvider, index, end, epsillon);
-			} else {
-				survivor.set(end, (byte) 1);
-			}
-		}
-
 		public TByteArrayList getSimplifyPoints() {
 			return simplifyPoints;
 		}
@@ -216,14 +216,14 @@ public class StreetNameWidget extends MapWidget {
 		StringBuilder additional = new StringBuilder();
 		for (int i = 0; i < object.nameIds.length; i++) {
 			String key = object.region.routeEncodingRules.get(object.nameIds[i]).getTag();
-			String val = object.names.get(object.nameIds[i]);
+			String val = object.getNames().get(object.nameIds[i]);
 			if (!key.endsWith("_ref") && !key.startsWith("route_road")) {
 				additional.append(key).append("=").append(val).append(";");
 			}
 		}
 		for (int i = 0; i < object.nameIds.length; i++) {
 			String key = object.region.routeEncodingRules.get(object.nameIds[i]).getTag();
-			String val = object.names.get(object.nameIds[i]);
+			String val = object.getNames().get(object.nameIds[i]);
 			if (key.startsWith("route_road") && key.endsWith("_ref")) {
 				boolean visible = setRoadShield(object, key, val, additional);
 				if (visible) {